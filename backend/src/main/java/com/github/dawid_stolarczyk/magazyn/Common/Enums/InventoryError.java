@@ -41,6 +41,9 @@ public enum InventoryError {
 
     OUTBOUND_FIFO_VIOLATION,
     OUTBOUND_ASSORTMENT_EXPIRED,
+    OUTBOUND_PLAN_CURSOR_INVALID,
+    OUTBOUND_DUPLICATE_ASSORTMENT,
+    ASSORTMENT_LOCKED,
 
     // Rack update errors
     RACK_HAS_DANGEROUS_ITEMS,
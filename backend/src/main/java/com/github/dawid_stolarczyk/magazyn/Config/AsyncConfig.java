@@ -1,14 +1,19 @@
 package com.github.dawid_stolarczyk.magazyn.Config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
 @RequiredArgsConstructor
-public class AsyncConfig {
+public class AsyncConfig implements AsyncConfigurer {
 
 
     @Bean(name = "asyncTaskExecutor")
@@ -23,4 +28,49 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Dedicated pool for SMTP traffic (outbox worker and direct sends), so a mail storm
+     * cannot occupy the shared executor used by backups and image uploads.
+     * When the queue is full the submitting thread sends the email itself.
+     */
+    @Bean(name = "mailTaskExecutor")
+    public AsyncTaskExecutor mailTaskExecutor(@Value("${app.mail.workers:2}") int workers,
+                                              @Value("${app.mail.queue-capacity:200}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Bounded pool for the extra starts of {@link com.github.dawid_stolarczyk.magazyn.Services.Inventory.PickRouteSolver},
+     * so CPU-heavy wave planning never runs on the common ForkJoin pool. When the queue is full the
+     * extra starts are rejected and skipped - the route computed on the request thread is still returned.
+     */
+    @Bean(name = "pickRouteExecutor")
+    public AsyncTaskExecutor pickRouteExecutor(@Value("${app.outbound.route.workers:2}") int workers,
+                                               @Value("${app.outbound.route.queue-capacity:16}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pick-route-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Plain {@code @Async} keeps using the shared executor now that more than one executor bean exists.
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return asyncTaskExecutor();
+    }
 }
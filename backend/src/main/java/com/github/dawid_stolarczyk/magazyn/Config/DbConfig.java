@@ -1,14 +1,21 @@
 package com.github.dawid_stolarczyk.magazyn.Config;
 
+import com.github.dawid_stolarczyk.magazyn.Services.Inventory.PositionReservationStore;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Database configuration class.
@@ -22,6 +29,14 @@ import javax.sql.DataSource;
 public class DbConfig {
 
     private final DataSource dataSource;
+    private final PositionReservationStore reservationStore;
+
+    /**
+     * The legacy position_reservations table is only dropped once this is enabled, i.e. after the
+     * Redis-backed release is final and a rollback to the table-backed version is no longer needed.
+     */
+    @Value("${app.reservations.drop-legacy-table:false}")
+    private boolean dropLegacyReservationTable;
 
     /**
      * Initializes PostgreSQL pgvector extension and creates optimized index for image similarity search.
@@ -61,6 +76,9 @@ public class DbConfig {
                 );
                 log.info("Alert idempotency index created successfully");
 
+                // Position reservations moved to Redis (PositionReservationStore) - one-off copy of the old table
+                migrateLegacyPositionReservations(jdbcTemplate);
+
                 // Update alerts table to allow warehouse_id to be nullable
                 log.info("Updating alerts.warehouse_id to be nullable...");
                 try {
@@ -102,8 +120,8 @@ public class DbConfig {
                     log.info("image_embedding column may already be removed: {}", e.getMessage());
                 }
 
-                // Update alert_type check constraint to include ADMIN_MESSAGE
-                log.info("Updating alert_type check constraint to include ADMIN_MESSAGE...");
+                // Update alert_type check constraint to match AlertType
+                log.info("Updating alert_type check constraint...");
                 try {
                     jdbcTemplate.execute("ALTER TABLE alerts DROP CONSTRAINT IF EXISTS alerts_alert_type_check");
                     jdbcTemplate.execute(
@@ -121,7 +139,12 @@ public class DbConfig {
                                     "'ASSORTMENT_CLOSE_TO_EXPIRY', " +
                                     "'BACKUP_COMPLETED', " +
                                     "'BACKUP_FAILED', " +
-                                    "'ADMIN_MESSAGE'" +
+                                    "'ADMIN_MESSAGE', " +
+                                    "'UNAUTHORIZED_OUTBOUND', " +
+                                    "'RESTORE_COMPLETED', " +
+                                    "'RESTORE_FAILED', " +
+                                    "'TEMPERATURE_FORECAST_TOO_HIGH', " +
+                                    "'TEMPERATURE_FORECAST_TOO_LOW'" +
                                     "))"
                     );
                     log.info("alert_type check constraint updated successfully");
@@ -137,6 +160,47 @@ public class DbConfig {
         }
     }
 
+    /**
+     * Copies still active reservations from the legacy position_reservations table into Redis, so positions
+     * reserved through a node running the previous version stay blocked during a rolling deploy.
+     * Idempotent: re-copying renews a reservation for the same user. The table itself is kept (rollback
+     * remains possible) until {@code app.reservations.drop-legacy-table} is enabled.
+     */
+    private void migrateLegacyPositionReservations(JdbcTemplate jdbcTemplate) {
+        try {
+            Boolean exists = jdbcTemplate.queryForObject(
+                    "SELECT to_regclass('position_reservations') IS NOT NULL", Boolean.class);
+            if (!Boolean.TRUE.equals(exists)) {
+                return;
+            }
+
+            Map<Map.Entry<Long, Timestamp>, List<PositionReservationStore.Position>> positionsByOwner = new LinkedHashMap<>();
+            jdbcTemplate.query(
+                    "SELECT rack_id, position_x, position_y, reserved_by, expires_at FROM position_reservations " +
+                            "WHERE expires_at > NOW() AND reserved_by IS NOT NULL",
+                    rs -> {
+                        positionsByOwner.computeIfAbsent(Map.entry(rs.getLong("reserved_by"), rs.getTimestamp("expires_at")),
+                                        ignored -> new ArrayList<>())
+                                .add(new PositionReservationStore.Position(
+                                        rs.getLong("rack_id"), rs.getInt("position_x"), rs.getInt("position_y")));
+                    });
+            int copied = 0;
+            for (Map.Entry<Map.Entry<Long, Timestamp>, List<PositionReservationStore.Position>> entry : positionsByOwner.entrySet()) {
+                if (reservationStore.reserveAll(entry.getValue(), entry.getKey().getKey(), entry.getKey().getValue().toInstant())) {
+                    copied += entry.getValue().size();
+                }
+            }
+            log.info("Copied {} active position reservation(s) from the legacy table to Redis", copied);
+
+            if (dropLegacyReservationTable) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS position_reservations");
+                log.info("Dropped legacy position_reservations table");
+            }
+        } catch (Exception e) {
+            log.warn("Position reservations migration encountered an issue (may be safe to ignore): {}", e.getMessage());
+        }
+    }
+
     /**
      * Migrates existing item photo_url and image_embedding data to item_images table.
      * Idempotent: only inserts for items that don't already have an item_image record.
@@ -10,6 +10,8 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Configuration;
 
 import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class S3Config {
@@ -21,6 +23,8 @@ public class S3Config {
     private String accessKey;
     @Value("${app.s3.secret-key}")
     private String secretKey;
+    @Value("${app.s3.transfer.pool-size:8}")
+    private int transferPoolSize;
 
     @Bean
     // Standard S3 SDK deprecates some builder methods used for path-style access and checksums
@@ -38,4 +42,17 @@ public class S3Config {
                         AwsBasicCredentials.create(accessKey, secretKey)))
                 .build();
     }
+
+    /**
+     * Runs the individual part uploads and ranged GETs of parallel S3 transfers.
+     */
+    @Bean(name = "s3TransferExecutor")
+    public ExecutorService s3TransferExecutor() {
+        return Executors.newFixedThreadPool(transferPoolSize, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("s3-transfer-" + thread.getId());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
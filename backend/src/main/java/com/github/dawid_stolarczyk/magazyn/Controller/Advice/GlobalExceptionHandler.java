@@ -4,6 +4,7 @@ import com.github.dawid_stolarczyk.magazyn.Common.Enums.AuthError;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.ResponseTemplate;
 import com.github.dawid_stolarczyk.magazyn.Exception.AuthenticationException;
 import com.github.dawid_stolarczyk.magazyn.Exception.RateLimitExceededException;
+import com.github.dawid_stolarczyk.magazyn.Exception.ResourceLockedException;
 import com.github.dawid_stolarczyk.magazyn.Exception.TwoFactorNotVerifiedException;
 import com.github.dawid_stolarczyk.magazyn.Exceptions.BackupException;
 import com.github.dawid_stolarczyk.magazyn.Exceptions.ReportException;
@@ -44,6 +45,14 @@ public class GlobalExceptionHandler {
                 .body(ResponseTemplate.error("RATE_LIMIT_EXCEEDED"));
     }
 
+    @ExceptionHandler(ResourceLockedException.class)
+    public ResponseEntity<ResponseTemplate<String>> handleResourceLocked(ResourceLockedException ex) {
+        log.debug("Resource locked: {}", ex.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ResponseTemplate.error(ex.getMessage()));
+    }
+
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ResponseTemplate<String>> handleAccessDenied(AccessDeniedException ex) {
         log.debug("Access denied", ex);
@@ -81,10 +90,11 @@ public class GlobalExceptionHandler {
         return switch (errorCode) {
             case "WAREHOUSE_NOT_FOUND", "BACKUP_NOT_FOUND", "NO_WAREHOUSES_FOUND", "NO_COMPLETED_BACKUP",
                  "SCHEDULE_NOT_FOUND", "BACKUP_CORRUPTED", "RACK_MAPPING_NOT_FOUND",
-                 "ITEM_MAPPING_NOT_FOUND" -> HttpStatus.NOT_FOUND;
+                 "ITEM_MAPPING_NOT_FOUND", "BACKUP_CHAIN_BROKEN" -> HttpStatus.NOT_FOUND;
             case "WAREHOUSE_ACCESS_DENIED" -> HttpStatus.FORBIDDEN;
             case "BACKUP_ALREADY_IN_PROGRESS", "RESTORE_ALREADY_IN_PROGRESS",
-                 "BACKUP_LOCK_ACQUISITION_FAILED", "RESTORE_LOCK_ACQUISITION_FAILED" -> HttpStatus.CONFLICT;
+                 "BACKUP_LOCK_ACQUISITION_FAILED", "RESTORE_LOCK_ACQUISITION_FAILED",
+                 "BACKUP_HAS_DEPENDENTS" -> HttpStatus.CONFLICT;
             case "BACKUP_TIMEOUT" -> HttpStatus.REQUEST_TIMEOUT;
             default -> HttpStatus.INTERNAL_SERVER_ERROR;
         };
@@ -2,7 +2,11 @@ package com.github.dawid_stolarczyk.magazyn.Controller.Alerts;
 
 import com.github.dawid_stolarczyk.magazyn.Common.ConfigurationConstants;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.*;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.TelemetryResolution;
 import com.github.dawid_stolarczyk.magazyn.Services.Alerts.RackReportService;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.TelemetryIngestionService;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.TelemetryRollupService;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.TelemetryTrendService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,11 +18,15 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+import java.util.List;
+
 /**
  * Controller for managing rack status reports from sensors/measurements.
  * Reports are processed to detect anomalies and generate alerts.
@@ -30,6 +38,9 @@ import org.springframework.web.bind.annotation.*;
 public class RackReportController {
 
     private final RackReportService rackReportService;
+    private final TelemetryIngestionService telemetryIngestionService;
+    private final TelemetryRollupService telemetryRollupService;
+    private final TelemetryTrendService telemetryTrendService;
 
     @Operation(summary = "Submit a rack status report",
             description = """
@@ -101,4 +112,97 @@ public class RackReportController {
         return ResponseEntity.ok(ResponseTemplate.success(
                 PagedResponse.from(rackReportService.getAllReportsPaged(request, pageable))));
     }
+
+    @Operation(summary = "Get asynchronous telemetry ingestion metrics [ADMIN only]",
+            description = """
+                    Returns queue depth, capacity and counters of the asynchronous telemetry ingestion
+                    (`POST /v1/telemetry/async`). A growing queue depth or non-zero `rejected` count means
+                    sensors report faster than the workers can persist readings.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TelemetryIngestionStats.class)))
+    })
+    @GetMapping("/ingestion-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ResponseTemplate<TelemetryIngestionStats>> getIngestionStats() {
+        return ResponseEntity.ok(ResponseTemplate.success(telemetryIngestionService.getStats()));
+    }
+
+    @Operation(summary = "Get telemetry history of a rack [ADMIN only]",
+            description = """
+                    Returns weight and temperature of a rack over a time range as min/max/avg per time bucket.
+                    Without `resolution` the finest resolution suitable for the range is picked:
+                    - up to 2 hours - `RAW` (individual reports)
+                    - up to 3 days - `MINUTE`
+                    - up to 180 days - `HOUR`
+                    - longer ranges - `DAY`
+                    
+                    A coarser resolution is used when the finer one is no longer retained for the start of the range.
+                    Defaults to the last 24 hours. Rollups lag behind raw reports by a few minutes.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = TelemetryHistoryResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Error codes: RACK_NOT_FOUND, INVALID_DATE_RANGE",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class)))
+    })
+    @GetMapping("/rack/{rackId}/history")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ResponseTemplate<TelemetryHistoryResponse>> getRackHistory(
+            HttpServletRequest request,
+            @PathVariable Long rackId,
+            @Parameter(description = "Start of the range (ISO 8601, inclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+            @Parameter(description = "End of the range (ISO 8601, exclusive)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end,
+            @Parameter(description = "Force a resolution instead of picking one automatically")
+            @RequestParam(required = false) TelemetryResolution resolution) {
+        return ResponseEntity.ok(ResponseTemplate.success(
+                telemetryRollupService.getHistory(rackId, start, end, resolution, request)));
+    }
+
+    @Operation(summary = "Get recent telemetry trend of a rack [ADMIN only]",
+            description = """
+                    Returns the latest reading, moving averages and rates of change (least squares, per minute)
+                    over the last `window` readings of a rack. Served from an in-memory buffer of recent readings
+                    without querying the database - intended for live monitoring screens.
+                    
+                    A rack that has not reported recently returns `samples = 0`.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = RackTelemetryTrend.class)))
+    })
+    @GetMapping("/rack/{rackId}/trend")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ResponseTemplate<RackTelemetryTrend>> getRackTrend(
+            HttpServletRequest request,
+            @PathVariable Long rackId,
+            @Parameter(description = "Number of latest readings for averages and rates (default 10)")
+            @RequestParam(required = false) Integer window,
+            @Parameter(description = "Include all buffered readings")
+            @RequestParam(defaultValue = "true") boolean includePoints) {
+        return ResponseEntity.ok(ResponseTemplate.success(
+                telemetryTrendService.getRackTrend(rackId, window, includePoints, request)));
+    }
+
+    @Operation(summary = "Get recent telemetry trends of all racks in a warehouse [ADMIN only]",
+            description = """
+                    Returns the trend summary (without individual readings) of every rack of the warehouse
+                    that reported recently, ordered by rack ID. Served from memory like the single rack trend.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success")
+    })
+    @GetMapping("/warehouse/{warehouseId}/trend")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ResponseTemplate<List<RackTelemetryTrend>>> getWarehouseTrends(
+            HttpServletRequest request,
+            @PathVariable Long warehouseId,
+            @Parameter(description = "Number of latest readings for averages and rates (default 10)")
+            @RequestParam(required = false) Integer window) {
+        return ResponseEntity.ok(ResponseTemplate.success(
+                telemetryTrendService.getWarehouseTrends(warehouseId, window, request)));
+    }
 }
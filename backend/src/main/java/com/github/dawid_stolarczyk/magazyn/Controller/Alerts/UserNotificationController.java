@@ -1,10 +1,13 @@
 package com.github.dawid_stolarczyk.magazyn.Controller.Alerts;
 
 import com.github.dawid_stolarczyk.magazyn.Common.ConfigurationConstants;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.EmailOutboxStats;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.LiveEventDto;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.PagedResponse;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.ResponseTemplate;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.UserNotificationDto;
 import com.github.dawid_stolarczyk.magazyn.Services.Alerts.UserNotificationService;
+import com.github.dawid_stolarczyk.magazyn.Services.EmailService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -16,8 +19,11 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Controller for managing user-specific notifications.
@@ -30,6 +36,7 @@ import org.springframework.web.bind.annotation.*;
 public class UserNotificationController {
 
     private final UserNotificationService notificationService;
+    private final EmailService emailService;
 
     @Operation(summary = "Get notifications for the current user with optional filtering",
             description = """
@@ -143,4 +150,51 @@ public class UserNotificationController {
             return ResponseEntity.ok(ResponseTemplate.success(0));
         }
     }
+
+    @Operation(summary = "Get the number of unread notifications of the current user",
+            description = "Lightweight counter for the unread badge, served from a cache without querying notifications.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - returns number of unread notifications",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Long.class, example = "3")))
+    })
+    @GetMapping("/unread-count")
+    public ResponseEntity<ResponseTemplate<Long>> getUnreadCount(HttpServletRequest request) {
+        return ResponseEntity.ok(ResponseTemplate.success(notificationService.getMyUnreadCount(request)));
+    }
+
+    @Operation(summary = "Stream live notifications and alert updates",
+            description = """
+                    Opens a server-sent events stream for the logged-in user, replacing polling of notifications and alerts.
+                    Events:
+                    - `connected` - sent once when the stream opens
+                    - `notification` - the user got a new (or again unread) notification
+                    - `alert_updated` - status of an alert in one of the user's warehouses changed (admins: all alerts)
+                    
+                    Event data is a JSON `LiveEventDto`. The stream is closed by the server periodically;
+                    `EventSource` clients reconnect automatically.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = LiveEventDto.class)))
+    })
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(HttpServletRequest request) {
+        return notificationService.openEventStream(request);
+    }
+
+    @Operation(summary = "Get email outbox metrics [ADMIN only]",
+            description = """
+                    Returns the number of pending and abandoned emails in the outbox, send counters and
+                    SMTP latency of the mail worker pool. A growing `pending` count or `oldestPendingAgeSeconds`
+                    means emails are produced faster than the SMTP server accepts them.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = EmailOutboxStats.class)))
+    })
+    @GetMapping("/email-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ResponseTemplate<EmailOutboxStats>> getEmailOutboxStats() {
+        return ResponseEntity.ok(ResponseTemplate.success(emailService.getOutboxStats()));
+    }
 }
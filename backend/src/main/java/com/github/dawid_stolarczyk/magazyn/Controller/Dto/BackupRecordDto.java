@@ -75,4 +75,13 @@ public class BackupRecordDto {
 
     @Schema(description = "Name of user who triggered the backup")
     private String triggeredByName;
+
+    @Schema(description = "Whether the backup only stores assortment changes since its parent", example = "false")
+    private boolean incremental;
+
+    @Schema(description = "ID of the backup this delta builds on, null for a full backup", example = "41")
+    private Long parentBackupId;
+
+    @Schema(description = "Start of the change window stored by an incremental backup")
+    private Instant changesSince;
 }
@@ -0,0 +1,54 @@
+package com.github.dawid_stolarczyk.magazyn.Controller.Dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Metrics of the email outbox and its SMTP worker pool
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Email outbox and SMTP worker metrics")
+public class EmailOutboxStats {
+
+    @Schema(description = "Emails waiting in the outbox (including ones waiting for a retry)", example = "12")
+    private long pending;
+
+    @Schema(description = "Emails abandoned after reaching the retry limit", example = "0")
+    private long failed;
+
+    @Schema(description = "Age of the oldest pending email in seconds", example = "3")
+    private long oldestPendingAgeSeconds;
+
+    @Schema(description = "Emails sent since startup", example = "5400")
+    private long sent;
+
+    @Schema(description = "Failed send attempts since startup", example = "2")
+    private long sendFailures;
+
+    @Schema(description = "Alert digest emails sent since startup", example = "310")
+    private long digestsSent;
+
+    @Schema(description = "Alert messages merged into digests since startup", example = "1850")
+    private long mergedAlerts;
+
+    @Schema(description = "Number of emails in the most recent SMTP batch", example = "8")
+    private int lastBatchSize;
+
+    @Schema(description = "SMTP send time of the most recent batch in milliseconds", example = "420")
+    private long lastSendLatencyMs;
+
+    @Schema(description = "Average SMTP send time per batch in milliseconds", example = "380")
+    private long averageSendLatencyMs;
+
+    @Schema(description = "Number of SMTP worker threads", example = "2")
+    private int workers;
+
+    @Schema(description = "Tasks waiting for an SMTP worker thread", example = "0")
+    private int workerQueueDepth;
+}
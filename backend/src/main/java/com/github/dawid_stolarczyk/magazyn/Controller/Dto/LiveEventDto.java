@@ -0,0 +1,44 @@
+package com.github.dawid_stolarczyk.magazyn.Controller.Dto;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.LiveEventType;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Event pushed to clients over the live event stream
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Live notification/alert event")
+public class LiveEventDto {
+
+    @Schema(description = "Event type (also used as the SSE event name, lower-cased)", example = "NOTIFICATION")
+    private LiveEventType type;
+
+    @Schema(description = "Alert ID", example = "1")
+    private Long alertId;
+
+    @Schema(description = "Warehouse ID of the alert, null for system alerts", example = "1")
+    private Long warehouseId;
+
+    @Schema(description = "Type of the alert", example = "WEIGHT_EXCEEDED")
+    private AlertType alertType;
+
+    @Schema(description = "Current status of the alert", example = "OPEN")
+    private AlertStatus status;
+
+    @Schema(description = "Alert message", example = "Przekroczono maksymalną wagę regału R-01")
+    private String message;
+
+    @Schema(description = "When the event occurred")
+    private Instant occurredAt;
+}
@@ -21,7 +21,7 @@ public class OutboundCheckResponse {
     @Schema(description = "The requested assortment details")
     private OutboundPickSlot requestedAssortment;
 
-    @Schema(description = "Older assortments that should be picked first (empty if FIFO compliant)")
+    @Schema(description = "Oldest assortments that should be picked first, limited by the preview parameter (empty if FIFO compliant)")
     private List<OutboundPickSlot> olderAssortments;
 
     @Schema(description = "Warning message if not FIFO compliant", example = "3 older assortments of the same item exist and should be picked first")
@@ -19,6 +19,9 @@ public class OutboundPickSlot {
     @Schema(description = "Assortment code - GS1-128 barcode", example = "01123456789012341710260205")
     private String assortmentCode;
 
+    @Schema(description = "Item ID", example = "42")
+    private Long itemId;
+
     @Schema(description = "Rack ID", example = "5")
     private Long rackId;
 
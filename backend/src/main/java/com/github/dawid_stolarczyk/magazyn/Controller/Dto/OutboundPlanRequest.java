@@ -23,4 +23,12 @@ public class OutboundPlanRequest {
     @Min(1)
     @Schema(description = "Quantity to pick", example = "5")
     private Integer quantity;
+
+    @Min(1)
+    @Schema(description = "Cursor mode: max number of pick slots per response (capped at 500). When omitted, the whole plan is returned at once.",
+            example = "100")
+    private Integer pageSize;
+
+    @Schema(description = "Cursor mode: nextCursor from the previous response, omit for the first page")
+    private String cursor;
 }
@@ -35,4 +35,7 @@ public class OutboundPlanResponse {
 
     @Schema(description = "Pick slots in FIFO order (oldest first, non-expired only)")
     private List<OutboundPickSlot> pickSlots;
+
+    @Schema(description = "Cursor mode: pass as cursor to get the next page, null when the plan is complete")
+    private String nextCursor;
 }
@@ -0,0 +1,30 @@
+package com.github.dawid_stolarczyk.magazyn.Controller.Dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "FIFO selection result for a single item of an outbound wave")
+public class OutboundWaveLineResult {
+
+    @Schema(description = "Item ID", example = "42")
+    private Long itemId;
+
+    @Schema(description = "Item name", example = "Laptop Dell XPS 15")
+    private String itemName;
+
+    @Schema(description = "Requested quantity", example = "5")
+    private Integer requestedQuantity;
+
+    @Schema(description = "Number of pick slots planned for this item", example = "5")
+    private Integer plannedQuantity;
+
+    @Schema(description = "Warning message if the line cannot be fully planned", example = "Only 3 non-expired assortments available (requested: 5)")
+    private String warning;
+}
@@ -0,0 +1,26 @@
+package com.github.dawid_stolarczyk.magazyn.Controller.Dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request for planning a multi-item outbound wave with a picker route")
+public class OutboundWavePlanRequest {
+
+    @NotEmpty
+    @Size(max = 1000)
+    @Valid
+    @Schema(description = "Order lines (lines with the same item are merged)")
+    private List<OutboundWaveLine> lines;
+}
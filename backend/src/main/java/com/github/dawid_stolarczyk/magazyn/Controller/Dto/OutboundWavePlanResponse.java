@@ -0,0 +1,26 @@
+package com.github.dawid_stolarczyk.magazyn.Controller.Dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outbound wave plan: FIFO selection per item and the picker route across racks")
+public class OutboundWavePlanResponse {
+
+    @Schema(description = "Per-item selection results")
+    private List<OutboundWaveLineResult> lines;
+
+    @Schema(description = "Pick slots of all lines in route order")
+    private List<OutboundPickSlot> route;
+
+    @Schema(description = "Estimated route length in rack-position units (zone = 100, aisle = 10, position = 1)", example = "245")
+    private Long routeDistance;
+}
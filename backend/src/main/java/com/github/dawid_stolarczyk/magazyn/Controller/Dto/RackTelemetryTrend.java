@@ -0,0 +1,57 @@
+package com.github.dawid_stolarczyk.magazyn.Controller.Dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Recent telemetry trend of a rack, computed from the in-memory reading buffer
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Recent telemetry trend of a rack")
+public class RackTelemetryTrend {
+
+    @Schema(description = "Rack ID", example = "1")
+    private Long rackId;
+
+    @Schema(description = "Warehouse ID", example = "1")
+    private Long warehouseId;
+
+    @Schema(description = "Number of buffered readings (0 when the rack has not reported recently)", example = "120")
+    private int samples;
+
+    @Schema(description = "Number of latest readings used for the moving averages and rates", example = "10")
+    private int window;
+
+    @Schema(description = "Time of the latest reading", example = "2026-01-15T10:00:00Z")
+    private Instant latestAt;
+
+    @Schema(description = "Latest weight in kg", example = "121.3")
+    private Float latestWeight;
+
+    @Schema(description = "Latest temperature in °C", example = "4.4")
+    private Float latestTemperature;
+
+    @Schema(description = "Average weight over the window in kg", example = "120.9")
+    private Float movingAverageWeight;
+
+    @Schema(description = "Average temperature over the window in °C", example = "4.2")
+    private Float movingAverageTemperature;
+
+    @Schema(description = "Rate of change of weight over the window (least squares) in kg per minute", example = "-0.5")
+    private Float weightChangePerMinute;
+
+    @Schema(description = "Rate of change of temperature over the window (least squares) in °C per minute", example = "0.12")
+    private Float temperatureChangePerMinute;
+
+    @Schema(description = "Buffered readings, oldest first (empty when not requested)")
+    private List<TelemetryTrendPoint> points;
+}
@@ -0,0 +1,24 @@
+package com.github.dawid_stolarczyk.magazyn.Controller.Dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Result of a telemetry batch submission")
+public class TelemetryBatchResponse {
+
+    @Schema(description = "Number of stored rack reports", example = "1000")
+    private int storedReports;
+
+    @Schema(description = "Number of distinct racks in the batch", example = "40")
+    private int racks;
+
+    @Schema(description = "Number of reports that triggered or escalated an alert", example = "2")
+    private int alertTriggeringReports;
+}
@@ -0,0 +1,44 @@
+package com.github.dawid_stolarczyk.magazyn.Controller.Dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One point of rack telemetry history - a single raw report or an aggregated bucket
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Rack telemetry aggregated over one time bucket (or a single raw report)")
+public class TelemetryHistoryPoint {
+
+    @Schema(description = "Report time or start of the bucket (UTC)", example = "2026-01-15T10:00:00Z")
+    private Instant timestamp;
+
+    @Schema(description = "Number of raw reports in the bucket", example = "60")
+    private long samples;
+
+    @Schema(description = "Minimum weight in kg", example = "118.5")
+    private float minWeight;
+
+    @Schema(description = "Maximum weight in kg", example = "125.0")
+    private float maxWeight;
+
+    @Schema(description = "Average weight in kg", example = "121.3")
+    private float avgWeight;
+
+    @Schema(description = "Minimum temperature in °C", example = "3.8")
+    private float minTemperature;
+
+    @Schema(description = "Maximum temperature in °C", example = "5.1")
+    private float maxTemperature;
+
+    @Schema(description = "Average temperature in °C", example = "4.4")
+    private float avgTemperature;
+}
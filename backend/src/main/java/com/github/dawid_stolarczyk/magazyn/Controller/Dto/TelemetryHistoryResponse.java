@@ -0,0 +1,37 @@
+package com.github.dawid_stolarczyk.magazyn.Controller.Dto;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.TelemetryResolution;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Rack telemetry history for a time range at a single resolution
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Rack telemetry history")
+public class TelemetryHistoryResponse {
+
+    @Schema(description = "Rack ID", example = "1")
+    private Long rackId;
+
+    @Schema(description = "Resolution of the returned points", example = "HOUR")
+    private TelemetryResolution resolution;
+
+    @Schema(description = "Start of the range (inclusive)", example = "2026-01-01T00:00:00Z")
+    private Instant start;
+
+    @Schema(description = "End of the range (exclusive)", example = "2026-01-15T00:00:00Z")
+    private Instant end;
+
+    @Schema(description = "Points ordered by time, oldest first")
+    private List<TelemetryHistoryPoint> points;
+}
@@ -0,0 +1,51 @@
+package com.github.dawid_stolarczyk.magazyn.Controller.Dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Backpressure metrics of the asynchronous telemetry ingestion queue
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Asynchronous telemetry ingestion queue metrics")
+public class TelemetryIngestionStats {
+
+    @Schema(description = "Readings currently waiting in the queue", example = "42")
+    private int queueDepth;
+
+    @Schema(description = "Maximum number of queued readings", example = "10000")
+    private int queueCapacity;
+
+    @Schema(description = "Highest queue depth observed since startup", example = "1200")
+    private int queueHighWaterMark;
+
+    @Schema(description = "Number of worker threads writing batches to the database", example = "2")
+    private int workers;
+
+    @Schema(description = "Readings accepted into the queue since startup", example = "150000")
+    private long accepted;
+
+    @Schema(description = "Readings rejected because the queue was full", example = "0")
+    private long rejected;
+
+    @Schema(description = "Readings persisted as rack reports", example = "149958")
+    private long processed;
+
+    @Schema(description = "Readings dropped because their batch failed", example = "0")
+    private long failed;
+
+    @Schema(description = "Number of processed micro-batches", example = "3120")
+    private long batches;
+
+    @Schema(description = "Size of the most recent batch", example = "48")
+    private int lastBatchSize;
+
+    @Schema(description = "Processing time of the most recent batch in milliseconds", example = "35")
+    private long lastBatchDurationMs;
+}
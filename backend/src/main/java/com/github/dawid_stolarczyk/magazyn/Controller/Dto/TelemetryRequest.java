@@ -10,6 +10,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Data
 @Builder
 @NoArgsConstructor
@@ -32,4 +34,8 @@ public class TelemetryRequest {
 
     @Schema(description = "Sensor identifier", example = "SENSOR-RACK-001")
     private String sensorId;
+
+    @Schema(description = "When the sensor took the reading (batch and async endpoints only). Defaults to the time the " +
+            "request was received; later values are clamped to it", example = "2026-01-15T10:30:00Z")
+    private Instant measuredAt;
 }
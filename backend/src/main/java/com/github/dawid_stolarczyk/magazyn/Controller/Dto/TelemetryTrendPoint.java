@@ -0,0 +1,29 @@
+package com.github.dawid_stolarczyk.magazyn.Controller.Dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Single buffered rack reading
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Single recent rack reading")
+public class TelemetryTrendPoint {
+
+    @Schema(description = "Time the reading was received", example = "2026-01-15T10:00:00Z")
+    private Instant timestamp;
+
+    @Schema(description = "Measured weight in kg", example = "121.3")
+    private float weight;
+
+    @Schema(description = "Measured temperature in °C", example = "4.4")
+    private float temperature;
+}
@@ -9,6 +9,7 @@ import com.github.dawid_stolarczyk.magazyn.Services.Ai.ItemEmbeddingGenerationSe
 import com.github.dawid_stolarczyk.magazyn.Services.Ai.VisualIdentificationService;
 import com.github.dawid_stolarczyk.magazyn.Services.ImportExport.ItemImportService;
 import com.github.dawid_stolarczyk.magazyn.Services.Inventory.ItemService;
+import com.github.dawid_stolarczyk.magazyn.Services.Inventory.ItemService.PhotoRange;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -22,6 +23,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -197,6 +200,14 @@ public class ItemController {
                     responseCode = "200",
                     description = "Successfully retrieved decrypted photo - binary image data"
             ),
+            @ApiResponse(
+                    responseCode = "206",
+                    description = "Requested byte range of the decrypted photo (single-range Range header)"
+            ),
+            @ApiResponse(
+                    responseCode = "416",
+                    description = "Requested range starts past the end of the photo"
+            ),
             @ApiResponse(
                     responseCode = "404",
                     description = "Photo not found or item does not have a photo"
@@ -207,10 +218,17 @@ public class ItemController {
             )
     })
     @GetMapping(value = "/{id}/photo", produces = MediaType.IMAGE_JPEG_VALUE)
-    public ResponseEntity<byte[]> downloadPhoto(@PathVariable Long id, HttpServletRequest request) {
+    public ResponseEntity<byte[]> downloadPhoto(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
+            HttpServletRequest request) {
         try {
+            HttpRange range = singleRange(rangeHeader);
+            if (range != null) {
+                return partialContent(itemService.downloadPhotoRange(id, range, request));
+            }
             byte[] data = itemService.downloadPhoto(id, request);
-            return ResponseEntity.ok(data);
+            return ResponseEntity.ok().header(HttpHeaders.ACCEPT_RANGES, "bytes").body(data);
         } catch (IllegalArgumentException e) {
             log.warn("Photo not found for item {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
@@ -323,16 +341,23 @@ public class ItemController {
             description = "Downloads and decrypts a specific photo from the item's gallery.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Photo downloaded successfully"),
-            @ApiResponse(responseCode = "404", description = "Error codes: IMAGE_NOT_FOUND")
+            @ApiResponse(responseCode = "206", description = "Requested byte range of the photo (single-range Range header)"),
+            @ApiResponse(responseCode = "404", description = "Error codes: IMAGE_NOT_FOUND"),
+            @ApiResponse(responseCode = "416", description = "Requested range starts past the end of the photo")
     })
     @GetMapping(value = "/{id}/photos/{imageId}", produces = MediaType.IMAGE_PNG_VALUE)
     public ResponseEntity<byte[]> downloadPhotoByImageId(
             @PathVariable Long id,
             @PathVariable Long imageId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rangeHeader,
             HttpServletRequest request) {
         try {
+            HttpRange range = singleRange(rangeHeader);
+            if (range != null) {
+                return partialContent(itemService.downloadPhotoRangeByImageId(id, imageId, range, request));
+            }
             byte[] data = itemService.downloadPhotoByImageId(id, imageId, request);
-            return ResponseEntity.ok(data);
+            return ResponseEntity.ok().header(HttpHeaders.ACCEPT_RANGES, "bytes").body(data);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         } catch (Exception e) {
@@ -652,4 +677,31 @@ public class ItemController {
         }
         return null;
     }
+
+    /**
+     * Only single byte ranges are served partially; multiple or malformed ranges fall back to the full photo.
+     */
+    private static HttpRange singleRange(String rangeHeader) {
+        if (rangeHeader == null || rangeHeader.isBlank()) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static ResponseEntity<byte[]> partialContent(PhotoRange range) {
+        if (range.data() == null) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + range.total())
+                    .build();
+        }
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_RANGE, "bytes " + range.start() + "-" + range.end() + "/" + range.total())
+                .body(range.data());
+    }
 }
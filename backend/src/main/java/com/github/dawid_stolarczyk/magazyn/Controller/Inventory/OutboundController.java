@@ -3,6 +3,7 @@ package com.github.dawid_stolarczyk.magazyn.Controller.Inventory;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.*;
 import com.github.dawid_stolarczyk.magazyn.Services.Inventory.OutboundService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -26,11 +28,12 @@ public class OutboundController {
     private final OutboundService outboundService;
 
     @Operation(summary = "Plan outbound operation",
-            description = "Returns FIFO-ordered pick list showing which assortments to pick and their locations. Read-only, does not modify data.")
+            description = "Returns FIFO-ordered pick list showing which assortments to pick and their locations. " +
+                    "For large picks set pageSize and follow nextCursor to receive the plan page by page. Read-only, does not modify data.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success - returns pick list in FIFO order",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = OutboundPlanResponse.class))),
-            @ApiResponse(responseCode = "400", description = "Error codes: ITEM_NOT_FOUND",
+            @ApiResponse(responseCode = "400", description = "Error codes: ITEM_NOT_FOUND, OUTBOUND_PLAN_CURSOR_INVALID",
                     content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class)))
     })
     @PostMapping("/plan")
@@ -41,8 +44,25 @@ public class OutboundController {
         return ResponseEntity.ok(ResponseTemplate.success(response));
     }
 
+    @Operation(summary = "Plan multi-item outbound wave",
+            description = "Selects FIFO-ordered, non-expired assortments for every order line and returns them as a single picker route " +
+                    "across racks (ordered by zone, aisle and rack position). Read-only, does not modify data.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Success - returns per-item selection and the pick route",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = OutboundWavePlanResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Error codes: ITEM_NOT_FOUND",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class)))
+    })
+    @PostMapping("/wave-plan")
+    public ResponseEntity<ResponseTemplate<OutboundWavePlanResponse>> planWave(
+            @Valid @RequestBody OutboundWavePlanRequest request,
+            HttpServletRequest httpRequest) {
+        OutboundWavePlanResponse response = outboundService.planWave(request, httpRequest);
+        return ResponseEntity.ok(ResponseTemplate.success(response));
+    }
+
     @Operation(summary = "Check FIFO compliance for an assortment",
-            description = "Checks if a specific assortment is the oldest of its item type. Returns older assortments if not FIFO compliant. Read-only.")
+            description = "Checks if a specific assortment is the oldest of its item type. If not FIFO compliant, returns a preview of the oldest assortments that should be picked first. Read-only.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success - returns FIFO compliance check result",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = OutboundCheckResponse.class))),
@@ -52,8 +72,10 @@ public class OutboundController {
     @PostMapping("/check")
     public ResponseEntity<ResponseTemplate<OutboundCheckResponse>> check(
             @Valid @RequestBody OutboundPickPosition request,
+            @Parameter(description = "Max number of older assortments to return (0 = compliance only, max 100)")
+            @RequestParam(defaultValue = "10") int preview,
             HttpServletRequest httpRequest) {
-        OutboundCheckResponse response = outboundService.check(request, httpRequest);
+        OutboundCheckResponse response = outboundService.check(request, preview, httpRequest);
         return ResponseEntity.ok(ResponseTemplate.success(response));
     }
 
@@ -70,7 +92,9 @@ public class OutboundController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Success - assortments issued",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = OutboundExecuteResponse.class))),
-            @ApiResponse(responseCode = "400", description = "Error codes: ASSORTMENT_NOT_FOUND, OUTBOUND_FIFO_VIOLATION, USER_NOT_FOUND",
+            @ApiResponse(responseCode = "400", description = "Error codes: ASSORTMENT_NOT_FOUND, OUTBOUND_DUPLICATE_ASSORTMENT, OUTBOUND_FIFO_VIOLATION, USER_NOT_FOUND",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class))),
+            @ApiResponse(responseCode = "409", description = "Error codes: ASSORTMENT_LOCKED (assortment is being issued concurrently, retry)",
                     content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class)))
     })
     @PostMapping("/execute")
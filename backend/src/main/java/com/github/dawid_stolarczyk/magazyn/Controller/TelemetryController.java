@@ -3,12 +3,15 @@ package com.github.dawid_stolarczyk.magazyn.Controller;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.RackReportRequest;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.RackReportResponse;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.ResponseTemplate;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.TelemetryBatchRequest;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.TelemetryBatchResponse;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.TelemetryRequest;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Rack;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.ApiKeyScope;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackRepository;
 import com.github.dawid_stolarczyk.magazyn.Security.Auth.Entity.ApiKeyPrincipal;
 import com.github.dawid_stolarczyk.magazyn.Services.Alerts.RackReportService;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.TelemetryIngestionService;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.RateLimitOperation;
 import io.swagger.v3.oas.annotations.Operation;
@@ -22,6 +25,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -31,8 +35,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 /**
- * Telemetry endpoint for IoT sensors.
+ * Telemetry endpoints for IoT sensors - single reading, gateway batch and asynchronous (queued) ingestion.
  * Authenticated via X-API-KEY header with SENSOR_WRITE scope.
  * Validates that the API key's warehouse matches the rack's warehouse.
  */
@@ -44,7 +58,10 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class TelemetryController {
 
+    private static final int QUEUE_FULL_RETRY_AFTER_SECONDS = 5;
+
     private final RackReportService rackReportService;
+    private final TelemetryIngestionService telemetryIngestionService;
     private final RackRepository rackRepository;
     private final Bucket4jRateLimiter rateLimiter;
 
@@ -85,24 +102,7 @@ public class TelemetryController {
         // Rate limit by API key ID
         rateLimiter.consumeOrThrow("apikey:" + principal.getApiKeyId(), RateLimitOperation.TELEMETRY_WRITE);
 
-        // Validate rack exists and warehouse binding
-        Rack rack = rackRepository.findById(request.getRackId())
-                .orElseThrow(() -> new IllegalArgumentException("RACK_NOT_FOUND"));
-
-        if (principal.getWarehouseId() != null) {
-            if (rack.getWarehouse() == null) {
-                log.warn("API key '{}' (warehouse={}) attempted telemetry for orphaned rack {} (no warehouse assigned)",
-                        principal.getApiKeyName(), principal.getWarehouseId(), rack.getId());
-                throw new IllegalArgumentException("WAREHOUSE_ACCESS_DENIED");
-            }
-            Long rackWarehouseId = rack.getWarehouse().getId();
-            if (!principal.getWarehouseId().equals(rackWarehouseId)) {
-                log.warn("API key '{}' (warehouse={}) attempted telemetry for rack {} (warehouse={})",
-                        principal.getApiKeyName(), principal.getWarehouseId(),
-                        rack.getId(), rackWarehouseId);
-                throw new IllegalArgumentException("WAREHOUSE_ACCESS_DENIED");
-            }
-        }
+        validateRackAccess(principal, request.getRackId());
 
         // Convert to RackReportRequest and delegate to existing service
         RackReportRequest reportRequest = RackReportRequest.builder()
@@ -116,6 +116,184 @@ public class TelemetryController {
         return ResponseEntity.status(HttpStatus.CREATED).body(ResponseTemplate.success(response));
     }
 
+    @Operation(summary = "Submit a batch of sensor telemetry readings",
+            description = """
+                    Accepts up to 1000 readings in one request, e.g. from a sensor gateway aggregating many racks.
+                    Requires a valid API key with SENSOR_WRITE scope; one request consumes one rate limit token.
+                    
+                    All rack ids are checked against the API key's warehouse binding with a single query -
+                    if any rack is missing or belongs to another warehouse, the whole batch is rejected.
+                    Readings are stored with a JDBC batch insert and alerts are evaluated once per rack
+                    against the most extreme readings of the batch. Both temperature and weight are required.
+                    
+                    Each reading may carry its own `measuredAt`; values after the time the request was received
+                    are clamped to it. Readings without one keep their request order, one millisecond apart per rack.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Readings stored and processed",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiSuccessData.class))),
+            @ApiResponse(responseCode = "401", description = "Missing or invalid API key",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class))),
+            @ApiResponse(responseCode = "403", description = "Error codes: INSUFFICIENT_SCOPE, WAREHOUSE_ACCESS_DENIED",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class))),
+            @ApiResponse(responseCode = "400", description = "Error codes: RACK_NOT_FOUND, TEMPERATURE_AND_WEIGHT_REQUIRED, VALIDATION_ERROR",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class)))
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<ResponseTemplate<TelemetryBatchResponse>> submitTelemetryBatch(
+            @Valid @RequestBody TelemetryBatchRequest request) {
+
+        ApiKeyPrincipal principal = getApiKeyPrincipal();
+
+        if (!principal.hasScope(ApiKeyScope.SENSOR_WRITE)) {
+            throw new IllegalArgumentException("INSUFFICIENT_SCOPE");
+        }
+
+        rateLimiter.consumeOrThrow("apikey:" + principal.getApiKeyId(), RateLimitOperation.TELEMETRY_WRITE);
+
+        Set<Long> rackIds = new HashSet<>();
+        for (TelemetryRequest reading : request.getReadings()) {
+            if (reading.getCurrentTemperature() == null || reading.getCurrentWeight() == null) {
+                throw new IllegalArgumentException("TEMPERATURE_AND_WEIGHT_REQUIRED");
+            }
+            rackIds.add(reading.getRackId());
+        }
+
+        Map<Long, Rack> racksById = validateRackAccess(principal, rackIds);
+
+        List<Instant> measuredAt = measurementTimes(request.getReadings(), Instant.now());
+        List<RackReportService.TelemetryReading> readings = new ArrayList<>(request.getReadings().size());
+        for (int i = 0; i < request.getReadings().size(); i++) {
+            TelemetryRequest reading = request.getReadings().get(i);
+            readings.add(new RackReportService.TelemetryReading(reading.getRackId(), reading.getCurrentWeight(),
+                    reading.getCurrentTemperature(), reading.getSensorId(), measuredAt.get(i), null));
+        }
+
+        TelemetryBatchResponse response = rackReportService.processBatch(readings, racksById);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ResponseTemplate.success(response));
+    }
+
+    @Operation(summary = "Submit sensor telemetry data asynchronously",
+            description = """
+                    Same authentication and warehouse binding rules as `POST /v1/telemetry`, but the reading
+                    is only queued - the response is returned before the report is stored and without a
+                    database lookup. The rack and the warehouse binding are checked when the queue is drained:
+                    readings for unknown racks or racks outside the key's warehouse are dropped and logged.
+                    Queued readings are written in micro-batches and alerts are evaluated per rack and batch.
+                    
+                    Both temperature and weight are required; an optional `measuredAt` is clamped to the time the
+                    request was received. When the ingestion queue is full the request
+                    is rejected with 503 and a Retry-After header; sensors should retry later.
+                    """)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Telemetry data queued for processing",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiSuccess.class))),
+            @ApiResponse(responseCode = "401", description = "Missing or invalid API key",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class))),
+            @ApiResponse(responseCode = "403", description = "Error codes: INSUFFICIENT_SCOPE",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class))),
+            @ApiResponse(responseCode = "400", description = "Error codes: TEMPERATURE_AND_WEIGHT_REQUIRED, VALIDATION_ERROR",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class))),
+            @ApiResponse(responseCode = "503", description = "Error codes: TELEMETRY_QUEUE_FULL",
+                    content = @Content(schema = @Schema(implementation = ResponseTemplate.ApiError.class)))
+    })
+    @PostMapping("/async")
+    public ResponseEntity<ResponseTemplate<Void>> submitTelemetryAsync(
+            @Valid @RequestBody TelemetryRequest request) {
+
+        ApiKeyPrincipal principal = getApiKeyPrincipal();
+
+        if (!principal.hasScope(ApiKeyScope.SENSOR_WRITE)) {
+            throw new IllegalArgumentException("INSUFFICIENT_SCOPE");
+        }
+
+        rateLimiter.consumeOrThrow("apikey:" + principal.getApiKeyId(), RateLimitOperation.TELEMETRY_WRITE);
+
+        if (request.getCurrentTemperature() == null || request.getCurrentWeight() == null) {
+            throw new IllegalArgumentException("TEMPERATURE_AND_WEIGHT_REQUIRED");
+        }
+
+        boolean queued = telemetryIngestionService.enqueue(new RackReportService.TelemetryReading(
+                request.getRackId(), request.getCurrentWeight(), request.getCurrentTemperature(),
+                request.getSensorId(), clampToReceived(request.getMeasuredAt(), Instant.now()),
+                principal.getWarehouseId()));
+        if (!queued) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(QUEUE_FULL_RETRY_AFTER_SECONDS))
+                    .body(ResponseTemplate.error("TELEMETRY_QUEUE_FULL"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ResponseTemplate.success());
+    }
+
+    /**
+     * Validates that the rack exists and, for warehouse-bound keys, belongs to the key's warehouse.
+     */
+    private void validateRackAccess(ApiKeyPrincipal principal, Long rackId) {
+        Rack rack = rackRepository.findById(rackId)
+                .orElseThrow(() -> new IllegalArgumentException("RACK_NOT_FOUND"));
+        validateWarehouseBinding(principal, rack);
+    }
+
+    /**
+     * Same as {@link #validateRackAccess(ApiKeyPrincipal, Long)} for many racks - one query for all of them.
+     *
+     * @return the validated racks by id, so the batch does not have to load them again
+     */
+    private Map<Long, Rack> validateRackAccess(ApiKeyPrincipal principal, Set<Long> rackIds) {
+        List<Rack> racks = rackRepository.findAllById(rackIds);
+        if (racks.size() != rackIds.size()) {
+            throw new IllegalArgumentException("RACK_NOT_FOUND");
+        }
+        racks.forEach(rack -> validateWarehouseBinding(principal, rack));
+        return racks.stream().collect(Collectors.toMap(Rack::getId, Function.identity()));
+    }
+
+    /**
+     * Timestamps of the readings, in request order. A reading's own {@code measuredAt} is used when present,
+     * clamped to {@code receivedAt} so a skewed sensor clock cannot date readings in the future.
+     * Readings without one are spread one millisecond apart, ending at {@code receivedAt}, per rack -
+     * later readings of a rack stay later, which keeps the telemetry window and the forecaster in order.
+     */
+    private static List<Instant> measurementTimes(List<TelemetryRequest> readings, Instant receivedAt) {
+        Map<Long, Integer> undatedPerRack = new HashMap<>();
+        for (TelemetryRequest reading : readings) {
+            if (reading.getMeasuredAt() == null) {
+                undatedPerRack.merge(reading.getRackId(), 1, Integer::sum);
+            }
+        }
+        List<Instant> times = new ArrayList<>(readings.size());
+        for (TelemetryRequest reading : readings) {
+            if (reading.getMeasuredAt() != null) {
+                times.add(clampToReceived(reading.getMeasuredAt(), receivedAt));
+            } else {
+                times.add(receivedAt.minusMillis(undatedPerRack.merge(reading.getRackId(), -1, Integer::sum)));
+            }
+        }
+        return times;
+    }
+
+    private static Instant clampToReceived(Instant measuredAt, Instant receivedAt) {
+        return measuredAt == null || measuredAt.isAfter(receivedAt) ? receivedAt : measuredAt;
+    }
+
+    private void validateWarehouseBinding(ApiKeyPrincipal principal, Rack rack) {
+        if (principal.getWarehouseId() == null) {
+            return;
+        }
+        if (rack.getWarehouse() == null) {
+            log.warn("API key '{}' (warehouse={}) attempted telemetry for orphaned rack {} (no warehouse assigned)",
+                    principal.getApiKeyName(), principal.getWarehouseId(), rack.getId());
+            throw new IllegalArgumentException("WAREHOUSE_ACCESS_DENIED");
+        }
+        Long rackWarehouseId = rack.getWarehouse().getId();
+        if (!principal.getWarehouseId().equals(rackWarehouseId)) {
+            log.warn("API key '{}' (warehouse={}) attempted telemetry for rack {} (warehouse={})",
+                    principal.getApiKeyName(), principal.getWarehouseId(),
+                    rack.getId(), rackWarehouseId);
+            throw new IllegalArgumentException("WAREHOUSE_ACCESS_DENIED");
+        }
+    }
+
     private ApiKeyPrincipal getApiKeyPrincipal() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || !(auth.getPrincipal() instanceof ApiKeyPrincipal)) {
@@ -0,0 +1,16 @@
+package com.github.dawid_stolarczyk.magazyn.Crypto;
+
+import java.io.InputStream;
+
+/**
+ * Random access to an encrypted file, e.g. ranged GETs against object storage.
+ */
+public interface CiphertextSource {
+
+    long size() throws Exception;
+
+    /**
+     * Opens the bytes {@code start..endInclusive}. The caller MUST close the returned stream.
+     */
+    InputStream open(long start, long endInclusive) throws Exception;
+}
@@ -102,5 +102,30 @@ public class CryptoService {
         return AesGcmCipher.decryptCipher(dek, dataIv, aad);
     }
 
+    /**
+     * Generates a data key for the segmented file format. Each segment is sealed with its own nonce, so the caller
+     * gets the key itself instead of a single pre-initialised cipher.
+     */
+    public SegmentedEncryptionKey prepareSegmentedEncryption() throws Exception {
+        SecretKey dek = KeyGenerator.getInstance("AES").generateKey();
+
+        SecretKey kek = keyProvider.getActiveKey();
+        if (kek == null) {
+            throw new EncryptionException("Active KEK not found");
+        }
+        String kekName = keyProvider.getActiveKeyName();
+        var dekEnc = AesGcmCipher.encrypt(dek.getEncoded(), kek, kekName.getBytes(StandardCharsets.UTF_8));
+
+        return new SegmentedEncryptionKey(kekName, dekEnc.data(), dekEnc.iv(), dek);
+    }
+
+    public SecretKey unwrapDataKey(String kekName, byte[] encryptedDek, byte[] dekIv) throws Exception {
+        SecretKey kek = keyProvider.getKey(kekName);
+        if (kek == null) throw new EncryptionException("KEK not found: " + kekName);
+
+        byte[] dekBytes = AesGcmCipher.decrypt(encryptedDek, kek, dekIv, kekName.getBytes(StandardCharsets.UTF_8));
+        return new SecretKeySpec(dekBytes, "AES");
+    }
+
 
 }
@@ -0,0 +1,19 @@
+package com.github.dawid_stolarczyk.magazyn.Crypto;
+
+import java.io.OutputStream;
+
+/**
+ * An encrypted file opened through {@link FileCryptoService#open(CiphertextSource)}.
+ */
+public interface EncryptedBlob {
+
+    long plaintextLength();
+
+    /**
+     * Writes plaintext bytes {@code offset..offset+length-1} (clamped to the end of the file) to {@code out}.
+     * Segmented (MAG2) files only fetch and decrypt the segments covering the range.
+     *
+     * @return number of bytes written
+     */
+    long decryptRange(long offset, long length, OutputStream out) throws Exception;
+}
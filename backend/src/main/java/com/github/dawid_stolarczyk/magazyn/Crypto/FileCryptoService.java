@@ -1,26 +1,75 @@
 package com.github.dawid_stolarczyk.magazyn.Crypto;
 
+import com.github.dawid_stolarczyk.magazyn.Exception.EncryptionException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
 import javax.crypto.CipherOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
 
+/**
+ * Envelope encryption of files and streams. Two formats are supported, told apart by the leading magic number.
+ * <p>
+ * MAG1: a header followed by a single AES-GCM stream. The tag is only checked at the very end, so the file cannot be
+ * read from the middle and the JCE holds back all plaintext until the whole ciphertext has been seen.
+ * <p>
+ * MAG2 (segmented, STREAM construction): a header followed by segments that are sealed independently.
+ * <pre>
+ * int     magic "MAG2"
+ * int     header length, including magic and this field
+ * byte    kekName length, kekName
+ * byte    dekIv length, dekIv
+ * short   encryptedDek length, encryptedDek
+ * int     plaintext segment size
+ * byte[7] nonce prefix
+ * segment i: AES-GCM(dek, nonce = prefix || i (4 bytes) || last flag (1 byte), aad = header)
+ * </pre>
+ * Every segment but the last holds exactly {@code segment size} plaintext bytes, so segment {@code i} starts at
+ * {@code headerLength + i * (segmentSize + 16)}. The index in the nonce detects reordered segments, the last flag
+ * detects truncation at a segment boundary and the header is authenticated as AAD of every segment.
+ */
 @Service
 public class FileCryptoService {
 
     @Autowired
     private CryptoService cryptoService;
 
+    /**
+     * New files are written as MAG2; turn off while instances that can only read MAG1 are still running.
+     */
+    @Value("${app.crypto.segmented-format-enabled:true}")
+    private boolean segmentedFormatEnabled;
+
+    @Value("${app.crypto.segment-size:65536}")
+    private int segmentSize;
+
     private static final int MAGIC = 0x4D414731; // np. "MAG1"
+    private static final int MAGIC_SEGMENTED = 0x4D414732; // "MAG2"
+
+    private static final int TAG_LENGTH = 16;
+    private static final int NONCE_PREFIX_LENGTH = 7;
+    private static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+    private static final int MAX_HEADER_LENGTH = 70 * 1024;
+    // Enough for every header written in practice, so opening a file usually takes a single ranged read
+    private static final int HEADER_PROBE_BYTES = 1024;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
 
     public void encrypt(InputStream in, OutputStream out) throws Exception {
+        if (segmentedFormatEnabled) {
+            encryptSegmented(in, out);
+            return;
+        }
         StreamEncryptedData meta = cryptoService.prepareStreamEncryption();
         DataOutputStream dos = new DataOutputStream(out);
 
@@ -59,7 +108,12 @@ public class FileCryptoService {
 
     public void decrypt(InputStream in, OutputStream out) throws Exception {
         DataInputStream dis = new DataInputStream(in);
-        if (dis.readInt() != 0x4D414731) {
+        int magic = dis.readInt();
+        if (magic == MAGIC_SEGMENTED) {
+            decryptSegmented(SegmentedHeader.read(dis.readInt(), dis), dis, out);
+            return;
+        }
+        if (magic != MAGIC) {
             throw new IllegalArgumentException("Invalid file format");
         }
         byte[] kekName = dis.readNBytes(dis.readByte());
@@ -75,4 +129,340 @@ public class FileCryptoService {
             cis.transferTo(out);
         }
     }
+
+    /**
+     * Opens an encrypted file for range reads. Only the header is fetched here; the data key of a MAG2 file is
+     * unwrapped once and reused for every range read through the returned blob.
+     */
+    public EncryptedBlob open(CiphertextSource source) throws Exception {
+        long size = source.size();
+        if (size < 8) {
+            throw new IllegalArgumentException("Invalid file format");
+        }
+        int probeLength = (int) Math.min(size, HEADER_PROBE_BYTES);
+        try (DataInputStream dis = new DataInputStream(source.open(0, probeLength - 1))) {
+            int magic = dis.readInt();
+            if (magic == MAGIC_SEGMENTED) {
+                int headerLength = dis.readInt();
+                SegmentedHeader header = headerLength <= probeLength
+                        ? SegmentedHeader.read(headerLength, dis)
+                        : readSegmentedHeader(source, headerLength);
+                return new SegmentedBlob(source, size, header, unwrapDataKey(header));
+            }
+            if (magic != MAGIC) {
+                throw new IllegalArgumentException("Invalid file format");
+            }
+            int headerLength = 4;
+            for (int field = 0; field < 3; field++) {
+                int length = field == 2 ? dis.readUnsignedShort() : dis.readUnsignedByte();
+                dis.skipNBytes(length);
+                headerLength += (field == 2 ? 2 : 1) + length;
+            }
+            headerLength += 1 + dis.readUnsignedByte();
+            return new LegacyBlob(source, size, size - headerLength - TAG_LENGTH);
+        }
+    }
+
+    private void encryptSegmented(InputStream in, OutputStream out) throws Exception {
+        if (segmentSize <= 0 || segmentSize > MAX_SEGMENT_SIZE) {
+            throw new IllegalStateException("Invalid segment size: " + segmentSize);
+        }
+        SegmentedEncryptionKey key = cryptoService.prepareSegmentedEncryption();
+        byte[] noncePrefix = new byte[NONCE_PREFIX_LENGTH];
+        RANDOM.nextBytes(noncePrefix);
+        SegmentedHeader header = SegmentedHeader.create(key, segmentSize, noncePrefix);
+        out.write(header.bytes());
+
+        SegmentCipher cipher = new SegmentCipher(Cipher.ENCRYPT_MODE, key.dataKey(), header);
+        byte[] current = new byte[segmentSize];
+        byte[] next = new byte[segmentSize];
+        byte[] sealed = new byte[segmentSize + TAG_LENGTH];
+        int length = in.readNBytes(current, 0, segmentSize);
+        for (long index = 0; ; index++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Encryption interrupted during data transfer");
+            }
+            // A full segment is only the last one if nothing follows it
+            int nextLength = length == segmentSize ? in.readNBytes(next, 0, segmentSize) : 0;
+            boolean last = nextLength == 0;
+            out.write(sealed, 0, cipher.process(index, last, current, length, sealed));
+            if (last) {
+                break;
+            }
+            byte[] swap = current;
+            current = next;
+            next = swap;
+            length = nextLength;
+        }
+        out.flush();
+    }
+
+    private void decryptSegmented(SegmentedHeader header, InputStream in, OutputStream out) throws Exception {
+        SegmentCipher cipher = new SegmentCipher(Cipher.DECRYPT_MODE, unwrapDataKey(header), header);
+        PushbackInputStream segments = new PushbackInputStream(in, 1);
+        byte[] sealed = new byte[header.segmentSize() + TAG_LENGTH];
+        byte[] plain = new byte[header.segmentSize()];
+        for (long index = 0; ; index++) {
+            int read = segments.readNBytes(sealed, 0, sealed.length);
+            boolean last = read < sealed.length || isAtEnd(segments);
+            if (read < TAG_LENGTH) {
+                throw new EncryptionException("Encrypted file is truncated");
+            }
+            out.write(plain, 0, cipher.process(index, last, sealed, read, plain));
+            if (last) {
+                return;
+            }
+        }
+    }
+
+    private static boolean isAtEnd(PushbackInputStream in) throws IOException {
+        int next = in.read();
+        if (next < 0) {
+            return true;
+        }
+        in.unread(next);
+        return false;
+    }
+
+    private SecretKey unwrapDataKey(SegmentedHeader header) throws Exception {
+        return cryptoService.unwrapDataKey(header.kekName(), header.encryptedDek(), header.dekIv());
+    }
+
+    private static SegmentedHeader readSegmentedHeader(CiphertextSource source, int headerLength) throws Exception {
+        try (DataInputStream dis = new DataInputStream(source.open(0, headerLength - 1))) {
+            dis.skipNBytes(8);
+            return SegmentedHeader.read(headerLength, dis);
+        }
+    }
+
+    private record SegmentedHeader(String kekName, byte[] dekIv, byte[] encryptedDek, int segmentSize,
+                                   byte[] noncePrefix, byte[] bytes) {
+
+        static SegmentedHeader create(SegmentedEncryptionKey key, int segmentSize, byte[] noncePrefix) throws IOException {
+            byte[] kekNameBytes = key.kekName().getBytes(StandardCharsets.UTF_8);
+            if (kekNameBytes.length > 255) throw new IllegalArgumentException("kekName too long");
+            if (key.dekIv().length > 255) throw new IllegalArgumentException("dekIv too long");
+            if (key.encryptedDek().length > 65535) throw new IllegalArgumentException("encryptedDek too long");
+
+            ByteArrayOutputStream fields = new ByteArrayOutputStream();
+            DataOutputStream dos = new DataOutputStream(fields);
+            dos.writeByte(kekNameBytes.length);
+            dos.write(kekNameBytes);
+            dos.writeByte(key.dekIv().length);
+            dos.write(key.dekIv());
+            dos.writeShort(key.encryptedDek().length);
+            dos.write(key.encryptedDek());
+            dos.writeInt(segmentSize);
+            dos.write(noncePrefix);
+
+            byte[] bytes = ByteBuffer.allocate(8 + fields.size())
+                    .putInt(MAGIC_SEGMENTED)
+                    .putInt(8 + fields.size())
+                    .put(fields.toByteArray())
+                    .array();
+            return new SegmentedHeader(key.kekName(), key.dekIv(), key.encryptedDek(), segmentSize, noncePrefix, bytes);
+        }
+
+        /**
+         * Reads the header fields that follow the magic and length.
+         */
+        static SegmentedHeader read(int headerLength, DataInputStream in) throws IOException {
+            if (headerLength <= 8 || headerLength > MAX_HEADER_LENGTH) {
+                throw new IllegalArgumentException("Invalid file format");
+            }
+            byte[] fields = new byte[headerLength - 8];
+            in.readFully(fields);
+
+            DataInputStream dis = new DataInputStream(new ByteArrayInputStream(fields));
+            byte[] kekName = dis.readNBytes(dis.readUnsignedByte());
+            byte[] dekIv = dis.readNBytes(dis.readUnsignedByte());
+            byte[] encryptedDek = dis.readNBytes(dis.readUnsignedShort());
+            int segmentSize = dis.readInt();
+            byte[] noncePrefix = dis.readNBytes(NONCE_PREFIX_LENGTH);
+            if (segmentSize <= 0 || segmentSize > MAX_SEGMENT_SIZE || noncePrefix.length != NONCE_PREFIX_LENGTH) {
+                throw new IllegalArgumentException("Invalid file format");
+            }
+
+            byte[] bytes = ByteBuffer.allocate(headerLength)
+                    .putInt(MAGIC_SEGMENTED)
+                    .putInt(headerLength)
+                    .put(fields)
+                    .array();
+            return new SegmentedHeader(new String(kekName, StandardCharsets.UTF_8), dekIv, encryptedDek, segmentSize,
+                    noncePrefix, bytes);
+        }
+    }
+
+    /**
+     * Seals or opens single segments; the nonce is the header prefix followed by the segment index and last flag.
+     */
+    private static final class SegmentCipher {
+        private final Cipher cipher;
+        private final int mode;
+        private final SecretKey key;
+        private final byte[] aad;
+        private final byte[] nonce = new byte[NONCE_PREFIX_LENGTH + 5];
+
+        SegmentCipher(int mode, SecretKey key, SegmentedHeader header) throws GeneralSecurityException {
+            this.cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            this.mode = mode;
+            this.key = key;
+            this.aad = header.bytes();
+            System.arraycopy(header.noncePrefix(), 0, nonce, 0, NONCE_PREFIX_LENGTH);
+        }
+
+        int process(long index, boolean last, byte[] input, int length, byte[] output) throws GeneralSecurityException {
+            if (index > 0xFFFFFFFFL) {
+                throw new EncryptionException("Too many segments");
+            }
+            nonce[NONCE_PREFIX_LENGTH] = (byte) (index >>> 24);
+            nonce[NONCE_PREFIX_LENGTH + 1] = (byte) (index >>> 16);
+            nonce[NONCE_PREFIX_LENGTH + 2] = (byte) (index >>> 8);
+            nonce[NONCE_PREFIX_LENGTH + 3] = (byte) index;
+            nonce[NONCE_PREFIX_LENGTH + 4] = (byte) (last ? 1 : 0);
+            cipher.init(mode, key, new GCMParameterSpec(TAG_LENGTH * 8, nonce));
+            cipher.updateAAD(aad);
+            try {
+                return cipher.doFinal(input, 0, length, output, 0);
+            } catch (AEADBadTagException e) {
+                throw new EncryptionException("Segment " + index + " failed authentication", e);
+            }
+        }
+    }
+
+    /**
+     * End of the requested range, without overflowing when the caller asks for "everything from offset".
+     */
+    private static long rangeEnd(long offset, long length, long plaintextLength) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Invalid range: offset=" + offset + ", length=" + length);
+        }
+        return length >= plaintextLength - offset ? plaintextLength : offset + length;
+    }
+
+    private final class SegmentedBlob implements EncryptedBlob {
+        private final CiphertextSource source;
+        private final long size;
+        private final SegmentedHeader header;
+        private final SecretKey dataKey;
+        private final long sealedSegmentSize;
+        private final long segmentCount;
+        private final long plaintextLength;
+
+        SegmentedBlob(CiphertextSource source, long size, SegmentedHeader header, SecretKey dataKey) {
+            this.source = source;
+            this.size = size;
+            this.header = header;
+            this.dataKey = dataKey;
+            this.sealedSegmentSize = header.segmentSize() + TAG_LENGTH;
+            long body = size - header.bytes().length;
+            this.segmentCount = Math.max(1, (body + sealedSegmentSize - 1) / sealedSegmentSize);
+            if (body - (segmentCount - 1) * sealedSegmentSize < TAG_LENGTH) {
+                throw new EncryptionException("Encrypted file is truncated");
+            }
+            this.plaintextLength = body - segmentCount * TAG_LENGTH;
+        }
+
+        @Override
+        public long plaintextLength() {
+            return plaintextLength;
+        }
+
+        @Override
+        public long decryptRange(long offset, long length, OutputStream out) throws Exception {
+            long end = rangeEnd(offset, length, plaintextLength);
+            if (offset >= end) {
+                return 0;
+            }
+            int plainSegmentSize = header.segmentSize();
+            long firstSegment = offset / plainSegmentSize;
+            long lastSegment = (end - 1) / plainSegmentSize;
+            long headerLength = header.bytes().length;
+            long start = headerLength + firstSegment * sealedSegmentSize;
+            long stop = Math.min(size, headerLength + (lastSegment + 1) * sealedSegmentSize) - 1;
+
+            SegmentCipher cipher = new SegmentCipher(Cipher.DECRYPT_MODE, dataKey, header);
+            byte[] sealed = new byte[(int) sealedSegmentSize];
+            byte[] plain = new byte[plainSegmentSize];
+            long written = 0;
+            try (InputStream in = source.open(start, stop)) {
+                for (long index = firstSegment; index <= lastSegment; index++) {
+                    int sealedLength = (int) Math.min(sealedSegmentSize, size - headerLength - index * sealedSegmentSize);
+                    if (in.readNBytes(sealed, 0, sealedLength) != sealedLength) {
+                        throw new EOFException("Unexpected end of segment " + index);
+                    }
+                    int plainLength = cipher.process(index, index == segmentCount - 1, sealed, sealedLength, plain);
+                    long segmentStart = index * plainSegmentSize;
+                    int from = (int) Math.max(0, offset - segmentStart);
+                    int to = (int) Math.min(plainLength, end - segmentStart);
+                    out.write(plain, from, to - from);
+                    written += to - from;
+                }
+            }
+            return written;
+        }
+    }
+
+    /**
+     * MAG1 files cannot be entered in the middle: the whole file is decrypted and only the range is passed on.
+     */
+    private final class LegacyBlob implements EncryptedBlob {
+        private final CiphertextSource source;
+        private final long size;
+        private final long plaintextLength;
+
+        LegacyBlob(CiphertextSource source, long size, long plaintextLength) {
+            this.source = source;
+            this.size = size;
+            this.plaintextLength = plaintextLength;
+        }
+
+        @Override
+        public long plaintextLength() {
+            return plaintextLength;
+        }
+
+        @Override
+        public long decryptRange(long offset, long length, OutputStream out) throws Exception {
+            long end = rangeEnd(offset, length, plaintextLength);
+            if (offset >= end) {
+                return 0;
+            }
+            RangeOutputStream range = new RangeOutputStream(out, offset, end - offset);
+            try (InputStream in = source.open(0, size - 1)) {
+                decrypt(in, range);
+            }
+            return range.written;
+        }
+    }
+
+    private static final class RangeOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long skip;
+        private long remaining;
+        private long written;
+
+        RangeOutputStream(OutputStream out, long skip, long length) {
+            this.out = out;
+            this.skip = skip;
+            this.remaining = length;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            int skipped = (int) Math.min(skip, len);
+            skip -= skipped;
+            int count = (int) Math.min(remaining, len - skipped);
+            if (count > 0) {
+                out.write(b, off + skipped, count);
+                remaining -= count;
+                written += count;
+            }
+        }
+    }
 }
@@ -0,0 +1,6 @@
+package com.github.dawid_stolarczyk.magazyn.Crypto;
+
+import javax.crypto.SecretKey;
+
+public record SegmentedEncryptionKey(String kekName, byte[] encryptedDek, byte[] dekIv, SecretKey dataKey) {
+}
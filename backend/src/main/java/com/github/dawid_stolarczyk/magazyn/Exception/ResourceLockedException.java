@@ -0,0 +1,10 @@
+package com.github.dawid_stolarczyk.magazyn.Exception;
+
+/**
+ * Thrown when a resource is currently locked by a concurrent operation; the request can be retried.
+ */
+public class ResourceLockedException extends RuntimeException {
+    public ResourceLockedException(String message) {
+        super(message);
+    }
+}
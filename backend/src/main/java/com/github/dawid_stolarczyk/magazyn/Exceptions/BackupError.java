@@ -20,7 +20,9 @@ public enum BackupError {
     NO_COMPLETED_BACKUP("NO_COMPLETED_BACKUP", "No completed backup found for this warehouse"),
     SCHEDULE_NOT_FOUND("SCHEDULE_NOT_FOUND", "Backup schedule not found"),
     BACKUP_LOCK_ACQUISITION_FAILED("BACKUP_LOCK_ACQUISITION_FAILED", "Failed to acquire backup lock"),
-    R2_CLEANUP_FAILED("R2_CLEANUP_FAILED", "Failed to cleanup R2 storage");
+    R2_CLEANUP_FAILED("R2_CLEANUP_FAILED", "Failed to cleanup R2 storage"),
+    BACKUP_HAS_DEPENDENTS("BACKUP_HAS_DEPENDENTS", "Backup is the base of incremental backups"),
+    BACKUP_CHAIN_BROKEN("BACKUP_CHAIN_BROKEN", "Incremental backup chain is incomplete");
 
     private final String code;
     private final String description;
@@ -47,10 +47,12 @@ public class Alert {
     private Warehouse warehouse;
 
     /**
-     * The report that triggered this alert
+     * The report that triggered this alert.
+     * Not backed by a foreign key: raw reports are purged by telemetry retention (alerts are detached first)
+     * and a partitioned rack_reports table only has a composite (id, created_at) primary key.
      */
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "report_id")
+    @JoinColumn(name = "report_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private RackReport triggeringReport;
 
     /**
@@ -7,6 +7,12 @@ import java.sql.Timestamp;
 import java.time.Instant;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_assortment_item_fifo", columnList = "item_id, created_at, expires_at"),
+        @Index(name = "idx_assortment_expires_at", columnList = "expires_at"),
+        @Index(name = "idx_assortment_created_at", columnList = "created_at"),
+        @Index(name = "idx_assortment_updated_at", columnList = "updated_at")
+})
 @Getter
 @Setter
 @Builder
@@ -37,10 +43,22 @@ public class Assortment {
     @Column(name = "position_y")
     private Integer positionY;
 
+    /**
+     * Last insert or update time; incremental backups pick up rows changed since their parent backup.
+     */
+    @Column(name = "updated_at")
+    private Timestamp updatedAt;
+
     @PrePersist
     public void initializeCreatedAt() {
         if (createdAt == null) {
             createdAt = Timestamp.from(Instant.now());
         }
+        updatedAt = Timestamp.from(Instant.now());
+    }
+
+    @PreUpdate
+    public void touchUpdatedAt() {
+        updatedAt = Timestamp.from(Instant.now());
     }
 }
@@ -18,7 +18,8 @@ import java.util.stream.Collectors;
 @Table(name = "backup_records", indexes = {
         @Index(name = "idx_backup_records_warehouse_id", columnList = "warehouse_id"),
         @Index(name = "idx_backup_records_status", columnList = "status"),
-        @Index(name = "idx_backup_records_created_at", columnList = "created_at")
+        @Index(name = "idx_backup_records_created_at", columnList = "created_at"),
+        @Index(name = "idx_backup_records_parent_backup_id", columnList = "parent_backup_id")
 })
 @Getter
 @Setter
@@ -91,6 +92,23 @@ public class BackupRecord {
     @JoinColumn(name = "triggered_by")
     private User triggeredBy;
 
+    /**
+     * Backup this one is a delta of; null for a full backup.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parent_backup_id")
+    private BackupRecord parentBackup;
+
+    /**
+     * Number of deltas between this backup and its full base (0 for a full backup). Null for backups taken
+     * before assortment change tracking, which cannot serve as a base for deltas.
+     */
+    @Column(name = "chain_length")
+    private Integer chainLength;
+
+    @Column(name = "changes_since")
+    private Instant changesSince;
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
@@ -98,6 +116,10 @@ public class BackupRecord {
         }
     }
 
+    public boolean isIncremental() {
+        return parentBackup != null;
+    }
+
     public Set<BackupResourceType> getResourceTypeSet() {
         if (resourceTypes == null || resourceTypes.isBlank()) {
             return Collections.emptySet();
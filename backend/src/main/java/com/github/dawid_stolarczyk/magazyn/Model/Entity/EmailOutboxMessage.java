@@ -0,0 +1,70 @@
+package com.github.dawid_stolarczyk.magazyn.Model.Entity;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.EmailOutboxKind;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.EmailOutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Email waiting to be sent by the outbox worker.
+ * Rows are deleted once sent; messages that kept failing stay as FAILED for inspection.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EmailOutboxKind kind;
+
+    /**
+     * Subject of a MESSAGE; digests get theirs when merged
+     */
+    private String subject;
+
+    /**
+     * Rendered HTML of a MESSAGE, or alert messages (one per line) of an ALERT_DIGEST
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    /**
+     * Notifications page linked from an ALERT_DIGEST
+     */
+    @Column(length = 500)
+    private String link;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private EmailOutboxStatus status = EmailOutboxStatus.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private int attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
@@ -0,0 +1,47 @@
+package com.github.dawid_stolarczyk.magazyn.Model.Entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Alert dispatch waiting to be turned into user notifications.
+ * Written in the alert's transaction and deleted in the transaction that creates the notifications,
+ * so a dispatch survives a crash and is never applied twice.
+ */
+@Entity
+@Table(name = "pending_notifications")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PendingNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Alert to notify about - not a foreign key, so deleting an alert is never blocked; dispatches of
+     * deleted alerts are dropped when flushed
+     */
+    @Column(name = "alert_id", nullable = false)
+    private Long alertId;
+
+    /**
+     * Notify active admins only (system, backup and restore alerts)
+     */
+    @Column(name = "admins_only", nullable = false)
+    private boolean adminsOnly;
+
+    /**
+     * Name of the requested NotificationDispatcher.Delivery
+     */
+    @Column(nullable = false, length = 20)
+    private String delivery;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,70 @@
+package com.github.dawid_stolarczyk.magazyn.Model.Entity;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.TelemetryResolution;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.Instant;
+
+/**
+ * Downsampled rack telemetry - min/max/avg of weight and temperature for one rack and time bucket.
+ * Rows are written by background rollups (raw reports → minutes → hours → days), so history
+ * queries over long ranges never have to scan raw reports.
+ */
+@Entity
+@Table(name = "rack_report_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_rack_report_rollups_bucket",
+                columnNames = {"rack_id", "resolution", "bucket_start"}),
+        indexes = @Index(name = "idx_rack_report_rollups_resolution_bucket", columnList = "resolution, bucket_start"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RackReportRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "rack_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Rack rack;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private TelemetryResolution resolution;
+
+    /**
+     * Start of the bucket (inclusive); the bucket spans one {@link TelemetryResolution#getBucket()}
+     */
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    /**
+     * Number of raw reports aggregated into this bucket
+     */
+    @Column(nullable = false)
+    private long sampleCount;
+
+    @Column(nullable = false)
+    private float minWeight;
+
+    @Column(nullable = false)
+    private float maxWeight;
+
+    @Column(nullable = false)
+    private float avgWeight;
+
+    @Column(nullable = false)
+    private float minTemperature;
+
+    @Column(nullable = false)
+    private float maxTemperature;
+
+    @Column(nullable = false)
+    private float avgTemperature;
+}
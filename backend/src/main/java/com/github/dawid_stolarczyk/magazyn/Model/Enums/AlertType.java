@@ -13,6 +13,8 @@ public enum AlertType {
     ITEM_TEMPERATURE_TOO_HIGH("Temperatura regału przekracza maksymalną tolerancję przedmiotu"),
     ITEM_TEMPERATURE_TOO_LOW("Temperatura regału poniżej minimalnej tolerancji przedmiotu"),
     UNAUTHORIZED_OUTBOUND("Nieautoryzowany outflow - waga regału niższa niż suma wag asortymentów"),
+    TEMPERATURE_FORECAST_TOO_HIGH("Prognozowane przekroczenie maksymalnej temperatury regału"),
+    TEMPERATURE_FORECAST_TOO_LOW("Prognozowany spadek poniżej minimalnej temperatury regału"),
     EMBEDDING_GENERATION_COMPLETED("Zakończono generowanie embeddingów dla produktów"),
     EMBEDDING_GENERATION_FAILED("Błąd podczas generowania embeddingów dla produktów"),
     ASSORTMENT_EXPIRED("Assortment wygasł - produkt przekroczył datę ważności"),
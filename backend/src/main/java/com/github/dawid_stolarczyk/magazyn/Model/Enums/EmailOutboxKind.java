@@ -0,0 +1,12 @@
+package com.github.dawid_stolarczyk.magazyn.Model.Enums;
+
+public enum EmailOutboxKind {
+    /**
+     * Rendered message sent as is
+     */
+    MESSAGE,
+    /**
+     * Alert messages of one recipient, merged with other pending alerts into a single digest when sent
+     */
+    ALERT_DIGEST
+}
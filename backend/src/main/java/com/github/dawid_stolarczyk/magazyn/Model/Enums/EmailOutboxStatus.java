@@ -0,0 +1,6 @@
+package com.github.dawid_stolarczyk.magazyn.Model.Enums;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    FAILED
+}
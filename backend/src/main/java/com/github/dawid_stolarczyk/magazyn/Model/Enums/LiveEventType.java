@@ -0,0 +1,15 @@
+package com.github.dawid_stolarczyk.magazyn.Model.Enums;
+
+/**
+ * Types of events pushed to connected clients over the live event stream.
+ */
+public enum LiveEventType {
+    /**
+     * The user got a new (or again unread) notification about an alert
+     */
+    NOTIFICATION,
+    /**
+     * Status of an alert in one of the user's warehouses changed
+     */
+    ALERT_UPDATED
+}
@@ -0,0 +1,64 @@
+package com.github.dawid_stolarczyk.magazyn.Model.Enums;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Resolution of rack telemetry history - raw reports or one of the downsampled rollups.
+ * Rollup buckets are aligned to UTC.
+ */
+public enum TelemetryResolution {
+    /**
+     * Individual rack reports as received from sensors
+     */
+    RAW(null, null),
+
+    /**
+     * Min/max/avg per rack and minute, aggregated from raw reports
+     */
+    MINUTE("minute", ChronoUnit.MINUTES),
+
+    /**
+     * Min/max/avg per rack and hour, aggregated from minute rollups
+     */
+    HOUR("hour", ChronoUnit.HOURS),
+
+    /**
+     * Min/max/avg per rack and day, aggregated from hour rollups
+     */
+    DAY("day", ChronoUnit.DAYS);
+
+    private final String truncUnit;
+    private final ChronoUnit unit;
+
+    TelemetryResolution(String truncUnit, ChronoUnit unit) {
+        this.truncUnit = truncUnit;
+        this.unit = unit;
+    }
+
+    /**
+     * Unit understood by PostgreSQL {@code date_trunc}
+     */
+    public String getTruncUnit() {
+        return truncUnit;
+    }
+
+    public Duration getBucket() {
+        return unit != null ? unit.getDuration() : Duration.ZERO;
+    }
+
+    /**
+     * Start of the bucket containing {@code instant}; raw resolution leaves it unchanged
+     */
+    public Instant truncate(Instant instant) {
+        return unit != null ? instant.truncatedTo(unit) : instant;
+    }
+
+    /**
+     * Next coarser resolution, {@code DAY} for the coarsest one
+     */
+    public TelemetryResolution coarser() {
+        return this == DAY ? DAY : values()[ordinal() + 1];
+    }
+}
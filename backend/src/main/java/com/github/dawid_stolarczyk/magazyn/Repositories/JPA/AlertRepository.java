@@ -3,6 +3,7 @@ package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Alert;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.ActiveAlertProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -18,48 +19,18 @@ import java.util.Optional;
 public interface AlertRepository extends JpaRepository<Alert, Long> {
 
     /**
-     * Check if an active alert of the same type exists for a rack
+     * Identity of all unresolved rack alerts - used to build the active alert registry (ActiveAlertRegistry)
      */
-    @Query("SELECT COUNT(a) > 0 FROM Alert a WHERE a.rack.id = :rackId AND a.alertType = :alertType AND a.status IN :statuses")
-    boolean existsActiveAlertForRack(
-            @Param("rackId") Long rackId,
-            @Param("alertType") AlertType alertType,
-            @Param("statuses") List<AlertStatus> statuses
-    );
+    @Query("SELECT a.id AS id, a.rack.id AS rackId, i.id AS itemId, a.alertType AS alertType FROM Alert a " +
+            "LEFT JOIN a.item i WHERE a.rack IS NOT NULL AND a.status IN :statuses")
+    List<ActiveAlertProjection> findActiveRackAlerts(@Param("statuses") List<AlertStatus> statuses);
 
     /**
-     * Check if an active alert of the same type exists for a rack and specific item
+     * Unresolved alert of a rack ({@code itemId == null}) or of an item in a rack - used when the alert is missing
+     * from this instance's ActiveAlertRegistry, e.g. because another instance created it
      */
-    @Query("SELECT COUNT(a) > 0 FROM Alert a WHERE a.rack.id = :rackId AND a.item.id = :itemId " +
-            "AND a.alertType = :alertType AND a.status IN :statuses")
-    boolean existsActiveAlertForRackAndItem(
-            @Param("rackId") Long rackId,
-            @Param("itemId") Long itemId,
-            @Param("alertType") AlertType alertType,
-            @Param("statuses") List<AlertStatus> statuses
-    );
-
-    /**
-     * Find active alert of specific type for a rack
-     */
-    @Query("SELECT a FROM Alert a WHERE a.rack.id = :rackId AND a.alertType = :alertType AND a.status IN :statuses")
-    Optional<Alert> findActiveAlertForRack(
-            @Param("rackId") Long rackId,
-            @Param("alertType") AlertType alertType,
-            @Param("statuses") List<AlertStatus> statuses
-    );
-
-    /**
-     * Find active alert of specific type for a rack and item
-     */
-    @Query("SELECT a FROM Alert a WHERE a.rack.id = :rackId AND a.item.id = :itemId " +
-            "AND a.alertType = :alertType AND a.status IN :statuses")
-    Optional<Alert> findActiveAlertForRackAndItem(
-            @Param("rackId") Long rackId,
-            @Param("itemId") Long itemId,
-            @Param("alertType") AlertType alertType,
-            @Param("statuses") List<AlertStatus> statuses
-    );
+    Optional<Alert> findFirstByRackIdAndItemIdAndAlertTypeAndStatusIn(Long rackId, Long itemId, AlertType alertType,
+                                                                      List<AlertStatus> statuses);
 
     /**
      * Find all alerts with pagination
@@ -119,4 +90,12 @@ public interface AlertRepository extends JpaRepository<Alert, Long> {
     @Modifying
     @Query("DELETE FROM Alert a WHERE a.status IN ('RESOLVED', 'DISMISSED') AND a.resolvedAt < :cutoffDate")
     int deleteOldResolvedAlerts(@Param("cutoffDate") java.time.Instant cutoffDate);
+
+    /**
+     * Clears the triggering report of alerts whose report is about to be purged by raw telemetry retention.
+     */
+    @Modifying
+    @Query(value = "UPDATE alerts SET report_id = NULL WHERE report_id IN " +
+            "(SELECT id FROM rack_reports WHERE created_at < :cutoff)", nativeQuery = true)
+    int detachReportsCreatedBefore(@Param("cutoff") java.time.Instant cutoff);
 }
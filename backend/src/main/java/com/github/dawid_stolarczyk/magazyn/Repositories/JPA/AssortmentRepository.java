@@ -2,24 +2,43 @@ package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
 
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Assortment;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.RackReport;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.AssortmentBackupProjection;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.ExpiryGroupProjection;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.OldestAvailableProjection;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.RackOccupancyProjection;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface AssortmentRepository extends JpaRepository<Assortment, Long>, JpaSpecificationExecutor<Assortment> {
     List<Assortment> findByRackId(Long rackId);
 
     Page<Assortment> findByRackId(Long rackId, Pageable pageable);
 
+    /**
+     * Zajęte pozycje, waga i tolerancja temperatur produktu dla podanych regałów - bez materializacji encji Assortment.
+     * Używane do budowy indeksu zajętości regałów (RackOccupancyIndex).
+     */
+    @Query("SELECT a.rack.id AS rackId, a.positionX AS positionX, a.positionY AS positionY, i.id AS itemId, " +
+            "i.weight AS weight, i.min_temp AS minTemp, i.max_temp AS maxTemp " +
+            "FROM Assortment a JOIN a.item i WHERE a.rack.id IN :rackIds")
+    List<RackOccupancyProjection> findOccupancyByRackIds(@Param("rackIds") Collection<Long> rackIds);
+
     boolean existsByCode(String code);
 
     Optional<Assortment> findByCode(String code);
@@ -37,31 +56,113 @@ public interface AssortmentRepository extends JpaRepository<Assortment, Long>, J
     Map<Long, Long> countByRack_WarehouseIdIn(@Param("warehouseIds") Iterable<Long> warehouseIds);
 
     /**
-     * Znajdź assortmenty dla danego produktu w kolejności FIFO (najstarsze najpierw).
-     * Wyklucza wygasłe assortmenty.
+     * Pierwsza strona niewygasłych assortmentów produktu w kolejności FIFO (najstarsze najpierw).
      * Assortmenty bez daty wygaśnięcia (expires_at IS NULL) są uwzględniane.
+     * Rozmiar strony (LIMIT) z pageable; regał dociągany w tym samym zapytaniu.
      */
-    @Query("SELECT a FROM Assortment a WHERE a.item.id = :itemId " +
+    @Query("SELECT a FROM Assortment a JOIN FETCH a.rack WHERE a.item.id = :itemId " +
             "AND (a.expiresAt IS NULL OR a.expiresAt > CURRENT_TIMESTAMP) " +
-            "ORDER BY a.createdAt ASC")
-    List<Assortment> findByItemIdFifoOrdered(@Param("itemId") Long itemId);
+            "ORDER BY a.createdAt ASC, a.id ASC")
+    List<Assortment> findFifoPage(@Param("itemId") Long itemId, Pageable pageable);
 
     /**
-     * Znajdź assortmenty starsze od podanego (te same item, wcześniejszy created_at).
-     * Wyklucza wygasłe assortmenty.
-     * Assortmenty bez daty wygaśnięcia są uwzględniane.
+     * Kolejna strona FIFO (keyset) - assortmenty po podanym (createdAt, id), bez OFFSET.
      */
-    @Query("SELECT a FROM Assortment a WHERE a.item.id = :itemId " +
+    @Query("SELECT a FROM Assortment a JOIN FETCH a.rack WHERE a.item.id = :itemId " +
+            "AND (a.expiresAt IS NULL OR a.expiresAt > CURRENT_TIMESTAMP) " +
+            "AND (a.createdAt > :afterCreatedAt OR (a.createdAt = :afterCreatedAt AND a.id > :afterId)) " +
+            "ORDER BY a.createdAt ASC, a.id ASC")
+    List<Assortment> findFifoPageAfter(@Param("itemId") Long itemId,
+                                       @Param("afterCreatedAt") Timestamp afterCreatedAt,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
+
+    /**
+     * Czy istnieje starszy niewygasły assortment tego samego produktu.
+     * EXISTS kończy się na pierwszym trafieniu w indeksie idx_assortment_item_fifo,
+     * więc koszt nie zależy od liczby sztuk na stanie.
+     */
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM assortment a WHERE a.item_id = :itemId " +
+            "AND a.created_at < :createdAt " +
+            "AND (a.expires_at IS NULL OR a.expires_at > CURRENT_TIMESTAMP))", nativeQuery = true)
+    boolean existsOlderAvailable(@Param("itemId") Long itemId, @Param("createdAt") Timestamp createdAt);
+
+    /**
+     * Podgląd najstarszych niewygasłych assortmentów starszych od podanego (ograniczony przez pageable).
+     * Regał jest dociągany w tym samym zapytaniu.
+     */
+    @Query("SELECT a FROM Assortment a JOIN FETCH a.rack WHERE a.item.id = :itemId " +
             "AND a.createdAt < :createdAt " +
             "AND (a.expiresAt IS NULL OR a.expiresAt > CURRENT_TIMESTAMP) " +
             "ORDER BY a.createdAt ASC")
-    List<Assortment> findOlderAssortments(@Param("itemId") Long itemId, @Param("createdAt") Timestamp createdAt);
+    List<Assortment> findOldestOlderAssortments(@Param("itemId") Long itemId, @Param("createdAt") Timestamp createdAt,
+                                                Pageable pageable);
+
+    /**
+     * Blokuje (FOR UPDATE SKIP LOCKED) assortmenty o podanych kodach i zwraca ich id.
+     * Wiersze zablokowane przez równoległe wydanie są pomijane zamiast czekać na zwolnienie blokady.
+     */
+    @Query(value = "SELECT a.id FROM assortment a WHERE a.code IN (:codes) FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockIdsByCodes(@Param("codes") Collection<String> codes);
+
+    long countByCodeIn(Collection<String> codes);
+
+    /**
+     * Assortmenty razem z produktem i regałem - jedno zapytanie dla całej listy wydania.
+     */
+    @Query("SELECT a FROM Assortment a JOIN FETCH a.item JOIN FETCH a.rack WHERE a.id IN :ids")
+    List<Assortment> findAllWithItemAndRackByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Najstarszy niewygasły assortment każdego z produktów, z pominięciem podanych assortmentów
+     * (tych, które są właśnie wydawane). Assortment jest zgodny z FIFO, jeśli nie jest młodszy od wyniku.
+     */
+    @Query("SELECT a.item.id AS itemId, MIN(a.createdAt) AS oldestCreatedAt FROM Assortment a " +
+            "WHERE a.item.id IN :itemIds AND a.id NOT IN :excludedIds " +
+            "AND (a.expiresAt IS NULL OR a.expiresAt > CURRENT_TIMESTAMP) " +
+            "GROUP BY a.item.id")
+    List<OldestAvailableProjection> findOldestAvailableByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                                 @Param("excludedIds") Collection<Long> excludedIds);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Assortment a WHERE a.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 
     /**
      * Znajdź assortment na konkretnej pozycji w regale
      */
     Optional<Assortment> findByRackIdAndPositionXAndPositionY(Long rackId, Integer positionX, Integer positionY);
 
+    /**
+     * Assortmenty magazynu do backupu, kursorem tylko do przodu - bez encji i bez ładowania całości do pamięci.
+     * Musi być czytane w transakcji.
+     */
+    @Query("SELECT a.id AS id, a.code AS code, a.item.id AS itemId, a.rack.id AS rackId, " +
+            "a.createdAt AS createdAt, a.expiresAt AS expiresAt, a.positionX AS positionX, a.positionY AS positionY " +
+            "FROM Assortment a WHERE a.rack.warehouse.id = :warehouseId ORDER BY a.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<AssortmentBackupProjection> streamBackupRows(@Param("warehouseId") Long warehouseId);
+
+    /**
+     * Assortmenty magazynu wstawione lub zmienione od podanej chwili - zawartość backupu przyrostowego.
+     * Wiersze sprzed śledzenia zmian (updated_at = NULL) liczą się od daty utworzenia.
+     */
+    @Query("SELECT a.id AS id, a.code AS code, a.item.id AS itemId, a.rack.id AS rackId, " +
+            "a.createdAt AS createdAt, a.expiresAt AS expiresAt, a.positionX AS positionX, a.positionY AS positionY " +
+            "FROM Assortment a WHERE a.rack.warehouse.id = :warehouseId " +
+            "AND COALESCE(a.updatedAt, a.createdAt) >= :since ORDER BY a.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<AssortmentBackupProjection> streamBackupRowsChangedSince(@Param("warehouseId") Long warehouseId,
+                                                                    @Param("since") Timestamp since);
+
+    /**
+     * Identyfikatory wszystkich assortmentów magazynu, rosnąco - migawka, z której restore odtwarza usunięcia.
+     */
+    @Query("SELECT a.id FROM Assortment a WHERE a.rack.warehouse.id = :warehouseId ORDER BY a.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"))
+    Stream<Long> streamIdsByWarehouseId(@Param("warehouseId") Long warehouseId);
+
     /**
      * Znajdź wszystkie assortmenty w danym magazynie z paginacją
      */
@@ -84,17 +185,36 @@ public interface AssortmentRepository extends JpaRepository<Assortment, Long>, J
     long countAvailableByItemId(@Param("itemId") Long itemId);
 
     /**
-     * Znajdź wszystkie wygasłe assortmenty.
+     * Policz wygasłe assortmenty dla danego produktu.
+     */
+    @Query("SELECT COUNT(a) FROM Assortment a WHERE a.item.id = :itemId " +
+            "AND a.expiresAt IS NOT NULL AND a.expiresAt <= CURRENT_TIMESTAMP")
+    long countExpiredByItemId(@Param("itemId") Long itemId);
+
+    /**
+     * Grupy (regał, produkt) z assortmentami, które od ostatniego skanu przekroczyły próg ważności:
+     * data ważności w przedziale (floor, to] i albo przesunęła się za próg ({@code expiresAt > from}),
+     * albo assortment dodano po {@code createdAfter}. Liczność obejmuje tylko takie assortmenty.
      */
-    @Query("SELECT a FROM Assortment a WHERE a.expiresAt IS NOT NULL AND a.expiresAt <= CURRENT_TIMESTAMP")
-    List<Assortment> findAllExpired();
+    @Query("SELECT a.rack.id AS rackId, a.item.id AS itemId, COUNT(a) AS assortmentCount FROM Assortment a " +
+            "WHERE a.expiresAt > :floor AND a.expiresAt <= :to " +
+            "AND (a.expiresAt > :from OR a.createdAt > :createdAfter) " +
+            "GROUP BY a.rack.id, a.item.id")
+    List<ExpiryGroupProjection> findExpiryGroupsCrossedSince(@Param("floor") Timestamp floor,
+                                                             @Param("from") Timestamp from,
+                                                             @Param("to") Timestamp to,
+                                                             @Param("createdAfter") Timestamp createdAfter);
 
     /**
-     * Znajdź assortmenty bliskie wygaśnięcia.
+     * Liczba wszystkich assortmentów z datą ważności w przedziale (floor, to] w podanych regałach,
+     * per (regał, produkt) - do treści alertu.
      */
-    @Query("SELECT a FROM Assortment a WHERE a.expiresAt IS NOT NULL " +
-            "AND a.expiresAt > CURRENT_TIMESTAMP AND a.expiresAt <= :threshold")
-    List<Assortment> findAllCloseToExpiry(@Param("threshold") Timestamp threshold);
+    @Query("SELECT a.rack.id AS rackId, a.item.id AS itemId, COUNT(a) AS assortmentCount FROM Assortment a " +
+            "WHERE a.rack.id IN :rackIds AND a.expiresAt > :floor AND a.expiresAt <= :to " +
+            "GROUP BY a.rack.id, a.item.id")
+    List<ExpiryGroupProjection> countExpiryGroups(@Param("rackIds") Collection<Long> rackIds,
+                                                  @Param("floor") Timestamp floor,
+                                                  @Param("to") Timestamp to);
 
     List<Assortment> findByUserId(Long userId);
 
@@ -24,12 +24,32 @@ public interface BackupRecordRepository extends JpaRepository<BackupRecord, Long
 
     List<BackupRecord> findByWarehouseIdAndStatusOrderByCompletedAtDesc(Long warehouseId, BackupStatus status);
 
+    Optional<BackupRecord> findFirstByWarehouseIdAndStatusOrderByCreatedAtDesc(Long warehouseId, BackupStatus status);
+
+    boolean existsByWarehouseIdAndRestoreStartedAtAfter(Long warehouseId, Instant restoreStartedAt);
+
+    boolean existsByParentBackupId(Long parentBackupId);
+
+    List<BackupRecord> findByParentBackupId(Long parentBackupId);
+
+    /**
+     * Completed deltas built directly on a full backup that completed before the cutoff - candidates for compaction.
+     */
+    @Query("SELECT b FROM BackupRecord b JOIN b.parentBackup p " +
+            "WHERE b.status = :status AND p.parentBackup IS NULL AND p.completedAt < :cutoffDate")
+    List<BackupRecord> findDeltasOfFullBackupsCompletedBefore(@Param("status") BackupStatus status,
+                                                             @Param("cutoffDate") Instant cutoffDate);
+
     @Query("SELECT b FROM BackupRecord b LEFT JOIN FETCH b.warehouse w LEFT JOIN FETCH b.triggeredBy u WHERE b.id = :id")
     Optional<BackupRecord> findWithEagerById(@Param("id") Long id);
 
     @Query("SELECT b FROM BackupRecord b LEFT JOIN FETCH b.warehouse w LEFT JOIN FETCH b.triggeredBy u")
     Page<BackupRecord> findAllWithEager(Pageable pageable);
 
+    @Modifying
+    @Query("UPDATE BackupRecord b SET b.restoreProgressPercentage = :progress WHERE b.id = :id")
+    int updateRestoreProgress(@Param("id") Long id, @Param("progress") int progress);
+
     @Modifying
     @Query("DELETE FROM BackupRecord b WHERE b.status IN :statuses AND b.completedAt < :cutoffDate")
     int deleteByStatusInAndCompletedAtBefore(@Param("statuses") List<BackupStatus> statuses, @Param("cutoffDate") Instant cutoffDate);
@@ -0,0 +1,28 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.EmailOutboxMessage;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    /**
+     * Locks the oldest pending messages that are due.
+     * Rows locked by another instance's worker are skipped instead of waiting for the lock.
+     */
+    @Query(value = "SELECT * FROM email_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutboxMessage> lockDueBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    long countByStatus(EmailOutboxStatus status);
+
+    @Query("SELECT MIN(e.createdAt) FROM EmailOutboxMessage e WHERE e.status = :status")
+    Instant findOldestCreatedAt(@Param("status") EmailOutboxStatus status);
+}
@@ -1,15 +1,20 @@
 package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
 
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Item;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.ItemBackupProjection;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ItemRepository extends JpaRepository<Item, Long>, JpaSpecificationExecutor<Item> {
     boolean existsByCode(String code);
@@ -40,6 +45,22 @@ public interface ItemRepository extends JpaRepository<Item, Long>, JpaSpecificat
     @Query("SELECT DISTINCT a.item FROM Assortment a WHERE a.rack.warehouse.id = :warehouseId")
     List<Item> findDistinctByWarehouseId(@Param("warehouseId") Long warehouseId);
 
+    /**
+     * Items with assortments in the warehouse, one row per image (ordered by item), for streaming a backup.
+     * Must be consumed inside a transaction.
+     */
+    @Query("SELECT i.id AS id, i.name AS name, i.code AS code, i.photo_url AS photoUrl, i.qrCode AS qrCode, " +
+            "i.min_temp AS minTemp, i.max_temp AS maxTemp, i.weight AS weight, " +
+            "i.size_x AS sizeX, i.size_y AS sizeY, i.size_z AS sizeZ, i.comment AS comment, " +
+            "i.expireAfterDays AS expireAfterDays, i.isDangerous AS dangerous, " +
+            "img.id AS imageId, img.photoUrl AS imagePhotoUrl, img.isPrimary AS imagePrimary, " +
+            "img.displayOrder AS imageDisplayOrder " +
+            "FROM Item i LEFT JOIN i.images img " +
+            "WHERE i.id IN (SELECT a.item.id FROM Assortment a WHERE a.rack.warehouse.id = :warehouseId) " +
+            "ORDER BY i.id, img.displayOrder")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ItemBackupProjection> streamBackupRows(@Param("warehouseId") Long warehouseId);
+
     @Query("SELECT DISTINCT a.item FROM Assortment a JOIN FETCH a.item.images WHERE a.rack.warehouse.id = :warehouseId")
     List<Item> findDistinctByWarehouseIdWithImages(@Param("warehouseId") Long warehouseId);
 
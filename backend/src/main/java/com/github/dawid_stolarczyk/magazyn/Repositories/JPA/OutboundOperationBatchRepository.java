@@ -0,0 +1,17 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.OutboundOperation;
+
+import java.util.List;
+
+/**
+ * Batch zapis rekordów audytu wydań.
+ * OutboundOperation używa IDENTITY, więc Hibernate nie grupuje insertów - tutaj robimy to przez JDBC.
+ */
+public interface OutboundOperationBatchRepository {
+
+    /**
+     * Zapisuje wszystkie operacje jednym batchem JDBC i uzupełnia ich wygenerowane id.
+     */
+    void insertAll(List<OutboundOperation> operations);
+}
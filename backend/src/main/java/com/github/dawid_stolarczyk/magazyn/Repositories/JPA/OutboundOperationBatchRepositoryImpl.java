@@ -0,0 +1,71 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.OutboundOperation;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+class OutboundOperationBatchRepositoryImpl implements OutboundOperationBatchRepository {
+    private static final String INSERT_SQL = "INSERT INTO outbound_operations " +
+            "(rack_marker, issued_by_name, operation_timestamp, batch_arrival_date, position_x, position_y, " +
+            "quantity, assortment_code, item_name, item_code, fifo_compliant, fifo_violation) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    OutboundOperationBatchRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void insertAll(List<OutboundOperation> operations) {
+        if (operations.isEmpty()) {
+            return;
+        }
+        operations.forEach(OutboundOperation::initializeTimestamps);
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        OutboundOperation op = operations.get(i);
+                        ps.setString(1, op.getRackMarker());
+                        ps.setString(2, op.getIssuedByName());
+                        ps.setTimestamp(3, op.getOperationTimestamp());
+                        ps.setTimestamp(4, op.getBatchArrivalDate());
+                        ps.setObject(5, op.getPositionX(), Types.INTEGER);
+                        ps.setObject(6, op.getPositionY(), Types.INTEGER);
+                        ps.setInt(7, op.getQuantity());
+                        ps.setString(8, op.getAssortmentCode());
+                        ps.setString(9, op.getItemName());
+                        ps.setString(10, op.getItemCode());
+                        ps.setBoolean(11, op.isFifoCompliant());
+                        ps.setBoolean(12, op.isFifoViolation());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return operations.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < operations.size() && i < keys.size(); i++) {
+            Object id = keys.get(i).get("id");
+            if (id instanceof Number number) {
+                operations.get(i).setId(number.longValue());
+            }
+        }
+    }
+}
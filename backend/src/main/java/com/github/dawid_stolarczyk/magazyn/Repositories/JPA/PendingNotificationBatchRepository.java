@@ -0,0 +1,17 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.PendingNotification;
+
+import java.util.List;
+
+/**
+ * Batch zapis oczekujących powiadomień.
+ * PendingNotification używa IDENTITY, więc Hibernate nie grupuje insertów - tutaj robimy to przez JDBC.
+ */
+public interface PendingNotificationBatchRepository {
+
+    /**
+     * Zapisuje wszystkie oczekujące powiadomienia jednym batchem JDBC.
+     */
+    void insertAll(List<PendingNotification> notifications);
+}
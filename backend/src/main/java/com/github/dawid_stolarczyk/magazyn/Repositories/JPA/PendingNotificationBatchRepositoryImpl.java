@@ -0,0 +1,47 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.PendingNotification;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+class PendingNotificationBatchRepositoryImpl implements PendingNotificationBatchRepository {
+    private static final String INSERT_SQL = "INSERT INTO pending_notifications " +
+            "(alert_id, admins_only, delivery, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    PendingNotificationBatchRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void insertAll(List<PendingNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PendingNotification notification = notifications.get(i);
+                ps.setLong(1, notification.getAlertId());
+                ps.setBoolean(2, notification.isAdminsOnly());
+                ps.setString(3, notification.getDelivery());
+                ps.setTimestamp(4, Timestamp.from(notification.getCreatedAt() != null
+                        ? notification.getCreatedAt() : now));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return notifications.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.PendingNotification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PendingNotificationRepository extends JpaRepository<PendingNotification, Long>,
+        PendingNotificationBatchRepository {
+
+    /**
+     * Locks the oldest pending dispatches.
+     * Rows locked by another instance's flush are skipped instead of waiting for the lock.
+     */
+    @Query(value = "SELECT * FROM pending_notifications ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<PendingNotification> lockBatch(@Param("limit") int limit);
+}
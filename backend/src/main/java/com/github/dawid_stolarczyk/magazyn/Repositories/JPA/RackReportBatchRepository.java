@@ -0,0 +1,17 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.RackReport;
+
+import java.util.List;
+
+/**
+ * Batch zapis raportów telemetrycznych.
+ * RackReport używa IDENTITY, więc Hibernate nie grupuje insertów - tutaj robimy to przez JDBC.
+ */
+public interface RackReportBatchRepository {
+
+    /**
+     * Zapisuje wszystkie raporty jednym batchem JDBC i uzupełnia ich wygenerowane id.
+     */
+    void insertAll(List<RackReport> reports);
+}
@@ -0,0 +1,70 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.RackReport;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+class RackReportBatchRepositoryImpl implements RackReportBatchRepository {
+    private static final String INSERT_SQL = "INSERT INTO rack_reports " +
+            "(rack_id, current_weight, current_temperature, created_at, sensor_id, alert_triggered) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    RackReportBatchRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void insertAll(List<RackReport> reports) {
+        if (reports.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        for (RackReport report : reports) {
+            if (report.getCreatedAt() == null) {
+                report.setCreatedAt(now);
+            }
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        RackReport report = reports.get(i);
+                        ps.setLong(1, report.getRack().getId());
+                        ps.setFloat(2, report.getCurrentWeight());
+                        ps.setFloat(3, report.getCurrentTemperature());
+                        ps.setTimestamp(4, Timestamp.from(report.getCreatedAt()));
+                        ps.setString(5, report.getSensorId());
+                        ps.setBoolean(6, report.isAlertTriggered());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return reports.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < reports.size() && i < keys.size(); i++) {
+            Object id = keys.get(i).get("id");
+            if (id instanceof Number number) {
+                reports.get(i).setId(number.longValue());
+            }
+        }
+    }
+}
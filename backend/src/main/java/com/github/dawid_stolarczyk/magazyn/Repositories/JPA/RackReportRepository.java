@@ -1,18 +1,22 @@
 package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
 
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.RackReport;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.RackReadingProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface RackReportRepository extends JpaRepository<RackReport, Long> {
+public interface RackReportRepository extends JpaRepository<RackReport, Long>, RackReportBatchRepository {
 
     List<RackReport> findByRackIdOrderByCreatedAtDesc(Long rackId);
 
@@ -28,6 +32,30 @@ public interface RackReportRepository extends JpaRepository<RackReport, Long> {
 
     long countByRackId(Long rackId);
 
+    @Modifying
+    @Query("UPDATE RackReport r SET r.alertTriggered = true WHERE r.id IN :ids")
+    int markAlertTriggered(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Readings received since {@code since}, oldest first. Must be consumed inside a transaction.
+     */
+    @Query("SELECT r.rack.id AS rackId, r.rack.warehouse.id AS warehouseId, r.currentWeight AS currentWeight, " +
+            "r.currentTemperature AS currentTemperature, r.createdAt AS createdAt " +
+            "FROM RackReport r WHERE r.createdAt >= :since ORDER BY r.createdAt ASC")
+    Stream<RackReadingProjection> streamReadingsSince(@Param("since") Instant since);
+
+    @Query("SELECT MIN(r.createdAt) FROM RackReport r")
+    Instant findOldestCreatedAt();
+
+    /**
+     * Deletes up to {@code limit} reports older than {@code cutoff}; called repeatedly to purge raw telemetry
+     * in short transactions. The {@code created_at} predicate on the outer statement keeps partition pruning.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM rack_reports WHERE created_at < :cutoff AND id IN " +
+            "(SELECT id FROM rack_reports WHERE created_at < :cutoff LIMIT :limit)", nativeQuery = true)
+    int deleteBatchCreatedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
     @Query("SELECT r FROM RackReport r WHERE r.rack.id = :rackId ORDER BY r.createdAt DESC LIMIT 1")
     RackReport findLatestByRackId(@Param("rackId") Long rackId);
 
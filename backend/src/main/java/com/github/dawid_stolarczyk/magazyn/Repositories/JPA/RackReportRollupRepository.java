@@ -0,0 +1,91 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.RackReportRollup;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.TelemetryResolution;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RackReportRollupRepository extends JpaRepository<RackReportRollup, Long> {
+
+    /**
+     * Aggregates raw reports from {@code [from, to)} into MINUTE buckets (UTC).
+     * Buckets are recomputed as a whole, so re-running a window is idempotent.
+     * PostgreSQL only ({@code ON CONFLICT}, three-argument {@code date_trunc}).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO rack_report_rollups (rack_id, resolution, bucket_start, sample_count, " +
+            "min_weight, max_weight, avg_weight, min_temperature, max_temperature, avg_temperature) " +
+            "SELECT r.rack_id, 'MINUTE', date_trunc('minute', r.created_at, 'UTC'), COUNT(*), " +
+            "MIN(r.current_weight), MAX(r.current_weight), AVG(r.current_weight), " +
+            "MIN(r.current_temperature), MAX(r.current_temperature), AVG(r.current_temperature) " +
+            "FROM rack_reports r " +
+            "WHERE r.created_at >= :from AND r.created_at < :to " +
+            "GROUP BY 1, 3 " +
+            "ON CONFLICT (rack_id, resolution, bucket_start) DO UPDATE SET " +
+            "sample_count = EXCLUDED.sample_count, " +
+            "min_weight = EXCLUDED.min_weight, max_weight = EXCLUDED.max_weight, avg_weight = EXCLUDED.avg_weight, " +
+            "min_temperature = EXCLUDED.min_temperature, max_temperature = EXCLUDED.max_temperature, " +
+            "avg_temperature = EXCLUDED.avg_temperature", nativeQuery = true)
+    int rollupRawReports(@Param("from") Instant from, @Param("to") Instant to);
+
+    /**
+     * Aggregates {@code source} rollups from {@code [from, to)} into coarser {@code target} buckets (UTC).
+     * Averages are weighted by sample count so they match an average over the raw reports.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO rack_report_rollups (rack_id, resolution, bucket_start, sample_count, " +
+            "min_weight, max_weight, avg_weight, min_temperature, max_temperature, avg_temperature) " +
+            "SELECT r.rack_id, :target, date_trunc(:unit, r.bucket_start, 'UTC'), SUM(r.sample_count), " +
+            "MIN(r.min_weight), MAX(r.max_weight), SUM(r.avg_weight * r.sample_count) / SUM(r.sample_count), " +
+            "MIN(r.min_temperature), MAX(r.max_temperature), SUM(r.avg_temperature * r.sample_count) / SUM(r.sample_count) " +
+            "FROM rack_report_rollups r " +
+            "WHERE r.resolution = :source AND r.bucket_start >= :from AND r.bucket_start < :to " +
+            "GROUP BY 1, 3 " +
+            "ON CONFLICT (rack_id, resolution, bucket_start) DO UPDATE SET " +
+            "sample_count = EXCLUDED.sample_count, " +
+            "min_weight = EXCLUDED.min_weight, max_weight = EXCLUDED.max_weight, avg_weight = EXCLUDED.avg_weight, " +
+            "min_temperature = EXCLUDED.min_temperature, max_temperature = EXCLUDED.max_temperature, " +
+            "avg_temperature = EXCLUDED.avg_temperature", nativeQuery = true)
+    int rollupFrom(@Param("source") String source,
+                   @Param("target") String target,
+                   @Param("unit") String unit,
+                   @Param("from") Instant from,
+                   @Param("to") Instant to);
+
+    @Query("SELECT MAX(r.bucketStart) FROM RackReportRollup r WHERE r.resolution = :resolution")
+    Instant findLatestBucketStart(@Param("resolution") TelemetryResolution resolution);
+
+    @Query("SELECT MIN(r.bucketStart) FROM RackReportRollup r WHERE r.resolution = :resolution")
+    Instant findEarliestBucketStart(@Param("resolution") TelemetryResolution resolution);
+
+    @Query("SELECT r FROM RackReportRollup r WHERE r.rack.id = :rackId AND r.resolution = :resolution " +
+            "AND r.bucketStart >= :start AND r.bucketStart < :end ORDER BY r.bucketStart ASC")
+    List<RackReportRollup> findHistory(@Param("rackId") Long rackId,
+                                       @Param("resolution") TelemetryResolution resolution,
+                                       @Param("start") Instant start,
+                                       @Param("end") Instant end);
+
+    /**
+     * Buckets whose temperature range left the rack's allowed range, optionally filtered by warehouse.
+     */
+    @Query("SELECT r FROM RackReportRollup r JOIN FETCH r.rack rk JOIN FETCH rk.warehouse w " +
+            "WHERE r.resolution = :resolution AND r.bucketStart >= :start AND r.bucketStart < :end " +
+            "AND (r.maxTemperature > rk.max_temp OR r.minTemperature < rk.min_temp) " +
+            "AND (:warehouseId IS NULL OR w.id = :warehouseId) " +
+            "ORDER BY r.bucketStart DESC")
+    List<RackReportRollup> findTemperatureViolations(@Param("warehouseId") Long warehouseId,
+                                                     @Param("resolution") TelemetryResolution resolution,
+                                                     @Param("start") Instant start,
+                                                     @Param("end") Instant end);
+
+    @Modifying
+    @Query("DELETE FROM RackReportRollup r WHERE r.resolution = :resolution AND r.bucketStart < :cutoff")
+    int deleteOlderThan(@Param("resolution") TelemetryResolution resolution, @Param("cutoff") Instant cutoff);
+}
@@ -1,16 +1,34 @@
 package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
 
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Rack;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.RackBackupProjection;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface RackRepository extends JpaRepository<Rack, Long> {
     List<Rack> findByWarehouseId(Long warehouseId);
 
+    /**
+     * Regały magazynu do backupu, kursorem tylko do przodu. Musi być czytane w transakcji.
+     */
+    @Query("SELECT r.id AS id, r.marker AS marker, r.comment AS comment, r.size_x AS sizeX, r.size_y AS sizeY, " +
+            "r.max_temp AS maxTemp, r.min_temp AS minTemp, r.max_weight AS maxWeight, " +
+            "r.max_size_x AS maxSizeX, r.max_size_y AS maxSizeY, r.max_size_z AS maxSizeZ, " +
+            "r.acceptsDangerous AS acceptsDangerous " +
+            "FROM Rack r WHERE r.warehouse.id = :warehouseId ORDER BY r.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<RackBackupProjection> streamBackupRows(@Param("warehouseId") Long warehouseId);
+
     Page<Rack> findAll(Pageable pageable);
 
     Page<Rack> findByWarehouseId(Long warehouseId, Pageable pageable);
@@ -18,4 +36,26 @@ public interface RackRepository extends JpaRepository<Rack, Long> {
     Optional<Rack> findByWarehouseIdAndMarker(Long warehouseId, String marker);
 
     boolean existsByWarehouseIdAndMarker(Long warehouseId, String marker);
+
+    /**
+     * Pre-filter regałów dla planowania przyjęcia - jedno zapytanie po atrybutach regału.
+     * Zwraca tylko regały zgodne z produktem (temperatura, wymiary, towary niebezpieczne,
+     * nośność na co najmniej jedną sztukę). Zajętość i obciążenie sprawdzane są potem
+     * w indeksie zajętości, z którego pochodzi również mapa wolnych komórek.
+     * Limity wymiarów przekazywane są już pomniejszone o tolerancję porównania.
+     */
+    @Query("SELECT r FROM Rack r " +
+            "WHERE (:warehouseId IS NULL OR r.warehouse.id = :warehouseId) " +
+            "AND r.min_temp >= :itemMinTemp AND r.max_temp <= :itemMaxTemp " +
+            "AND r.max_size_x >= :minSizeX AND r.max_size_y >= :minSizeY AND r.max_size_z >= :minSizeZ " +
+            "AND (:dangerous = false OR r.acceptsDangerous = true) " +
+            "AND (:itemWeight <= 0 OR r.max_weight >= :itemWeight)")
+    List<Rack> findPlacementCandidates(@Param("warehouseId") Long warehouseId,
+                                       @Param("itemMinTemp") float itemMinTemp,
+                                       @Param("itemMaxTemp") float itemMaxTemp,
+                                       @Param("minSizeX") double minSizeX,
+                                       @Param("minSizeY") double minSizeY,
+                                       @Param("minSizeZ") double minSizeZ,
+                                       @Param("dangerous") boolean dangerous,
+                                       @Param("itemWeight") double itemWeight);
 }
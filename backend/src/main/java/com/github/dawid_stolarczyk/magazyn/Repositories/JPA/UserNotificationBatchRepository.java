@@ -0,0 +1,22 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Batch zapis powiadomień użytkowników.
+ * UserNotification używa IDENTITY, więc Hibernate nie grupuje insertów - tutaj robimy to przez JDBC.
+ */
+public interface UserNotificationBatchRepository {
+
+    /**
+     * Para użytkownik - alert, dla której tworzone jest powiadomienie
+     */
+    record NotificationKey(Long userId, Long alertId) {
+    }
+
+    /**
+     * Zapisuje nieprzeczytane powiadomienia dla wszystkich par jednym batchem JDBC.
+     */
+    void insertUnread(List<NotificationKey> keys, Instant createdAt);
+}
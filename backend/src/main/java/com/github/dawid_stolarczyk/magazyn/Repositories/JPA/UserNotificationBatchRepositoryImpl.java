@@ -0,0 +1,44 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+class UserNotificationBatchRepositoryImpl implements UserNotificationBatchRepository {
+    private static final String INSERT_SQL = "INSERT INTO user_notifications " +
+            "(user_id, alert_id, is_read, created_at) VALUES (?, ?, false, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    UserNotificationBatchRepositoryImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void insertUnread(List<NotificationKey> keys, Instant createdAt) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.from(createdAt);
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                NotificationKey key = keys.get(i);
+                ps.setLong(1, key.userId());
+                ps.setLong(2, key.alertId());
+                ps.setTimestamp(3, timestamp);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return keys.size();
+            }
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.dawid_stolarczyk.magazyn.Repositories.JPA;
 
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.UserNotification;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.NotificationStateProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,12 +11,13 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface UserNotificationRepository extends JpaRepository<UserNotification, Long> {
+public interface UserNotificationRepository extends JpaRepository<UserNotification, Long>, UserNotificationBatchRepository {
 
     /**
      * Find all notifications for a user with pagination
@@ -27,6 +29,11 @@ public interface UserNotificationRepository extends JpaRepository<UserNotificati
      */
     Page<UserNotification> findByUserIdAndIsReadFalseOrderByCreatedAtDesc(Long userId, Pageable pageable);
 
+    /**
+     * Count unread notifications of a user (loads the cached unread counter)
+     */
+    long countByUserIdAndIsReadFalse(Long userId);
+
     /**
      * Find notification by user and alert
      */
@@ -51,4 +58,20 @@ public interface UserNotificationRepository extends JpaRepository<UserNotificati
      */
     @Query("SELECT n.user.id FROM UserNotification n WHERE n.alert.id = :alertId")
     Set<Long> findUserIdsWithNotificationForAlert(@Param("alertId") Long alertId);
+
+    /**
+     * Existing notifications (user, alert, read flag) of all given alerts.
+     * Used by the notification dispatcher to handle a whole coalescing window with a single query.
+     */
+    @Query("SELECT n.user.id AS userId, n.alert.id AS alertId, n.isRead AS read " +
+            "FROM UserNotification n WHERE n.alert.id IN :alertIds")
+    List<NotificationStateProjection> findStatesForAlerts(@Param("alertIds") Collection<Long> alertIds);
+
+    /**
+     * Mark read notifications of the given alerts as unread again (alert became more severe)
+     */
+    @Modifying
+    @Query("UPDATE UserNotification n SET n.isRead = false, n.readAt = null " +
+            "WHERE n.alert.id IN :alertIds AND n.isRead = true")
+    int markUnreadForAlerts(@Param("alertIds") Collection<Long> alertIds);
 }
@@ -56,4 +56,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * Used for system-wide notifications to specific user roles (e.g., admins).
      */
     List<User> findByRoleAndStatus(UserRole role, AccountStatus status);
+
+    /**
+     * IDs of warehouses the user is assigned to.
+     * Used to filter live alert events per connection.
+     */
+    @Query("SELECT w.id FROM User u JOIN u.assignedWarehouses w WHERE u.id = :userId")
+    List<Long> findAssignedWarehouseIds(@Param("userId") Long userId);
 }
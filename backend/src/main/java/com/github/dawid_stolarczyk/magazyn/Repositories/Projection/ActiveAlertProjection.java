@@ -0,0 +1,21 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.Projection;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+
+/**
+ * Identity of an unresolved rack alert.
+ * Used to build the in-memory active alert registry without materialising alerts.
+ */
+public interface ActiveAlertProjection {
+
+    Long getId();
+
+    Long getRackId();
+
+    /**
+     * Item of an item-level alert, {@code null} for rack-level alerts
+     */
+    Long getItemId();
+
+    AlertType getAlertType();
+}
@@ -0,0 +1,25 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.Projection;
+
+import java.sql.Timestamp;
+
+/**
+ * Assortment columns written to a warehouse backup, read without materializing the assortment entity.
+ */
+public interface AssortmentBackupProjection {
+
+    Long getId();
+
+    String getCode();
+
+    Long getItemId();
+
+    Long getRackId();
+
+    Timestamp getCreatedAt();
+
+    Timestamp getExpiresAt();
+
+    Integer getPositionX();
+
+    Integer getPositionY();
+}
@@ -0,0 +1,17 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.Projection;
+
+/**
+ * Assortments of a single item in a single rack whose expiry date falls into a scanned window.
+ * Used by the incremental expiration scanner instead of loading assortment entities.
+ */
+public interface ExpiryGroupProjection {
+
+    Long getRackId();
+
+    Long getItemId();
+
+    /**
+     * Number of matching assortments of the item in the rack
+     */
+    Long getAssortmentCount();
+}
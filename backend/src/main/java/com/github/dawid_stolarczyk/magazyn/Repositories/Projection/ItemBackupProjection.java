@@ -0,0 +1,44 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.Projection;
+
+/**
+ * Item columns written to a warehouse backup, joined with one of its images.
+ * An item with several images spans consecutive rows; image columns are {@code null} for items without images.
+ */
+public interface ItemBackupProjection {
+
+    Long getId();
+
+    String getName();
+
+    String getCode();
+
+    String getPhotoUrl();
+
+    String getQrCode();
+
+    float getMinTemp();
+
+    float getMaxTemp();
+
+    float getWeight();
+
+    float getSizeX();
+
+    float getSizeY();
+
+    float getSizeZ();
+
+    String getComment();
+
+    Long getExpireAfterDays();
+
+    boolean getDangerous();
+
+    Long getImageId();
+
+    String getImagePhotoUrl();
+
+    Boolean getImagePrimary();
+
+    Integer getImageDisplayOrder();
+}
@@ -0,0 +1,14 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.Projection;
+
+/**
+ * Existing notification of a user for an alert, with its read flag.
+ * Used by the notification dispatcher to find missing and already read notifications in one query.
+ */
+public interface NotificationStateProjection {
+
+    Long getUserId();
+
+    Long getAlertId();
+
+    boolean isRead();
+}
@@ -0,0 +1,16 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.Projection;
+
+import java.sql.Timestamp;
+
+/**
+ * Projection of the oldest non-expired assortment of an item, used for FIFO compliance checks.
+ */
+public interface OldestAvailableProjection {
+
+    Long getItemId();
+
+    /**
+     * Creation time of the oldest non-expired assortment of the item
+     */
+    Timestamp getOldestCreatedAt();
+}
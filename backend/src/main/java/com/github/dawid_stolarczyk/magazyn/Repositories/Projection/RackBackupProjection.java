@@ -0,0 +1,31 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.Projection;
+
+/**
+ * Rack columns written to a warehouse backup, read without materializing the rack entity.
+ */
+public interface RackBackupProjection {
+
+    Long getId();
+
+    String getMarker();
+
+    String getComment();
+
+    int getSizeX();
+
+    int getSizeY();
+
+    float getMaxTemp();
+
+    float getMinTemp();
+
+    float getMaxWeight();
+
+    float getMaxSizeX();
+
+    float getMaxSizeY();
+
+    float getMaxSizeZ();
+
+    boolean getAcceptsDangerous();
+}
@@ -0,0 +1,25 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.Projection;
+
+/**
+ * Lightweight projection of a single occupied rack position with the stored item's weight and temperature tolerance.
+ * Used to build the in-memory rack occupancy index without materialising assortments.
+ */
+public interface RackOccupancyProjection {
+
+    Long getRackId();
+
+    Integer getPositionX();
+
+    Integer getPositionY();
+
+    Long getItemId();
+
+    /**
+     * Weight of the stored item in kilograms
+     */
+    Float getWeight();
+
+    Float getMinTemp();
+
+    Float getMaxTemp();
+}
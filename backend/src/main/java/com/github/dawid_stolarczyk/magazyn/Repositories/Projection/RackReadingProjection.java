@@ -0,0 +1,20 @@
+package com.github.dawid_stolarczyk.magazyn.Repositories.Projection;
+
+import java.time.Instant;
+
+/**
+ * Single rack reading without the report entity.
+ * Used to warm up the in-memory telemetry trend buffers at startup.
+ */
+public interface RackReadingProjection {
+
+    Long getRackId();
+
+    Long getWarehouseId();
+
+    float getCurrentWeight();
+
+    float getCurrentTemperature();
+
+    Instant getCreatedAt();
+}
@@ -1,124 +1,181 @@
 package com.github.dawid_stolarczyk.magazyn.Scheduler;
 
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.*;
-import com.github.dawid_stolarczyk.magazyn.Model.Enums.AccountStatus;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AlertRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AssortmentRepository;
-import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserNotificationRepository;
-import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.ItemRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.ExpiryGroupProjection;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.ActiveAlertRegistry;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.NotificationDispatcher;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.NotificationDispatcher.Delivery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * Raises expiration alerts for (rack, item) pairs.
+ * <p>
+ * Instead of a daily sweep over all assortments the task runs every {@code app.expiration.scan-interval-ms}
+ * and keeps a watermark - the time of the last successful scan. Each run only looks at assortments that crossed
+ * a threshold since then: the expiry date passed (expired) or entered the close-to-expiry window, or the
+ * assortment was added already past a threshold. Matches are aggregated per (rack, item) in the database.
+ * <p>
+ * The watermark lives in memory; the first run after startup scans everything, which also catches up on
+ * thresholds crossed while the application was down. Pairs with an unresolved alert of the same type are
+ * skipped, so a resolved alert is raised again only when more stock crosses the threshold.
+ * <p>
+ * Unresolved alerts are looked up in the node-local {@link ActiveAlertRegistry}. Registry hits are re-checked
+ * against the database and an alert already created by another instance is picked up from the
+ * {@code idx_unique_open_alert} violation, so neither a stale nor a missing entry breaks the scan.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ExpirationAlertTask {
 
-    private static final List<AlertStatus> ACTIVE_STATUSES = Arrays.asList(AlertStatus.OPEN, AlertStatus.ACTIVE);
+    private static final Timestamp NO_FLOOR = Timestamp.from(Instant.EPOCH);
+    private static final List<AlertStatus> ACTIVE_STATUSES = List.of(AlertStatus.OPEN, AlertStatus.ACTIVE);
 
     private final AssortmentRepository assortmentRepository;
     private final AlertRepository alertRepository;
-    private final UserRepository userRepository;
-    private final UserNotificationRepository notificationRepository;
+    private final RackRepository rackRepository;
+    private final ItemRepository itemRepository;
+    private final ActiveAlertRegistry activeAlertRegistry;
+    private final NotificationDispatcher notificationDispatcher;
 
     @Value("${app.expiration.close-to-expiry-days:2}")
     private int closeToExpiryDays;
 
-    @Scheduled(cron = "${app.expiration.check-cron:0 0 6 * * *}")
-    public void checkExpirations() {
-        try {
-            log.info("Starting scheduled expiration alert check");
+    /**
+     * Scans overlap by this much, so rows committed late by a transaction that started before the previous
+     * scan are not missed. Already alerted pairs are skipped, so the overlap costs no duplicate alerts.
+     */
+    @Value("${app.expiration.scan-overlap-seconds:60}")
+    private long scanOverlapSeconds;
 
-            int expiredAlerts = processExpiredAssortments();
-            int closeToExpiryAlerts = processCloseToExpiryAssortments();
+    private Instant lastScanAt;
 
-            log.info("Expiration alert check completed - expired alerts created: {}, close-to-expiry alerts created: {}",
-                    expiredAlerts, closeToExpiryAlerts);
+    @Scheduled(fixedDelayString = "${app.expiration.scan-interval-ms:300000}",
+            initialDelayString = "${app.expiration.initial-delay-ms:60000}")
+    public synchronized void checkExpirations() {
+        Instant now = Instant.now();
+        Instant since = lastScanAt != null ? lastScanAt.minusSeconds(scanOverlapSeconds) : Instant.EPOCH;
+        try {
+            int expiredAlerts = processExpiredAssortments(since, now);
+            int closeToExpiryAlerts = processCloseToExpiryAssortments(since, now);
+            lastScanAt = now;
+
+            if (expiredAlerts > 0 || closeToExpiryAlerts > 0) {
+                log.info("Expiration alert check completed - expired alerts created: {}, close-to-expiry alerts created: {}",
+                        expiredAlerts, closeToExpiryAlerts);
+            }
         } catch (Exception e) {
             log.error("Error during expiration alert check", e);
         }
     }
 
-    @Transactional
-    private int processExpiredAssortments() {
-        List<Assortment> expired = assortmentRepository.findAllExpired();
-        if (expired.isEmpty()) {
-            return 0;
-        }
-
-        Map<RackItemKey, List<Assortment>> grouped = groupByRackAndItem(expired);
-        int alertsCreated = 0;
-
-        for (Map.Entry<RackItemKey, List<Assortment>> entry : grouped.entrySet()) {
-            RackItemKey key = entry.getKey();
-            List<Assortment> assortments = entry.getValue();
-
-            if (alertRepository.existsActiveAlertForRackAndItem(
-                    key.rackId, key.itemId, AlertType.ASSORTMENT_EXPIRED, ACTIVE_STATUSES)) {
-                continue;
-            }
-
-            Assortment sample = assortments.get(0);
-            String message = buildExpirationMessage(sample.getRack(), sample.getItem(), assortments.size());
-
-            Alert alert = createAlert(sample.getRack(), sample.getItem(), AlertType.ASSORTMENT_EXPIRED, message);
-            distributeNotifications(alert);
-            alertsCreated++;
-        }
+    private int processExpiredAssortments(Instant since, Instant now) {
+        List<ExpiryGroupProjection> crossed = assortmentRepository.findExpiryGroupsCrossedSince(
+                NO_FLOOR, Timestamp.from(since), Timestamp.from(now), Timestamp.from(since));
+        return raiseAlerts(crossed, AlertType.ASSORTMENT_EXPIRED, NO_FLOOR, Timestamp.from(now));
+    }
 
-        return alertsCreated;
+    private int processCloseToExpiryAssortments(Instant since, Instant now) {
+        Duration window = Duration.ofDays(closeToExpiryDays);
+        Timestamp floor = Timestamp.from(now);
+        Timestamp to = Timestamp.from(now.plus(window));
+        List<ExpiryGroupProjection> crossed = assortmentRepository.findExpiryGroupsCrossedSince(
+                floor, Timestamp.from(since.plus(window)), to, Timestamp.from(since));
+        return raiseAlerts(crossed, AlertType.ASSORTMENT_CLOSE_TO_EXPIRY, floor, to);
     }
 
-    @Transactional
-    private int processCloseToExpiryAssortments() {
-        Timestamp threshold = Timestamp.from(Instant.now().plus(closeToExpiryDays, ChronoUnit.DAYS));
-        List<Assortment> closeToExpiry = assortmentRepository.findAllCloseToExpiry(threshold);
-        if (closeToExpiry.isEmpty()) {
+    /**
+     * Creates an alert for every crossed pair without an unresolved one; the message counts all assortments
+     * of the pair within (floor, to], not only those that crossed in this scan.
+     */
+    private int raiseAlerts(List<ExpiryGroupProjection> crossed, AlertType alertType, Timestamp floor, Timestamp to) {
+        List<ExpiryGroupProjection> candidates = withoutActiveAlerts(crossed, alertType);
+        if (candidates.isEmpty()) {
             return 0;
         }
 
-        Map<RackItemKey, List<Assortment>> grouped = groupByRackAndItem(closeToExpiry);
-        int alertsCreated = 0;
-
-        for (Map.Entry<RackItemKey, List<Assortment>> entry : grouped.entrySet()) {
-            RackItemKey key = entry.getKey();
-            List<Assortment> assortments = entry.getValue();
+        Set<Long> rackIds = candidates.stream().map(ExpiryGroupProjection::getRackId).collect(Collectors.toSet());
+        Set<Long> itemIds = candidates.stream().map(ExpiryGroupProjection::getItemId).collect(Collectors.toSet());
+        Map<Long, Rack> racks = rackRepository.findAllById(rackIds).stream()
+                .collect(Collectors.toMap(Rack::getId, Function.identity()));
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Map<RackItemKey, Long> totals = assortmentRepository.countExpiryGroups(rackIds, floor, to).stream()
+                .collect(Collectors.toMap(group -> new RackItemKey(group.getRackId(), group.getItemId()),
+                        ExpiryGroupProjection::getAssortmentCount));
 
-            if (alertRepository.existsActiveAlertForRackAndItem(
-                    key.rackId, key.itemId, AlertType.ASSORTMENT_CLOSE_TO_EXPIRY, ACTIVE_STATUSES)) {
+        int alertsCreated = 0;
+        for (ExpiryGroupProjection group : candidates) {
+            Rack rack = racks.get(group.getRackId());
+            Item item = items.get(group.getItemId());
+            if (rack == null || item == null) {
                 continue;
             }
-
-            Assortment sample = assortments.get(0);
-            String message = buildCloseToExpiryMessage(sample.getRack(), sample.getItem(),
-                    assortments.size(), closeToExpiryDays);
-
-            Alert alert = createAlert(sample.getRack(), sample.getItem(), AlertType.ASSORTMENT_CLOSE_TO_EXPIRY, message);
-            distributeNotifications(alert);
+            long count = totals.getOrDefault(new RackItemKey(rack.getId(), item.getId()), group.getAssortmentCount());
+            String message = alertType == AlertType.ASSORTMENT_EXPIRED
+                    ? buildExpirationMessage(rack, item, count)
+                    : buildCloseToExpiryMessage(rack, item, count, closeToExpiryDays);
+
+            Alert alert;
+            try {
+                alert = createAlert(rack, item, alertType, message);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance raised the same alert first - remember it instead of failing the scan
+                alertRepository.findFirstByRackIdAndItemIdAndAlertTypeAndStatusIn(
+                        rack.getId(), item.getId(), alertType, ACTIVE_STATUSES).ifPresent(activeAlertRegistry::register);
+                log.debug("Expiration alert already exists: type={}, rack={}, item={}", alertType, rack.getId(), item.getId());
+                continue;
+            }
+            notificationDispatcher.dispatch(alert, Delivery.SILENT);
             alertsCreated++;
         }
 
         return alertsCreated;
     }
 
-    private Map<RackItemKey, List<Assortment>> groupByRackAndItem(List<Assortment> assortments) {
-        return assortments.stream()
-                .collect(Collectors.groupingBy(a -> new RackItemKey(a.getRack().getId(), a.getItem().getId())));
+    /**
+     * Crossed pairs without an unresolved alert. Registry hits are verified with one query, because an alert
+     * resolved on another instance stays in this instance's registry.
+     */
+    private List<ExpiryGroupProjection> withoutActiveAlerts(List<ExpiryGroupProjection> crossed, AlertType alertType) {
+        List<ExpiryGroupProjection> candidates = new ArrayList<>();
+        Map<Long, ExpiryGroupProjection> registered = new HashMap<>();
+        for (ExpiryGroupProjection group : crossed) {
+            activeAlertRegistry.findActiveAlertId(group.getRackId(), group.getItemId(), alertType)
+                    .ifPresentOrElse(alertId -> registered.put(alertId, group), () -> candidates.add(group));
+        }
+        if (registered.isEmpty()) {
+            return candidates;
+        }
+        Set<Long> stillActive = alertRepository.findAllById(registered.keySet()).stream()
+                .filter(alert -> ACTIVE_STATUSES.contains(alert.getStatus()))
+                .map(Alert::getId)
+                .collect(Collectors.toSet());
+        registered.forEach((alertId, group) -> {
+            if (!stillActive.contains(alertId)) {
+                activeAlertRegistry.evict(group.getRackId(), group.getItemId(), alertType, alertId);
+                candidates.add(group);
+            }
+        });
+        return candidates;
     }
 
     private Alert createAlert(Rack rack, Item item, AlertType alertType, String message) {
@@ -133,41 +190,19 @@ public class ExpirationAlertTask {
                 .build();
 
         alert = alertRepository.save(alert);
+        activeAlertRegistry.register(alert);
         log.info("Created expiration alert: type={}, rack={}, item={}", alertType, rack.getId(), item.getId());
         return alert;
     }
 
-    private void distributeNotifications(Alert alert) {
-        Long warehouseId = alert.getWarehouse().getId();
-
-        List<User> activeUsers = userRepository.findByWarehouseIdAndStatusOrAdmin(warehouseId, AccountStatus.ACTIVE);
-        Set<Long> existingUserIds = notificationRepository.findUserIdsWithNotificationForAlert(alert.getId());
-
-        Instant now = Instant.now();
-        List<UserNotification> newNotifications = activeUsers.stream()
-                .filter(user -> !existingUserIds.contains(user.getId()))
-                .map(user -> UserNotification.builder()
-                        .user(user)
-                        .alert(alert)
-                        .isRead(false)
-                        .createdAt(now)
-                        .build())
-                .toList();
-
-        if (!newNotifications.isEmpty()) {
-            notificationRepository.saveAll(newNotifications);
-            log.info("Distributed {} notifications for expiration alert {}", newNotifications.size(), alert.getId());
-        }
-    }
-
-    private String buildExpirationMessage(Rack rack, Item item, int count) {
+    private String buildExpirationMessage(Rack rack, Item item, long count) {
         String rackInfo = String.format("Rega\u0142 %s (ID: %d)",
                 rack.getMarker() != null ? rack.getMarker() : "bez oznaczenia", rack.getId());
         return String.format("%s - %d szt. produktu '%s' (ID: %d) przekroczy\u0142o dat\u0119 wa\u017Cno\u015Bci",
                 rackInfo, count, item.getName(), item.getId());
     }
 
-    private String buildCloseToExpiryMessage(Rack rack, Item item, int count, int days) {
+    private String buildCloseToExpiryMessage(Rack rack, Item item, long count, int days) {
         String rackInfo = String.format("Rega\u0142 %s (ID: %d)",
                 rack.getMarker() != null ? rack.getMarker() : "bez oznaczenia", rack.getId());
         return String.format("%s - %d szt. produktu '%s' (ID: %d) wygasa w ci\u0105gu %d dni",
@@ -5,6 +5,7 @@ import com.github.dawid_stolarczyk.magazyn.Security.Auth.RestAuthenticationEntry
 import com.github.dawid_stolarczyk.magazyn.Security.Filter.ApiKeyAuthFilter;
 import com.github.dawid_stolarczyk.magazyn.Security.Filter.SessionAuthFilter;
 import com.github.dawid_stolarczyk.magazyn.Security.Filter.VerificationLevelFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -44,6 +45,8 @@ public class SecurityConfig {
                         .accessDeniedHandler(restAccessDeniedHandler))
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches (SSE streams) continue requests that were already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/health").permitAll()
                         .requestMatchers("/public/**").permitAll()
                         .requestMatchers("/auth/**").permitAll()
@@ -2,16 +2,11 @@ package com.github.dawid_stolarczyk.magazyn.Services.Ai;
 
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Alert;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.ItemImage;
-import com.github.dawid_stolarczyk.magazyn.Model.Entity.User;
-import com.github.dawid_stolarczyk.magazyn.Model.Entity.UserNotification;
-import com.github.dawid_stolarczyk.magazyn.Model.Enums.AccountStatus;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
-import com.github.dawid_stolarczyk.magazyn.Model.Enums.UserRole;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AlertRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.ItemImageRepository;
-import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserNotificationRepository;
-import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserRepository;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.NotificationDispatcher;
 import com.github.dawid_stolarczyk.magazyn.Services.Storage.StorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,7 +18,6 @@ import java.io.InputStream;
 import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 /**
  * Service for batch generating image embeddings for existing items.
@@ -38,8 +32,7 @@ public class ItemEmbeddingGenerationService {
     private final ImageEmbeddingService imageEmbeddingService;
     private final StorageService storageService;
     private final AlertRepository alertRepository;
-    private final UserRepository userRepository;
-    private final UserNotificationRepository userNotificationRepository;
+    private final NotificationDispatcher notificationDispatcher;
 
     /**
      * Generates embeddings for all items that have photos but no embeddings.
@@ -183,38 +176,13 @@ public class ItemEmbeddingGenerationService {
             log.info("Created system alert: type={}, message={}", alertType, message);
 
             // Distribute notifications to all ADMIN users
-            distributeNotificationsToAdmins(alert);
+            notificationDispatcher.dispatchToAdmins(alert);
 
         } catch (Exception e) {
             log.error("Failed to create system alert for embedding generation", e);
         }
     }
 
-    /**
-     * Distributes notifications for a system alert to all active admin users.
-     */
-    private void distributeNotificationsToAdmins(Alert alert) {
-        List<User> adminUsers = userRepository.findByRoleAndStatus(UserRole.ADMIN, AccountStatus.ACTIVE);
-
-        if (adminUsers.isEmpty()) {
-            log.warn("No active admin users found to notify about system alert");
-            return;
-        }
-
-        Instant now = Instant.now();
-        List<UserNotification> notifications = adminUsers.stream()
-                .map(user -> UserNotification.builder()
-                        .user(user)
-                        .alert(alert)
-                        .isRead(false)
-                        .createdAt(now)
-                        .build())
-                .collect(Collectors.toList());
-
-        userNotificationRepository.saveAll(notifications);
-        log.info("Distributed system alert to {} admin users", adminUsers.size());
-    }
-
     /**
      * Report DTO for embedding generation results.
      */
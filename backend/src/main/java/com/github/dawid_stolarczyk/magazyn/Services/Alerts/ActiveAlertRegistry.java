@@ -0,0 +1,136 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Alert;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AlertRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.ActiveAlertProjection;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of unresolved (OPEN / ACTIVE) rack alerts keyed by (rackId, itemId, alertType).
+ * <p>
+ * Loaded once at startup and kept in sync by alert creation and status updates, so alert
+ * deduplication for telemetry and expiration checks is a map lookup instead of a query.
+ * New alerts are visible immediately (and removed again if their transaction rolls back),
+ * resolved and dismissed alerts disappear once the status change commits.
+ * <p>
+ * The registry is an optimisation only: callers re-check the status of the alert they load,
+ * and the {@code idx_unique_open_alert} partial index still rejects duplicates created by
+ * racing transactions.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActiveAlertRegistry {
+    private static final List<AlertStatus> ACTIVE_STATUSES = List.of(AlertStatus.OPEN, AlertStatus.ACTIVE);
+
+    private final AlertRepository alertRepository;
+
+    private final ConcurrentHashMap<AlertKey, Long> activeAlerts = new ConcurrentHashMap<>();
+
+    /**
+     * Deduplication key; {@code itemId} is {@code null} for rack-level alerts.
+     */
+    public record AlertKey(Long rackId, Long itemId, AlertType alertType) {
+    }
+
+    @PostConstruct
+    void init() {
+        reload();
+    }
+
+    /**
+     * Rebuilds the registry from the database - used at startup and after bulk changes such as restore.
+     */
+    public void reload() {
+        Map<AlertKey, Long> loaded = new HashMap<>();
+        for (ActiveAlertProjection row : alertRepository.findActiveRackAlerts(ACTIVE_STATUSES)) {
+            loaded.putIfAbsent(new AlertKey(row.getRackId(), row.getItemId(), row.getAlertType()), row.getId());
+        }
+        activeAlerts.keySet().retainAll(loaded.keySet());
+        activeAlerts.putAll(loaded);
+        log.info("[ALERT-REGISTRY] Loaded {} active rack alert(s)", loaded.size());
+    }
+
+    /**
+     * Id of the unresolved alert for the rack (and item, for item-level alerts), if any.
+     */
+    public Optional<Long> findActiveAlertId(Long rackId, Long itemId, AlertType alertType) {
+        return Optional.ofNullable(activeAlerts.get(new AlertKey(rackId, itemId, alertType)));
+    }
+
+    public boolean isActive(Long rackId, Long itemId, AlertType alertType) {
+        return activeAlerts.containsKey(new AlertKey(rackId, itemId, alertType));
+    }
+
+    /**
+     * Registers a newly created or reopened alert. Alerts without a rack (system-wide) are ignored.
+     */
+    public void register(Alert alert) {
+        AlertKey key = keyOf(alert);
+        if (key == null || alert.getId() == null) {
+            return;
+        }
+        Long alertId = alert.getId();
+        activeAlerts.put(key, alertId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        activeAlerts.remove(key, alertId);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Removes a resolved or dismissed alert once the surrounding transaction commits.
+     */
+    public void unregister(Alert alert) {
+        AlertKey key = keyOf(alert);
+        if (key == null || alert.getId() == null) {
+            return;
+        }
+        Long alertId = alert.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    activeAlerts.remove(key, alertId);
+                }
+            });
+        } else {
+            activeAlerts.remove(key, alertId);
+        }
+    }
+
+    /**
+     * Drops an entry whose alert turned out to be resolved, dismissed or deleted - e.g. by another instance.
+     */
+    public void evict(Long rackId, Long itemId, AlertType alertType, Long alertId) {
+        activeAlerts.remove(new AlertKey(rackId, itemId, alertType), alertId);
+    }
+
+    private static AlertKey keyOf(Alert alert) {
+        if (alert.getRack() == null) {
+            return null;
+        }
+        return new AlertKey(alert.getRack().getId(),
+                alert.getItem() != null ? alert.getItem().getId() : null,
+                alert.getAlertType());
+    }
+}
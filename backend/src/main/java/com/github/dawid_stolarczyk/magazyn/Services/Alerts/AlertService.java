@@ -3,11 +3,13 @@ package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
 import com.github.dawid_stolarczyk.magazyn.Common.Enums.AuthError;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.AlertDto;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.AlertStatusUpdateRequest;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.LiveEventDto;
 import com.github.dawid_stolarczyk.magazyn.Exception.AuthenticationException;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Alert;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.User;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.LiveEventType;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AlertRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserRepository;
 import com.github.dawid_stolarczyk.magazyn.Security.Auth.AuthUtil;
@@ -42,6 +44,9 @@ public class AlertService {
     private final AlertRepository alertRepository;
     private final UserRepository userRepository;
     private final Bucket4jRateLimiter rateLimiter;
+    private final ActiveAlertRegistry activeAlertRegistry;
+    private final LiveEventBus liveEventBus;
+    private final UnreadNotificationCounter unreadCounter;
 
     @Value("${app.alert.retention-hours:1}")
     private int alertRetentionHours;
@@ -137,9 +142,24 @@ public class AlertService {
         }
 
         alertRepository.save(alert);
+        if (alert.getStatus() == AlertStatus.OPEN || alert.getStatus() == AlertStatus.ACTIVE) {
+            activeAlertRegistry.register(alert);
+        } else {
+            activeAlertRegistry.unregister(alert);
+        }
         log.info("Alert {} status updated to {} by user {}", alertId, request.getStatus(), currentUser.getId());
 
-        return mapToDto(alert);
+        AlertDto dto = mapToDto(alert);
+        liveEventBus.publishToWarehouse(dto.getWarehouseId(), LiveEventDto.builder()
+                .type(LiveEventType.ALERT_UPDATED)
+                .alertId(dto.getId())
+                .warehouseId(dto.getWarehouseId())
+                .alertType(dto.getAlertType())
+                .status(dto.getStatus())
+                .message(dto.getMessage())
+                .occurredAt(Instant.now())
+                .build());
+        return dto;
     }
 
     /**
@@ -207,6 +227,8 @@ public class AlertService {
 
         if (deletedCount > 0) {
             log.info("Deleted {} old resolved/dismissed alerts", deletedCount);
+            // Notifications of deleted alerts are gone as well
+            unreadCounter.invalidateAll();
         }
     }
 }
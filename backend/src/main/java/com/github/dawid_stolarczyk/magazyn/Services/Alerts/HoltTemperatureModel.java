@@ -0,0 +1,94 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import java.util.Locale;
+
+/**
+ * Holt's linear (double exponential) smoothing of the temperature of a single rack.
+ * <p>
+ * Keeps a smoothed level and a trend in °C per minute; both are updated in O(1) per reading and
+ * adjusted for irregular intervals between readings. After a gap longer than {@code maxGapMillis}
+ * the model starts over, since the old trend says nothing about the current situation.
+ */
+final class HoltTemperatureModel {
+    private static final double MILLIS_PER_MINUTE = 60_000d;
+
+    private double level;
+    private double trend;
+    private long lastTimestamp;
+    private int samples;
+
+    HoltTemperatureModel() {
+    }
+
+    private HoltTemperatureModel(double level, double trend, long lastTimestamp, int samples) {
+        this.level = level;
+        this.trend = trend;
+        this.lastTimestamp = lastTimestamp;
+        this.samples = samples;
+    }
+
+    synchronized void update(long timestampMillis, double temperature, double alpha, double beta, long maxGapMillis) {
+        if (samples == 0 || timestampMillis - lastTimestamp > maxGapMillis) {
+            level = temperature;
+            trend = 0;
+            lastTimestamp = timestampMillis;
+            samples = 1;
+            return;
+        }
+        double minutes = (timestampMillis - lastTimestamp) / MILLIS_PER_MINUTE;
+        if (minutes <= 0) {
+            // Same timestamp or out of order - refine the level only
+            level = alpha * temperature + (1 - alpha) * level;
+        } else {
+            double previousLevel = level;
+            level = alpha * temperature + (1 - alpha) * (level + trend * minutes);
+            trend = beta * (level - previousLevel) / minutes + (1 - beta) * trend;
+            lastTimestamp = timestampMillis;
+        }
+        samples++;
+    }
+
+    synchronized HoltTemperatureModel copy() {
+        return new HoltTemperatureModel(level, trend, lastTimestamp, samples);
+    }
+
+    /**
+     * Minutes until the projected temperature reaches {@code threshold}, or {@code Double.POSITIVE_INFINITY}
+     * when the trend points away from it (or is flat).
+     */
+    synchronized double minutesUntil(double threshold) {
+        double distance = threshold - level;
+        if (trend == 0 || Math.signum(distance) != Math.signum(trend)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return distance / trend;
+    }
+
+    synchronized double getLevel() {
+        return level;
+    }
+
+    synchronized double getTrend() {
+        return trend;
+    }
+
+    synchronized int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Checkpoint format: {@code level;trend;lastTimestamp;samples}
+     */
+    synchronized String encode() {
+        return String.format(Locale.ROOT, "%s;%s;%d;%d", level, trend, lastTimestamp, samples);
+    }
+
+    static HoltTemperatureModel decode(String value) {
+        String[] parts = value.split(";");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid forecast checkpoint: " + value);
+        }
+        return new HoltTemperatureModel(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
+                Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+    }
+}
@@ -0,0 +1,228 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.LiveEventDto;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.User;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.UserRole;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process event bus feeding the live event stream (server-sent events) of connected users.
+ * <p>
+ * Events are delivered to this node's connections right away and published on the
+ * {@code app.live-events.channel} Redis channel, from which the other nodes deliver them to their own
+ * connections. An event targets either given users (notifications) or everyone who can see a warehouse -
+ * users assigned to it and admins; events without a warehouse go to admins only. Events published inside
+ * a transaction are sent once it commits.
+ * <p>
+ * A user's warehouses are read when the stream is opened; clients reconnect when the stream times out
+ * after {@code app.live-events.emitter-timeout-ms}, which also picks up assignment changes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveEventBus implements MessageListener {
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.live-events.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${app.live-events.channel:live-events}")
+    private String channel;
+
+    @Value("${app.live-events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${app.live-events.max-connections-per-user:5}")
+    private int maxConnectionsPerUser;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentHashMap<Long, CopyOnWriteArrayList<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    record Subscriber(SseEmitter emitter, Set<Long> warehouseIds, boolean admin) {
+        boolean canSee(Long warehouseId) {
+            return admin || (warehouseId != null && warehouseIds.contains(warehouseId));
+        }
+    }
+
+    /**
+     * Event with its audience, as sent between nodes; {@code userIds} takes precedence over {@code warehouseId}.
+     */
+    record RoutedEvent(String origin, List<Long> userIds, Long warehouseId, LiveEventDto event) {
+    }
+
+    @PostConstruct
+    void subscribeToRedis() {
+        if (redisEnabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+        }
+    }
+
+    /**
+     * Opens a live event stream for the user.
+     */
+    public SseEmitter subscribe(User user) {
+        boolean admin = user.getRole() == UserRole.ADMIN;
+        Set<Long> warehouseIds = admin ? Set.of() : Set.copyOf(userRepository.findAssignedWarehouseIds(user.getId()));
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        register(user.getId(), new Subscriber(emitter, warehouseIds, admin));
+        try {
+            emitter.send(SseEmitter.event().name("connected").data(Map.of("warehouseIds", warehouseIds)));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    void register(Long userId, Subscriber subscriber) {
+        List<Subscriber> evicted = new ArrayList<>();
+        subscribers.compute(userId, (id, connections) -> {
+            CopyOnWriteArrayList<Subscriber> updated = connections != null ? connections : new CopyOnWriteArrayList<>();
+            updated.add(subscriber);
+            while (updated.size() > maxConnectionsPerUser) {
+                evicted.add(updated.remove(0));
+            }
+            return updated;
+        });
+        evicted.forEach(oldest -> oldest.emitter().complete());
+        Runnable cleanup = () -> remove(userId, subscriber);
+        subscriber.emitter().onCompletion(cleanup);
+        subscriber.emitter().onTimeout(cleanup);
+        subscriber.emitter().onError(error -> cleanup.run());
+    }
+
+    /**
+     * Sends the event to the given users.
+     */
+    public void publishToUsers(Collection<Long> userIds, LiveEventDto event) {
+        if (!userIds.isEmpty()) {
+            publish(new RoutedEvent(nodeId, List.copyOf(userIds), null, event));
+        }
+    }
+
+    /**
+     * Sends the event to users who can see the warehouse, or to admins when {@code warehouseId} is {@code null}.
+     */
+    public void publishToWarehouse(Long warehouseId, LiveEventDto event) {
+        publish(new RoutedEvent(nodeId, null, warehouseId, event));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            RoutedEvent routed = objectMapper.readValue(message.getBody(), RoutedEvent.class);
+            if (!nodeId.equals(routed.origin())) {
+                deliver(routed);
+            }
+        } catch (IOException e) {
+            log.warn("[LIVE-EVENTS] Ignoring malformed event from channel {}: {}", channel, e.getMessage());
+        }
+    }
+
+    /**
+     * Keeps idle streams open through proxies and drops connections of clients that went away.
+     */
+    @Scheduled(fixedDelayString = "${app.live-events.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        subscribers.forEach((userId, connections) -> {
+            for (Subscriber subscriber : connections) {
+                try {
+                    subscriber.emitter().send(SseEmitter.event().comment("ping"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(userId, subscriber);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    void closeAll() {
+        subscribers.values().forEach(connections -> connections.forEach(subscriber -> subscriber.emitter().complete()));
+        subscribers.clear();
+    }
+
+    private void publish(RoutedEvent routed) {
+        Runnable action = () -> {
+            deliver(routed);
+            broadcast(routed);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void broadcast(RoutedEvent routed) {
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, objectMapper.writeValueAsString(routed));
+        } catch (Exception e) {
+            log.warn("[LIVE-EVENTS] Could not publish {} event to other nodes: {}", routed.event().getType(), e.getMessage());
+        }
+    }
+
+    void deliver(RoutedEvent routed) {
+        if (routed.userIds() != null) {
+            for (Long userId : routed.userIds()) {
+                List<Subscriber> connections = subscribers.get(userId);
+                if (connections != null) {
+                    connections.forEach(subscriber -> send(userId, subscriber, routed.event()));
+                }
+            }
+            return;
+        }
+        subscribers.forEach((userId, connections) -> connections.stream()
+                .filter(subscriber -> subscriber.canSee(routed.warehouseId()))
+                .forEach(subscriber -> send(userId, subscriber, routed.event())));
+    }
+
+    private void send(Long userId, Subscriber subscriber, LiveEventDto event) {
+        try {
+            subscriber.emitter().send(SseEmitter.event()
+                    .name(event.getType().name().toLowerCase(Locale.ROOT))
+                    .data(event, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            remove(userId, subscriber);
+        }
+    }
+
+    private void remove(Long userId, Subscriber subscriber) {
+        subscribers.computeIfPresent(userId, (id, connections) -> {
+            connections.remove(subscriber);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+}
@@ -0,0 +1,366 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.LiveEventDto;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Alert;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.PendingNotification;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.User;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AccountStatus;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.LiveEventType;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.UserRole;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AlertRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.PendingNotificationRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserNotificationBatchRepository.NotificationKey;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserNotificationRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.NotificationStateProjection;
+import com.github.dawid_stolarczyk.magazyn.Services.EmailService;
+import com.github.dawid_stolarczyk.magazyn.Utils.LinksUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Single entry point for fanning alert notifications out to users.
+ * <p>
+ * Dispatches are stored in {@code pending_notifications} inside the alert's transaction (one JDBC batch
+ * per transaction, written just before it commits), so a dispatch exists only if its alert committed and
+ * survives both a crash and a failed distribution. Every {@code app.notifications.coalesce-window-ms} up to
+ * {@code app.notifications.flush-batch-size} pending rows are locked and coalesced per alert: repeated
+ * dispatches of the same alert (alert storms) collapse into one, keeping the strongest {@link Delivery}
+ * and the alert's current message. The window is written with a constant number of statements - one query
+ * for existing notifications, one update re-marking read notifications as unread and one JDBC batch insert
+ * of the missing ones - and each user gets at most one email listing all alerts of the window. Emails go
+ * to the outbox and the pending rows are deleted in the same transaction, so a failed flush leaves the
+ * whole window to the next run. Users who got a new or again unread notification are also told over the
+ * {@link LiveEventBus} once the window commits.
+ * <p>
+ * Recipients (active users of a warehouse plus admins, or admins only) are cached for
+ * {@code app.notifications.recipient-cache-ttl-seconds} and invalidated when user management
+ * changes a user.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationDispatcher {
+
+    private final UserRepository userRepository;
+    private final UserNotificationRepository notificationRepository;
+    private final PendingNotificationRepository pendingRepository;
+    private final AlertRepository alertRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final LiveEventBus liveEventBus;
+    private final UnreadNotificationCounter unreadCounter;
+
+    @Value("${app.notifications.recipient-cache-ttl-seconds:60}")
+    private long recipientCacheTtlSeconds;
+
+    @Value("${app.notifications.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private final ConcurrentHashMap<Long, CachedRecipients> warehouseRecipients = new ConcurrentHashMap<>();
+    private volatile CachedRecipients adminRecipients;
+    /**
+     * Key of the per-transaction map of dispatches waiting to be written before commit
+     */
+    private final Object transactionDispatchesKey = new Object();
+
+    /**
+     * How users learn about an alert, from weakest to strongest.
+     */
+    public enum Delivery {
+        /**
+         * Notification for users who do not have one yet, no email
+         */
+        SILENT,
+        /**
+         * Notification and email for users who do not have one yet
+         */
+        EMAIL,
+        /**
+         * Like {@link #EMAIL}, and users who already read the notification get it back as unread with an email -
+         * used when an alert becomes more severe
+         */
+        RENOTIFY
+    }
+
+    /**
+     * User that receives alert notifications.
+     */
+    public record Recipient(Long userId, String email) {
+    }
+
+    private record CachedRecipients(List<Recipient> recipients, Instant loadedAt) {
+    }
+
+    /**
+     * Alert and audience of a dispatch, used to coalesce dispatches.
+     */
+    private record DispatchKey(Long alertId, boolean adminsOnly) {
+    }
+
+    /**
+     * Coalesced dispatch of a single alert; {@code warehouseId} is {@code null} for admin-only alerts.
+     */
+    private record PendingDispatch(Long alertId, Long warehouseId, Delivery delivery, String message,
+                                   AlertType alertType, AlertStatus status) {
+    }
+
+    /**
+     * Notifies active users of the alert's warehouse and admins.
+     */
+    public void dispatch(Alert alert, Delivery delivery) {
+        enqueue(new DispatchKey(alert.getId(), false), delivery);
+    }
+
+    /**
+     * Notifies active admins only, without email - used for system, backup and restore alerts.
+     */
+    public void dispatchToAdmins(Alert alert) {
+        enqueue(new DispatchKey(alert.getId(), true), Delivery.SILENT);
+    }
+
+    /**
+     * Active admins, from the recipient cache.
+     */
+    public List<Recipient> getAdminRecipients() {
+        CachedRecipients cached = adminRecipients;
+        if (cached == null || isExpired(cached)) {
+            cached = new CachedRecipients(toRecipients(
+                    userRepository.findByRoleAndStatus(UserRole.ADMIN, AccountStatus.ACTIVE)), Instant.now());
+            adminRecipients = cached;
+        }
+        return cached.recipients();
+    }
+
+    /**
+     * Drops cached recipients once the current transaction commits - call after changing a user's
+     * status, role, email or warehouse assignments.
+     */
+    public void invalidateRecipients() {
+        Runnable action = () -> {
+            warehouseRecipients.clear();
+            adminRecipients = null;
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Writes notifications of the oldest pending dispatches and queues one email per user.
+     * On failure the transaction rolls back and the dispatches stay pending for the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.coalesce-window-ms:2000}")
+    public synchronized void flush() {
+        List<PendingDispatch> window = new ArrayList<>();
+        Map<Long, Recipient> recipientsById = new HashMap<>();
+        Map<Long, List<String>> messagesByUser = new LinkedHashMap<>();
+        Map<PendingDispatch, List<Long>> notifiedUsers = new LinkedHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<PendingNotification> rows = pendingRepository.lockBatch(flushBatchSize);
+                if (rows.isEmpty()) {
+                    return;
+                }
+                window.addAll(coalesce(rows));
+                if (!window.isEmpty()) {
+                    writeNotifications(window, recipientsById, messagesByUser, notifiedUsers);
+                    String link = LinksUtils.getWebAppUrl("/dashboard/notifications", null);
+                    messagesByUser.forEach((userId, messages) ->
+                            emailService.sendBatchNotificationEmail(recipientsById.get(userId).email(), messages, link));
+                }
+                pendingRepository.deleteAllByIdInBatch(rows.stream().map(PendingNotification::getId).toList());
+            });
+        } catch (Exception e) {
+            log.error("[NOTIFICATIONS] Failed to distribute notifications - pending dispatches are kept for the next run", e);
+            return;
+        }
+        if (window.isEmpty()) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        notifiedUsers.forEach((dispatch, userIds) -> liveEventBus.publishToUsers(userIds, LiveEventDto.builder()
+                .type(LiveEventType.NOTIFICATION)
+                .alertId(dispatch.alertId())
+                .warehouseId(dispatch.warehouseId())
+                .alertType(dispatch.alertType())
+                .status(dispatch.status())
+                .message(dispatch.message())
+                .occurredAt(now)
+                .build()));
+        log.info("[NOTIFICATIONS] Flushed {} alert(s), {} user(s) emailed", window.size(), messagesByUser.size());
+    }
+
+    /**
+     * Merges pending rows per alert and audience, keeping the strongest delivery; message, type and status
+     * are taken from the alert as it is now. Rows of deleted alerts are dropped.
+     */
+    private List<PendingDispatch> coalesce(List<PendingNotification> rows) {
+        Map<DispatchKey, Delivery> deliveries = new LinkedHashMap<>();
+        for (PendingNotification row : rows) {
+            deliveries.merge(new DispatchKey(row.getAlertId(), row.isAdminsOnly()), Delivery.valueOf(row.getDelivery()),
+                    NotificationDispatcher::strongest);
+        }
+        Map<Long, Alert> alertsById = new HashMap<>();
+        for (Alert alert : alertRepository.findAllById(deliveries.keySet().stream().map(DispatchKey::alertId)
+                .collect(Collectors.toSet()))) {
+            alertsById.put(alert.getId(), alert);
+        }
+        List<PendingDispatch> window = new ArrayList<>(deliveries.size());
+        deliveries.forEach((key, delivery) -> {
+            Alert alert = alertsById.get(key.alertId());
+            if (alert == null) {
+                log.debug("[NOTIFICATIONS] Dropping dispatch of deleted alert {}", key.alertId());
+                return;
+            }
+            Long warehouseId = key.adminsOnly() ? null : alert.getWarehouse().getId();
+            window.add(new PendingDispatch(alert.getId(), warehouseId, delivery, alert.getMessage(),
+                    alert.getAlertType(), alert.getStatus()));
+        });
+        return window;
+    }
+
+    private void writeNotifications(List<PendingDispatch> window, Map<Long, Recipient> recipientsById,
+                                    Map<Long, List<String>> messagesByUser,
+                                    Map<PendingDispatch, List<Long>> notifiedUsers) {
+        List<Long> alertIds = window.stream().map(PendingDispatch::alertId).toList();
+        Map<Long, Map<Long, Boolean>> readByAlert = new HashMap<>();
+        for (NotificationStateProjection state : notificationRepository.findStatesForAlerts(alertIds)) {
+            readByAlert.computeIfAbsent(state.getAlertId(), id -> new HashMap<>()).put(state.getUserId(), state.isRead());
+        }
+
+        List<Long> renotifiedAlerts = new ArrayList<>();
+        List<NotificationKey> newNotifications = new ArrayList<>();
+        Map<Long, Integer> unreadDeltas = new HashMap<>();
+        for (PendingDispatch dispatch : window) {
+            Map<Long, Boolean> existing = readByAlert.getOrDefault(dispatch.alertId(), Map.of());
+            boolean anyRead = false;
+            List<Recipient> recipients = dispatch.warehouseId() != null
+                    ? getWarehouseRecipients(dispatch.warehouseId())
+                    : getAdminRecipients();
+            for (Recipient recipient : recipients) {
+                Boolean read = existing.get(recipient.userId());
+                boolean email;
+                if (read == null) {
+                    newNotifications.add(new NotificationKey(recipient.userId(), dispatch.alertId()));
+                    unreadDeltas.merge(recipient.userId(), 1, Integer::sum);
+                    notifiedUsers.computeIfAbsent(dispatch, d -> new ArrayList<>()).add(recipient.userId());
+                    email = dispatch.delivery() != Delivery.SILENT;
+                } else {
+                    anyRead |= read;
+                    email = read && dispatch.delivery() == Delivery.RENOTIFY;
+                    if (email) {
+                        notifiedUsers.computeIfAbsent(dispatch, d -> new ArrayList<>()).add(recipient.userId());
+                    }
+                }
+                if (email && recipient.email() != null) {
+                    recipientsById.put(recipient.userId(), recipient);
+                    messagesByUser.computeIfAbsent(recipient.userId(), id -> new ArrayList<>()).add(dispatch.message());
+                }
+            }
+            if (anyRead && dispatch.delivery() == Delivery.RENOTIFY) {
+                renotifiedAlerts.add(dispatch.alertId());
+                // markUnreadForAlerts also covers read notifications of users who are no longer recipients
+                existing.forEach((userId, wasRead) -> {
+                    if (wasRead) {
+                        unreadDeltas.merge(userId, 1, Integer::sum);
+                    }
+                });
+            }
+        }
+
+        if (!renotifiedAlerts.isEmpty()) {
+            notificationRepository.markUnreadForAlerts(renotifiedAlerts);
+        }
+        notificationRepository.insertUnread(newNotifications, Instant.now());
+        unreadCounter.adjust(unreadDeltas);
+        log.debug("[NOTIFICATIONS] Created {} notification(s), re-marked {} alert(s) as unread",
+                newNotifications.size(), renotifiedAlerts.size());
+    }
+
+    private List<Recipient> getWarehouseRecipients(Long warehouseId) {
+        CachedRecipients cached = warehouseRecipients.get(warehouseId);
+        if (cached == null || isExpired(cached)) {
+            cached = new CachedRecipients(toRecipients(
+                    userRepository.findByWarehouseIdAndStatusOrAdmin(warehouseId, AccountStatus.ACTIVE)), Instant.now());
+            warehouseRecipients.put(warehouseId, cached);
+        }
+        return cached.recipients();
+    }
+
+    private boolean isExpired(CachedRecipients cached) {
+        return cached.loadedAt().plusSeconds(recipientCacheTtlSeconds).isBefore(Instant.now());
+    }
+
+    private static List<Recipient> toRecipients(List<User> users) {
+        return users.stream().map(user -> new Recipient(user.getId(), user.getEmail())).toList();
+    }
+
+    /**
+     * Stores a dispatch as a pending row. Inside a transaction dispatches are coalesced and written
+     * with one batch just before commit, so they are rolled back together with the alert.
+     */
+    private void enqueue(DispatchKey key, Delivery delivery) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingRepository.insertAll(toRows(Map.of(key, delivery)));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<DispatchKey, Delivery> queued =
+                (Map<DispatchKey, Delivery>) TransactionSynchronizationManager.getResource(transactionDispatchesKey);
+        if (queued == null) {
+            Map<DispatchKey, Delivery> transactionDispatches = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(transactionDispatchesKey, transactionDispatches);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    pendingRepository.insertAll(toRows(transactionDispatches));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(transactionDispatchesKey);
+                }
+            });
+            queued = transactionDispatches;
+        }
+        queued.merge(key, delivery, NotificationDispatcher::strongest);
+    }
+
+    private static List<PendingNotification> toRows(Map<DispatchKey, Delivery> dispatches) {
+        Instant now = Instant.now();
+        List<PendingNotification> rows = new ArrayList<>(dispatches.size());
+        dispatches.forEach((key, delivery) -> rows.add(PendingNotification.builder()
+                .alertId(key.alertId())
+                .adminsOnly(key.adminsOnly())
+                .delivery(delivery.name())
+                .createdAt(now)
+                .build()));
+        return rows;
+    }
+
+    private static Delivery strongest(Delivery current, Delivery newer) {
+        return newer.compareTo(current) > 0 ? newer : current;
+    }
+}
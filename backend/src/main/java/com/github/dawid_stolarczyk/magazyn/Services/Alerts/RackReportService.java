@@ -3,15 +3,16 @@ package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.RackReportDto;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.RackReportRequest;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.RackReportResponse;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.TelemetryBatchResponse;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.*;
-import com.github.dawid_stolarczyk.magazyn.Model.Enums.AccountStatus;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.*;
-import com.github.dawid_stolarczyk.magazyn.Services.EmailService;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.NotificationDispatcher.Delivery;
+import com.github.dawid_stolarczyk.magazyn.Services.Inventory.RackOccupancy;
+import com.github.dawid_stolarczyk.magazyn.Services.Inventory.RackOccupancyIndex;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.RateLimitOperation;
-import com.github.dawid_stolarczyk.magazyn.Utils.LinksUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -36,17 +37,49 @@ public class RackReportService {
 
     private static final List<AlertStatus> ACTIVE_STATUSES = Arrays.asList(AlertStatus.OPEN, AlertStatus.ACTIVE);
 
-    private record AlertNotificationResult(List<User> usersToEmail, String alertMessage) {
+    private record TriggeredAlert(AlertType alertType, RackReport report) {
+    }
+
+    /**
+     * Most extreme readings of a rack - the same report for a single reading, min/max across a telemetry batch.
+     */
+    private record RackReadings(RackReport maxWeight, RackReport minWeight,
+                                RackReport maxTemperature, RackReport minTemperature) {
+        static RackReadings of(RackReport report) {
+            return new RackReadings(report, report, report, report);
+        }
+
+        RackReadings merge(RackReadings other) {
+            return new RackReadings(
+                    other.maxWeight.getCurrentWeight() > maxWeight.getCurrentWeight() ? other.maxWeight : maxWeight,
+                    other.minWeight.getCurrentWeight() < minWeight.getCurrentWeight() ? other.minWeight : minWeight,
+                    other.maxTemperature.getCurrentTemperature() > maxTemperature.getCurrentTemperature()
+                            ? other.maxTemperature : maxTemperature,
+                    other.minTemperature.getCurrentTemperature() < minTemperature.getCurrentTemperature()
+                            ? other.minTemperature : minTemperature);
+        }
+    }
+
+    /**
+     * Single sensor reading submitted through the batch or asynchronous telemetry endpoints.
+     * {@code warehouseId} is the warehouse the sending API key is bound to; readings queued without a
+     * rack lookup carry it so the warehouse binding is checked in {@link #processBatch(List)}.
+     * {@code null} means a global key or a reading that was already validated.
+     */
+    public record TelemetryReading(Long rackId, float currentWeight, float currentTemperature, String sensorId,
+                                   Instant receivedAt, Long warehouseId) {
     }
 
     private final RackReportRepository reportRepository;
     private final RackRepository rackRepository;
     private final AlertRepository alertRepository;
-    private final AssortmentRepository assortmentRepository;
-    private final UserRepository userRepository;
-    private final UserNotificationRepository notificationRepository;
+    private final ItemRepository itemRepository;
+    private final RackOccupancyIndex rackOccupancyIndex;
+    private final ActiveAlertRegistry activeAlertRegistry;
+    private final RackTelemetryWindow telemetryWindow;
+    private final TemperatureForecaster temperatureForecaster;
+    private final NotificationDispatcher notificationDispatcher;
     private final Bucket4jRateLimiter rateLimiter;
-    private final EmailService emailService;
 
     /**
      * Process a new rack report and generate alerts if anomalies are detected.
@@ -89,110 +122,217 @@ public class RackReportService {
         report = reportRepository.save(report);
 
         // 3. Check for anomalies and generate alerts
-        List<AlertType> triggeredAlerts = new ArrayList<>();
-        Map<Long, User> usersById = new HashMap<>();
-        Map<Long, List<String>> userAlertMessages = new HashMap<>();
+        temperatureForecaster.observe(rack.getId(), report.getCreatedAt(), report.getCurrentTemperature());
+        RackOccupancy occupancy = rackOccupancyIndex.getOccupancies(List.of(rack)).get(rack.getId());
+        List<AlertType> triggeredAlerts = evaluateAlerts(rack, RackReadings.of(report),
+                occupancy).stream()
+                .map(TriggeredAlert::alertType)
+                .toList();
+
+        // Update report with alert status
+        report.setAlertTriggered(!triggeredAlerts.isEmpty());
+        reportRepository.save(report);
+        telemetryWindow.record(List.of(report));
+
+        log.info("Processed rack report for rack {} - alerts triggered: {}",
+                rack.getId(), triggeredAlerts);
+
+        return RackReportResponse.builder()
+                .reportId(report.getId())
+                .rackId(rack.getId())
+                .rackMarker(rack.getMarker())
+                .currentWeight(report.getCurrentWeight())
+                .currentTemperature(report.getCurrentTemperature())
+                .alertTriggered(report.isAlertTriggered())
+                .triggeredAlertTypes(triggeredAlerts.stream().map(Enum::name).toList())
+                .createdAt(report.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * Processes a batch of telemetry readings - a gateway batch or a micro-batch drained by {@link TelemetryIngestionService}.
+     * <p>
+     * Uses a constant number of statements for the bulk of the work: one rack lookup, one multi-row
+     * insert of reports and one update of the alert flags. Expected weights and item tolerances
+     * come from {@link RackOccupancyIndex}, so racks already in the index cost no extra queries.
+     * Alerts are evaluated once per rack against the most extreme readings of the batch, and every
+     * user receives at most one email per batch.
+     *
+     * @return number of persisted reports and racks (readings for unknown racks and racks outside the
+     * sending key's warehouse are skipped)
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public TelemetryBatchResponse processBatch(List<TelemetryReading> readings) {
+        if (readings.isEmpty()) {
+            return new TelemetryBatchResponse(0, 0, 0);
+        }
+        Set<Long> rackIds = readings.stream().map(TelemetryReading::rackId).collect(Collectors.toSet());
+        Map<Long, Rack> racksById = rackRepository.findAllById(rackIds).stream()
+                .collect(Collectors.toMap(Rack::getId, rack -> rack));
+        return processBatch(readings, racksById);
+    }
+
+    /**
+     * Same as {@link #processBatch(List)} with the racks already loaded by the caller, e.g. while checking
+     * the API key's access to them. Readings for racks missing from {@code racksById} are skipped.
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public TelemetryBatchResponse processBatch(List<TelemetryReading> readings, Map<Long, Rack> racksById) {
+        if (readings.isEmpty()) {
+            return new TelemetryBatchResponse(0, 0, 0);
+        }
+        List<RackReport> reports = new ArrayList<>(readings.size());
+        for (TelemetryReading reading : readings) {
+            Rack rack = racksById.get(reading.rackId());
+            if (rack == null) {
+                log.warn("Skipping queued telemetry for rack {} - rack does not exist", reading.rackId());
+                continue;
+            }
+            if (reading.warehouseId() != null && (rack.getWarehouse() == null
+                    || !reading.warehouseId().equals(rack.getWarehouse().getId()))) {
+                log.warn("Skipping queued telemetry for rack {} - sensor {} is bound to warehouse {}",
+                        rack.getId(), reading.sensorId(), reading.warehouseId());
+                continue;
+            }
+            reports.add(RackReport.builder()
+                    .rack(rack)
+                    .currentWeight(reading.currentWeight())
+                    .currentTemperature(reading.currentTemperature())
+                    .sensorId(reading.sensorId())
+                    .alertTriggered(false)
+                    .createdAt(reading.receivedAt())
+                    .build());
+        }
+        if (reports.isEmpty()) {
+            return new TelemetryBatchResponse(0, 0, 0);
+        }
+        reportRepository.insertAll(reports);
+        telemetryWindow.record(reports);
+
+        Map<Long, RackReadings> readingsByRack = new LinkedHashMap<>();
+        for (RackReport report : reports) {
+            readingsByRack.merge(report.getRack().getId(), RackReadings.of(report), RackReadings::merge);
+            temperatureForecaster.observe(report.getRack().getId(), report.getCreatedAt(), report.getCurrentTemperature());
+        }
+        Map<Long, RackOccupancy> occupanciesByRack = rackOccupancyIndex.getOccupancies(
+                readingsByRack.keySet().stream().map(racksById::get).toList());
+
+        Set<Long> triggeringReportIds = new HashSet<>();
+        readingsByRack.forEach((rackId, rackReadings) ->
+                evaluateAlerts(racksById.get(rackId), rackReadings, occupanciesByRack.get(rackId))
+                        .forEach(triggered -> triggeringReportIds.add(triggered.report().getId())));
+
+        if (!triggeringReportIds.isEmpty()) {
+            reportRepository.markAlertTriggered(triggeringReportIds);
+        }
+
+        log.info("Processed telemetry batch - {} reports for {} racks, {} triggered alerts",
+                reports.size(), readingsByRack.size(), triggeringReportIds.size());
+        return TelemetryBatchResponse.builder()
+                .storedReports(reports.size())
+                .racks(readingsByRack.size())
+                .alertTriggeringReports(triggeringReportIds.size())
+                .build();
+    }
+
+    /**
+     * Checks rack and item thresholds and creates or updates alerts.
+     * Each check uses the most extreme reading: max weight / temperature for upper limits,
+     * min weight / temperature for lower limits. For a single report all four are the same report.
+     * Expected weight and item tolerances come from the rack's cached occupancy; items are only
+     * loaded when one of their tolerances is actually violated.
+     *
+     * @return alerts that produced notifications, with the report that triggered them
+     */
+    private List<TriggeredAlert> evaluateAlerts(Rack rack, RackReadings readings, RackOccupancy occupancy) {
+        List<TriggeredAlert> triggeredAlerts = new ArrayList<>();
 
         // Check weight
-        if (request.getCurrentWeight() > rack.getMax_weight()) {
-            createAlertIfNotExists(rack, report, AlertType.WEIGHT_EXCEEDED,
-                    rack.getMax_weight(), request.getCurrentWeight())
-                    .ifPresent(result -> {
-                        triggeredAlerts.add(AlertType.WEIGHT_EXCEEDED);
-                        collectEmailRecipients(result, usersById, userAlertMessages);
-                    });
+        RackReport heaviest = readings.maxWeight();
+        if (heaviest.getCurrentWeight() > rack.getMax_weight()) {
+            if (createAlertIfNotExists(rack, heaviest, AlertType.WEIGHT_EXCEEDED,
+                    rack.getMax_weight(), heaviest.getCurrentWeight())) {
+                triggeredAlerts.add(new TriggeredAlert(AlertType.WEIGHT_EXCEEDED, heaviest));
+            }
         }
 
         // Check temperature too high
-        if (request.getCurrentTemperature() > rack.getMax_temp()) {
-            createAlertIfNotExists(rack, report, AlertType.TEMPERATURE_TOO_HIGH,
-                    rack.getMax_temp(), request.getCurrentTemperature())
-                    .ifPresent(result -> {
-                        triggeredAlerts.add(AlertType.TEMPERATURE_TOO_HIGH);
-                        collectEmailRecipients(result, usersById, userAlertMessages);
-                    });
+        RackReport warmest = readings.maxTemperature();
+        if (warmest.getCurrentTemperature() > rack.getMax_temp()) {
+            if (createAlertIfNotExists(rack, warmest, AlertType.TEMPERATURE_TOO_HIGH,
+                    rack.getMax_temp(), warmest.getCurrentTemperature())) {
+                triggeredAlerts.add(new TriggeredAlert(AlertType.TEMPERATURE_TOO_HIGH, warmest));
+            }
         }
 
         // Check temperature too low
-        if (request.getCurrentTemperature() < rack.getMin_temp()) {
-            createAlertIfNotExists(rack, report, AlertType.TEMPERATURE_TOO_LOW,
-                    rack.getMin_temp(), request.getCurrentTemperature())
-                    .ifPresent(result -> {
-                        triggeredAlerts.add(AlertType.TEMPERATURE_TOO_LOW);
-                        collectEmailRecipients(result, usersById, userAlertMessages);
-                    });
+        RackReport coldest = readings.minTemperature();
+        if (coldest.getCurrentTemperature() < rack.getMin_temp()) {
+            if (createAlertIfNotExists(rack, coldest, AlertType.TEMPERATURE_TOO_LOW,
+                    rack.getMin_temp(), coldest.getCurrentTemperature())) {
+                triggeredAlerts.add(new TriggeredAlert(AlertType.TEMPERATURE_TOO_LOW, coldest));
+            }
+        }
+
+        // Check projected temperature excursions while the rack is still within its limits
+        if (warmest.getCurrentTemperature() <= rack.getMax_temp() && coldest.getCurrentTemperature() >= rack.getMin_temp()) {
+            temperatureForecaster.forecast(rack.getId(), rack.getMin_temp(), rack.getMax_temp()).ifPresent(forecast -> {
+                RackReport latest = forecast.alertType() == AlertType.TEMPERATURE_FORECAST_TOO_HIGH ? warmest : coldest;
+                if (createAlertIfNotExists(rack, latest, forecast.alertType(),
+                        forecast.threshold(), forecast.currentTemperature())) {
+                    triggeredAlerts.add(new TriggeredAlert(forecast.alertType(), latest));
+                }
+            });
         }
 
         // Check for unauthorized outbound (weight less than sum of assortments)
-        if (request.getCurrentWeight() != null) {
-            List<Assortment> rackAssortments = assortmentRepository.findByRackId(rack.getId());
-            float totalAssortmentWeight = rackAssortments.stream()
-                    .map(assortment -> assortment.getItem().getWeight())
-                    .reduce(0f, Float::sum);
-
-            if (request.getCurrentWeight() < totalAssortmentWeight) {
-                createAlertIfNotExistsForWeight(rack, report, AlertType.UNAUTHORIZED_OUTBOUND,
-                        totalAssortmentWeight, request.getCurrentWeight())
-                        .ifPresent(result -> {
-                            triggeredAlerts.add(AlertType.UNAUTHORIZED_OUTBOUND);
-                            collectEmailRecipients(result, usersById, userAlertMessages);
-                        });
+        RackReport lightest = readings.minWeight();
+        float totalAssortmentWeight = (float) occupancy.getLoad();
+        if (lightest.getCurrentWeight() < totalAssortmentWeight) {
+            if (createAlertIfNotExistsForWeight(rack, lightest, AlertType.UNAUTHORIZED_OUTBOUND,
+                    totalAssortmentWeight, lightest.getCurrentWeight())) {
+                triggeredAlerts.add(new TriggeredAlert(AlertType.UNAUTHORIZED_OUTBOUND, lightest));
             }
         }
 
         // Check item temperature tolerances
-        float currentTemp = request.getCurrentTemperature();
-        List<Assortment> assortments = assortmentRepository.findByRackId(rack.getId());
-        Set<Long> checkedItemIds = new HashSet<>();
-        for (Assortment assortment : assortments) {
-            Item item = assortment.getItem();
-            if (!checkedItemIds.add(item.getId())) continue;
-
-            if (currentTemp > item.getMax_temp()) {
-                createAlertIfNotExistsForItem(rack, item, report,
-                        AlertType.ITEM_TEMPERATURE_TOO_HIGH, item.getMax_temp(), currentTemp)
-                        .ifPresent(result -> {
-                            triggeredAlerts.add(AlertType.ITEM_TEMPERATURE_TOO_HIGH);
-                            collectEmailRecipients(result, usersById, userAlertMessages);
-                        });
+        for (RackOccupancy.ItemTolerance tolerance : occupancy.itemsTooWarmFor(warmest.getCurrentTemperature())) {
+            if (createAlertIfNotExistsForItem(rack, itemRepository.getReferenceById(tolerance.itemId()), warmest,
+                    AlertType.ITEM_TEMPERATURE_TOO_HIGH, tolerance.maxTemp(), warmest.getCurrentTemperature())) {
+                triggeredAlerts.add(new TriggeredAlert(AlertType.ITEM_TEMPERATURE_TOO_HIGH, warmest));
             }
-            if (currentTemp < item.getMin_temp()) {
-                createAlertIfNotExistsForItem(rack, item, report,
-                        AlertType.ITEM_TEMPERATURE_TOO_LOW, item.getMin_temp(), currentTemp)
-                        .ifPresent(result -> {
-                            triggeredAlerts.add(AlertType.ITEM_TEMPERATURE_TOO_LOW);
-                            collectEmailRecipients(result, usersById, userAlertMessages);
-                        });
+        }
+        for (RackOccupancy.ItemTolerance tolerance : occupancy.itemsTooColdFor(coldest.getCurrentTemperature())) {
+            if (createAlertIfNotExistsForItem(rack, itemRepository.getReferenceById(tolerance.itemId()), coldest,
+                    AlertType.ITEM_TEMPERATURE_TOO_LOW, tolerance.minTemp(), coldest.getCurrentTemperature())) {
+                triggeredAlerts.add(new TriggeredAlert(AlertType.ITEM_TEMPERATURE_TOO_LOW, coldest));
             }
         }
+        return triggeredAlerts;
+    }
 
-        // Send batch emails per user with their specific alert messages
-        if (!userAlertMessages.isEmpty()) {
-            log.info("Sending batch notification emails to {} users for {} alert types",
-                    userAlertMessages.size(), triggeredAlerts.size());
-            userAlertMessages.forEach((userId, messages) -> {
-                User user = usersById.get(userId);
-                emailService.sendBatchNotificationEmail(user.getEmail(), messages, LinksUtils.getWebAppUrl("/dashboard/notifications", httpRequest));
-            });
+    /**
+     * Looks up the unresolved alert in {@link ActiveAlertRegistry} and loads it by primary key. Entries that turned
+     * out to be resolved or deleted in the meantime are evicted.
+     * <p>
+     * The registry is local to this instance, so on a miss the alert is looked up by its key before a new one is
+     * inserted - an alert raised on another instance would otherwise violate {@code idx_unique_open_alert} and roll
+     * back the whole telemetry transaction. Found alerts are registered, so the next reading is a map lookup again.
+     */
+    private Optional<Alert> findActiveAlert(Long rackId, Long itemId, AlertType alertType) {
+        Optional<Long> registeredId = activeAlertRegistry.findActiveAlertId(rackId, itemId, alertType);
+        if (registeredId.isPresent()) {
+            Optional<Alert> registered = alertRepository.findById(registeredId.get())
+                    .filter(alert -> ACTIVE_STATUSES.contains(alert.getStatus()));
+            if (registered.isPresent()) {
+                return registered;
+            }
+            activeAlertRegistry.evict(rackId, itemId, alertType, registeredId.get());
         }
-
-        // Update report with alert status
-        report.setAlertTriggered(!triggeredAlerts.isEmpty());
-        reportRepository.save(report);
-
-        log.info("Processed rack report for rack {} - alerts triggered: {}",
-                rack.getId(), triggeredAlerts);
-
-        return RackReportResponse.builder()
-                .reportId(report.getId())
-                .rackId(rack.getId())
-                .rackMarker(rack.getMarker())
-                .currentWeight(report.getCurrentWeight())
-                .currentTemperature(report.getCurrentTemperature())
-                .alertTriggered(report.isAlertTriggered())
-                .triggeredAlertTypes(triggeredAlerts.stream().map(Enum::name).toList())
-                .createdAt(report.getCreatedAt())
-                .build();
+        Optional<Alert> existing = alertRepository.findFirstByRackIdAndItemIdAndAlertTypeAndStatusIn(
+                rackId, itemId, alertType, ACTIVE_STATUSES);
+        existing.ifPresent(activeAlertRegistry::register);
+        return existing;
     }
 
     /**
@@ -200,11 +340,11 @@ public class RackReportService {
      * If an alert exists and the new value is more severe, updates data and redistributes notifications.
      * If the value is same or less severe, still updates alert data but without notifications or emails.
      *
-     * @return Optional with users to email and the alert message (empty if no notifications needed)
+     * @return whether users were notified (new alert or more severe value)
      */
-    private Optional<AlertNotificationResult> createAlertIfNotExists(Rack rack, RackReport report, AlertType alertType,
-                                                                     float thresholdValue, float actualValue) {
-        Optional<Alert> existingAlert = alertRepository.findActiveAlertForRack(rack.getId(), alertType, ACTIVE_STATUSES);
+    private boolean createAlertIfNotExists(Rack rack, RackReport report, AlertType alertType,
+                                           float thresholdValue, float actualValue) {
+        Optional<Alert> existingAlert = findActiveAlert(rack.getId(), null, alertType);
 
         if (existingAlert.isPresent()) {
             Alert alert = existingAlert.get();
@@ -220,14 +360,14 @@ public class RackReportService {
             if (moreSevere) {
                 log.debug("Alert {} updated with more severe value, redistributing notifications",
                         alert.getId());
-                List<User> usersNotified = redistributeNotifications(alert);
-                return Optional.of(new AlertNotificationResult(usersNotified, updatedMessage));
+                notificationDispatcher.dispatch(alert, Delivery.RENOTIFY);
+                return true;
             } else {
                 // Not more severe — still create notifications for users who don't have one, but no email
-                distributeNotifications(alert);
+                notificationDispatcher.dispatch(alert, Delivery.SILENT);
                 log.debug("Alert {} data updated (value: {}), not more severe — notifications distributed without email",
                         alert.getId(), actualValue);
-                return Optional.empty();
+                return false;
             }
         }
 
@@ -247,10 +387,11 @@ public class RackReportService {
                 .build();
 
         alert = alertRepository.save(alert);
+        activeAlertRegistry.register(alert);
         log.info("Created new alert: type={}, rack={}, alertId={}, message={}", alertType, rack.getId(), alert.getId(), message);
 
-        List<User> usersNotified = distributeNotifications(alert);
-        return Optional.of(new AlertNotificationResult(usersNotified, message));
+        notificationDispatcher.dispatch(alert, Delivery.EMAIL);
+        return true;
     }
 
     /**
@@ -258,12 +399,11 @@ public class RackReportService {
      * If an alert exists and the new value is more severe, updates data and redistributes notifications.
      * If the value is same or less severe, still updates alert data but without notifications or emails.
      *
-     * @return Optional with users to email and the alert message (empty if no notifications needed)
+     * @return whether users were notified (new alert or more severe value)
      */
-    private Optional<AlertNotificationResult> createAlertIfNotExistsForItem(Rack rack, Item item, RackReport report, AlertType alertType,
-                                                                            float thresholdValue, float actualValue) {
-        Optional<Alert> existingAlert = alertRepository.findActiveAlertForRackAndItem(
-                rack.getId(), item.getId(), alertType, ACTIVE_STATUSES);
+    private boolean createAlertIfNotExistsForItem(Rack rack, Item item, RackReport report, AlertType alertType,
+                                                  float thresholdValue, float actualValue) {
+        Optional<Alert> existingAlert = findActiveAlert(rack.getId(), item.getId(), alertType);
 
         if (existingAlert.isPresent()) {
             Alert alert = existingAlert.get();
@@ -279,13 +419,13 @@ public class RackReportService {
             if (moreSevere) {
                 log.debug("Item alert {} updated with more severe value, redistributing notifications",
                         alert.getId());
-                List<User> usersNotified = redistributeNotifications(alert);
-                return Optional.of(new AlertNotificationResult(usersNotified, updatedMessage));
+                notificationDispatcher.dispatch(alert, Delivery.RENOTIFY);
+                return true;
             } else {
-                distributeNotifications(alert);
+                notificationDispatcher.dispatch(alert, Delivery.SILENT);
                 log.debug("Item alert {} data updated (value: {}), not more severe — notifications distributed without email",
                         alert.getId(), actualValue);
-                return Optional.empty();
+                return false;
             }
         }
 
@@ -305,11 +445,12 @@ public class RackReportService {
                 .build();
 
         alert = alertRepository.save(alert);
+        activeAlertRegistry.register(alert);
         log.info("Created new item alert: type={}, rack={}, item={}, alertId={}, message={}",
                 alertType, rack.getId(), item.getId(), alert.getId(), message);
 
-        List<User> usersNotified = distributeNotifications(alert);
-        return Optional.of(new AlertNotificationResult(usersNotified, message));
+        notificationDispatcher.dispatch(alert, Delivery.EMAIL);
+        return true;
     }
 
     /**
@@ -317,12 +458,11 @@ public class RackReportService {
      * If an alert exists and the new value is more severe, updates data and redistributes notifications.
      * If the value is same or less severe, still updates alert data but without notifications or emails.
      *
-     * @return Optional with users to email and the alert message (empty if no notifications needed)
+     * @return whether users were notified (new alert or more severe value)
      */
-    private Optional<AlertNotificationResult> createAlertIfNotExistsForWeight(Rack rack, RackReport report, AlertType alertType,
-                                                                              float thresholdValue, float actualValue) {
-        Optional<Alert> existingAlert = alertRepository.findActiveAlertForRack(
-                rack.getId(), alertType, ACTIVE_STATUSES);
+    private boolean createAlertIfNotExistsForWeight(Rack rack, RackReport report, AlertType alertType,
+                                                    float thresholdValue, float actualValue) {
+        Optional<Alert> existingAlert = findActiveAlert(rack.getId(), null, alertType);
 
         if (existingAlert.isPresent()) {
             Alert alert = existingAlert.get();
@@ -338,13 +478,13 @@ public class RackReportService {
             if (moreSevere) {
                 log.debug("Weight alert {} updated with more severe value, redistributing notifications",
                         alert.getId());
-                List<User> usersNotified = redistributeNotifications(alert);
-                return Optional.of(new AlertNotificationResult(usersNotified, updatedMessage));
+                notificationDispatcher.dispatch(alert, Delivery.RENOTIFY);
+                return true;
             } else {
-                distributeNotifications(alert);
+                notificationDispatcher.dispatch(alert, Delivery.SILENT);
                 log.debug("Weight alert {} data updated (value: {}), not more severe — notifications distributed without email",
                         alert.getId(), actualValue);
-                return Optional.empty();
+                return false;
             }
         }
 
@@ -363,139 +503,12 @@ public class RackReportService {
                 .build();
 
         alert = alertRepository.save(alert);
+        activeAlertRegistry.register(alert);
         log.info("Created new weight alert: type={}, rack={}, alertId={}, message={}",
                 alertType, rack.getId(), alert.getId(), message);
 
-        List<User> usersNotified = distributeNotifications(alert);
-        return Optional.of(new AlertNotificationResult(usersNotified, message));
-    }
-
-    /**
-     * Marks all existing notifications for an alert as unread and ensures all users have notifications.
-     * Used when an alert is updated with a more severe value.
-     *
-     * @return List of users who should receive an email: those whose notifications were re-marked
-     * (read → unread, meaning alert got worse since they last checked) plus new notification recipients
-     */
-    private List<User> redistributeNotifications(Alert alert) {
-        log.info("Redistributing notifications for alert {} - marking all as unread", alert.getId());
-
-        Long warehouseId = alert.getWarehouse().getId();
-
-        // Get all active users assigned to this warehouse
-        List<User> activeUsers = userRepository.findByWarehouseIdAndStatusOrAdmin(warehouseId, AccountStatus.ACTIVE);
-
-        // Get existing notifications for this alert
-        List<UserNotification> existingNotifications = notificationRepository.findByAlertId(alert.getId());
-        Set<Long> usersWithNotifications = existingNotifications.stream()
-                .map(n -> n.getUser().getId())
-                .collect(Collectors.toSet());
-
-        Instant now = Instant.now();
-        List<UserNotification> notificationsToUpdate = new ArrayList<>();
-        List<UserNotification> newNotifications = new ArrayList<>();
-        List<User> usersToEmail = new ArrayList<>();
-
-        // Mark existing notifications as unread; users who had read theirs get re-notified via email
-        existingNotifications.forEach(notification -> {
-            if (notification.isRead()) {
-                notification.markAsUnread();
-                notificationsToUpdate.add(notification);
-                usersToEmail.add(notification.getUser());
-                log.debug("Marking notification {} as unread for user {} (will re-send email)",
-                        notification.getId(), notification.getUser().getId());
-            }
-        });
-
-        // Create notifications for users who don't have one yet (e.g., new users in warehouse)
-        activeUsers.stream()
-                .filter(user -> !usersWithNotifications.contains(user.getId()))
-                .forEach(user -> {
-                    UserNotification notification = UserNotification.builder()
-                            .user(user)
-                            .alert(alert)
-                            .isRead(false)
-                            .createdAt(now)
-                            .build();
-                    newNotifications.add(notification);
-                    log.debug("Creating new notification for user {} on alert {}", user.getId(), alert.getId());
-                });
-
-        // Save all changes
-        if (!notificationsToUpdate.isEmpty()) {
-            notificationRepository.saveAll(notificationsToUpdate);
-        }
-        if (!newNotifications.isEmpty()) {
-            notificationRepository.saveAll(newNotifications);
-        }
-
-        // Add new notification users to email list
-        newNotifications.stream().map(UserNotification::getUser).forEach(usersToEmail::add);
-
-        log.info("Redistributed notifications for alert {}: re-marked {} as unread, created {} new — {} users to email",
-                alert.getId(), notificationsToUpdate.size(), newNotifications.size(), usersToEmail.size());
-
-        return usersToEmail;
-    }
-
-    /**
-     * Distributes notifications for an alert to active users assigned to the alert's warehouse.
-     * Uses batch insert and single query check to prevent N+1 problem.
-     * <p>
-     * Only users with ACTIVE status and assigned to the warehouse receive notifications.
-     * This prevents unauthorized access to warehouse data and reduces notification spam.
-     *
-     * @return List of users who received NEW notifications
-     */
-    private List<User> distributeNotifications(Alert alert) {
-        log.info("Distributing notifications for alert {} in warehouse {}", alert.getId(), alert.getWarehouse().getId());
-        Long warehouseId = alert.getWarehouse().getId();
-
-        // Get all active users assigned to this warehouse
-        List<User> activeUsers = userRepository.findByWarehouseIdAndStatusOrAdmin(
-                warehouseId, AccountStatus.ACTIVE);
-
-        // Batch check: get all user IDs that already have this notification (single query)
-        Set<Long> existingUserIds = notificationRepository.findUserIdsWithNotificationForAlert(alert.getId());
-        log.debug("Existing notifications for alert {}: {} users already notified", alert.getId(), existingUserIds.size());
-
-        // Build list of notifications to create
-        Instant now = Instant.now();
-        List<UserNotification> newNotifications = activeUsers.stream()
-                .filter(user -> !existingUserIds.contains(user.getId()))
-                .map(user -> UserNotification.builder()
-                        .user(user)
-                        .alert(alert)
-                        .isRead(false)
-                        .createdAt(now)
-                        .build())
-                .toList();
-        log.info("Prepared {} new notifications for alert {} after filtering existing ones",
-                newNotifications.size(), alert.getId());
-
-        // Batch insert: save all notifications in one operation
-        if (!newNotifications.isEmpty()) {
-            notificationRepository.saveAll(newNotifications);
-            log.info("Distributed {} notifications for alert {} to active users",
-                    newNotifications.size(), alert.getId());
-        } else {
-            log.debug("No new notifications to distribute for alert {}", alert.getId());
-        }
-
-        return newNotifications.stream().map(UserNotification::getUser).toList();
-    }
-
-    /**
-     * Collects users and their alert messages into per-user maps for batch email sending.
-     */
-    private void collectEmailRecipients(AlertNotificationResult result,
-                                        Map<Long, User> usersById,
-                                        Map<Long, List<String>> userAlertMessages) {
-        result.usersToEmail().forEach(user -> {
-            usersById.put(user.getId(), user);
-            userAlertMessages.computeIfAbsent(user.getId(), k -> new ArrayList<>())
-                    .add(result.alertMessage());
-        });
+        notificationDispatcher.dispatch(alert, Delivery.EMAIL);
+        return true;
     }
 
     /**
@@ -539,6 +552,12 @@ public class RackReportService {
             case ITEM_TEMPERATURE_TOO_HIGH, ITEM_TEMPERATURE_TOO_LOW -> String.format(
                     "%s - Temperatura regału (%.1f°C) poza zakresem tolerancji przedmiotu",
                     rackInfo, actual);
+            case TEMPERATURE_FORECAST_TOO_HIGH -> String.format(
+                    "%s - Prognoza: temperatura przekroczy maksymalną dopuszczalną w ciągu %d min. Limit: %.1f°C, Aktualna: %.1f°C",
+                    rackInfo, temperatureForecaster.getHorizonMinutes(), threshold, actual);
+            case TEMPERATURE_FORECAST_TOO_LOW -> String.format(
+                    "%s - Prognoza: temperatura spadnie poniżej minimalnej dopuszczalnej w ciągu %d min. Limit: %.1f°C, Aktualna: %.1f°C",
+                    rackInfo, temperatureForecaster.getHorizonMinutes(), threshold, actual);
             case UNAUTHORIZED_OUTBOUND ->
                     throw new IllegalArgumentException("UNAUTHORIZED_OUTBOUND should use buildAlertMessageForWeight");
             case EMBEDDING_GENERATION_COMPLETED, EMBEDDING_GENERATION_FAILED,
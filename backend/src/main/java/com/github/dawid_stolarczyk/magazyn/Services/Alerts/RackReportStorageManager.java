@@ -0,0 +1,224 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AlertRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackReportRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Physical storage of raw rack telemetry ({@code rack_reports}).
+ * <p>
+ * With {@code app.telemetry.partitioning.enabled=true} on PostgreSQL the table is converted once into a table
+ * range-partitioned by {@code created_at}, with one partition per calendar month (UTC). Partitions for the coming
+ * months are created ahead of time and a default partition catches readings with far-off timestamps.
+ * Retention then drops whole monthly partitions instead of deleting millions of rows; whatever is left before
+ * the cutoff (partial months, default partition, non-partitioned table) is deleted in small batches.
+ */
+@Slf4j
+@Component
+public class RackReportStorageManager {
+    private static final String PARTITION_PREFIX = "rack_reports_p";
+    private static final String DEFAULT_PARTITION = "rack_reports_default";
+    private static final String ID_SEQUENCE = "rack_reports_partitioned_id_seq";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("uuuuMM");
+    private static final Pattern PARTITION_NAME = Pattern.compile(PARTITION_PREFIX + "(\\d{6})");
+    private static final int PURGE_BATCH_SIZE = 10_000;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RackReportRepository rackReportRepository;
+    private final AlertRepository alertRepository;
+
+    @Value("${app.telemetry.partitioning.enabled:false}")
+    private boolean partitioningEnabled;
+
+    @Value("${app.telemetry.partitioning.months-ahead:2}")
+    private int monthsAhead;
+
+    private volatile Boolean postgres;
+
+    public RackReportStorageManager(DataSource dataSource,
+                                    TransactionTemplate transactionTemplate,
+                                    RackReportRepository rackReportRepository,
+                                    AlertRepository alertRepository) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+        this.rackReportRepository = rackReportRepository;
+        this.alertRepository = alertRepository;
+    }
+
+    /**
+     * Runs after Hibernate has created/updated the schema, so {@code rack_reports} is guaranteed to exist.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!partitioningEnabled || !isPostgres()) {
+            return;
+        }
+        try {
+            if (!isPartitioned()) {
+                convertToPartitionedTable();
+            }
+            ensurePartitions();
+        } catch (Exception e) {
+            log.error("[TELEMETRY-STORAGE] Failed to prepare partitioned rack_reports: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${app.telemetry.partitioning.cron:0 30 0 * * *}")
+    public void ensureFuturePartitions() {
+        if (partitioningEnabled && isPartitioned()) {
+            ensurePartitions();
+        }
+    }
+
+    public boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            try (Connection connection = dataSource.getConnection()) {
+                result = "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+            } catch (SQLException e) {
+                log.warn("[TELEMETRY-STORAGE] Could not determine database type: {}", e.getMessage());
+                return false;
+            }
+            postgres = result;
+        }
+        return result;
+    }
+
+    public boolean isPartitioned() {
+        if (!isPostgres()) {
+            return false;
+        }
+        List<String> kind = jdbcTemplate.queryForList(
+                "SELECT relkind::text FROM pg_class WHERE oid = to_regclass('rack_reports')", String.class);
+        return kind.contains("p");
+    }
+
+    /**
+     * Deletes raw reports created before {@code cutoff}. Alerts referencing them keep their data but lose
+     * the link to the triggering report.
+     */
+    public void purgeRawReportsBefore(Instant cutoff) {
+        Integer detached = transactionTemplate.execute(status -> alertRepository.detachReportsCreatedBefore(cutoff));
+
+        int droppedPartitions = 0;
+        if (partitioningEnabled && isPartitioned()) {
+            for (String partition : jdbcTemplate.queryForList(
+                    "SELECT c.relname::text FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                            "WHERE i.inhparent = 'rack_reports'::regclass", String.class)) {
+                Matcher matcher = PARTITION_NAME.matcher(partition);
+                if (matcher.matches()) {
+                    YearMonth month = YearMonth.parse(matcher.group(1), PARTITION_SUFFIX);
+                    if (!monthStart(month.plusMonths(1)).isAfter(cutoff)) {
+                        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                        droppedPartitions++;
+                    }
+                }
+            }
+        }
+
+        long deleted = 0;
+        Integer batch;
+        do {
+            batch = transactionTemplate.execute(status ->
+                    rackReportRepository.deleteBatchCreatedBefore(cutoff, PURGE_BATCH_SIZE));
+            deleted += batch != null ? batch : 0;
+        } while (batch != null && batch == PURGE_BATCH_SIZE);
+
+        log.info("[TELEMETRY-STORAGE] Purged raw reports before {} - {} partition(s) dropped, {} row(s) deleted, {} alert(s) detached",
+                cutoff, droppedPartitions, deleted, detached);
+    }
+
+    /**
+     * One-off migration of a regular {@code rack_reports} table. Runs in a single transaction holding an
+     * exclusive lock, so concurrent ingestion waits instead of writing into the old table.
+     */
+    private void convertToPartitionedTable() {
+        log.info("[TELEMETRY-STORAGE] Converting rack_reports to a monthly partitioned table...");
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("LOCK TABLE rack_reports IN ACCESS EXCLUSIVE MODE");
+
+            // (id) alone is no longer unique once created_at is part of the key - drop incoming foreign keys
+            for (Map<String, Object> fk : jdbcTemplate.queryForList(
+                    "SELECT conrelid::regclass::text AS table_name, conname::text AS name FROM pg_constraint " +
+                            "WHERE contype = 'f' AND confrelid = 'rack_reports'::regclass")) {
+                jdbcTemplate.execute("ALTER TABLE " + fk.get("table_name") + " DROP CONSTRAINT \"" + fk.get("name") + "\"");
+            }
+            // Outgoing foreign keys (rack_id -> racks) are recreated under the same name
+            List<Map<String, Object>> ownForeignKeys = jdbcTemplate.queryForList(
+                    "SELECT conname::text AS name, pg_get_constraintdef(oid) AS definition FROM pg_constraint " +
+                            "WHERE contype = 'f' AND conrelid = 'rack_reports'::regclass");
+
+            jdbcTemplate.execute("ALTER TABLE rack_reports RENAME TO rack_reports_legacy");
+            jdbcTemplate.execute("CREATE TABLE rack_reports (LIKE rack_reports_legacy INCLUDING DEFAULTS) " +
+                    "PARTITION BY RANGE (created_at)");
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + ID_SEQUENCE);
+            jdbcTemplate.execute("ALTER TABLE rack_reports ALTER COLUMN id SET DEFAULT nextval('" + ID_SEQUENCE + "')");
+            jdbcTemplate.execute("ALTER SEQUENCE " + ID_SEQUENCE + " OWNED BY rack_reports.id");
+
+            Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM rack_reports_legacy", Timestamp.class);
+            YearMonth current = YearMonth.now(ZoneOffset.UTC);
+            YearMonth first = oldest != null ? YearMonth.from(oldest.toInstant().atZone(ZoneOffset.UTC)) : current;
+            createPartitions(first.isBefore(current) ? first : current, current.plusMonths(monthsAhead));
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF rack_reports DEFAULT");
+
+            int copied = jdbcTemplate.update("INSERT INTO rack_reports SELECT * FROM rack_reports_legacy");
+            jdbcTemplate.queryForObject("SELECT setval('" + ID_SEQUENCE + "', " +
+                    "COALESCE((SELECT MAX(id) FROM rack_reports), 0) + 1, false)", Long.class);
+            jdbcTemplate.execute("DROP TABLE rack_reports_legacy");
+
+            // Indexes are built after the copy; names match the entity so Hibernate schema update sees them
+            jdbcTemplate.execute("ALTER TABLE rack_reports ADD CONSTRAINT rack_reports_pkey PRIMARY KEY (id, created_at)");
+            jdbcTemplate.execute("CREATE INDEX idx_rack_reports_rack_id ON rack_reports (rack_id, created_at)");
+            jdbcTemplate.execute("CREATE INDEX idx_rack_reports_created_at ON rack_reports (created_at)");
+            for (Map<String, Object> fk : ownForeignKeys) {
+                jdbcTemplate.execute("ALTER TABLE rack_reports ADD CONSTRAINT \"" + fk.get("name") + "\" " + fk.get("definition"));
+            }
+            log.info("[TELEMETRY-STORAGE] rack_reports partitioned, {} report(s) migrated", copied);
+        });
+    }
+
+    private void ensurePartitions() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        try {
+            createPartitions(current, current.plusMonths(monthsAhead));
+        } catch (Exception e) {
+            // Fails when the default partition already holds rows of the new month - they must be moved manually
+            log.warn("[TELEMETRY-STORAGE] Could not create upcoming rack_reports partitions: {}", e.getMessage());
+        }
+    }
+
+    private void createPartitions(YearMonth from, YearMonth to) {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + PARTITION_PREFIX + month.format(PARTITION_SUFFIX) +
+                    " PARTITION OF rack_reports FOR VALUES FROM ('" + monthStart(month) + "') TO ('" +
+                    monthStart(month.plusMonths(1)) + "')");
+        }
+    }
+
+    private static Instant monthStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
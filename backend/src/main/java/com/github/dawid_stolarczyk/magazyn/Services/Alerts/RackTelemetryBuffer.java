@@ -0,0 +1,71 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+/**
+ * Fixed-size ring buffer with the most recent readings of a single rack.
+ * <p>
+ * Readings are kept in parallel primitive arrays, so appending is O(1) and allocation free;
+ * once the buffer is full the oldest reading is overwritten.
+ */
+public final class RackTelemetryBuffer {
+    private final long[] timestamps;
+    private final float[] weights;
+    private final float[] temperatures;
+    private int next;
+    private int size;
+    private volatile Long warehouseId;
+
+    RackTelemetryBuffer(int capacity, Long warehouseId) {
+        this.timestamps = new long[capacity];
+        this.weights = new float[capacity];
+        this.temperatures = new float[capacity];
+        this.warehouseId = warehouseId;
+    }
+
+    /**
+     * Chronologically ordered copy of buffered readings, timestamps in epoch milliseconds.
+     */
+    public record Snapshot(long[] timestamps, float[] weights, float[] temperatures) {
+        public int size() {
+            return timestamps.length;
+        }
+    }
+
+    public Long getWarehouseId() {
+        return warehouseId;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    synchronized void append(long timestampMillis, float weight, float temperature, Long warehouseId) {
+        timestamps[next] = timestampMillis;
+        weights[next] = weight;
+        temperatures[next] = temperature;
+        next = (next + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        }
+        if (warehouseId != null) {
+            this.warehouseId = warehouseId;
+        }
+    }
+
+    /**
+     * The last {@code limit} readings (all of them when fewer are buffered), oldest first.
+     */
+    public synchronized Snapshot snapshot(int limit) {
+        int count = Math.min(Math.max(limit, 0), size);
+        long[] ts = new long[count];
+        float[] w = new float[count];
+        float[] t = new float[count];
+        int start = Math.floorMod(next - count, timestamps.length);
+        for (int i = 0; i < count; i++) {
+            int index = (start + i) % timestamps.length;
+            ts[i] = timestamps[index];
+            w[i] = weights[index];
+            t[i] = temperatures[index];
+        }
+        return new Snapshot(ts, w, t);
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.RackReport;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackReportRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.RackReadingProjection;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Sliding window of the most recent readings of every rack, kept in memory for live monitoring.
+ * <p>
+ * Each rack gets a {@link RackTelemetryBuffer} of {@code app.telemetry.trend.buffer-size} readings.
+ * Buffers are warmed up at startup from the last {@code app.telemetry.trend.warmup-minutes} of reports
+ * and then fed by telemetry processing once the reports are committed, so trend queries never touch
+ * the database. Racks without readings since startup (and the warm-up period) have no buffer.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RackTelemetryWindow {
+
+    private final RackReportRepository reportRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.telemetry.trend.buffer-size:120}")
+    private int bufferSize;
+
+    @Value("${app.telemetry.trend.warmup-minutes:30}")
+    private int warmupMinutes;
+
+    private final ConcurrentHashMap<Long, RackTelemetryBuffer> buffers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        reload();
+    }
+
+    /**
+     * Rebuilds all buffers from recent reports - used at startup and after restore.
+     */
+    public void reload() {
+        buffers.clear();
+        if (warmupMinutes <= 0) {
+            return;
+        }
+        Instant since = Instant.now().minus(warmupMinutes, ChronoUnit.MINUTES);
+        AtomicLong loaded = new AtomicLong();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<RackReadingProjection> readings = reportRepository.streamReadingsSince(since)) {
+                readings.forEach(reading -> {
+                    append(reading.getRackId(), reading.getWarehouseId(), reading.getCreatedAt(),
+                            reading.getCurrentWeight(), reading.getCurrentTemperature());
+                    loaded.incrementAndGet();
+                });
+            }
+        });
+        log.info("[TELEMETRY-TREND] Warmed up {} rack buffer(s) from {} reading(s)", buffers.size(), loaded.get());
+    }
+
+    /**
+     * Appends persisted reports once the surrounding transaction commits.
+     */
+    public void record(List<RackReport> reports) {
+        if (reports.isEmpty()) {
+            return;
+        }
+        // Copy the values now - entities must not be touched after the persistence context is closed
+        int count = reports.size();
+        long[] rackIds = new long[count];
+        Long[] warehouseIds = new Long[count];
+        Instant[] timestamps = new Instant[count];
+        float[] weights = new float[count];
+        float[] temperatures = new float[count];
+        for (int i = 0; i < count; i++) {
+            RackReport report = reports.get(i);
+            rackIds[i] = report.getRack().getId();
+            warehouseIds[i] = report.getRack().getWarehouse() != null ? report.getRack().getWarehouse().getId() : null;
+            timestamps[i] = report.getCreatedAt();
+            weights[i] = report.getCurrentWeight();
+            temperatures[i] = report.getCurrentTemperature();
+        }
+        Runnable action = () -> {
+            for (int i = 0; i < count; i++) {
+                append(rackIds[i], warehouseIds[i], timestamps[i], weights[i], temperatures[i]);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public Optional<RackTelemetryBuffer> getBuffer(Long rackId) {
+        return Optional.ofNullable(buffers.get(rackId));
+    }
+
+    /**
+     * Buffers of all racks of the warehouse that reported recently, keyed by rack id.
+     */
+    public Map<Long, RackTelemetryBuffer> getWarehouseBuffers(Long warehouseId) {
+        return buffers.entrySet().stream()
+                .filter(entry -> warehouseId.equals(entry.getValue().getWarehouseId()))
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void remove(Long rackId) {
+        buffers.remove(rackId);
+    }
+
+    private void append(Long rackId, Long warehouseId, Instant createdAt, float weight, float temperature) {
+        buffers.computeIfAbsent(rackId, id -> new RackTelemetryBuffer(bufferSize, warehouseId))
+                .append(createdAt.toEpochMilli(), weight, temperature, warehouseId);
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.TelemetryIngestionStats;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.RackReportService.TelemetryReading;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Asynchronous telemetry ingestion.
+ * <p>
+ * Readings are acknowledged as soon as they land in a bounded in-memory queue. A fixed number of worker
+ * threads drain the queue in micro-batches and hand them to {@link RackReportService#processBatch(List)},
+ * so database load is capped at one connection per worker regardless of how many sensors report.
+ * When the queue is full new readings are rejected (backpressure) instead of piling up in memory.
+ * A batch that fails is retried once and then split per rack and per reading, so only the readings
+ * that fail on their own are dropped.
+ * <p>
+ * The queue lives in memory only - readings that were accepted but not yet processed are lost on a crash.
+ * On a regular shutdown the workers drain the queue before the application stops.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TelemetryIngestionService {
+    private static final long POLL_TIMEOUT_MS = 500;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final int BATCH_ATTEMPTS = 2;
+
+    private final RackReportService rackReportService;
+
+    @Value("${app.telemetry.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.telemetry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.telemetry.workers:2}")
+    private int workerCount;
+
+    private BlockingQueue<TelemetryReading> queue;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private final AtomicInteger lastBatchSize = new AtomicInteger();
+    private final AtomicLong lastBatchDurationMs = new AtomicLong();
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread thread = new Thread(r);
+            thread.setName("telemetry-ingest-" + thread.getId());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::drainLoop);
+        }
+        log.info("Telemetry ingestion started - queue capacity {}, batch size {}, {} workers",
+                queueCapacity, batchSize, workerCount);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("Telemetry ingestion did not drain in time - {} readings dropped", queue.size());
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Adds a reading to the ingestion queue without blocking.
+     *
+     * @return false if the queue is full and the reading was rejected
+     */
+    public boolean enqueue(TelemetryReading reading) {
+        if (!queue.offer(reading)) {
+            rejected.increment();
+            return false;
+        }
+        accepted.increment();
+        highWaterMark.accumulateAndGet(queue.size(), Math::max);
+        return true;
+    }
+
+    public TelemetryIngestionStats getStats() {
+        return TelemetryIngestionStats.builder()
+                .queueDepth(queue.size())
+                .queueCapacity(queueCapacity)
+                .queueHighWaterMark(highWaterMark.get())
+                .workers(workerCount)
+                .accepted(accepted.sum())
+                .rejected(rejected.sum())
+                .processed(processed.sum())
+                .failed(failed.sum())
+                .batches(batches.sum())
+                .lastBatchSize(lastBatchSize.get())
+                .lastBatchDurationMs(lastBatchDurationMs.get())
+                .build();
+    }
+
+    /**
+     * Worker loop: blocks for the first reading, then takes whatever else is already queued (up to batch size).
+     * Under low load batches are small and latency stays low; under high load batches fill up.
+     * After {@link #stop()} the loop keeps going until the queue is empty.
+     */
+    private void drainLoop() {
+        List<TelemetryReading> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TelemetryReading first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    void processBatch(List<TelemetryReading> batch) {
+        long start = System.nanoTime();
+        processed.add(storeWithFallback(batch));
+        batches.increment();
+        lastBatchSize.set(batch.size());
+        lastBatchDurationMs.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Stores the batch, retrying once for transient errors (deadlock, lost connection). When the retry fails
+     * as well, readings are stored per rack and a failing rack is split into single readings, so one bad
+     * reading no longer takes the whole batch down. Each attempt runs in its own transaction.
+     *
+     * @return number of stored reports
+     */
+    private int storeWithFallback(List<TelemetryReading> batch) {
+        for (int attempt = 1; attempt <= BATCH_ATTEMPTS; attempt++) {
+            try {
+                return rackReportService.processBatch(batch).getStoredReports();
+            } catch (Exception e) {
+                log.warn("Telemetry batch of {} readings failed (attempt {}/{}): {}",
+                        batch.size(), attempt, BATCH_ATTEMPTS, e.getMessage());
+            }
+        }
+        Map<Long, List<TelemetryReading>> byRack = batch.stream()
+                .collect(Collectors.groupingBy(TelemetryReading::rackId, LinkedHashMap::new, Collectors.toList()));
+        int stored = 0;
+        for (List<TelemetryReading> rackReadings : byRack.values()) {
+            if (rackReadings.size() > 1 && byRack.size() > 1) {
+                try {
+                    stored += rackReportService.processBatch(rackReadings).getStoredReports();
+                    continue;
+                } catch (Exception e) {
+                    log.warn("Telemetry for rack {} failed ({} readings), storing them one by one: {}",
+                            rackReadings.get(0).rackId(), rackReadings.size(), e.getMessage());
+                }
+            }
+            for (TelemetryReading reading : rackReadings) {
+                try {
+                    stored += rackReportService.processBatch(List.of(reading)).getStoredReports();
+                } catch (Exception e) {
+                    failed.increment();
+                    log.error("Dropping telemetry reading for rack {} from sensor {}",
+                            reading.rackId(), reading.sensorId(), e);
+                }
+            }
+        }
+        return stored;
+    }
+}
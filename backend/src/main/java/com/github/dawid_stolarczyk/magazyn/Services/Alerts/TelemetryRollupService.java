@@ -0,0 +1,291 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Common.Enums.InventoryError;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.TelemetryHistoryPoint;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.TelemetryHistoryResponse;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.RackReport;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.RackReportRollup;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.TelemetryResolution;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackReportRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackReportRollupRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackRepository;
+import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
+import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.RateLimitOperation;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.github.dawid_stolarczyk.magazyn.Utils.InternetUtils.getClientIp;
+
+/**
+ * Downsampling and retention of rack telemetry.
+ * <p>
+ * A background job rolls raw reports up into 1-minute buckets, minutes into hours and hours into days
+ * (min/max/avg of weight and temperature per rack). Each level only aggregates buckets that are complete,
+ * raw reports are rolled up after a short lateness allowance for delayed sensors.
+ * <p>
+ * Retention is configured per resolution ({@code 0} keeps data forever); data is never purged before
+ * the next coarser resolution has covered it. History queries pick the finest resolution that fits
+ * the requested range and is still retained.
+ * <p>
+ * Rollups use PostgreSQL-specific SQL and are skipped on other databases.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TelemetryRollupService {
+    private static final Duration RAW_HISTORY_MAX_SPAN = Duration.ofHours(2);
+    private static final Duration MINUTE_HISTORY_MAX_SPAN = Duration.ofDays(3);
+    private static final Duration HOUR_HISTORY_MAX_SPAN = Duration.ofDays(180);
+
+    private final RackReportRollupRepository rollupRepository;
+    private final RackReportRepository reportRepository;
+    private final RackRepository rackRepository;
+    private final RackReportStorageManager storageManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Bucket4jRateLimiter rateLimiter;
+
+    @Value("${app.telemetry.rollup.lateness-seconds:120}")
+    private long latenessSeconds;
+
+    @Value("${app.telemetry.retention.raw-days:0}")
+    private int rawRetentionDays;
+
+    @Value("${app.telemetry.retention.minute-days:30}")
+    private int minuteRetentionDays;
+
+    @Value("${app.telemetry.retention.hour-days:365}")
+    private int hourRetentionDays;
+
+    /**
+     * End (exclusive) of the time range already rolled up into each resolution.
+     * Initialised lazily from the latest stored bucket, so restarts continue where the previous run stopped.
+     */
+    private final Map<TelemetryResolution, Instant> watermarks = new ConcurrentHashMap<>();
+
+    @Scheduled(fixedDelayString = "${app.telemetry.rollup.interval-ms:60000}",
+            initialDelayString = "${app.telemetry.rollup.interval-ms:60000}")
+    public synchronized void runRollups() {
+        if (!storageManager.isPostgres()) {
+            return;
+        }
+        try {
+            Instant rawComplete = TelemetryResolution.MINUTE.truncate(Instant.now().minusSeconds(latenessSeconds));
+            Instant minutesDone = rollup(TelemetryResolution.MINUTE, rawComplete);
+            Instant hoursDone = rollup(TelemetryResolution.HOUR, TelemetryResolution.HOUR.truncate(minutesDone));
+            rollup(TelemetryResolution.DAY, TelemetryResolution.DAY.truncate(hoursDone));
+        } catch (Exception e) {
+            log.error("[TELEMETRY-ROLLUP] Rollup failed: {}", e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${app.telemetry.retention.cron:0 15 3 * * *}")
+    public synchronized void applyRetention() {
+        if (!storageManager.isPostgres()) {
+            return;
+        }
+        Instant rawCutoff = getRetentionCutoff(TelemetryResolution.RAW);
+        if (rawCutoff != null) {
+            storageManager.purgeRawReportsBefore(rawCutoff);
+        }
+        for (TelemetryResolution resolution : List.of(TelemetryResolution.MINUTE, TelemetryResolution.HOUR)) {
+            Instant cutoff = getRetentionCutoff(resolution);
+            if (cutoff != null) {
+                Integer deleted = transactionTemplate.execute(status -> rollupRepository.deleteOlderThan(resolution, cutoff));
+                log.info("[TELEMETRY-ROLLUP] Deleted {} {} rollup(s) before {}", deleted, resolution, cutoff);
+            }
+        }
+    }
+
+    /**
+     * Point before which raw reports are purged (and reports must read rollups instead),
+     * or {@code null} when raw reports are kept forever.
+     */
+    public Instant getRawRetentionCutoff() {
+        return getRetentionCutoff(TelemetryResolution.RAW);
+    }
+
+    /**
+     * Rollup buckets in {@code [start, end)} whose temperature left the rack's allowed range.
+     * Uses hourly rollups, or daily ones once hourly rollups of that period have been purged.
+     */
+    public List<RackReportRollup> findTemperatureViolations(Long warehouseId, Instant start, Instant end) {
+        TelemetryResolution resolution = isPurgedAt(TelemetryResolution.HOUR, start)
+                ? TelemetryResolution.DAY : TelemetryResolution.HOUR;
+        return rollupRepository.findTemperatureViolations(warehouseId, resolution, start, end);
+    }
+
+    /**
+     * Telemetry history of a rack. Without an explicit resolution the finest one that suits
+     * the length of the range and is still retained for its start is used.
+     */
+    public TelemetryHistoryResponse getHistory(Long rackId, Instant start, Instant end, TelemetryResolution resolution,
+                                               HttpServletRequest httpRequest) {
+        rateLimiter.consumeOrThrow(getClientIp(httpRequest), RateLimitOperation.INVENTORY_READ);
+        if (!rackRepository.existsById(rackId)) {
+            throw new IllegalArgumentException(InventoryError.RACK_NOT_FOUND.name());
+        }
+        Instant rangeEnd = end != null ? end : Instant.now();
+        Instant rangeStart = start != null ? start : rangeEnd.minus(1, ChronoUnit.DAYS);
+        if (!rangeStart.isBefore(rangeEnd)) {
+            throw new IllegalArgumentException("INVALID_DATE_RANGE");
+        }
+
+        TelemetryResolution effective = resolution != null ? resolution : resolveResolution(rangeStart, rangeEnd);
+        List<TelemetryHistoryPoint> points = effective == TelemetryResolution.RAW
+                ? reportRepository.findByRackIdAndTimeRange(rackId, rangeStart, rangeEnd).stream()
+                .filter(report -> report.getCreatedAt().isBefore(rangeEnd))
+                .sorted(Comparator.comparing(RackReport::getCreatedAt))
+                .map(TelemetryRollupService::toPoint)
+                .toList()
+                : rollupRepository.findHistory(rackId, effective, rangeStart, rangeEnd).stream()
+                .map(TelemetryRollupService::toPoint)
+                .toList();
+
+        return TelemetryHistoryResponse.builder()
+                .rackId(rackId)
+                .resolution(effective)
+                .start(rangeStart)
+                .end(rangeEnd)
+                .points(points)
+                .build();
+    }
+
+    TelemetryResolution resolveResolution(Instant start, Instant end) {
+        Duration span = Duration.between(start, end);
+        TelemetryResolution resolution;
+        if (span.compareTo(RAW_HISTORY_MAX_SPAN) <= 0) {
+            resolution = TelemetryResolution.RAW;
+        } else if (span.compareTo(MINUTE_HISTORY_MAX_SPAN) <= 0) {
+            resolution = TelemetryResolution.MINUTE;
+        } else if (span.compareTo(HOUR_HISTORY_MAX_SPAN) <= 0) {
+            resolution = TelemetryResolution.HOUR;
+        } else {
+            resolution = TelemetryResolution.DAY;
+        }
+        while (resolution != TelemetryResolution.DAY && isPurgedAt(resolution, start)) {
+            resolution = resolution.coarser();
+        }
+        return resolution;
+    }
+
+    /**
+     * Rolls the source of {@code target} up to {@code upTo} (exclusive) and returns how far {@code target} is complete.
+     */
+    Instant rollup(TelemetryResolution target, Instant upTo) {
+        Instant from = watermarks.get(target);
+        if (from == null) {
+            from = initialWatermark(target);
+            if (from == null) {
+                // Nothing to aggregate yet
+                return upTo;
+            }
+            watermarks.put(target, from);
+        }
+
+        Duration chunk = chunkSize(target);
+        while (from.isBefore(upTo)) {
+            Instant chunkStart = from;
+            Instant chunkEnd = chunkStart.plus(chunk).isBefore(upTo) ? chunkStart.plus(chunk) : upTo;
+            Integer buckets = transactionTemplate.execute(status -> target == TelemetryResolution.MINUTE
+                    ? rollupRepository.rollupRawReports(chunkStart, chunkEnd)
+                    : rollupRepository.rollupFrom(sourceOf(target).name(), target.name(), target.getTruncUnit(),
+                    chunkStart, chunkEnd));
+            log.debug("[TELEMETRY-ROLLUP] {} buckets {} - {}: {}", target, chunkStart, chunkEnd, buckets);
+            from = chunkEnd;
+            watermarks.put(target, from);
+        }
+        return from;
+    }
+
+    private Instant initialWatermark(TelemetryResolution target) {
+        Instant latest = rollupRepository.findLatestBucketStart(target);
+        if (latest != null) {
+            return latest.plus(target.getBucket());
+        }
+        Instant earliestSource = target == TelemetryResolution.MINUTE
+                ? reportRepository.findOldestCreatedAt()
+                : rollupRepository.findEarliestBucketStart(sourceOf(target));
+        return earliestSource != null ? target.truncate(earliestSource) : null;
+    }
+
+    /**
+     * Retention cutoff of a resolution, capped by how far the next coarser resolution has been rolled up.
+     */
+    private Instant getRetentionCutoff(TelemetryResolution resolution) {
+        int days = retentionDays(resolution);
+        if (days <= 0) {
+            return null;
+        }
+        Instant cutoff = Instant.now().minus(days, ChronoUnit.DAYS);
+        Instant covered = watermarks.get(resolution.coarser());
+        if (covered == null) {
+            return null;
+        }
+        return covered.isBefore(cutoff) ? covered : cutoff;
+    }
+
+    private boolean isPurgedAt(TelemetryResolution resolution, Instant instant) {
+        int days = retentionDays(resolution);
+        return days > 0 && instant.isBefore(Instant.now().minus(days, ChronoUnit.DAYS));
+    }
+
+    private int retentionDays(TelemetryResolution resolution) {
+        return switch (resolution) {
+            case RAW -> rawRetentionDays;
+            case MINUTE -> minuteRetentionDays;
+            case HOUR -> hourRetentionDays;
+            case DAY -> 0;
+        };
+    }
+
+    private static TelemetryResolution sourceOf(TelemetryResolution target) {
+        return TelemetryResolution.values()[target.ordinal() - 1];
+    }
+
+    private static Duration chunkSize(TelemetryResolution target) {
+        return switch (target) {
+            case MINUTE -> Duration.ofHours(6);
+            case HOUR -> Duration.ofDays(7);
+            default -> Duration.ofDays(90);
+        };
+    }
+
+    private static TelemetryHistoryPoint toPoint(RackReport report) {
+        return TelemetryHistoryPoint.builder()
+                .timestamp(report.getCreatedAt())
+                .samples(1)
+                .minWeight(report.getCurrentWeight())
+                .maxWeight(report.getCurrentWeight())
+                .avgWeight(report.getCurrentWeight())
+                .minTemperature(report.getCurrentTemperature())
+                .maxTemperature(report.getCurrentTemperature())
+                .avgTemperature(report.getCurrentTemperature())
+                .build();
+    }
+
+    private static TelemetryHistoryPoint toPoint(RackReportRollup rollup) {
+        return TelemetryHistoryPoint.builder()
+                .timestamp(rollup.getBucketStart())
+                .samples(rollup.getSampleCount())
+                .minWeight(rollup.getMinWeight())
+                .maxWeight(rollup.getMaxWeight())
+                .avgWeight(rollup.getAvgWeight())
+                .minTemperature(rollup.getMinTemperature())
+                .maxTemperature(rollup.getMaxTemperature())
+                .avgTemperature(rollup.getAvgTemperature())
+                .build();
+    }
+}
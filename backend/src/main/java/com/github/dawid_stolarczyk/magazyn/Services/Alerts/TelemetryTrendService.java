@@ -0,0 +1,133 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.RackTelemetryTrend;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.TelemetryTrendPoint;
+import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
+import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.RateLimitOperation;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.github.dawid_stolarczyk.magazyn.Utils.InternetUtils.getClientIp;
+
+/**
+ * Live rack telemetry trends - latest values, moving averages and rates of change -
+ * computed from {@link RackTelemetryWindow} without querying the database.
+ */
+@Service
+@RequiredArgsConstructor
+public class TelemetryTrendService {
+    private static final int DEFAULT_WINDOW = 10;
+    private static final double MILLIS_PER_MINUTE = 60_000d;
+
+    private final RackTelemetryWindow telemetryWindow;
+    private final Bucket4jRateLimiter rateLimiter;
+
+    /**
+     * Trend of a single rack; a rack without recent readings yields a trend with no samples.
+     *
+     * @param window        number of latest readings used for averages and rates (defaults to 10)
+     * @param includePoints whether to return all buffered readings
+     */
+    public RackTelemetryTrend getRackTrend(Long rackId, Integer window, boolean includePoints,
+                                           HttpServletRequest httpRequest) {
+        rateLimiter.consumeOrThrow(getClientIp(httpRequest), RateLimitOperation.INVENTORY_READ);
+        int effectiveWindow = effectiveWindow(window);
+        return telemetryWindow.getBuffer(rackId)
+                .map(buffer -> toTrend(rackId, buffer, effectiveWindow, includePoints))
+                .orElseGet(() -> RackTelemetryTrend.builder()
+                        .rackId(rackId)
+                        .window(effectiveWindow)
+                        .points(List.of())
+                        .build());
+    }
+
+    /**
+     * Trends of all racks of the warehouse that reported recently, ordered by rack id. Points are not included.
+     */
+    public List<RackTelemetryTrend> getWarehouseTrends(Long warehouseId, Integer window, HttpServletRequest httpRequest) {
+        rateLimiter.consumeOrThrow(getClientIp(httpRequest), RateLimitOperation.INVENTORY_READ);
+        int effectiveWindow = effectiveWindow(window);
+        return telemetryWindow.getWarehouseBuffers(warehouseId).entrySet().stream()
+                .map(entry -> toTrend(entry.getKey(), entry.getValue(), effectiveWindow, false))
+                .sorted(Comparator.comparing(RackTelemetryTrend::getRackId))
+                .toList();
+    }
+
+    private int effectiveWindow(Integer window) {
+        int requested = window != null ? window : DEFAULT_WINDOW;
+        return Math.max(1, Math.min(requested, telemetryWindow.getBufferSize()));
+    }
+
+    static RackTelemetryTrend toTrend(Long rackId, RackTelemetryBuffer buffer, int window, boolean includePoints) {
+        RackTelemetryBuffer.Snapshot snapshot = buffer.snapshot(includePoints ? Integer.MAX_VALUE : window);
+        int size = snapshot.size();
+        RackTelemetryTrend.RackTelemetryTrendBuilder trend = RackTelemetryTrend.builder()
+                .rackId(rackId)
+                .warehouseId(buffer.getWarehouseId())
+                .samples(buffer.size())
+                .window(window);
+        if (size == 0) {
+            return trend.points(List.of()).build();
+        }
+
+        int last = size - 1;
+        int from = Math.max(0, size - window);
+        trend.latestAt(Instant.ofEpochMilli(snapshot.timestamps()[last]))
+                .latestWeight(snapshot.weights()[last])
+                .latestTemperature(snapshot.temperatures()[last])
+                .movingAverageWeight(average(snapshot.weights(), from, size))
+                .movingAverageTemperature(average(snapshot.temperatures(), from, size))
+                .weightChangePerMinute(slopePerMinute(snapshot.timestamps(), snapshot.weights(), from, size))
+                .temperatureChangePerMinute(slopePerMinute(snapshot.timestamps(), snapshot.temperatures(), from, size));
+
+        List<TelemetryTrendPoint> points = new ArrayList<>();
+        if (includePoints) {
+            for (int i = 0; i < size; i++) {
+                points.add(new TelemetryTrendPoint(Instant.ofEpochMilli(snapshot.timestamps()[i]),
+                        snapshot.weights()[i], snapshot.temperatures()[i]));
+            }
+        }
+        return trend.points(points).build();
+    }
+
+    private static float average(float[] values, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += values[i];
+        }
+        return (float) (sum / (to - from));
+    }
+
+    /**
+     * Least squares slope of the values over time, or {@code null} when all readings share one timestamp.
+     */
+    private static Float slopePerMinute(long[] timestamps, float[] values, int from, int to) {
+        int count = to - from;
+        if (count < 2) {
+            return null;
+        }
+        long origin = timestamps[from];
+        double meanX = 0;
+        double meanY = 0;
+        for (int i = from; i < to; i++) {
+            meanX += (timestamps[i] - origin) / MILLIS_PER_MINUTE;
+            meanY += values[i];
+        }
+        meanX /= count;
+        meanY /= count;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = from; i < to; i++) {
+            double dx = (timestamps[i] - origin) / MILLIS_PER_MINUTE - meanX;
+            covariance += dx * (values[i] - meanY);
+            variance += dx * dx;
+        }
+        return variance == 0 ? null : (float) (covariance / variance);
+    }
+}
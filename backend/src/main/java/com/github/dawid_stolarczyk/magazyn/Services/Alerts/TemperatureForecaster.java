@@ -0,0 +1,241 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Predicts rack temperature excursions before they happen.
+ * <p>
+ * Every rack has a {@link HoltTemperatureModel} (constant memory) fed with each telemetry reading.
+ * Once a model has seen {@code app.telemetry.forecast.warmup-samples} readings, a projected crossing
+ * of the rack's temperature limits within {@code app.telemetry.forecast.horizon-minutes} yields a
+ * {@link AlertType#TEMPERATURE_FORECAST_TOO_HIGH} / {@link AlertType#TEMPERATURE_FORECAST_TOO_LOW} forecast.
+ * <p>
+ * Readings observed inside a transaction are applied after commit, so retried or rolled-back batches do not
+ * train the models; forecasts made in the same transaction already include them.
+ * <p>
+ * Model state is checkpointed to a Redis hash periodically and on shutdown and restored at startup,
+ * so a restart does not throw away the warm-up. Without Redis the models simply start cold.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TemperatureForecaster {
+    private static final String CHECKPOINT_KEY = "telemetry:temperature-forecast";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${app.telemetry.forecast.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.telemetry.forecast.alpha:0.3}")
+    private double alpha;
+
+    @Value("${app.telemetry.forecast.beta:0.1}")
+    private double beta;
+
+    @Value("${app.telemetry.forecast.horizon-minutes:30}")
+    private int horizonMinutes;
+
+    @Value("${app.telemetry.forecast.warmup-samples:10}")
+    private int warmupSamples;
+
+    @Value("${app.telemetry.forecast.max-gap-minutes:30}")
+    private int maxGapMinutes;
+
+    private final ConcurrentHashMap<Long, HoltTemperatureModel> models = new ConcurrentHashMap<>();
+    /**
+     * Racks updated since the last checkpoint
+     */
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Projected crossing of a rack temperature limit.
+     *
+     * @param threshold          the limit that will be crossed
+     * @param currentTemperature smoothed current temperature
+     * @param minutesUntil       projected minutes until the limit is reached
+     */
+    public record Forecast(AlertType alertType, float threshold, float currentTemperature, double minutesUntil) {
+    }
+
+    private record Sample(long timestampMillis, float temperature) {
+    }
+
+    @PostConstruct
+    void restore() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(CHECKPOINT_KEY);
+            entries.forEach((rackId, state) -> {
+                try {
+                    models.put(Long.valueOf(rackId.toString()), HoltTemperatureModel.decode(state.toString()));
+                } catch (IllegalArgumentException e) {
+                    log.warn("[TEMPERATURE-FORECAST] Skipping invalid checkpoint for rack {}: {}", rackId, state);
+                }
+            });
+            log.info("[TEMPERATURE-FORECAST] Restored {} rack model(s) from checkpoint", models.size());
+        } catch (Exception e) {
+            log.warn("[TEMPERATURE-FORECAST] Could not restore checkpoint, starting cold: {}", e.getMessage());
+        }
+    }
+
+    public void observe(Long rackId, Instant createdAt, float temperature) {
+        if (!enabled) {
+            return;
+        }
+        Sample sample = new Sample(createdAt.toEpochMilli(), temperature);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingSamples().computeIfAbsent(rackId, id -> new ArrayList<>()).add(sample);
+        } else {
+            apply(models.computeIfAbsent(rackId, id -> new HoltTemperatureModel()), sample);
+            dirty.add(rackId);
+        }
+    }
+
+    /**
+     * Readings observed in the current transaction, bound to it on first use and applied to the models after commit.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, List<Sample>> pendingSamples() {
+        Map<Long, List<Sample>> pending = (Map<Long, List<Sample>>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Map<Long, List<Sample>> samples = new LinkedHashMap<>();
+        TransactionSynchronizationManager.bindResource(this, samples);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                samples.forEach((rackId, rackSamples) -> {
+                    HoltTemperatureModel model = models.computeIfAbsent(rackId, id -> new HoltTemperatureModel());
+                    rackSamples.forEach(sample -> apply(model, sample));
+                    dirty.add(rackId);
+                });
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TemperatureForecaster.this);
+            }
+        });
+        return samples;
+    }
+
+    private void apply(HoltTemperatureModel model, Sample sample) {
+        model.update(sample.timestampMillis(), sample.temperature(), alpha, beta, maxGapMinutes * 60_000L);
+    }
+
+    /**
+     * Model of the rack including readings not yet committed by the current transaction.
+     */
+    @SuppressWarnings("unchecked")
+    private HoltTemperatureModel currentModel(Long rackId) {
+        HoltTemperatureModel model = models.get(rackId);
+        Map<Long, List<Sample>> pending = (Map<Long, List<Sample>>) TransactionSynchronizationManager.getResource(this);
+        List<Sample> rackSamples = pending != null ? pending.get(rackId) : null;
+        if (rackSamples == null) {
+            return model;
+        }
+        HoltTemperatureModel staged = model != null ? model.copy() : new HoltTemperatureModel();
+        rackSamples.forEach(sample -> apply(staged, sample));
+        return staged;
+    }
+
+    /**
+     * Forecast for a rack whose temperature is still within {@code [minTemp, maxTemp]} but heading out of it.
+     */
+    public Optional<Forecast> forecast(Long rackId, float minTemp, float maxTemp) {
+        HoltTemperatureModel model = enabled ? currentModel(rackId) : null;
+        if (model == null || model.getSamples() < warmupSamples) {
+            return Optional.empty();
+        }
+        double level = model.getLevel();
+        if (level > maxTemp || level < minTemp) {
+            // Already outside the limits - reactive alerts take over
+            return Optional.empty();
+        }
+        boolean rising = model.getTrend() > 0;
+        float threshold = rising ? maxTemp : minTemp;
+        double minutes = model.minutesUntil(threshold);
+        if (minutes > horizonMinutes) {
+            return Optional.empty();
+        }
+        return Optional.of(new Forecast(
+                rising ? AlertType.TEMPERATURE_FORECAST_TOO_HIGH : AlertType.TEMPERATURE_FORECAST_TOO_LOW,
+                threshold, (float) level, minutes));
+    }
+
+    public int getHorizonMinutes() {
+        return horizonMinutes;
+    }
+
+    /**
+     * Writes models updated since the last checkpoint to Redis in a single round trip.
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${app.telemetry.forecast.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        if (!enabled || dirty.isEmpty()) {
+            return;
+        }
+        Map<String, String> states = new HashMap<>();
+        for (Long rackId : dirty) {
+            dirty.remove(rackId);
+            HoltTemperatureModel model = models.get(rackId);
+            if (model != null) {
+                states.put(rackId.toString(), model.encode());
+            }
+        }
+        try {
+            redisTemplate.opsForHash().putAll(CHECKPOINT_KEY, states);
+        } catch (Exception e) {
+            dirty.addAll(states.keySet().stream().map(Long::valueOf).toList());
+            log.warn("[TEMPERATURE-FORECAST] Checkpoint of {} rack model(s) failed: {}", states.size(), e.getMessage());
+        }
+    }
+
+    public void remove(Long rackId) {
+        models.remove(rackId);
+        dirty.remove(rackId);
+        try {
+            redisTemplate.opsForHash().delete(CHECKPOINT_KEY, rackId.toString());
+        } catch (Exception e) {
+            log.warn("[TEMPERATURE-FORECAST] Could not remove checkpoint of rack {}: {}", rackId, e.getMessage());
+        }
+    }
+
+    /**
+     * Drops all models and the checkpoint - used after restore, when rack ids no longer match.
+     */
+    public void reset() {
+        models.clear();
+        dirty.clear();
+        try {
+            redisTemplate.delete(CHECKPOINT_KEY);
+        } catch (Exception e) {
+            log.warn("[TEMPERATURE-FORECAST] Could not clear checkpoint: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserNotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Per-user unread notification counters kept in Redis, so the unread badge costs no database query.
+ * <p>
+ * A counter ({@code notifications:{unread}:<userId>}) is loaded from the database on first read and kept for
+ * {@code app.notifications.unread-counter-ttl-seconds}; writers adjust existing counters atomically once their
+ * transaction commits and never create missing ones, so a counter is either absent or follows the database.
+ * Every write also bumps a per-user version, and bulk deletions bump a global epoch before dropping counters.
+ * A reader stores the count it loaded only if neither changed since it started loading, so a write that lands
+ * between the database count and the store is never lost. The TTL bounds drift from changes made outside
+ * this class. When Redis is unavailable reads fall back to counting in the database.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UnreadNotificationCounter {
+    /**
+     * Hash tag {unread} keeps all counters in one slot, so multi-key scripts also work in a cluster.
+     */
+    private static final String KEY_PREFIX = "notifications:{unread}:";
+    private static final String VERSION_PREFIX = "notifications-version:{unread}:";
+    private static final String EPOCH_KEY = "notifications-epoch:{unread}";
+
+    /**
+     * KEYS are (counter, version) pairs. Bumps every version and adds ARGV[i] to the i-th counter if it exists,
+     * never going below zero. The last ARGV is the version TTL in seconds.
+     */
+    private static final RedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>("""
+            local ttl = ARGV[#ARGV]
+            for i = 1, #KEYS, 2 do
+              redis.call('INCR', KEYS[i + 1])
+              redis.call('EXPIRE', KEYS[i + 1], ttl)
+              local current = redis.call('GET', KEYS[i])
+              if current then
+                local value = tonumber(current) + tonumber(ARGV[(i + 1) / 2])
+                if value < 0 then value = 0 end
+                redis.call('SET', KEYS[i], value, 'KEEPTTL')
+              end
+            end
+            return #KEYS / 2
+            """, Long.class);
+
+    /**
+     * KEYS: counter, version, epoch. Returns an existing counter; otherwise stores the loaded count ARGV[1]
+     * for ARGV[4] seconds if version and epoch still equal ARGV[2] and ARGV[3], or returns -1 when they moved.
+     */
+    private static final RedisScript<Long> LOAD_SCRIPT = new DefaultRedisScript<>("""
+            local current = redis.call('GET', KEYS[1])
+            if current then
+              return tonumber(current)
+            end
+            if (redis.call('GET', KEYS[2]) or '0') ~= ARGV[2] or (redis.call('GET', KEYS[3]) or '0') ~= ARGV[3] then
+              return -1
+            end
+            redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[4])
+            return tonumber(ARGV[1])
+            """, Long.class);
+
+    /**
+     * KEYS: counter, version. Sets the counter to zero and bumps the version; ARGV[1] is the TTL in seconds.
+     */
+    private static final RedisScript<Long> RESET_SCRIPT = new DefaultRedisScript<>("""
+            redis.call('SET', KEYS[1], '0', 'EX', ARGV[1])
+            redis.call('INCR', KEYS[2])
+            redis.call('EXPIRE', KEYS[2], ARGV[1])
+            return 0
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserNotificationRepository notificationRepository;
+
+    @Value("${app.notifications.unread-counter-ttl-seconds:3600}")
+    private long ttlSeconds;
+
+    /**
+     * Number of unread notifications of the user.
+     */
+    public long get(Long userId) {
+        List<String> keys = List.of(key(userId), versionKey(userId), EPOCH_KEY);
+        List<String> state;
+        try {
+            state = redisTemplate.opsForValue().multiGet(keys);
+            if (state != null && state.get(0) != null) {
+                return Long.parseLong(state.get(0));
+            }
+        } catch (Exception e) {
+            log.warn("[UNREAD-COUNTER] Redis unavailable, counting unread notifications of user {} in database: {}",
+                    userId, e.getMessage());
+            return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        }
+        long count = notificationRepository.countByUserIdAndIsReadFalse(userId);
+        try {
+            Long cached = redisTemplate.execute(LOAD_SCRIPT, keys, String.valueOf(count),
+                    versionOf(state, 1), versionOf(state, 2), String.valueOf(ttlSeconds));
+            if (cached != null && cached >= 0) {
+                return cached;
+            }
+        } catch (Exception e) {
+            log.warn("[UNREAD-COUNTER] Could not cache unread count of user {}: {}", userId, e.getMessage());
+        }
+        return count;
+    }
+
+    public void increment(Long userId) {
+        adjust(Map.of(userId, 1));
+    }
+
+    public void decrement(Long userId) {
+        adjust(Map.of(userId, -1));
+    }
+
+    /**
+     * Adjusts counters of many users at once - one script call after commit.
+     *
+     * @param deltas change of the unread count per user ID
+     */
+    public void adjust(Map<Long, Integer> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(deltas.size() * 2);
+        Object[] args = new Object[deltas.size() + 1];
+        int i = 0;
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            keys.add(key(delta.getKey()));
+            keys.add(versionKey(delta.getKey()));
+            args[i++] = String.valueOf(delta.getValue());
+        }
+        args[i] = String.valueOf(ttlSeconds);
+        afterCommit(() -> redisTemplate.execute(ADJUST_SCRIPT, keys, args));
+    }
+
+    /**
+     * Sets the user's counter to zero (all notifications were marked as read).
+     */
+    public void reset(Long userId) {
+        afterCommit(() -> redisTemplate.execute(RESET_SCRIPT, List.of(key(userId), versionKey(userId)),
+                String.valueOf(ttlSeconds)));
+    }
+
+    /**
+     * Drops all counters, e.g. after notifications were deleted in bulk; they are reloaded on next read.
+     */
+    public void invalidateAll() {
+        afterCommit(() -> {
+            // Loads that started before the bulk change must not store their count
+            redisTemplate.opsForValue().increment(EPOCH_KEY);
+            List<String> keys = new ArrayList<>();
+            try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(500).build())) {
+                cursor.forEachRemaining(keys::add);
+            }
+            if (!keys.isEmpty()) {
+                redisTemplate.delete(keys);
+            }
+        });
+    }
+
+    private void afterCommit(Runnable update) {
+        Runnable guarded = () -> {
+            try {
+                update.run();
+            } catch (Exception e) {
+                log.warn("[UNREAD-COUNTER] Could not update unread counters: {}", e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    guarded.run();
+                }
+            });
+        } else {
+            guarded.run();
+        }
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private static String versionKey(Long userId) {
+        return VERSION_PREFIX + userId;
+    }
+
+    private static String versionOf(List<String> state, int index) {
+        String value = state != null ? state.get(index) : null;
+        return value != null ? value : "0";
+    }
+}
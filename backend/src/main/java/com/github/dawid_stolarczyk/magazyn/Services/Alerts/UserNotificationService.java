@@ -5,6 +5,7 @@ import com.github.dawid_stolarczyk.magazyn.Controller.Dto.AlertDto;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.UserNotificationDto;
 import com.github.dawid_stolarczyk.magazyn.Exception.AuthenticationException;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Alert;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.User;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.UserNotification;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserNotificationRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserRepository;
@@ -19,6 +20,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.Instant;
 
@@ -35,6 +37,8 @@ public class UserNotificationService {
     private final UserNotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final Bucket4jRateLimiter rateLimiter;
+    private final LiveEventBus liveEventBus;
+    private final UnreadNotificationCounter unreadCounter;
 
     /**
      * Get all notifications for the current user
@@ -75,8 +79,11 @@ public class UserNotificationService {
             throw new AuthenticationException(AuthError.INSUFFICIENT_PERMISSIONS.name());
         }
 
-        notification.markAsRead();
-        notificationRepository.save(notification);
+        if (!notification.isRead()) {
+            notification.markAsRead();
+            notificationRepository.save(notification);
+            unreadCounter.decrement(authPrincipal.getUserId());
+        }
 
         log.debug("Notification {} marked as read by user {}", notificationId, authPrincipal.getUserId());
 
@@ -100,8 +107,11 @@ public class UserNotificationService {
             throw new AuthenticationException(AuthError.INSUFFICIENT_PERMISSIONS.name());
         }
 
-        notification.markAsUnread();
-        notificationRepository.save(notification);
+        if (notification.isRead()) {
+            notification.markAsUnread();
+            notificationRepository.save(notification);
+            unreadCounter.increment(authPrincipal.getUserId());
+        }
 
         log.debug("Notification {} marked as unread by user {}", notificationId, authPrincipal.getUserId());
 
@@ -117,12 +127,23 @@ public class UserNotificationService {
 
         AuthPrincipal authPrincipal = AuthUtil.getCurrentAuthPrincipal();
         int updated = notificationRepository.markAllAsReadForUser(authPrincipal.getUserId(), Instant.now());
+        unreadCounter.reset(authPrincipal.getUserId());
 
         log.info("Marked {} notifications as read for user {}", updated, authPrincipal.getUserId());
 
         return updated;
     }
 
+    /**
+     * Get the number of unread notifications of the current user (served from the cached counter)
+     */
+    public long getMyUnreadCount(HttpServletRequest httpRequest) {
+        rateLimiter.consumeOrThrow(getClientIp(httpRequest), RateLimitOperation.INVENTORY_READ);
+
+        AuthPrincipal authPrincipal = AuthUtil.getCurrentAuthPrincipal();
+        return unreadCounter.get(authPrincipal.getUserId());
+    }
+
     /**
      * Get notification by alert ID for the current user
      */
@@ -137,6 +158,18 @@ public class UserNotificationService {
         return mapToDto(notification);
     }
 
+    /**
+     * Open a live stream of notification and alert events for the current user
+     */
+    public SseEmitter openEventStream(HttpServletRequest httpRequest) {
+        rateLimiter.consumeOrThrow(getClientIp(httpRequest), RateLimitOperation.INVENTORY_READ);
+
+        AuthPrincipal authPrincipal = AuthUtil.getCurrentAuthPrincipal();
+        User user = userRepository.findById(authPrincipal.getUserId())
+                .orElseThrow(() -> new AuthenticationException(AuthError.NOT_AUTHENTICATED.name()));
+        return liveEventBus.subscribe(user);
+    }
+
     /**
      * Maps UserNotification entity to DTO
      */
@@ -0,0 +1,79 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Backup;
+
+import com.github.dawid_stolarczyk.magazyn.Services.Backup.BackupService.AssortmentBackupData;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Rebuilds the assortment state of an incremental backup from its chain of backups.
+ * <p>
+ * Each delta stores the assortments inserted or updated since its parent plus a snapshot of all live assortment
+ * IDs. Reading the chain newest first and keeping only the first row seen for each live ID yields the latest version
+ * of every assortment, while rows deleted since the base are dropped because their IDs are no longer live.
+ */
+@RequiredArgsConstructor
+class AssortmentChainReader {
+
+    static final String ASSORTMENTS_FILE = "assortments.enc";
+    static final String ASSORTMENT_IDS_FILE = "assortment-ids.enc";
+
+    private final StreamingBackupReader reader;
+
+    private static final class LongBuffer {
+        private long[] values;
+        private int size;
+
+        LongBuffer(int capacity) {
+            values = new long[Math.max(capacity, 16)];
+        }
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toSortedArray() {
+            long[] result = size == values.length ? values : Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+
+    /**
+     * Reads the live assortment ID snapshot stored with a delta, as a sorted array.
+     */
+    long[] readLiveIds(String basePath, int expectedCount) throws Exception {
+        LongBuffer ids = new LongBuffer(expectedCount);
+        reader.downloadAndReadRows(basePath, ASSORTMENT_IDS_FILE, Long.class, ids::add);
+        return ids.toSortedArray();
+    }
+
+    /**
+     * Streams the assortment files of the chain (newest backup first) and passes on the newest version of each
+     * live assortment exactly once.
+     *
+     * @return number of rows passed to the consumer
+     */
+    int replay(List<String> basePathsNewestFirst, long[] liveIds,
+               StreamingBackupReader.RowConsumer<AssortmentBackupData> consumer) throws Exception {
+        BitSet seen = new BitSet(liveIds.length);
+        for (String basePath : basePathsNewestFirst) {
+            reader.downloadAndReadRows(basePath, ASSORTMENTS_FILE, AssortmentBackupData.class, row -> {
+                int index = row.originalId() != null ? Arrays.binarySearch(liveIds, row.originalId()) : -1;
+                if (index >= 0 && !seen.get(index)) {
+                    seen.set(index);
+                    consumer.accept(row);
+                }
+            });
+            if (seen.cardinality() == liveIds.length) {
+                break;
+            }
+        }
+        return seen.cardinality();
+    }
+}
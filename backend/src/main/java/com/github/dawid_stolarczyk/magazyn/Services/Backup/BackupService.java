@@ -12,8 +12,16 @@ import com.github.dawid_stolarczyk.magazyn.Exceptions.BackupException;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.*;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.*;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.*;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.AssortmentBackupProjection;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.ItemBackupProjection;
 import com.github.dawid_stolarczyk.magazyn.Scheduler.BackupSchedulerManager;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.ActiveAlertRegistry;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.NotificationDispatcher;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.RackTelemetryWindow;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.TemperatureForecaster;
+import com.github.dawid_stolarczyk.magazyn.Services.Backup.StreamingBackupWriter.UploadResult;
 import com.github.dawid_stolarczyk.magazyn.Services.EmailService;
+import com.github.dawid_stolarczyk.magazyn.Services.Inventory.RackOccupancyIndex;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.RateLimitOperation;
 import com.github.dawid_stolarczyk.magazyn.Utils.LinksUtils;
@@ -28,8 +36,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
@@ -40,6 +55,8 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 
 @Service
@@ -52,7 +69,6 @@ public class BackupService {
     private final WarehouseRepository warehouseRepository;
     private final RackRepository rackRepository;
     private final ItemRepository itemRepository;
-    private final ItemImageRepository itemImageRepository;
     private final AssortmentRepository assortmentRepository;
     private final InboundOperationRepository inboundOperationRepository;
     private final BackupStorageService backupStorageService;
@@ -64,8 +80,14 @@ public class BackupService {
     private final AsyncTaskExecutor asyncTaskExecutor;
     private final AlertRepository alertRepository;
     private final UserRepository userRepository;
-    private final UserNotificationRepository userNotificationRepository;
+    private final NotificationDispatcher notificationDispatcher;
     private final EmailService emailService;
+    private final RackOccupancyIndex rackOccupancyIndex;
+    private final RackTelemetryWindow rackTelemetryWindow;
+    private final TemperatureForecaster temperatureForecaster;
+    private final ActiveAlertRegistry activeAlertRegistry;
+    private final PlatformTransactionManager transactionManager;
+    private final RestoreBatchWriter restoreBatchWriter;
 
     @Qualifier("backupStreamingExecutor")
     private final ExecutorService streamingExecutor;
@@ -81,23 +103,46 @@ public class BackupService {
     @Value("${app.backup.min-keep-count:3}")
     private int minBackupKeepCount;
 
+    @Value("${app.backup.restore-batch-size:1000}")
+    private int restoreBatchSize;
+
+    @Value("${app.backup.incremental.enabled:true}")
+    private boolean incrementalEnabled;
+
+    @Value("${app.backup.incremental.max-chain-length:6}")
+    private int maxChainLength;
+
+    @Value("${app.backup.incremental.overlap-seconds:300}")
+    private long incrementalOverlapSeconds;
+
+    @Value("${app.backup.incremental.compaction-after-days:7}")
+    private int compactionAfterDays;
+
     private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter
             .ofPattern("yyyyMMdd'T'HHmmss")
             .withZone(ZoneOffset.UTC);
 
     private static final int MAX_ERROR_MESSAGE_LENGTH = 2000;
 
+    /**
+     * Since version 2 resource files are gzip-compressed NDJSON (one row per line) instead of one JSON array.
+     * Version 3 adds incremental backups: a delta names its parent and stores only changed assortments plus
+     * a snapshot of live assortment IDs.
+     */
+    private static final int SCHEMA_VERSION = 3;
+    private static final int NDJSON_SCHEMA_VERSION = 2;
+
     // --- Internal backup data records ---
 
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record RackBackupData(Long originalId, String marker, String comment, int sizeX, int sizeY,
+    record RackBackupData(Long originalId, String marker, String comment, int sizeX, int sizeY,
                                   float maxTemp, float minTemp, float maxWeight,
                                   float maxSizeX, float maxSizeY, float maxSizeZ,
                                   boolean acceptsDangerous) {
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record ItemBackupData(Long originalId, String name, String code, String photoUrl, String qrCode,
+    record ItemBackupData(Long originalId, String name, String code, String photoUrl, String qrCode,
                                   float minTemp, float maxTemp, float weight,
                                   float sizeX, float sizeY, float sizeZ,
                                   String comment, Long expireAfterDays, boolean isDangerous,
@@ -105,18 +150,19 @@ public class BackupService {
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record ItemImageBackupData(Long originalId, String photoUrl, boolean isPrimary, int displayOrder) {
+    record ItemImageBackupData(Long originalId, String photoUrl, boolean isPrimary, int displayOrder) {
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
-    private record AssortmentBackupData(Long originalId, String code, Long originalItemId, Long originalRackId,
+    record AssortmentBackupData(Long originalId, String code, Long originalItemId, Long originalRackId,
                                         Timestamp createdAt, Timestamp expiresAt,
                                         Integer positionX, Integer positionY) {
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
     private record BackupManifest(Long backupId, Long warehouseId, String warehouseName, Instant createdAt,
-                                  int schemaVersion, Map<String, ResourceInfo> resources) {
+                                  int schemaVersion, Map<String, ResourceInfo> resources,
+                                  Long parentBackupId, Instant changesSince) {
     }
 
     @JsonIgnoreProperties(ignoreUnknown = true)
@@ -146,6 +192,7 @@ public class BackupService {
                 .backupType(BackupType.MANUAL)
                 .status(BackupStatus.IN_PROGRESS)
                 .triggeredBy(triggeredBy)
+                .chainLength(0)
                 .build();
         record.setResourceTypeSet(request.getResourceTypes());
         record.setBackupProgressPercentage(0);
@@ -177,10 +224,14 @@ public class BackupService {
             }
             lockAcquired = true;
 
+            BackupRecord parent = findIncrementalParent(warehouse.getId(), resourceTypes);
             BackupRecord record = BackupRecord.builder()
                     .warehouse(warehouse)
                     .backupType(BackupType.SCHEDULED)
                     .status(BackupStatus.IN_PROGRESS)
+                    .parentBackup(parent)
+                    .chainLength(parent != null ? parent.getChainLength() + 1 : 0)
+                    .changesSince(parent != null ? parent.getCreatedAt().minusSeconds(incrementalOverlapSeconds) : null)
                     .build();
             record.setResourceTypeSet(resourceTypes);
             record.setBackupProgressPercentage(0);
@@ -231,19 +282,17 @@ public class BackupService {
             long totalSizeBytes = 0;
 
             if (resourceTypes.contains(BackupResourceType.RACKS)) {
-                List<Rack> racks = rackRepository.findByWarehouseId(warehouseId);
-                log.info("Backup {} — found {} racks for warehouse {}", recordId, racks.size(), warehouseId);
-                List<RackBackupData> rackData = racks.stream()
-                        .map(r -> new RackBackupData(r.getId(), r.getMarker(), r.getComment(),
-                                r.getSize_x(), r.getSize_y(), r.getMax_temp(), r.getMin_temp(),
-                                r.getMax_weight(), r.getMax_size_x(), r.getMax_size_y(), r.getMax_size_z(),
-                                r.isAcceptsDangerous()))
-                        .toList();
-
-                long bytesWritten = writer.writeAndUpload(basePath, "racks.enc", rackData);
-                manifestResources.put("racks", new ResourceInfo(rackData.size()));
-                totalRecords += rackData.size();
-                totalSizeBytes += bytesWritten;
+                UploadResult racks = writer.writeRowsAndUpload(basePath, "racks.enc", sink ->
+                        forEachRow(() -> rackRepository.streamBackupRows(warehouseId), r -> sink.write(
+                                new RackBackupData(r.getId(), r.getMarker(), r.getComment(),
+                                        r.getSizeX(), r.getSizeY(), r.getMaxTemp(), r.getMinTemp(),
+                                        r.getMaxWeight(), r.getMaxSizeX(), r.getMaxSizeY(), r.getMaxSizeZ(),
+                                        r.getAcceptsDangerous()))));
+                log.info("Backup {} — wrote {} racks for warehouse {}", recordId, racks.rows(), warehouseId);
+
+                manifestResources.put("racks", new ResourceInfo(racks.rows()));
+                totalRecords += racks.rows();
+                totalSizeBytes += racks.bytes();
                 currentPhase++;
                 int progress = (currentPhase * 100) / totalPhases;
                 record.setBackupProgressPercentage(progress);
@@ -251,28 +300,12 @@ public class BackupService {
             }
 
             if (resourceTypes.contains(BackupResourceType.ITEMS)) {
-                List<Item> items = itemRepository.findDistinctByWarehouseIdWithImages(warehouseId);
-                log.info("Backup {} — found {} items for warehouse {}", recordId, items.size(), warehouseId);
-
-                List<ItemBackupData> itemData = items.stream()
-                        .map(i -> {
-                            List<ItemImageBackupData> imageData = i.getImages() != null
-                                    ? i.getImages().stream()
-                                    .map(img -> new ItemImageBackupData(img.getId(), img.getPhotoUrl(),
-                                            img.isPrimary(), img.getDisplayOrder()))
-                                    .toList()
-                                    : List.of();
-                            return new ItemBackupData(i.getId(), i.getName(), i.getCode(), i.getPhoto_url(), i.getQrCode(),
-                                    i.getMin_temp(), i.getMax_temp(), i.getWeight(),
-                                    i.getSize_x(), i.getSize_y(), i.getSize_z(),
-                                    i.getComment(), i.getExpireAfterDays(), i.isDangerous(), imageData);
-                        })
-                        .toList();
+                UploadResult items = writer.writeRowsAndUpload(basePath, "items.enc", sink -> writeItemRows(warehouseId, sink));
+                log.info("Backup {} — wrote {} items for warehouse {}", recordId, items.rows(), warehouseId);
 
-                long bytesWritten = writer.writeAndUpload(basePath, "items.enc", itemData);
-                manifestResources.put("items", new ResourceInfo(itemData.size()));
-                totalRecords += itemData.size();
-                totalSizeBytes += bytesWritten;
+                manifestResources.put("items", new ResourceInfo(items.rows()));
+                totalRecords += items.rows();
+                totalSizeBytes += items.bytes();
                 currentPhase++;
                 int progress = (currentPhase * 100) / totalPhases;
                 record.setBackupProgressPercentage(progress);
@@ -280,19 +313,30 @@ public class BackupService {
             }
 
             if (resourceTypes.contains(BackupResourceType.ASSORTMENTS)) {
-                List<Assortment> assortments = assortmentRepository.findByRack_WarehouseId(warehouseId, Pageable.unpaged()).getContent();
-                log.info("Backup {} — found {} assortments for warehouse {}", recordId, assortments.size(), warehouseId);
-                List<AssortmentBackupData> assortmentData = assortments.stream()
-                        .map(a -> new AssortmentBackupData(a.getId(), a.getCode(),
-                                a.getItem().getId(), a.getRack().getId(),
-                                a.getCreatedAt(), a.getExpiresAt(),
-                                a.getPositionX(), a.getPositionY()))
-                        .toList();
+                UploadResult assortments;
+                if (record.isIncremental()) {
+                    // Delta: changed rows only, plus the live ID set from which restore infers deletions
+                    Timestamp since = Timestamp.from(record.getChangesSince());
+                    assortments = writer.writeRowsAndUpload(basePath, AssortmentChainReader.ASSORTMENTS_FILE, sink ->
+                            forEachRow(() -> assortmentRepository.streamBackupRowsChangedSince(warehouseId, since),
+                                    a -> sink.write(toAssortmentBackupData(a))));
+                    UploadResult liveIds = writer.writeRowsAndUpload(basePath, AssortmentChainReader.ASSORTMENT_IDS_FILE, sink ->
+                            forEachRow(() -> assortmentRepository.streamIdsByWarehouseId(warehouseId), sink::write));
+                    log.info("Backup {} — wrote {} changed assortments since {} ({} live) for warehouse {}",
+                            recordId, assortments.rows(), record.getChangesSince(), liveIds.rows(), warehouseId);
+
+                    manifestResources.put("assortmentIds", new ResourceInfo(liveIds.rows()));
+                    totalSizeBytes += liveIds.bytes();
+                } else {
+                    assortments = writer.writeRowsAndUpload(basePath, AssortmentChainReader.ASSORTMENTS_FILE, sink ->
+                            forEachRow(() -> assortmentRepository.streamBackupRows(warehouseId),
+                                    a -> sink.write(toAssortmentBackupData(a))));
+                    log.info("Backup {} — wrote {} assortments for warehouse {}", recordId, assortments.rows(), warehouseId);
+                }
 
-                long bytesWritten = writer.writeAndUpload(basePath, "assortments.enc", assortmentData);
-                manifestResources.put("assortments", new ResourceInfo(assortmentData.size()));
-                totalRecords += assortmentData.size();
-                totalSizeBytes += bytesWritten;
+                manifestResources.put("assortments", new ResourceInfo(assortments.rows()));
+                totalRecords += assortments.rows();
+                totalSizeBytes += assortments.bytes();
                 currentPhase++;
                 int progress = (currentPhase * 100) / totalPhases;
                 record.setBackupProgressPercentage(progress);
@@ -301,7 +345,8 @@ public class BackupService {
 
             // Build and upload manifest
             BackupManifest manifest = new BackupManifest(recordId, warehouseId,
-                    warehouseName, record.getCreatedAt(), 1, manifestResources);
+                    warehouseName, record.getCreatedAt(), SCHEMA_VERSION, manifestResources,
+                    record.isIncremental() ? record.getParentBackup().getId() : null, record.getChangesSince());
             long manifestBytes = writer.writeAndUpload(basePath, "manifest.enc", manifest);
             totalSizeBytes += manifestBytes;
 
@@ -415,6 +460,7 @@ public class BackupService {
             // Phase 1 — Download + decrypt manifest (GCM verifies integrity automatically)
             JsonNode manifestNode = reader.downloadAndRead(basePath, "manifest.enc", JsonNode.class);
             JsonNode resourcesNode = manifestNode.get("resources");
+            int schemaVersion = manifestNode.path("schemaVersion").asInt(1);
             Set<String> resourceKeys = new HashSet<>();
             if (resourcesNode != null) {
                 resourcesNode.fieldNames().forEachRemaining(key -> {
@@ -422,172 +468,89 @@ public class BackupService {
                 });
             }
 
-            record.setRestoreProgressPercentage(10);
-            record = backupRecordRepository.save(record);
+            // A delta only holds changed assortments - collect its chain down to the full base
+            List<String> assortmentChain = resolveChainBasePaths(record);
+
+            updateRestoreProgress(recordId, 10);
 
-            // Phase 2 — Download + decrypt all resource files (GCM verifies integrity)
+            // Phase 2 — Download + decrypt racks and items (GCM verifies integrity); assortments are streamed in phase 3
             List<RackBackupData> rackDataList = null;
             List<ItemBackupData> itemDataList = null;
-            List<AssortmentBackupData> assortmentDataList = null;
 
             if (resourceKeys.contains("racks")) {
-                rackDataList = reader.downloadAndRead(basePath, "racks.enc", new TypeReference<List<RackBackupData>>() {
-                });
+                rackDataList = readResource(reader, basePath, "racks.enc", schemaVersion, RackBackupData.class,
+                        new TypeReference<>() {
+                        });
             }
 
             if (resourceKeys.contains("items")) {
-                itemDataList = reader.downloadAndRead(basePath, "items.enc", new TypeReference<List<ItemBackupData>>() {
-                });
+                itemDataList = readResource(reader, basePath, "items.enc", schemaVersion, ItemBackupData.class,
+                        new TypeReference<>() {
+                        });
             }
 
-            if (resourceKeys.contains("assortments")) {
-                assortmentDataList = reader.downloadAndRead(basePath, "assortments.enc", new TypeReference<List<AssortmentBackupData>>() {
-                });
+            long[] liveAssortmentIds = null;
+            if (resourceKeys.contains("assortments") && assortmentChain.size() > 1) {
+                liveAssortmentIds = new AssortmentChainReader(reader).readLiveIds(basePath,
+                        resourcesNode.path("assortmentIds").path("count").asInt(0));
             }
 
-            record.setRestoreProgressPercentage(30);
-            record = backupRecordRepository.save(record);
+            updateRestoreProgress(recordId, 30);
 
-            // Phase 3 — Atomic DB restore
+            // Phase 3 — Atomic DB restore: bulk delete and JDBC batch inserts in one transaction
             int racksRestored = 0;
             int itemsRestored = 0;
             int assortmentsRestored = 0;
 
-            // Clean existing data: delete assortments, then racks for the warehouse
-            List<Assortment> existingAssortments = assortmentRepository.findByRack_WarehouseId(warehouseId, Pageable.unpaged()).getContent();
-            if (!existingAssortments.isEmpty()) {
-                log.info("Deleting {} existing assortments for warehouse {}", existingAssortments.size(), warehouseId);
-                assortmentRepository.deleteAll(existingAssortments);
-            }
-
-            List<Rack> existingRacks = rackRepository.findByWarehouseId(warehouseId);
-            if (!existingRacks.isEmpty()) {
-                log.info("Deleting {} existing racks for warehouse {}", existingRacks.size(), warehouseId);
-                rackRepository.deleteAll(existingRacks);
-            }
-
-            record.setRestoreProgressPercentage(40);
-            record = backupRecordRepository.save(record);
+            TransactionStatus transaction = transactionManager.getTransaction(new DefaultTransactionDefinition());
+            try {
+                restoreBatchWriter.deleteWarehouseData(warehouseId);
+                updateRestoreProgress(recordId, 40);
 
-            // Restore racks
-            Map<Long, Long> rackIdMapping = new HashMap<>();
-            if (rackDataList != null) {
-                Warehouse warehouse = record.getWarehouse();
-                for (RackBackupData rd : rackDataList) {
-                    Optional<Rack> existingRack = rackRepository.findByWarehouseIdAndMarker(warehouseId, rd.marker());
-                    Rack rack;
-                    if (existingRack.isPresent()) {
-                        rack = existingRack.get();
-                    } else {
-                        rack = new Rack();
-                        rack.setWarehouse(warehouse);
-                        rack.setMarker(rd.marker());
-                    }
-                    rack.setComment(rd.comment());
-                    rack.setSize_x(rd.sizeX());
-                    rack.setSize_y(rd.sizeY());
-                    rack.setMax_temp(rd.maxTemp());
-                    rack.setMin_temp(rd.minTemp());
-                    rack.setMax_weight(rd.maxWeight());
-                    rack.setMax_size_x(rd.maxSizeX());
-                    rack.setMax_size_y(rd.maxSizeY());
-                    rack.setMax_size_z(rd.maxSizeZ());
-                    rack.setAcceptsDangerous(rd.acceptsDangerous());
-                    rack = rackRepository.save(rack);
-                    rackIdMapping.put(rd.originalId(), rack.getId());
-                    racksRestored++;
+                Map<Long, Long> rackIdMapping = Map.of();
+                if (rackDataList != null) {
+                    rackIdMapping = restoreBatchWriter.insertRacks(warehouseId, rackDataList);
+                    racksRestored = rackDataList.size();
                 }
-            }
-
-            record.setRestoreProgressPercentage(60);
-            record = backupRecordRepository.save(record);
-
-            // Restore items (global, not warehouse-scoped) - create if absent only
-            Map<Long, Long> itemIdMapping = new HashMap<>();
-            if (itemDataList != null) {
-                for (ItemBackupData id : itemDataList) {
-                    Optional<Item> existingItem = itemRepository.findByCode(id.code());
-                    Item item;
-                    if (existingItem.isPresent()) {
-                        item = existingItem.get();
-                        log.info("Item with code {} already exists globally, using existing item ID {}", id.code(), item.getId());
-                    } else {
-                        item = new Item();
-                        item.setCode(id.code());
-                        item.setName(id.name());
-                        item.setPhoto_url(id.photoUrl());
-                        item.setQrCode(id.qrCode());
-                        item.setMin_temp(id.minTemp());
-                        item.setMax_temp(id.maxTemp());
-                        item.setWeight(id.weight());
-                        item.setSize_x(id.sizeX());
-                        item.setSize_y(id.sizeY());
-                        item.setSize_z(id.sizeZ());
-                        item.setComment(id.comment());
-                        item.setExpireAfterDays(id.expireAfterDays());
-                        item.setDangerous(id.isDangerous());
-                        item = itemRepository.save(item);
-                        log.info("Created new item with code {} (ID: {}) from backup", id.code(), item.getId());
-                        itemsRestored++;
-                    }
-                    itemIdMapping.put(id.originalId(), item.getId());
-
-                    // Restore item images if present and item has no images yet
-                    if (id.images() != null && !id.images().isEmpty()
-                            && itemImageRepository.countByItemId(item.getId()) == 0) {
-                        for (ItemImageBackupData imgData : id.images()) {
-                            ItemImage itemImage = ItemImage.builder()
-                                    .item(item)
-                                    .photoUrl(imgData.photoUrl())
-                                    .isPrimary(imgData.isPrimary())
-                                    .displayOrder(imgData.displayOrder())
-                                    .build();
-                            itemImageRepository.save(itemImage);
+                updateRestoreProgress(recordId, 50);
+
+                // Items are global, not warehouse-scoped - create if absent only
+                Map<Long, Long> itemIdMapping = Map.of();
+                if (itemDataList != null) {
+                    RestoreBatchWriter.ItemRestoreResult items = restoreBatchWriter.restoreItems(itemDataList);
+                    itemIdMapping = items.idMapping();
+                    itemsRestored = items.created();
+                }
+                updateRestoreProgress(recordId, 60);
+
+                if (liveAssortmentIds != null) {
+                    AssortmentRestoreBatch batch = new AssortmentRestoreBatch(recordId, liveAssortmentIds.length,
+                            rackIdMapping, itemIdMapping);
+                    new AssortmentChainReader(reader).replay(assortmentChain, liveAssortmentIds, batch::add);
+                    batch.flush();
+                    assortmentsRestored = batch.restored;
+                } else if (resourceKeys.contains("assortments")) {
+                    int expected = resourcesNode.path("assortments").path("count").asInt(0);
+                    AssortmentRestoreBatch batch = new AssortmentRestoreBatch(recordId, expected, rackIdMapping, itemIdMapping);
+                    if (schemaVersion < NDJSON_SCHEMA_VERSION) {
+                        for (AssortmentBackupData ad : reader.downloadAndRead(basePath, "assortments.enc",
+                                new TypeReference<List<AssortmentBackupData>>() {
+                                })) {
+                            batch.add(ad);
                         }
-                        log.info("Restored {} images for item {}", id.images().size(), item.getId());
+                    } else {
+                        reader.downloadAndReadRows(basePath, AssortmentChainReader.ASSORTMENTS_FILE, AssortmentBackupData.class, batch::add);
                     }
+                    batch.flush();
+                    assortmentsRestored = batch.restored;
                 }
-            }
 
-            record.setRestoreProgressPercentage(80);
-            record = backupRecordRepository.save(record);
-
-            // Restore assortments
-            if (assortmentDataList != null) {
-                for (AssortmentBackupData ad : assortmentDataList) {
-                    Long newRackId = rackIdMapping.get(ad.originalRackId());
-                    Long newItemId = itemIdMapping.get(ad.originalItemId());
-
-                    if (newRackId == null) {
-                        throw new BackupException(BackupError.RACK_MAPPING_NOT_FOUND,
-                                String.format("Rack ID mapping not found for original rack ID %d. " +
-                                                "This may indicate corrupted backup data or missing rack in the backup.",
-                                        ad.originalRackId()));
-                    }
-                    if (newItemId == null) {
-                        throw new BackupException(BackupError.ITEM_MAPPING_NOT_FOUND,
-                                String.format("Item ID mapping not found for original item ID %d. " +
-                                                "This may indicate corrupted backup data or missing item in the backup.",
-                                        ad.originalItemId()));
-                    }
-
-                    Rack rack = rackRepository.findById(newRackId)
-                            .orElseThrow(() -> new BackupException(BackupError.RACK_MAPPING_NOT_FOUND, "Rack not found during restore: ID=" + newRackId));
-                    Item item = itemRepository.findById(newItemId)
-                            .orElseThrow(() -> new BackupException(BackupError.ITEM_MAPPING_NOT_FOUND, "Item not found during restore: ID=" + newItemId));
-
-                    Assortment assortment = Assortment.builder()
-                            .code(ad.code())
-                            .item(item)
-                            .rack(rack)
-                            .createdAt(ad.createdAt())
-                            .expiresAt(ad.expiresAt())
-                            .positionX(ad.positionX())
-                            .positionY(ad.positionY())
-                            .build();
-                    assortmentRepository.save(assortment);
-                    assortmentsRestored++;
+                transactionManager.commit(transaction);
+            } catch (Exception e) {
+                if (!transaction.isCompleted()) {
+                    transactionManager.rollback(transaction);
                 }
+                throw e;
             }
 
             // Update record with restore results
@@ -619,6 +582,11 @@ public class BackupService {
             backupRecordRepository.save(record);
             createRestoreAlert(record, false);
         } finally {
+            // Restore replaces racks (with their alerts and reports) and assortments wholesale - rebuild in-memory indexes
+            rackOccupancyIndex.invalidateAll();
+            activeAlertRegistry.reload();
+            rackTelemetryWindow.reload();
+            temperatureForecaster.reset();
             AtomicBoolean lock = warehouseLocks.get(warehouseId);
             if (lock != null) {
                 lock.set(false);
@@ -662,6 +630,10 @@ public class BackupService {
         BackupRecord record = backupRecordRepository.findById(id)
                 .orElseThrow(() -> new BackupException(BackupError.BACKUP_NOT_FOUND));
 
+        if (backupRecordRepository.existsByParentBackupId(id)) {
+            throw new BackupException(BackupError.BACKUP_HAS_DEPENDENTS, "Backup " + id + " is the parent of an incremental backup");
+        }
+
         String r2BasePath = record.getR2BasePath();
         try {
             if (r2BasePath != null) {
@@ -768,6 +740,187 @@ public class BackupService {
 
     // --- Helper methods ---
 
+    @FunctionalInterface
+    private interface RowHandler<T> {
+        void handle(T row) throws IOException;
+    }
+
+    /**
+     * Reads a cursor query row by row in a read-only transaction on the calling (streaming) thread,
+     * so rows are serialized as they are fetched and never held in memory all at once.
+     */
+    private <T> void forEachRow(Supplier<Stream<T>> query, RowHandler<T> handler) throws IOException {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        try {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<T> rows = query.get()) {
+                    Iterator<T> iterator = rows.iterator();
+                    while (iterator.hasNext()) {
+                        handler.handle(iterator.next());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Items arrive as one row per image, ordered by item - rows of one item are collected and written together.
+     */
+    private void writeItemRows(Long warehouseId, StreamingBackupWriter.RowSink sink) throws IOException {
+        List<ItemBackupProjection> itemRows = new ArrayList<>();
+        forEachRow(() -> itemRepository.streamBackupRows(warehouseId), row -> {
+            if (!itemRows.isEmpty() && !itemRows.get(0).getId().equals(row.getId())) {
+                sink.write(toItemBackupData(itemRows));
+                itemRows.clear();
+            }
+            itemRows.add(row);
+        });
+        if (!itemRows.isEmpty()) {
+            sink.write(toItemBackupData(itemRows));
+        }
+    }
+
+    private ItemBackupData toItemBackupData(List<ItemBackupProjection> itemRows) {
+        ItemBackupProjection i = itemRows.get(0);
+        List<ItemImageBackupData> imageData = itemRows.stream()
+                .filter(row -> row.getImageId() != null)
+                .map(row -> new ItemImageBackupData(row.getImageId(), row.getImagePhotoUrl(),
+                        row.getImagePrimary(), row.getImageDisplayOrder()))
+                .toList();
+        return new ItemBackupData(i.getId(), i.getName(), i.getCode(), i.getPhotoUrl(), i.getQrCode(),
+                i.getMinTemp(), i.getMaxTemp(), i.getWeight(),
+                i.getSizeX(), i.getSizeY(), i.getSizeZ(),
+                i.getComment(), i.getExpireAfterDays(), i.getDangerous(), imageData);
+    }
+
+    private AssortmentBackupData toAssortmentBackupData(AssortmentBackupProjection a) {
+        return new AssortmentBackupData(a.getId(), a.getCode(), a.getItemId(), a.getRackId(),
+                a.getCreatedAt(), a.getExpiresAt(), a.getPositionX(), a.getPositionY());
+    }
+
+    /**
+     * Picks the backup a scheduled backup can be a delta of, or null when it has to be a full one.
+     */
+    private BackupRecord findIncrementalParent(Long warehouseId, Set<BackupResourceType> resourceTypes) {
+        if (!incrementalEnabled || !resourceTypes.contains(BackupResourceType.ASSORTMENTS)) {
+            return null;
+        }
+        BackupRecord latest = backupRecordRepository
+                .findFirstByWarehouseIdAndStatusOrderByCreatedAtDesc(warehouseId, BackupStatus.COMPLETED)
+                .orElse(null);
+        if (latest == null || latest.getChainLength() == null || latest.getR2BasePath() == null
+                || latest.getChainLength() >= maxChainLength
+                || !latest.getResourceTypeSet().equals(resourceTypes)) {
+            return null;
+        }
+        // A restore re-inserts assortments under new IDs, so later changes cannot be expressed against the old chain
+        if (backupRecordRepository.existsByWarehouseIdAndRestoreStartedAtAfter(warehouseId, latest.getCreatedAt())) {
+            return null;
+        }
+        return latest;
+    }
+
+    /**
+     * Storage paths of the backup and its parents, newest first, ending with the full base backup.
+     */
+    private List<String> resolveChainBasePaths(BackupRecord record) {
+        List<String> basePaths = new ArrayList<>();
+        BackupRecord current = record;
+        while (true) {
+            if (current.getR2BasePath() == null) {
+                throw new BackupException(BackupError.BACKUP_CHAIN_BROKEN, "Backup " + current.getId() + " has no stored files");
+            }
+            basePaths.add(current.getR2BasePath());
+            if (current.getParentBackup() == null) {
+                return basePaths;
+            }
+            Long parentId = current.getParentBackup().getId();
+            current = backupRecordRepository.findById(parentId)
+                    .orElseThrow(() -> new BackupException(BackupError.BACKUP_CHAIN_BROKEN, "Parent backup " + parentId + " not found"));
+        }
+    }
+
+    /**
+     * Records restore progress in its own transaction, so it is visible while the restore transaction runs.
+     */
+    private void updateRestoreProgress(Long recordId, int progress) {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        requiresNew.executeWithoutResult(status -> backupRecordRepository.updateRestoreProgress(recordId, progress));
+    }
+
+    /**
+     * Collects restored assortments into JDBC batches of {@code app.backup.restore-batch-size} rows.
+     * Progress moves from 60 to 95% as batches are written and is stored only when the percentage changes.
+     */
+    private class AssortmentRestoreBatch {
+        private final Long recordId;
+        private final int expected;
+        private final Map<Long, Long> rackIdMapping;
+        private final Map<Long, Long> itemIdMapping;
+        private final List<AssortmentBackupData> pending = new ArrayList<>();
+        private int restored;
+        private int progress = 60;
+
+        AssortmentRestoreBatch(Long recordId, int expected, Map<Long, Long> rackIdMapping, Map<Long, Long> itemIdMapping) {
+            this.recordId = recordId;
+            this.expected = expected;
+            this.rackIdMapping = rackIdMapping;
+            this.itemIdMapping = itemIdMapping;
+        }
+
+        void add(AssortmentBackupData ad) {
+            if (!rackIdMapping.containsKey(ad.originalRackId())) {
+                throw new BackupException(BackupError.RACK_MAPPING_NOT_FOUND,
+                        String.format("Rack ID mapping not found for original rack ID %d. " +
+                                        "This may indicate corrupted backup data or missing rack in the backup.",
+                                ad.originalRackId()));
+            }
+            if (!itemIdMapping.containsKey(ad.originalItemId())) {
+                throw new BackupException(BackupError.ITEM_MAPPING_NOT_FOUND,
+                        String.format("Item ID mapping not found for original item ID %d. " +
+                                        "This may indicate corrupted backup data or missing item in the backup.",
+                                ad.originalItemId()));
+            }
+            pending.add(ad);
+            if (pending.size() >= restoreBatchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            restoreBatchWriter.insertAssortments(pending, rackIdMapping, itemIdMapping);
+            restored += pending.size();
+            pending.clear();
+            int current = expected > 0 ? 60 + Math.min(35, restored * 35 / expected) : 60;
+            if (current != progress) {
+                progress = current;
+                updateRestoreProgress(recordId, current);
+            }
+        }
+    }
+
+    /**
+     * Reads a resource file: gzip-compressed NDJSON since schema version 2, a single JSON array before.
+     */
+    private <T> List<T> readResource(StreamingBackupReader reader, String basePath, String fileName, int schemaVersion,
+                                     Class<T> rowType, TypeReference<List<T>> legacyType) throws Exception {
+        if (schemaVersion < NDJSON_SCHEMA_VERSION) {
+            return reader.downloadAndRead(basePath, fileName, legacyType);
+        }
+        List<T> rows = new ArrayList<>();
+        reader.downloadAndReadRows(basePath, fileName, rowType, rows::add);
+        return rows;
+    }
+
     private BackupRecordDto toDto(BackupRecord record) {
         return BackupRecordDto.builder()
                 .id(record.getId())
@@ -789,6 +942,9 @@ public class BackupService {
                 .itemsRestored(record.getItemsRestored())
                 .assortmentsRestored(record.getAssortmentsRestored())
                 .triggeredByName(record.getTriggeredBy() != null ? record.getTriggeredBy().getFullName() : null)
+                .incremental(record.isIncremental())
+                .parentBackupId(record.getParentBackup() != null ? record.getParentBackup().getId() : null)
+                .changesSince(record.getChangesSince())
                 .build();
     }
 
@@ -900,27 +1056,14 @@ public class BackupService {
     }
 
     private void distributeBackupNotifications(Alert alert, Warehouse warehouse, BackupRecord backupRecord, boolean success) {
-        List<User> adminUsers = userRepository.findByRoleAndStatus(UserRole.ADMIN, AccountStatus.ACTIVE);
+        List<NotificationDispatcher.Recipient> adminUsers = notificationDispatcher.getAdminRecipients();
 
         if (adminUsers.isEmpty()) {
             log.debug("No admin users found to distribute backup notifications");
             return;
         }
 
-        Instant now = Instant.now();
-        List<UserNotification> notifications = adminUsers.stream()
-                .map(user -> UserNotification.builder()
-                        .user(user)
-                        .alert(alert)
-                        .isRead(false)
-                        .createdAt(now)
-                        .build())
-                .toList();
-
-        if (!notifications.isEmpty()) {
-            userNotificationRepository.saveAll(notifications);
-            log.info("Distributed {} backup notifications to admin users", notifications.size());
-        }
+        notificationDispatcher.dispatchToAdmins(alert);
 
         String backupLink = LinksUtils.getWebAppUrl("/admin/backups", null);
         String triggeredByName = null;
@@ -933,14 +1076,14 @@ public class BackupService {
             }
         }
 
-        for (User admin : adminUsers) {
-            if (admin.getEmail() != null) {
+        for (NotificationDispatcher.Recipient admin : adminUsers) {
+            if (admin.email() != null) {
                 if (backupRecord != null && alert.getAlertType() != AlertType.RESTORE_COMPLETED && alert.getAlertType() != AlertType.RESTORE_FAILED) {
                     SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
                     String formattedCompletedAt = backupRecord.getCompletedAt() != null
                             ? dateFormat.format(Date.from(backupRecord.getCompletedAt())) : "N/A";
                     emailService.sendBackupNotificationEmail(
-                            admin.getEmail(),
+                            admin.email(),
                             warehouse.getName(),
                             success,
                             backupRecord.getTotalRecords() != null ? backupRecord.getTotalRecords().longValue() : null,
@@ -951,12 +1094,12 @@ public class BackupService {
                             backupRecord.getErrorMessage(),
                             backupLink
                     );
-                    log.info("Sent backup notification email to {}", admin.getEmail());
+                    log.info("Sent backup notification email to {}", admin.email());
                 } else {
-                    emailService.sendBatchNotificationEmail(admin.getEmail(),
+                    emailService.sendBatchNotificationEmail(admin.email(),
                             List.of(alert.getMessage()),
                             LinksUtils.getWebAppUrl("/dashboard/notifications", null));
-                    log.info("Sent notification email to {}", admin.getEmail());
+                    log.info("Sent notification email to {}", admin.email());
                 }
             }
         }
@@ -999,6 +1142,113 @@ public class BackupService {
         }
     }
 
+    /**
+     * Rebases deltas whose full base completed more than {@code compactionAfterDays} ago: the chain is merged into
+     * a full copy of the delta, so the old base loses its last dependent and retention can remove it.
+     */
+    @Scheduled(cron = "${app.backup.incremental.compaction-cron:0 30 1 * * ?}")
+    public void compactBackupChains() {
+        Instant cutoffDate = Instant.now().minus(compactionAfterDays, ChronoUnit.DAYS);
+        List<BackupRecord> deltas = backupRecordRepository
+                .findDeltasOfFullBackupsCompletedBefore(BackupStatus.COMPLETED, cutoffDate);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        log.info("Compacting {} incremental backup(s) built on full backups completed before {}", deltas.size(), cutoffDate);
+
+        int compacted = 0;
+        for (BackupRecord delta : deltas) {
+            Long warehouseId = delta.getWarehouse().getId();
+            AtomicBoolean lock = warehouseLocks.computeIfAbsent(warehouseId, k -> new AtomicBoolean(false));
+            if (!lock.compareAndSet(false, true)) {
+                log.info("Skipping compaction of backup {} - warehouse {} is busy", delta.getId(), warehouseId);
+                continue;
+            }
+            try {
+                rebaseDelta(delta);
+                compacted++;
+            } catch (Exception e) {
+                log.error("Failed to compact incremental backup {} (warehouse {})", delta.getId(), warehouseId, e);
+            } finally {
+                lock.set(false);
+                warehouseLocks.remove(warehouseId);
+            }
+        }
+
+        log.info("Backup chain compaction completed: {} of {} rebased", compacted, deltas.size());
+    }
+
+    private void rebaseDelta(BackupRecord delta) throws Exception {
+        Long recordId = delta.getId();
+        Long warehouseId = delta.getWarehouse().getId();
+        String oldBasePath = delta.getR2BasePath();
+        List<String> chain = resolveChainBasePaths(delta);
+
+        StreamingBackupReader reader = new StreamingBackupReader(objectMapper, fileCryptoService, backupStorageService, streamingExecutor);
+        StreamingBackupWriter writer = new StreamingBackupWriter(objectMapper, fileCryptoService, backupStorageService, streamingExecutor);
+        JsonNode manifestNode = reader.downloadAndRead(oldBasePath, "manifest.enc", JsonNode.class);
+        JsonNode resourcesNode = manifestNode.path("resources");
+
+        // Written next to the old files and switched over in one DB update, so a failure leaves the delta intact
+        String basePath = oldBasePath.substring(0, oldBasePath.length() - 1)
+                + "_compacted-" + TIMESTAMP_FORMAT.format(Instant.now()) + "/";
+        int totalRecords = 0;
+        long totalSizeBytes = 0;
+        try {
+            Map<String, ResourceInfo> manifestResources = new LinkedHashMap<>();
+            for (String resource : List.of("racks", "items")) {
+                if (resourcesNode.has(resource)) {
+                    int count = resourcesNode.path(resource).path("count").asInt(0);
+                    totalSizeBytes += backupStorageService.copyBackupFile(oldBasePath, basePath, resource + ".enc");
+                    manifestResources.put(resource, new ResourceInfo(count));
+                    totalRecords += count;
+                }
+            }
+
+            AssortmentChainReader chainReader = new AssortmentChainReader(reader);
+            long[] liveIds = chainReader.readLiveIds(oldBasePath, resourcesNode.path("assortmentIds").path("count").asInt(0));
+            UploadResult assortments = writer.writeRowsAndUpload(basePath, AssortmentChainReader.ASSORTMENTS_FILE,
+                    sink -> chainReader.replay(chain, liveIds, sink::write));
+            manifestResources.put("assortments", new ResourceInfo(assortments.rows()));
+            totalRecords += assortments.rows();
+            totalSizeBytes += assortments.bytes();
+
+            BackupManifest manifest = new BackupManifest(recordId, warehouseId, manifestNode.path("warehouseName").asText(null),
+                    delta.getCreatedAt(), SCHEMA_VERSION, manifestResources, null, null);
+            totalSizeBytes += writer.writeAndUpload(basePath, "manifest.enc", manifest);
+
+            int rebasedBy = delta.getChainLength();
+            int recordsAfterCompaction = totalRecords;
+            long sizeAfterCompaction = totalSizeBytes;
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                BackupRecord record = backupRecordRepository.findById(recordId)
+                        .orElseThrow(() -> new BackupException(BackupError.BACKUP_NOT_FOUND));
+                record.setR2BasePath(basePath);
+                record.setParentBackup(null);
+                record.setChangesSince(null);
+                record.setTotalRecords(recordsAfterCompaction);
+                record.setSizeBytes(sizeAfterCompaction);
+
+                // The rebased delta and everything built on it are now that much closer to a full backup
+                Deque<BackupRecord> pending = new ArrayDeque<>(List.of(record));
+                while (!pending.isEmpty()) {
+                    BackupRecord current = pending.pop();
+                    if (current.getChainLength() != null) {
+                        current.setChainLength(current.getChainLength() - rebasedBy);
+                    }
+                    pending.addAll(backupRecordRepository.findByParentBackupId(current.getId()));
+                }
+            });
+        } catch (Exception e) {
+            backupStorageService.deleteBackup(basePath);
+            throw e;
+        }
+
+        backupStorageService.deleteBackup(oldBasePath);
+        log.info("Compacted incremental backup {} (warehouse {}) into a full backup — {} records, {} bytes",
+                recordId, warehouseId, totalRecords, totalSizeBytes);
+    }
+
     @Transactional
     @Scheduled(cron = "0 0 2 * * ?")
     public void cleanupOldBackups() {
@@ -1037,6 +1287,11 @@ public class BackupService {
                 log.info("Deleting {} old backups for warehouse {}", toDelete.size(), warehouse.getId());
 
                 for (BackupRecord record : toDelete) {
+                    // Deltas depend on their parent until compaction rebases them
+                    if (backupRecordRepository.existsByParentBackupId(record.getId())) {
+                        log.debug("Keeping backup {} - incremental backups still depend on it", record.getId());
+                        continue;
+                    }
                     try {
                         if (record.getR2BasePath() != null) {
                             backupStorageService.deleteBackup(record.getR2BasePath());
@@ -1,16 +1,16 @@
 package com.github.dawid_stolarczyk.magazyn.Services.Backup;
 
+import com.github.dawid_stolarczyk.magazyn.Crypto.CiphertextSource;
+import com.github.dawid_stolarczyk.magazyn.Services.Storage.S3ParallelTransfer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -19,6 +19,7 @@ import java.util.List;
 public class BackupStorageService {
 
     private final S3Client s3Client;
+    private final S3ParallelTransfer s3ParallelTransfer;
 
     @Value("${app.s3.bucket}")
     private String bucketName;
@@ -26,151 +27,75 @@ public class BackupStorageService {
     @Value("${app.s3.backups-prefix:backups/}")
     private String backupsPrefix;
 
-    private static final int PART_SIZE = 2 * 1024 * 1024; // 2MB per part
-    private static final int INITIAL_CHECK_SIZE = 64 * 1024; // 64KB for initial size check
-
     /**
      * Upload backup file from InputStream using streaming (no full buffering in RAM).
-     * Uses multipart upload for files larger than 2MB.
+     * Files larger than one transfer part are uploaded as parallel multipart uploads.
      */
     public long uploadBackupFileStream(String basePath, String fileName, InputStream inputStream) throws IOException {
         String key = basePath + fileName;
-        long totalBytes = 0;
-
         try {
-            // Read small chunk first to check size (avoid large buffer allocation)
-            byte[] checkBuffer = new byte[INITIAL_CHECK_SIZE];
-            int bytesRead = readFully(inputStream, checkBuffer);
-
-            if (bytesRead < INITIAL_CHECK_SIZE) {
-                // Small file - single PUT (entire file fits in check buffer)
-                byte[] trimmed = (bytesRead == checkBuffer.length) ? checkBuffer :
-                        java.util.Arrays.copyOf(checkBuffer, bytesRead);
-                s3Client.putObject(
-                        PutObjectRequest.builder()
-                                .bucket(bucketName)
-                                .key(key)
-                                .contentType("application/octet-stream")
-                                .build(),
-                        RequestBody.fromBytes(trimmed)
-                );
-                totalBytes = bytesRead;
-                log.debug("Uploaded backup file (single-part): {} ({} bytes)", key, totalBytes);
-            } else {
-                // Large file detected - use multipart upload
-                // Use the checkBuffer as first chunk and continue reading
-                totalBytes = uploadMultipart(key, checkBuffer, bytesRead, inputStream);
-                log.debug("Uploaded backup file (multipart): {} ({} bytes)", key, totalBytes);
-            }
+            long totalBytes = s3ParallelTransfer.upload(key, inputStream, "application/octet-stream");
+            log.debug("Uploaded backup file: {} ({} bytes)", key, totalBytes);
+            return totalBytes;
         } catch (Exception e) {
             log.error("Failed to upload backup file: {}", key, e);
             throw new IOException("S3 upload failed: " + e.getMessage(), e);
         }
-
-        return totalBytes;
     }
 
-    private long uploadMultipart(String key, byte[] firstChunk, int firstChunkSize, InputStream inputStream) throws IOException {
-        CreateMultipartUploadResponse createResponse = s3Client.createMultipartUpload(
-                CreateMultipartUploadRequest.builder()
-                        .bucket(bucketName)
-                        .key(key)
-                        .contentType("application/octet-stream")
-                        .build()
-        );
-
-        String uploadId = createResponse.uploadId();
-        List<CompletedPart> completedParts = new ArrayList<>();
-        long totalBytes = 0;
-
-        try {
-            // Upload first chunk
-            int partNumber = 1;
-            completedParts.add(uploadPart(key, uploadId, partNumber++, firstChunk, firstChunkSize));
-            totalBytes += firstChunkSize;
+    /**
+     * Download backup file as InputStream; large files are fetched as parallel ranged GETs and reassembled in order.
+     * Caller MUST close the returned stream.
+     */
+    public InputStream downloadBackupFileStream(String basePath, String fileName) {
+        return s3ParallelTransfer.download(basePath + fileName);
+    }
 
-            // Upload remaining chunks
-            byte[] buffer = new byte[PART_SIZE];
-            int bytesRead;
-            while ((bytesRead = readFully(inputStream, buffer)) > 0) {
-                completedParts.add(uploadPart(key, uploadId, partNumber++, buffer, bytesRead));
-                totalBytes += bytesRead;
+    /**
+     * Ranged access to a backup file, used to resume an interrupted download from a given offset.
+     */
+    public CiphertextSource backupFileSource(String basePath, String fileName) {
+        String key = basePath + fileName;
+        return new CiphertextSource() {
+            @Override
+            public long size() {
+                return s3ParallelTransfer.size(key);
             }
 
-            // Complete multipart upload
-            s3Client.completeMultipartUpload(
-                    CompleteMultipartUploadRequest.builder()
-                            .bucket(bucketName)
-                            .key(key)
-                            .uploadId(uploadId)
-                            .multipartUpload(CompletedMultipartUpload.builder()
-                                    .parts(completedParts)
-                                    .build())
-                            .build()
-            );
-
-            return totalBytes;
-
-        } catch (Exception e) {
-            // Abort multipart upload on error
-            try {
-                s3Client.abortMultipartUpload(
-                        AbortMultipartUploadRequest.builder()
-                                .bucket(bucketName)
-                                .key(key)
-                                .uploadId(uploadId)
-                                .build()
-                );
-            } catch (Exception abortEx) {
-                log.warn("Failed to abort multipart upload {}: {}", uploadId, abortEx.getMessage());
+            @Override
+            public InputStream open(long start, long endInclusive) {
+                return s3ParallelTransfer.downloadRange(key, start, endInclusive);
             }
-            throw new IOException("Multipart upload failed", e);
-        }
-    }
-
-    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] buffer, int length) {
-        byte[] trimmed = (length == buffer.length) ? buffer :
-                java.util.Arrays.copyOf(buffer, length);
-
-        UploadPartResponse response = s3Client.uploadPart(
-                UploadPartRequest.builder()
-                        .bucket(bucketName)
-                        .key(key)
-                        .uploadId(uploadId)
-                        .partNumber(partNumber)
-                        .contentLength((long) length)
-                        .build(),
-                RequestBody.fromBytes(trimmed)
-        );
-
-        return CompletedPart.builder()
-                .partNumber(partNumber)
-                .eTag(response.eTag())
-                .build();
-    }
-
-    private int readFully(InputStream in, byte[] buffer) throws IOException {
-        int totalRead = 0;
-        while (totalRead < buffer.length) {
-            int read = in.read(buffer, totalRead, buffer.length - totalRead);
-            if (read == -1) break;
-            totalRead += read;
-        }
-        return totalRead;
+        };
     }
 
     /**
-     * Download backup file as InputStream (streaming, no buffering).
-     * Caller MUST close the returned stream.
+     * Server-side copy of a backup file to another backup path, without streaming it through the application.
+     *
+     * @return size of the copied file in bytes
      */
-    public InputStream downloadBackupFileStream(String basePath, String fileName) {
-        String key = basePath + fileName;
-        return s3Client.getObject(
-                GetObjectRequest.builder()
-                        .bucket(bucketName)
-                        .key(key)
-                        .build()
-        );
+    public long copyBackupFile(String sourceBasePath, String targetBasePath, String fileName) throws IOException {
+        String sourceKey = sourceBasePath + fileName;
+        String targetKey = targetBasePath + fileName;
+        try {
+            s3Client.copyObject(
+                    CopyObjectRequest.builder()
+                            .sourceBucket(bucketName)
+                            .sourceKey(sourceKey)
+                            .destinationBucket(bucketName)
+                            .destinationKey(targetKey)
+                            .build()
+            );
+            return s3Client.headObject(
+                    HeadObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(targetKey)
+                            .build()
+            ).contentLength();
+        } catch (Exception e) {
+            log.error("Failed to copy backup file {} to {}", sourceKey, targetKey, e);
+            throw new IOException("S3 copy failed: " + e.getMessage(), e);
+        }
     }
 
     public void deleteBackup(String basePath) {
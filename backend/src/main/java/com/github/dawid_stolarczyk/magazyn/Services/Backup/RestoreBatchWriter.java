@@ -0,0 +1,281 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Backup;
+
+import com.github.dawid_stolarczyk.magazyn.Services.Backup.BackupService.AssortmentBackupData;
+import com.github.dawid_stolarczyk.magazyn.Services.Backup.BackupService.ItemBackupData;
+import com.github.dawid_stolarczyk.magazyn.Services.Backup.BackupService.ItemImageBackupData;
+import com.github.dawid_stolarczyk.magazyn.Services.Backup.BackupService.RackBackupData;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.UnreadNotificationCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Set-based writes of a warehouse restore, bypassing the persistence context.
+ * <p>
+ * Existing warehouse data is removed with a handful of bulk DELETE statements, restored rows are inserted with
+ * JDBC batches and the new IDs are looked up in bulk by natural key (rack marker, item code) instead of one
+ * {@code save} and one lookup per row. All methods must run inside the restore transaction; Hibernate caches and
+ * in-memory indexes are not updated and have to be rebuilt by the caller.
+ */
+@Slf4j
+@Component
+public class RestoreBatchWriter {
+    /**
+     * Upper bound of values bound into one IN list.
+     */
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    private static final String INSERT_RACK_SQL = "INSERT INTO racks " +
+            "(warehouse_id, marker, comment, size_x, size_y, max_temp, min_temp, max_weight, " +
+            "max_size_x, max_size_y, max_size_z, accepts_dangerous) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ITEM_SQL = "INSERT INTO items " +
+            "(code, name, photo_url, qr_code, min_temp, max_temp, weight, size_x, size_y, size_z, " +
+            "comment, expire_after_days, is_dangerous, image_uploaded) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, false)";
+
+    private static final String INSERT_ITEM_IMAGE_SQL = "INSERT INTO item_images " +
+            "(item_id, photo_url, is_primary, display_order, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ASSORTMENT_SQL = "INSERT INTO assortment " +
+            "(code, item_id, rack_id, created_at, expires_at, position_x, position_y, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+
+    public RestoreBatchWriter(DataSource dataSource, UnreadNotificationCounter unreadNotificationCounter) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.unreadNotificationCounter = unreadNotificationCounter;
+    }
+
+    /**
+     * Items matched to existing ones or created by the restore.
+     *
+     * @param idMapping backup item ID → item ID in the database
+     * @param created   number of items that did not exist and were inserted
+     */
+    public record ItemRestoreResult(Map<Long, Long> idMapping, int created) {
+    }
+
+    /**
+     * Deletes all racks of the warehouse with everything that hangs off them: assortments, raw reports,
+     * alerts with their notifications (telemetry rollups go with the racks via ON DELETE CASCADE). Cached unread
+     * notification counters are dropped once the restore transaction commits.
+     *
+     * @return number of racks deleted
+     */
+    public int deleteWarehouseData(Long warehouseId) {
+        String racks = "SELECT id FROM racks WHERE warehouse_id = ?";
+        int notifications = jdbcTemplate.update("DELETE FROM user_notifications WHERE alert_id IN " +
+                "(SELECT id FROM alerts WHERE rack_id IN (" + racks + "))", warehouseId);
+        int alerts = jdbcTemplate.update("DELETE FROM alerts WHERE rack_id IN (" + racks + ")", warehouseId);
+        int reports = jdbcTemplate.update("DELETE FROM rack_reports WHERE rack_id IN (" + racks + ")", warehouseId);
+        int assortments = jdbcTemplate.update("DELETE FROM assortment WHERE rack_id IN (" + racks + ")", warehouseId);
+        int deletedRacks = jdbcTemplate.update("DELETE FROM racks WHERE warehouse_id = ?", warehouseId);
+        if (notifications > 0) {
+            unreadNotificationCounter.invalidateAll();
+        }
+        log.info("Deleted existing data of warehouse {} — {} racks, {} assortments, {} reports, {} alerts, {} notifications",
+                warehouseId, deletedRacks, assortments, reports, alerts, notifications);
+        return deletedRacks;
+    }
+
+    /**
+     * Inserts the racks into an emptied warehouse.
+     *
+     * @return backup rack ID → new rack ID
+     */
+    public Map<Long, Long> insertRacks(Long warehouseId, List<RackBackupData> racks) {
+        if (racks.isEmpty()) {
+            return Map.of();
+        }
+        jdbcTemplate.batchUpdate(INSERT_RACK_SQL, racks, racks.size(), (ps, rack) -> {
+            ps.setLong(1, warehouseId);
+            ps.setString(2, rack.marker());
+            ps.setString(3, rack.comment());
+            ps.setInt(4, rack.sizeX());
+            ps.setInt(5, rack.sizeY());
+            ps.setFloat(6, rack.maxTemp());
+            ps.setFloat(7, rack.minTemp());
+            ps.setFloat(8, rack.maxWeight());
+            ps.setFloat(9, rack.maxSizeX());
+            ps.setFloat(10, rack.maxSizeY());
+            ps.setFloat(11, rack.maxSizeZ());
+            ps.setBoolean(12, rack.acceptsDangerous());
+        });
+
+        // Markers are unique within a warehouse
+        Map<String, Long> idsByMarker = new HashMap<>();
+        jdbcTemplate.query("SELECT id, marker FROM racks WHERE warehouse_id = ?",
+                rs -> {
+                    idsByMarker.put(rs.getString("marker"), rs.getLong("id"));
+                }, warehouseId);
+        Map<Long, Long> idMapping = new HashMap<>();
+        for (RackBackupData rack : racks) {
+            idMapping.put(rack.originalId(), idsByMarker.get(rack.marker()));
+        }
+        return idMapping;
+    }
+
+    /**
+     * Items are global: an item whose code already exists is reused, the others are inserted. Backed up images
+     * are inserted for items that have none yet.
+     */
+    public ItemRestoreResult restoreItems(List<ItemBackupData> items) {
+        Set<String> codes = new HashSet<>();
+        for (ItemBackupData item : items) {
+            if (item.code() != null) {
+                codes.add(item.code());
+            }
+        }
+        Map<String, Long> existing = findItemIdsByCode(codes);
+
+        List<ItemBackupData> missing = new ArrayList<>();
+        Set<String> missingCodes = new HashSet<>();
+        Map<Long, Long> idMapping = new HashMap<>();
+        int created = 0;
+        for (ItemBackupData item : items) {
+            if (item.code() == null) {
+                idMapping.put(item.originalId(), insertItem(item));
+                created++;
+            } else if (existing.containsKey(item.code())) {
+                idMapping.put(item.originalId(), existing.get(item.code()));
+            } else if (missingCodes.add(item.code())) {
+                missing.add(item);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, missing, missing.size(), (ps, item) -> setItemValues(ps, item));
+            created += missing.size();
+            Map<String, Long> inserted = findItemIdsByCode(missingCodes);
+            for (ItemBackupData item : items) {
+                if (item.code() != null && inserted.containsKey(item.code())) {
+                    idMapping.put(item.originalId(), inserted.get(item.code()));
+                }
+            }
+        }
+
+        insertMissingImages(items, idMapping);
+        return new ItemRestoreResult(idMapping, created);
+    }
+
+    /**
+     * Inserts a batch of assortments; rack and item IDs must already be mapped to the database.
+     */
+    public void insertAssortments(List<AssortmentBackupData> assortments, Map<Long, Long> rackIdMapping,
+                                  Map<Long, Long> itemIdMapping) {
+        if (assortments.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_ASSORTMENT_SQL, assortments, assortments.size(), (ps, assortment) -> {
+            ps.setString(1, assortment.code());
+            ps.setLong(2, itemIdMapping.get(assortment.originalItemId()));
+            ps.setLong(3, rackIdMapping.get(assortment.originalRackId()));
+            ps.setTimestamp(4, assortment.createdAt() != null ? assortment.createdAt() : now);
+            ps.setTimestamp(5, assortment.expiresAt());
+            ps.setObject(6, assortment.positionX(), Types.INTEGER);
+            ps.setObject(7, assortment.positionY(), Types.INTEGER);
+            ps.setTimestamp(8, now);
+        });
+    }
+
+    private void insertMissingImages(List<ItemBackupData> items, Map<Long, Long> idMapping) {
+        Map<Long, List<ItemImageBackupData>> imagesByItemId = new LinkedHashMap<>();
+        for (ItemBackupData item : items) {
+            Long itemId = idMapping.get(item.originalId());
+            if (itemId != null && item.images() != null && !item.images().isEmpty()) {
+                imagesByItemId.putIfAbsent(itemId, item.images());
+            }
+        }
+        if (imagesByItemId.isEmpty()) {
+            return;
+        }
+
+        Set<Long> withImages = new HashSet<>();
+        for (List<Long> chunk : chunks(imagesByItemId.keySet())) {
+            withImages.addAll(jdbcTemplate.queryForList(
+                    "SELECT DISTINCT item_id FROM item_images WHERE item_id IN (" + placeholders(chunk.size()) + ")",
+                    Long.class, chunk.toArray()));
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>();
+        imagesByItemId.forEach((itemId, images) -> {
+            if (!withImages.contains(itemId)) {
+                for (ItemImageBackupData image : images) {
+                    rows.add(new Object[]{itemId, image.photoUrl(), image.isPrimary(), image.displayOrder(), now});
+                }
+            }
+        });
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ITEM_IMAGE_SQL, rows);
+            log.info("Restored {} item images", rows.size());
+        }
+    }
+
+    private Map<String, Long> findItemIdsByCode(Collection<String> codes) {
+        Map<String, Long> ids = new HashMap<>();
+        for (List<String> chunk : chunks(codes)) {
+            jdbcTemplate.query("SELECT id, code FROM items WHERE code IN (" + placeholders(chunk.size()) + ")",
+                    rs -> {
+                        ids.put(rs.getString("code"), rs.getLong("id"));
+                    }, chunk.toArray());
+        }
+        return ids;
+    }
+
+    /**
+     * Items without a code cannot be looked up after a batch insert - they are inserted one by one.
+     */
+    private Long insertItem(ItemBackupData item) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        PreparedStatementCreator creator = connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT_ITEM_SQL, new String[]{"id"});
+            setItemValues(ps, item);
+            return ps;
+        };
+        jdbcTemplate.update(creator, keyHolder);
+        return Objects.requireNonNull(keyHolder.getKey()).longValue();
+    }
+
+    private static void setItemValues(PreparedStatement ps, ItemBackupData item) throws SQLException {
+        ps.setString(1, item.code());
+        ps.setString(2, item.name());
+        ps.setString(3, item.photoUrl());
+        ps.setString(4, item.qrCode());
+        ps.setFloat(5, item.minTemp());
+        ps.setFloat(6, item.maxTemp());
+        ps.setFloat(7, item.weight());
+        ps.setFloat(8, item.sizeX());
+        ps.setFloat(9, item.sizeY());
+        ps.setFloat(10, item.sizeZ());
+        ps.setString(11, item.comment());
+        ps.setObject(12, item.expireAfterDays(), Types.BIGINT);
+        ps.setBoolean(13, item.isDangerous());
+    }
+
+    private static <T> List<List<T>> chunks(Collection<T> values) {
+        List<T> list = new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += LOOKUP_CHUNK_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, list.size())));
+        }
+        return chunks;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -1,7 +1,9 @@
 package com.github.dawid_stolarczyk.magazyn.Services.Backup;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dawid_stolarczyk.magazyn.Crypto.EncryptedBlob;
 import com.github.dawid_stolarczyk.magazyn.Crypto.FileCryptoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,9 +11,11 @@ import org.springframework.beans.factory.annotation.Value;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.util.concurrent.*;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Helper class for streaming backup restore: S3 Download → Decryption → JSON deserialization
@@ -21,6 +25,9 @@ import java.util.concurrent.*;
 @RequiredArgsConstructor
 public class StreamingBackupReader {
 
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RESUME_ATTEMPTS = 3;
+
     private final ObjectMapper objectMapper;
     private final FileCryptoService fileCryptoService;
     private final BackupStorageService backupStorageService;
@@ -29,10 +36,55 @@ public class StreamingBackupReader {
     @Value("${app.backup.streaming-timeout-minutes:15}")
     private long streamingTimeoutMinutes;
 
+    /**
+     * Receives the rows of a resource file, one at a time.
+     */
+    @FunctionalInterface
+    public interface RowConsumer<T> {
+        void accept(T row) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Deserializer<T> {
+        T deserialize(InputStream in) throws Exception;
+    }
+
     /**
      * Streams data from S3: Download → Decrypt → JSON → Object
      */
     public <T> T downloadAndRead(String basePath, String fileName, TypeReference<T> typeRef) throws Exception {
+        return downloadAndDeserialize(basePath, fileName, in -> objectMapper.readValue(in, typeRef));
+    }
+
+    /**
+     * Variant for simple class types (not generic collections)
+     */
+    public <T> T downloadAndRead(String basePath, String fileName, Class<T> valueType) throws Exception {
+        return downloadAndDeserialize(basePath, fileName, in -> objectMapper.readValue(in, valueType));
+    }
+
+    /**
+     * Streams rows from S3: Download → Decrypt → gunzip → NDJSON → Row, handing each row to the consumer
+     * as soon as it is read.
+     *
+     * @return number of rows read
+     */
+    public <T> int downloadAndReadRows(String basePath, String fileName, Class<T> rowType,
+                                       RowConsumer<T> consumer) throws Exception {
+        return downloadAndDeserialize(basePath, fileName, in -> {
+            int count = 0;
+            try (GZIPInputStream gzip = new GZIPInputStream(in, GZIP_BUFFER_SIZE);
+                 MappingIterator<T> rows = objectMapper.readerFor(rowType).readValues(gzip)) {
+                while (rows.hasNextValue()) {
+                    consumer.accept(rows.nextValue());
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    private <T> T downloadAndDeserialize(String basePath, String fileName, Deserializer<T> deserializer) throws Exception {
         PipedOutputStream decryptOut = new PipedOutputStream();
         PipedInputStream decryptIn = new PipedInputStream(decryptOut, 1024 * 1024); // 1MB buffer
 
@@ -40,7 +92,7 @@ public class StreamingBackupReader {
         Future<Void> decryptTask = executorService.submit(() -> {
             try (InputStream s3Stream = backupStorageService.downloadBackupFileStream(basePath, fileName);
                  decryptOut) {
-                fileCryptoService.decrypt(s3Stream, decryptOut);
+                decryptWithResume(basePath, fileName, s3Stream, decryptOut);
             } catch (Exception e) {
                 throw new RuntimeException("Download/decryption failed", e);
             }
@@ -50,7 +102,7 @@ public class StreamingBackupReader {
         // Main thread: JSON deserialization
         T result;
         try (decryptIn) {
-            result = objectMapper.readValue(decryptIn, typeRef);
+            result = deserializer.deserialize(decryptIn);
         }
 
         // Wait for decrypt task completion
@@ -78,48 +130,68 @@ public class StreamingBackupReader {
     }
 
     /**
-     * Variant for simple class types (not generic collections)
+     * Decrypts a backup file and, when the download drops, resumes from the last plaintext byte already handed on.
+     * Segmented (MAG2) files only fetch and decrypt the segments from that point; MAG1 files release no plaintext
+     * before their final tag check, so they are decrypted again from the start.
      */
-    public <T> T downloadAndRead(String basePath, String fileName, Class<T> valueType) throws Exception {
-        PipedOutputStream decryptOut = new PipedOutputStream();
-        PipedInputStream decryptIn = new PipedInputStream(decryptOut, 1024 * 1024);
-
-        Future<Void> decryptTask = executorService.submit(() -> {
-            try (InputStream s3Stream = backupStorageService.downloadBackupFileStream(basePath, fileName);
-                 decryptOut) {
-                fileCryptoService.decrypt(s3Stream, decryptOut);
-            } catch (Exception e) {
-                throw new RuntimeException("Download/decryption failed", e);
+    private void decryptWithResume(String basePath, String fileName, InputStream s3Stream, OutputStream out) throws Exception {
+        ProgressOutputStream progress = new ProgressOutputStream(out);
+        IOException failure;
+        try {
+            fileCryptoService.decrypt(s3Stream, progress);
+            return;
+        } catch (IOException e) {
+            failure = e;
+        }
+        for (int attempt = 1; attempt <= MAX_RESUME_ATTEMPTS; attempt++) {
+            // Failures of the consumer side (closed pipe) or cancellation are not download problems
+            if (progress.writeFailed || Thread.currentThread().isInterrupted()) {
+                break;
             }
-            return null;
-        });
+            log.warn("Download of {}{} failed after {} decrypted bytes, resuming (attempt {}/{}): {}",
+                    basePath, fileName, progress.written, attempt, MAX_RESUME_ATTEMPTS, failure.getMessage());
+            try {
+                EncryptedBlob blob = fileCryptoService.open(backupStorageService.backupFileSource(basePath, fileName));
+                blob.decryptRange(progress.written, Long.MAX_VALUE, progress);
+                return;
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        throw failure;
+    }
 
-        T result;
-        try (decryptIn) {
-            result = objectMapper.readValue(decryptIn, valueType);
+    /**
+     * Counts the plaintext bytes passed downstream and remembers whether the downstream itself failed.
+     */
+    private static final class ProgressOutputStream extends OutputStream {
+        private final OutputStream out;
+        private long written;
+        private boolean writeFailed;
+
+        ProgressOutputStream(OutputStream out) {
+            this.out = out;
         }
 
-        try {
-            decryptTask.get(streamingTimeoutMinutes, TimeUnit.MINUTES);
-        } catch (ExecutionException e) {
-            throw new Exception("Streaming restore failed", e.getCause());
-        } catch (TimeoutException e) {
-            log.error("Streaming restore timeout after {} minutes for {}/{}", streamingTimeoutMinutes, basePath, fileName);
-            try {
-                if (decryptOut != null) decryptOut.close();
-            } catch (IOException ex) {
-                log.warn("Failed to close decryptOut stream", ex);
-            }
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
             try {
-                if (decryptIn != null) decryptIn.close();
-            } catch (IOException ex) {
-                log.warn("Failed to close decryptIn stream", ex);
+                out.write(b, off, len);
+            } catch (IOException e) {
+                writeFailed = true;
+                throw e;
             }
-            decryptTask.cancel(true);
-            throw new Exception("Streaming restore timeout after " + streamingTimeoutMinutes + " minutes");
+            written += len;
         }
 
-        return result;
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
     }
 }
-
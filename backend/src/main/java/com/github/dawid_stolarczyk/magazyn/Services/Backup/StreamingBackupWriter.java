@@ -1,24 +1,34 @@
 package com.github.dawid_stolarczyk.magazyn.Services.Backup;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.github.dawid_stolarczyk.magazyn.Crypto.FileCryptoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Helper class for streaming backup data: JSON serialization → Encryption → S3 Upload
  * without buffering full data in RAM.
+ * <p>
+ * Resource files are written row by row as gzip-compressed NDJSON (one JSON object per line), so the
+ * caller can feed rows straight from a database cursor and heap use does not depend on the backup size.
  */
 @Slf4j
 @RequiredArgsConstructor
 public class StreamingBackupWriter {
 
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
     private final ObjectMapper objectMapper;
     private final FileCryptoService fileCryptoService;
     private final BackupStorageService backupStorageService;
@@ -27,12 +37,62 @@ public class StreamingBackupWriter {
     @Value("${app.backup.streaming-timeout-minutes:15}")
     private long streamingTimeoutMinutes;
 
+    /**
+     * Receives the rows of a resource file, one at a time.
+     */
+    @FunctionalInterface
+    public interface RowSink {
+        void write(Object row) throws IOException;
+    }
+
+    /**
+     * Produces the rows of a resource file; runs on a streaming thread.
+     */
+    @FunctionalInterface
+    public interface RowSource {
+        void writeTo(RowSink sink) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Serializer {
+        void serialize(OutputStream out) throws Exception;
+    }
+
+    public record UploadResult(int rows, long bytes) {
+    }
+
     /**
      * Streams data to S3: Object → JSON → Encrypt → Upload
      *
      * @return total bytes uploaded
      */
     public long writeAndUpload(String basePath, String fileName, Object data) throws Exception {
+        return serializeAndUpload(basePath, fileName, out -> objectMapper.writeValue(out, data));
+    }
+
+    /**
+     * Streams rows to S3: Row → NDJSON → gzip → Encrypt → Upload
+     *
+     * @return number of rows written and total bytes uploaded
+     */
+    public UploadResult writeRowsAndUpload(String basePath, String fileName, RowSource source) throws Exception {
+        AtomicInteger rows = new AtomicInteger();
+        long bytesUploaded = serializeAndUpload(basePath, fileName, out -> {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                 SequenceWriter sequence = objectMapper.writer()
+                         .withRootValueSeparator("\n")
+                         .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                         .writeValues(gzip)) {
+                source.writeTo(row -> {
+                    sequence.write(row);
+                    rows.incrementAndGet();
+                });
+            }
+        });
+        return new UploadResult(rows.get(), bytesUploaded);
+    }
+
+    private long serializeAndUpload(String basePath, String fileName, Serializer serializer) throws Exception {
         PipedOutputStream jsonOut = new PipedOutputStream();
         PipedInputStream jsonIn = new PipedInputStream(jsonOut, 1024 * 1024); // 1MB buffer
 
@@ -42,8 +102,8 @@ public class StreamingBackupWriter {
         // Task 1: JSON serialization
         Future<Void> jsonTask = executorService.submit(() -> {
             try (jsonOut) {
-                objectMapper.writeValue(jsonOut, data);
-            } catch (IOException e) {
+                serializer.serialize(jsonOut);
+            } catch (Exception e) {
                 throw new RuntimeException("JSON serialization failed", e);
             }
             return null;
@@ -101,4 +161,3 @@ public class StreamingBackupWriter {
         return bytesUploaded;
     }
 }
-
@@ -0,0 +1,165 @@
+package com.github.dawid_stolarczyk.magazyn.Services;
+
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.EmailOutboxStats;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.EmailOutboxMessage;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.EmailOutboxKind;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.EmailOutboxStatus;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persistent email outbox.
+ * <p>
+ * Emails are stored in {@code email_outbox} - inside the caller's transaction when there is one, so an email
+ * is only sent if the change that triggered it commits - and sent later by {@link EmailService}'s outbox worker.
+ * A claimed batch is leased for {@code app.mail.outbox.lease-seconds}, so messages of a worker that died
+ * mid-send are retried. Failed messages are retried with exponential backoff and marked FAILED after
+ * {@code app.mail.outbox.max-attempts} attempts.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxService {
+    private static final long BASE_BACKOFF_SECONDS = 30;
+    private static final long MAX_BACKOFF_SECONDS = 1800;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final EmailOutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.lease-seconds:300}")
+    private long leaseSeconds;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder digestsSent = new LongAdder();
+    private final LongAdder mergedAlerts = new LongAdder();
+    private final LongAdder sendBatches = new LongAdder();
+    private final LongAdder totalSendMillis = new LongAdder();
+    private final AtomicInteger lastBatchSize = new AtomicInteger();
+    private final AtomicLong lastSendLatencyMs = new AtomicLong();
+
+    public void enqueueMessage(String to, String subject, String html) {
+        Instant now = Instant.now();
+        outboxRepository.save(EmailOutboxMessage.builder()
+                .recipient(to)
+                .kind(EmailOutboxKind.MESSAGE)
+                .subject(subject)
+                .body(html)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    /**
+     * Queues alert messages for a recipient; all pending alerts of the recipient are sent as one digest.
+     */
+    public void enqueueAlertDigest(String to, List<String> alertMessages, String notificationsLink) {
+        Instant now = Instant.now();
+        outboxRepository.save(EmailOutboxMessage.builder()
+                .recipient(to)
+                .kind(EmailOutboxKind.ALERT_DIGEST)
+                .body(String.join("\n", alertMessages.stream().map(message -> message.replace('\n', ' ')).toList()))
+                .link(notificationsLink)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    /**
+     * Locks up to {@code app.mail.outbox.batch-size} due messages and leases them to the caller.
+     */
+    public List<EmailOutboxMessage> claimBatch() {
+        List<EmailOutboxMessage> batch = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            List<EmailOutboxMessage> due = outboxRepository.lockDueBatch(now, batchSize);
+            for (EmailOutboxMessage message : due) {
+                message.setAttempts(message.getAttempts() + 1);
+                message.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return due;
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    /**
+     * Removes sent messages and reschedules (or gives up on) failed ones.
+     *
+     * @param failed failed messages with the error that occurred
+     */
+    public void complete(Collection<EmailOutboxMessage> sentMessages, Map<EmailOutboxMessage, Exception> failed) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentMessages.isEmpty()) {
+                outboxRepository.deleteAllByIdInBatch(sentMessages.stream().map(EmailOutboxMessage::getId).toList());
+            }
+            Instant now = Instant.now();
+            failed.forEach((message, error) -> {
+                String reason = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+                message.setLastError(reason.length() > MAX_ERROR_LENGTH ? reason.substring(0, MAX_ERROR_LENGTH) : reason);
+                if (message.getAttempts() >= maxAttempts) {
+                    message.setStatus(EmailOutboxStatus.FAILED);
+                    log.error("[EMAIL-OUTBOX] Giving up on email {} to {} after {} attempts: {}",
+                            message.getId(), message.getRecipient(), message.getAttempts(), reason);
+                } else {
+                    message.setNextAttemptAt(now.plus(backoff(message.getAttempts())));
+                }
+            });
+            outboxRepository.saveAll(failed.keySet());
+        });
+    }
+
+    static Duration backoff(int attempts) {
+        long seconds = BASE_BACKOFF_SECONDS << Math.min(Math.max(attempts - 1, 0), 16);
+        return Duration.ofSeconds(Math.min(seconds, MAX_BACKOFF_SECONDS));
+    }
+
+    void recordSend(int emails, int failedEmails, int digests, int alertsMerged, long latencyMs) {
+        sendBatches.increment();
+        sent.add(emails - failedEmails);
+        sendFailures.add(failedEmails);
+        digestsSent.add(digests);
+        mergedAlerts.add(alertsMerged);
+        totalSendMillis.add(latencyMs);
+        lastBatchSize.set(emails);
+        lastSendLatencyMs.set(latencyMs);
+    }
+
+    public EmailOutboxStats getStats(int workers, int workerQueueDepth) {
+        Instant oldestPending = outboxRepository.findOldestCreatedAt(EmailOutboxStatus.PENDING);
+        long batches = sendBatches.sum();
+        return EmailOutboxStats.builder()
+                .pending(outboxRepository.countByStatus(EmailOutboxStatus.PENDING))
+                .failed(outboxRepository.countByStatus(EmailOutboxStatus.FAILED))
+                .oldestPendingAgeSeconds(oldestPending != null
+                        ? Math.max(0, Duration.between(oldestPending, Instant.now()).toSeconds()) : 0)
+                .sent(sent.sum())
+                .sendFailures(sendFailures.sum())
+                .digestsSent(digestsSent.sum())
+                .mergedAlerts(mergedAlerts.sum())
+                .lastBatchSize(lastBatchSize.get())
+                .lastSendLatencyMs(lastSendLatencyMs.get())
+                .averageSendLatencyMs(batches > 0 ? totalSendMillis.sum() / batches : 0)
+                .workers(workers)
+                .workerQueueDepth(workerQueueDepth)
+                .build();
+    }
+}
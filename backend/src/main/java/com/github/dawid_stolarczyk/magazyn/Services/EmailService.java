@@ -1,21 +1,38 @@
 package com.github.dawid_stolarczyk.magazyn.Services;
 
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.EmailOutboxStats;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.EmailOutboxMessage;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.EmailOutboxKind;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import jakarta.mail.util.ByteArrayDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Notification emails go through the persistent outbox ({@link EmailOutboxService}) and are sent in batches
+ * over one SMTP connection by a worker on the dedicated {@code mailTaskExecutor}; pending alert emails of a
+ * recipient are merged into one digest. Backup, backup code and API key emails are rendered and queued on
+ * the same pool, so request threads never render templates. Emails carrying secrets (2FA codes, verification
+ * and reset links) and report attachments are not persisted and are sent directly on the same pool.
+ */
 @Service
 public class EmailService {
     private static final Logger log = LoggerFactory.getLogger(EmailService.class);
@@ -24,6 +41,11 @@ public class EmailService {
     private JavaMailSender mailSender;
     @Autowired
     private TemplateEngine templateEngine;
+    @Autowired
+    private EmailOutboxService emailOutbox;
+    @Autowired
+    @Qualifier("mailTaskExecutor")
+    private AsyncTaskExecutor mailTaskExecutor;
 
     @Value("${spring.mail.username}")
     private String mailFrom;
@@ -31,21 +53,20 @@ public class EmailService {
     @Value("${app.name}")
     private String appName;
 
-    @Async
-    public void sendSimpleEmail(String to, String subject, String html) {
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
-                    "UTF-8");
+    private final AtomicBoolean draining = new AtomicBoolean();
 
-            helper.setFrom("Powiadomienia %s <%s>".formatted(appName, mailFrom));
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(html, true);
+    /**
+     * Queues an email in the outbox.
+     */
+    public void sendSimpleEmail(String to, String subject, String html) {
+        emailOutbox.enqueueMessage(to, subject, html);
+    }
 
-            mailSender.send(message);
+    private void sendNow(String to, String subject, String html) {
+        try {
+            mailSender.send(buildMessage(to, subject, html));
             log.info("Email sent successfully to {}", to);
-        } catch (org.springframework.mail.MailSendException e) {
+        } catch (MailSendException e) {
             log.error("Mail server connection failed - check SMTP settings. Could not send email to {}: {}", to, e.getMessage());
         } catch (MessagingException e) {
             log.error("Error sending email to {}: {}", to, e.getMessage(), e);
@@ -54,45 +75,62 @@ public class EmailService {
         }
     }
 
-    @Async
+    private MimeMessage buildMessage(String to, String subject, String html) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
+                "UTF-8");
+
+        helper.setFrom("Powiadomienia %s <%s>".formatted(appName, mailFrom));
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(html, true);
+        return message;
+    }
+
+    @Async("mailTaskExecutor")
     public void sendTwoFactorCode(String to, String code) {
         Context context = new Context();
         context.setVariable("code", code);
         String htmlContent = templateEngine.process("mail/2fa-code", context);
         String subject = "Twój kod uwierzytelniania dwuskładnikowego";
-        sendSimpleEmail(to, subject, htmlContent);
+        sendNow(to, subject, htmlContent);
     }
 
-    @Async
+    @Async("mailTaskExecutor")
     public void sendVerificationEmail(String to, String verificationLink) {
         Context context = new Context();
         context.setVariable("verificationLink", verificationLink);
         String htmlContent = templateEngine.process("mail/verification-email", context);
         String subject = "Weryfikacja adresu e-mail";
-        sendSimpleEmail(to, subject, htmlContent);
+        sendNow(to, subject, htmlContent);
     }
 
-    @Async
+    @Async("mailTaskExecutor")
     public void sendPasswordResetEmail(String to, String resetLink) {
         Context context = new Context();
         context.setVariable("resetLink", resetLink);
         String htmlContent = templateEngine.process("mail/password-reset", context);
         String subject = "Resetowanie hasła";
-        sendSimpleEmail(to, subject, htmlContent);
+        sendNow(to, subject, htmlContent);
     }
 
-    @Async
+    /**
+     * Queues alert messages for the recipient; they are merged with the recipient's other pending alerts
+     * into one digest email when the outbox is drained.
+     */
     public void sendBatchNotificationEmail(String to, List<String> alertMessages, String notificationsLink) {
+        emailOutbox.enqueueAlertDigest(to, alertMessages, notificationsLink);
+    }
+
+    private String renderBatchNotification(List<String> alertMessages, String notificationsLink) {
         Context context = new Context();
         context.setVariable("alertMessages", alertMessages);
         context.setVariable("alertCount", alertMessages.size());
         context.setVariable("notificationsLink", notificationsLink);
-        String htmlContent = templateEngine.process("mail/batch-notification", context);
-        String subject = alertMessages.size() == 1 ? "Nowe powiadomienie" : "Nowe powiadomienia (" + alertMessages.size() + ")";
-        sendSimpleEmail(to, subject, htmlContent);
+        return templateEngine.process("mail/batch-notification", context);
     }
 
-    @Async
+    @Async("mailTaskExecutor")
     public void sendBackupCodesGeneratedInfoEmail(String to, String settingsLink) {
         Context context = new Context();
         context.setVariable("settingsLink", settingsLink);
@@ -101,7 +139,7 @@ public class EmailService {
         sendSimpleEmail(to, subject, htmlContent);
     }
 
-    @Async
+    @Async("mailTaskExecutor")
     public void sendBackupNotificationEmail(String to, String warehouseName, boolean success, Long totalRecords,
                                             Long sizeBytes, String completedAt, String backupType, String triggeredByName,
                                             String errorMessage, String backupLink) {
@@ -120,7 +158,7 @@ public class EmailService {
         sendSimpleEmail(to, subject, htmlContent);
     }
 
-    @Async
+    @Async("mailTaskExecutor")
     public void sendApiKeyCreatedEmail(String to, String keyName, String warehouseName, String createdAt) {
         Context context = new Context();
         context.setVariable("keyName", keyName);
@@ -131,7 +169,7 @@ public class EmailService {
         sendSimpleEmail(to, subject, htmlContent);
     }
 
-    @Async
+    @Async("mailTaskExecutor")
     public void sendReportEmail(String to, String reportTitle, byte[] fileBytes, String filename, String contentType) {
         try {
             Context context = new Context();
@@ -150,8 +188,117 @@ public class EmailService {
 
             mailSender.send(message);
             log.info("Report email sent successfully to {} with attachment {}", to, filename);
-        } catch (MessagingException e) {
+        } catch (MessagingException | MailException e) {
             log.error("Error sending report email to {}: {}", to, e.getMessage(), e);
         }
     }
+
+    /**
+     * Hands draining of the outbox to the mail pool; at most one drain runs per instance,
+     * other instances skip rows this one has locked.
+     */
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:2000}")
+    public void pollOutbox() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            mailTaskExecutor.execute(this::drainOutbox);
+        } catch (RuntimeException e) {
+            draining.set(false);
+            log.error("[EMAIL-OUTBOX] Could not schedule outbox drain: {}", e.getMessage());
+        }
+    }
+
+    void drainOutbox() {
+        try {
+            List<EmailOutboxMessage> batch;
+            while (!(batch = emailOutbox.claimBatch()).isEmpty()) {
+                sendOutboxBatch(batch);
+            }
+        } catch (Exception e) {
+            log.error("[EMAIL-OUTBOX] Outbox drain failed: {}", e.getMessage(), e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    private record PreparedEmail(MimeMessage message, List<EmailOutboxMessage> rows) {
+    }
+
+    /**
+     * Sends a claimed batch over a single SMTP connection. Digest rows of the same recipient
+     * become one email listing all their alert messages.
+     */
+    void sendOutboxBatch(List<EmailOutboxMessage> batch) {
+        List<PreparedEmail> prepared = new ArrayList<>();
+        Map<EmailOutboxMessage, Exception> failed = new IdentityHashMap<>();
+        Map<String, List<EmailOutboxMessage>> digests = new LinkedHashMap<>();
+        int mergedAlerts = 0;
+        // Counted in emails: a message row is one email, all digest rows of a recipient are one email
+        int unbuiltEmails = 0;
+
+        for (EmailOutboxMessage row : batch) {
+            if (row.getKind() == EmailOutboxKind.ALERT_DIGEST) {
+                digests.computeIfAbsent(row.getRecipient(), k -> new ArrayList<>()).add(row);
+                continue;
+            }
+            try {
+                prepared.add(new PreparedEmail(buildMessage(row.getRecipient(), row.getSubject(), row.getBody()), List.of(row)));
+            } catch (MessagingException e) {
+                failed.put(row, e);
+                unbuiltEmails++;
+            }
+        }
+        for (Map.Entry<String, List<EmailOutboxMessage>> digest : digests.entrySet()) {
+            List<EmailOutboxMessage> rows = digest.getValue();
+            List<String> messages = rows.stream().flatMap(row -> Arrays.stream(row.getBody().split("\n"))).toList();
+            String link = rows.get(rows.size() - 1).getLink();
+            String subject = messages.size() == 1 ? "Nowe powiadomienie" : "Nowe powiadomienia (" + messages.size() + ")";
+            try {
+                prepared.add(new PreparedEmail(buildMessage(digest.getKey(), subject,
+                        renderBatchNotification(messages, link)), rows));
+                mergedAlerts += messages.size();
+            } catch (MessagingException e) {
+                rows.forEach(row -> failed.put(row, e));
+                unbuiltEmails++;
+            }
+        }
+
+        int failedEmails = unbuiltEmails;
+        long latencyMs = 0;
+        if (!prepared.isEmpty()) {
+            long start = System.nanoTime();
+            try {
+                mailSender.send(prepared.stream().map(PreparedEmail::message).toArray(MimeMessage[]::new));
+            } catch (MailSendException e) {
+                Map<Object, Exception> failedMessages = e.getFailedMessages();
+                for (PreparedEmail email : prepared) {
+                    Exception error = failedMessages.isEmpty() ? e : failedMessages.get(email.message());
+                    if (error != null) {
+                        email.rows().forEach(row -> failed.put(row, error));
+                        failedEmails++;
+                    }
+                }
+            } catch (MailException e) {
+                prepared.forEach(email -> email.rows().forEach(row -> failed.put(row, e)));
+                failedEmails += prepared.size();
+            }
+            latencyMs = (System.nanoTime() - start) / 1_000_000;
+        }
+
+        List<EmailOutboxMessage> sent = batch.stream().filter(row -> !failed.containsKey(row)).toList();
+        emailOutbox.recordSend(prepared.size() + unbuiltEmails, failedEmails, digests.size(), mergedAlerts, latencyMs);
+        emailOutbox.complete(sent, failed);
+        if (!failed.isEmpty()) {
+            log.warn("[EMAIL-OUTBOX] {} of {} outbox messages failed and will be retried", failed.size(), batch.size());
+        }
+    }
+
+    public EmailOutboxStats getOutboxStats() {
+        if (mailTaskExecutor instanceof ThreadPoolTaskExecutor pool) {
+            return emailOutbox.getStats(pool.getMaxPoolSize(), pool.getQueueSize());
+        }
+        return emailOutbox.getStats(0, 0);
+    }
 }
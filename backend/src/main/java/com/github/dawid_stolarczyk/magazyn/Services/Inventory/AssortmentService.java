@@ -45,6 +45,7 @@ public class AssortmentService {
     private final UserRepository userRepository;
     private final BarcodeService barcodeService;
     private final SmartCodeService smartCodeService;
+    private final RackOccupancyIndex rackOccupancyIndex;
     private final Bucket4jRateLimiter rateLimiter;
 
     private static final double EPS = 1e-6;
@@ -211,6 +212,8 @@ public class AssortmentService {
                         .build();
 
                 mapToDto(assortmentRepository.save(assortment));
+                rackOccupancyIndex.recordPlacement(rack.getId(),
+                        assortment.getPositionX(), assortment.getPositionY(), item);
                 return;
 
             } catch (DataIntegrityViolationException ex) {
@@ -301,6 +304,10 @@ public class AssortmentService {
 
         validatePlacement(rack, item, dto.getPositionX(), dto.getPositionY(), id);
 
+        rackOccupancyIndex.recordRemoval(assortment.getRack().getId(),
+                assortment.getPositionX(), assortment.getPositionY(), assortment.getItem());
+        rackOccupancyIndex.recordPlacement(rack.getId(), dto.getPositionX(), dto.getPositionY(), item);
+
         assortment.setItem(item);
         assortment.setRack(rack);
         assortment.setPositionX(dto.getPositionX());
@@ -4,6 +4,7 @@ import com.github.dawid_stolarczyk.magazyn.Common.Enums.InventoryError;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.*;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.*;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.*;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.RackOccupancyProjection;
 import com.github.dawid_stolarczyk.magazyn.Security.Auth.AuthUtil;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.RateLimitOperation;
@@ -13,6 +14,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.sql.Timestamp;
 import java.time.DateTimeException;
@@ -29,6 +32,10 @@ public class InboundService {
     private static final int MAX_EXPIRE_DAYS = 3650;
     private static final int MAX_RACK_SIDE = 1000;
     private static final int MAX_RACK_AREA = 1_000_000;
+    /**
+     * Liczba bitów na współrzędną w spakowanym kluczu pozycji; 2^10 > MAX_RACK_SIDE.
+     */
+    private static final int POSITION_BITS = 10;
     private static final double EPS = 1e-6;
     private static final int RESERVATION_MINUTES = 5;
 
@@ -39,8 +46,9 @@ public class InboundService {
     private final WarehouseRepository warehouseRepository;
     private final BarcodeService barcodeService;
     private final SmartCodeService smartCodeService;
-    private final PositionReservationRepository reservationRepository;
+    private final PositionReservationStore reservationStore;
     private final InboundOperationRepository inboundOperationRepository;
+    private final RackOccupancyIndex rackOccupancyIndex;
     private final Bucket4jRateLimiter rateLimiter;
 
 
@@ -56,29 +64,40 @@ public class InboundService {
 
         User user = userRepository.findById(AuthUtil.getCurrentAuthPrincipal().getUserId())
                 .orElseThrow(() -> new IllegalArgumentException(InventoryError.USER_NOT_FOUND.name()));
-        Timestamp now = Timestamp.from(Instant.now());
         Instant expiryInstant = Instant.now().plus(RESERVATION_MINUTES, ChronoUnit.MINUTES);
-        Timestamp expiryTimestamp = Timestamp.from(expiryInstant);
 
-        List<Rack> racks = request.getWarehouseId() == null
-                ? rackRepository.findAll()
-                : rackRepository.findByWarehouseId(request.getWarehouseId());
+        // Pre-filter w SQL: tylko regały zgodne z produktem (temperatura, wymiary, towary niebezpieczne, nośność)
+        List<Rack> racks = rackRepository.findPlacementCandidates(
+                request.getWarehouseId(),
+                item.getMin_temp(), item.getMax_temp(),
+                item.getSize_x() - EPS, item.getSize_y() - EPS, item.getSize_z() - EPS,
+                item.isDangerous(), item.getWeight());
+
+        log.debug("[PLAN] ═══ {} candidate racks in warehouse {} for item #{} (weight={}kg)",
+                racks.size(), request.getWarehouseId(), item.getId(), item.getWeight());
 
         List<RackCapacity> candidates = new ArrayList<>();
+        for (Rack rack : racks) {
+            validateRackDimensions(rack);
+        }
 
-        log.debug("[PLAN] ═══ SCANNING {} racks in warehouse {} for item #{} (weight={}kg)",
-                racks.size(), request.getWarehouseId(), item.getId(), item.getWeight());
+        // Zajętość regałów z indeksu w pamięci + aktywne rezerwacje kandydatów jednym pipeline'em Redis
+        Map<Long, RackOccupancy> occupancies = rackOccupancyIndex.getOccupancies(racks);
+        Map<Long, List<PositionReservationStore.Reservation>> reservationsByRack = racks.isEmpty()
+                ? Map.of()
+                : reservationStore.findActive(occupancies.keySet());
 
         for (Rack rack : racks) {
             // Pobierz wolne pozycje z uwzględnieniem rezerwacji innych użytkowników
-            RackCapacity capacity = resolveRackCapacityWithReservations(rack, item, user.getId(), now);
+            RackCapacity capacity = resolveRackCapacityWithReservations(rack, item, occupancies.get(rack.getId()),
+                    reservationsByRack.getOrDefault(rack.getId(), List.of()));
             if (capacity != null && capacity.availableCount() > 0) {
                 candidates.add(capacity);
                 log.debug("[PLAN] ✓ Rack #{} (marker={}, size={}x{}) → {} available positions",
                         rack.getId(), rack.getMarker(), rack.getSize_x(), rack.getSize_y(), capacity.availableCount());
             } else {
                 log.debug("[PLAN] ✗ Rack #{} (marker={}) SKIPPED | capacity={}",
-                        rack.getId(), rack.getMarker(), capacity == null ? "null (no match)" : capacity.availableCount());
+                        rack.getId(), rack.getMarker(), capacity == null ? "null (no space)" : capacity.availableCount());
             }
         }
 
@@ -96,7 +115,7 @@ public class InboundService {
 
         int remaining = request.getQuantity();
         List<PlacementSlotResponse> placements = new ArrayList<>();
-        List<PositionReservation> newReservations = new ArrayList<>();
+        List<PositionReservationStore.Position> newReservations = new ArrayList<>();
 
         // Zbieraj pozycje z wielu regałów, dopóki nie zbierzemy wszystkich lub nie skończą się regały
         for (RackCapacity capacity : candidates) {
@@ -108,52 +127,58 @@ public class InboundService {
             log.debug("[PLAN] → Allocating {} positions from Rack #{} (available: {}, remaining: {})",
                     allocate, capacity.rack().getId(), capacity.availableCount(), remaining);
 
-            // Grupuj koordynaty według bliskości (wypełnianie "wąż")
-            List<Coordinate> grouped = groupCoordinatesByProximity(capacity.freeCoordinates());
-
+            // Komórki są indeksowane wierszami (Y, potem X) - kolejne wolne dają wypełnianie "wąż"
+            RackOccupancy occupancy = capacity.occupancy();
+            int cell = -1;
             for (int i = 0; i < allocate; i++) {
-                Coordinate coordinate = grouped.get(i);
+                cell = RackOccupancy.nextFreeCell(capacity.blockedCells(), cell + 1, occupancy.getTotalCells());
+                int x = occupancy.cellX(cell);
+                int y = occupancy.cellY(cell);
                 PlacementSlotResponse slot = new PlacementSlotResponse();
                 slot.setRackId(capacity.rack().getId());
                 slot.setRackMarker(capacity.rack().getMarker());
-                slot.setPositionX(coordinate.x());
-                slot.setPositionY(coordinate.y());
+                slot.setPositionX(x);
+                slot.setPositionY(y);
                 placements.add(slot);
 
                 // Przygotuj rezerwację jeśli użytkownik tego zażądał
                 if (Boolean.TRUE.equals(request.getReserve())) {
-                    PositionReservation reservation = new PositionReservation(
-                            capacity.rack(),
-                            coordinate.x(),
-                            coordinate.y(),
-                            user,
-                            expiryTimestamp
-                    );
-                    newReservations.add(reservation);
+                    newReservations.add(new PositionReservationStore.Position(capacity.rack().getId(), x, y));
                 }
             }
             remaining -= allocate;
         }
 
-        // Zapisz rezerwacje jeśli użytkownik tego zażądał
+        int allocatedQuantity = request.getQuantity() - remaining;
+        if (allocatedQuantity == 0) {
+            log.warn("[PLAN] ✗ No positions allocated | requested: {} | available total: {}",
+                    request.getQuantity(), totalAvailable);
+            return PlacementPlanResult.noMatch(InventoryError.NO_REGALS_MATCH);
+        }
+
+        if (remaining > 0) {
+            log.warn("[PLAN] ⚠ Partial allocation | requested: {} | allocated: {} | remaining: {} | available was: {}",
+                    request.getQuantity(), allocatedQuantity, remaining, totalAvailable);
+            throw new IllegalArgumentException(InventoryError.INSUFFICIENT_SPACE.name());
+        }
+
+        // Zapisz rezerwacje dopiero po potwierdzeniu pełnej alokacji - Redis nie wycofa się razem z transakcją
         int reservedCount = 0;
         if (Boolean.TRUE.equals(request.getReserve()) && !newReservations.isEmpty()) {
-            try {
-                reservationRepository.saveAll(newReservations);
-                reservedCount = newReservations.size();
-                log.info("[RESERVATION] ✓ Created {} position reservations | User: {} | Expires: {}",
-                        reservedCount, user.getId(), expiryInstant);
-            } catch (DataIntegrityViolationException ex) {
+            if (!reservationStore.reserveAll(newReservations, user.getId(), expiryInstant)) {
                 // Konflikt - ktoś właśnie zarezerwował te same pozycje
                 log.warn("[RESERVATION] ✗ Conflict detected for User: {} | Someone reserved same positions", user.getId());
                 throw new IllegalArgumentException(InventoryError.PLACEMENT_INVALID.name());
             }
+            reservedCount = newReservations.size();
+            log.info("[RESERVATION] ✓ Created {} position reservations | User: {} | Expires: {}",
+                    reservedCount, user.getId(), expiryInstant);
         }
 
         PlacementPlanResponse response = new PlacementPlanResponse();
         response.setItemId(item.getId());
         response.setRequestedQuantity(request.getQuantity());
-        response.setAllocatedQuantity(request.getQuantity() - remaining);
+        response.setAllocatedQuantity(allocatedQuantity);
         response.setRemainingQuantity(remaining);
         response.setPlacements(placements);
         response.setReserved(Boolean.TRUE.equals(request.getReserve()));
@@ -163,18 +188,6 @@ public class InboundService {
             response.setReservedCount(reservedCount);
         }
 
-        if (response.getAllocatedQuantity() == 0) {
-            log.warn("[PLAN] ✗ No positions allocated | requested: {} | available total: {}",
-                    request.getQuantity(), totalAvailable);
-            return PlacementPlanResult.noMatch(InventoryError.NO_REGALS_MATCH);
-        }
-
-        if (remaining > 0) {
-            log.warn("[PLAN] ⚠ Partial allocation | requested: {} | allocated: {} | remaining: {} | available was: {}",
-                    request.getQuantity(), response.getAllocatedQuantity(), remaining, totalAvailable);
-            throw new IllegalArgumentException(InventoryError.INSUFFICIENT_SPACE.name());
-        }
-
         log.info("[PLAN] ✓ Full allocation successful | requested: {} | allocated from {} rack(s)",
                 request.getQuantity(), placements.stream().map(PlacementSlotResponse::getRackId).distinct().count());
 
@@ -222,15 +235,43 @@ public class InboundService {
         User user = userRepository.findById(AuthUtil.getCurrentAuthPrincipal().getUserId())
                 .orElseThrow(() -> new IllegalArgumentException(InventoryError.USER_NOT_FOUND.name()));
 
-        Timestamp now = Timestamp.from(Instant.now());
-
         Map<Long, List<PlacementSlotRequest>> placementsByRack = new HashMap<>();
         for (PlacementSlotRequest slot : request.getPlacements()) {
             placementsByRack.computeIfAbsent(slot.getRackId(), ignored -> new ArrayList<>()).add(slot);
         }
 
+        // Regały, zajęte pozycje i aktywne rezerwacje dla wszystkich regałów z żądania:
+        // jedno zapytanie na tabelę + jeden pipeline Redis, niezależnie od liczby slotów
+        Map<Long, Rack> racksById = new HashMap<>();
+        for (Rack rack : rackRepository.findAllById(placementsByRack.keySet())) {
+            racksById.put(rack.getId(), rack);
+        }
+        if (racksById.size() != placementsByRack.size()) {
+            throw new IllegalArgumentException(InventoryError.PLACEMENT_INVALID.name());
+        }
+        Map<Long, RackLoad> loadsByRack = new HashMap<>();
+        Set<Long> occupied = new HashSet<>();
+        for (RackOccupancyProjection row : assortmentRepository.findOccupancyByRackIds(placementsByRack.keySet())) {
+            Rack rack = racksById.get(row.getRackId());
+            RackLoad load = loadsByRack.computeIfAbsent(row.getRackId(), ignored -> new RackLoad());
+            load.assortmentCount++;
+            load.weight += row.getWeight() != null ? row.getWeight() : 0f;
+            if (isWithinRack(rack, row.getPositionX(), row.getPositionY())
+                    && occupied.add(packPosition(rack.getId(), row.getPositionX(), row.getPositionY()))) {
+                load.occupiedCells++;
+            }
+        }
+        Map<Long, PositionReservationStore.Reservation> reserved = new HashMap<>();
+        for (List<PositionReservationStore.Reservation> reservations : reservationStore.findActive(placementsByRack.keySet()).values()) {
+            for (PositionReservationStore.Reservation reservation : reservations) {
+                if (isWithinRack(racksById.get(reservation.rackId()), reservation.positionX(), reservation.positionY())) {
+                    reserved.put(packPosition(reservation.rackId(), reservation.positionX(), reservation.positionY()), reservation);
+                }
+            }
+        }
+
         List<Assortment> newAssortments = new ArrayList<>();
-        List<PositionReservation> reservationsToDelete = new ArrayList<>();
+        List<PositionReservationStore.Position> reservationsToRelease = new ArrayList<>();
         Timestamp createdAt = Timestamp.from(Instant.now());
         Timestamp expiresAt = null;
         if (item.getExpireAfterDays() != null) {
@@ -240,48 +281,39 @@ public class InboundService {
         barcodeService.ensureItemCode(item);
         barcodeService.ensureItemQrCode(item);
 
+        Set<Long> usedInRequest = new HashSet<>();
         for (Map.Entry<Long, List<PlacementSlotRequest>> entry : placementsByRack.entrySet()) {
-            Rack rack = rackRepository.findById(entry.getKey())
-                    .orElseThrow(() -> new IllegalArgumentException(InventoryError.PLACEMENT_INVALID.name()));
+            Rack rack = racksById.get(entry.getKey());
             validateRackDimensions(rack);
             validateItemRackCompatibility(rack, item);
-            List<Assortment> existingAssortments = assortmentRepository.findByRackId(rack.getId());
-            RackCapacity capacity = resolveRackCapacity(rack, item, existingAssortments);
+            int availableCount = resolveAvailableCount(rack, item,
+                    loadsByRack.getOrDefault(rack.getId(), RackLoad.EMPTY));
             int neededSlots = entry.getValue().size();
-            if (capacity == null || neededSlots > capacity.availableCount()) {
+            if (neededSlots > availableCount) {
                 throw new IllegalArgumentException(InventoryError.PLACEMENT_INVALID.name());
             }
-            Set<Coordinate> occupied = new HashSet<>();
-            for (Assortment assortment : existingAssortments) {
-                if (assortment.getPositionX() != null && assortment.getPositionY() != null) {
-                    occupied.add(new Coordinate(assortment.getPositionX(), assortment.getPositionY()));
-                }
-            }
-            Set<Coordinate> usedInRequest = new HashSet<>();
             for (PlacementSlotRequest slot : entry.getValue()) {
-                if (slot.getPositionX() < 1 || slot.getPositionX() > rack.getSize_x()
-                        || slot.getPositionY() < 1 || slot.getPositionY() > rack.getSize_y()) {
+                if (!isWithinRack(rack, slot.getPositionX(), slot.getPositionY())) {
                     throw new IllegalArgumentException(InventoryError.PLACEMENT_INVALID.name());
                 }
-                Coordinate coordinate = new Coordinate(slot.getPositionX(), slot.getPositionY());
-                if (occupied.contains(coordinate) || !usedInRequest.add(coordinate)) {
+                long position = packPosition(rack.getId(), slot.getPositionX(), slot.getPositionY());
+                if (occupied.contains(position) || !usedInRequest.add(position)) {
                     throw new IllegalArgumentException(InventoryError.PLACEMENT_INVALID.name());
                 }
 
                 // Sprawdź rezerwację dla tej pozycji
-                Optional<PositionReservation> existingReservation = reservationRepository
-                        .findActiveReservation(rack.getId(), slot.getPositionX(), slot.getPositionY(), now);
+                PositionReservationStore.Reservation reservation = reserved.get(position);
 
-                if (existingReservation.isPresent()) {
-                    PositionReservation reservation = existingReservation.get();
+                if (reservation != null) {
                     // Jeśli rezerwacja należy do innego użytkownika - odrzuć
                     if (!reservation.belongsTo(user.getId())) {
                         log.warn("[CONFIRM] ✗ Position ({},{}) in Rack #{} is reserved by another user",
                                 slot.getPositionX(), slot.getPositionY(), rack.getId());
                         throw new IllegalArgumentException(InventoryError.PLACEMENT_INVALID.name());
                     }
-                    // Rezerwacja należy do tego użytkownika - zaplanuj do usunięcia
-                    reservationsToDelete.add(reservation);
+                    // Rezerwacja należy do tego użytkownika - zaplanuj do zwolnienia
+                    reservationsToRelease.add(new PositionReservationStore.Position(
+                            rack.getId(), slot.getPositionX(), slot.getPositionY()));
                     log.debug("[CONFIRM] ✓ Position ({},{}) in Rack #{} reserved by current user - will release",
                             slot.getPositionX(), slot.getPositionY(), rack.getId());
                 }
@@ -320,14 +352,23 @@ public class InboundService {
         }
         inboundOperationRepository.saveAll(inboundOperations);
 
+        // Aktualizuj indeks zajętości (zastosowane po commicie transakcji)
+        for (Assortment assortment : newAssortments) {
+            rackOccupancyIndex.recordPlacement(assortment.getRack().getId(),
+                    assortment.getPositionX(), assortment.getPositionY(), item);
+        }
+
         log.info("[AUDIT] ✓ Created {} inbound operation audit records | User: {} | Item: {}",
                 inboundOperations.size(), user.getId(), item.getId());
 
-        // Usuń rezerwacje po udanym umieszczeniu
-        if (!reservationsToDelete.isEmpty()) {
-            reservationRepository.deleteAll(reservationsToDelete);
-            log.info("[CONFIRM] ✓ Released {} position reservations after successful placement | User: {}",
-                    reservationsToDelete.size(), user.getId());
+        // Usuń rezerwacje po udanym umieszczeniu (dopiero po commicie - nieudany commit zostawia rezerwacje użytkownika)
+        if (!reservationsToRelease.isEmpty()) {
+            Long userId = user.getId();
+            afterCommit(() -> {
+                long released = reservationStore.releaseAll(reservationsToRelease, userId);
+                log.info("[CONFIRM] ✓ Released {} position reservations after successful placement | User: {}",
+                        released, userId);
+            });
         }
 
         PlacementConfirmationResponse response = new PlacementConfirmationResponse();
@@ -339,6 +380,19 @@ public class InboundService {
         return response;
     }
 
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     private static InboundOperation getInboundOperation(Assortment assortment, User user, Timestamp createdAt) {
         InboundOperation operation = new InboundOperation();
         operation.setItemName(assortment.getItem().getName());
@@ -357,81 +411,75 @@ public class InboundService {
      * Validates if item can be placed on rack. Throws detailed exceptions for placement validation.
      */
     private void validateItemRackCompatibility(Rack rack, Item item) {
+        InventoryError incompatibility = findIncompatibility(rack, item);
+        if (incompatibility != null) {
+            throw new IllegalArgumentException(incompatibility.name());
+        }
+    }
+
+    /**
+     * Returns the first reason why item cannot be placed on rack, or null if it fits.
+     */
+    private InventoryError findIncompatibility(Rack rack, Item item) {
         Objects.requireNonNull(rack, "rack");
         Objects.requireNonNull(item, "item");
 
         if (item.isDangerous() && !rack.isAcceptsDangerous()) {
             log.debug("[MATCH] ✗ Rack #{} rejected: item is dangerous but rack doesn't accept dangerous items",
                     rack.getId());
-            throw new IllegalArgumentException(InventoryError.RACK_DOES_NOT_ACCEPT_DANGEROUS_ITEMS.name());
+            return InventoryError.RACK_DOES_NOT_ACCEPT_DANGEROUS_ITEMS;
         }
 
         if (rack.getMin_temp() < item.getMin_temp()) {
             log.debug("[MATCH] ✗ Rack #{} rejected: rack.min_temp ({}) < item.min_temp ({}) - rack goes below item tolerance",
                     rack.getId(), rack.getMin_temp(), item.getMin_temp());
-            throw new IllegalArgumentException(InventoryError.RACK_TEMP_MIN_BELOW_ITEM_TOLERANCE.name());
+            return InventoryError.RACK_TEMP_MIN_BELOW_ITEM_TOLERANCE;
         }
 
         if (rack.getMax_temp() > item.getMax_temp()) {
             log.debug("[MATCH] ✗ Rack #{} rejected: rack.max_temp ({}) > item.max_temp ({}) - rack exceeds item tolerance",
                     rack.getId(), rack.getMax_temp(), item.getMax_temp());
-            throw new IllegalArgumentException(InventoryError.RACK_TEMP_MAX_ABOVE_ITEM_TOLERANCE.name());
+            return InventoryError.RACK_TEMP_MAX_ABOVE_ITEM_TOLERANCE;
         }
 
         if (!lessOrEqualWithEps(item.getSize_x(), rack.getMax_size_x())) {
             log.debug("[MATCH] ✗ Rack #{} rejected: item.size_x ({}) > rack.max_size_x ({})",
                     rack.getId(), item.getSize_x(), rack.getMax_size_x());
-            throw new IllegalArgumentException(InventoryError.ITEM_SIZE_X_EXCEEDS_RACK_LIMIT.name());
+            return InventoryError.ITEM_SIZE_X_EXCEEDS_RACK_LIMIT;
         }
 
         if (!lessOrEqualWithEps(item.getSize_y(), rack.getMax_size_y())) {
             log.debug("[MATCH] ✗ Rack #{} rejected: item.size_y ({}) > rack.max_size_y ({})",
                     rack.getId(), item.getSize_y(), rack.getMax_size_y());
-            throw new IllegalArgumentException(InventoryError.ITEM_SIZE_Y_EXCEEDS_RACK_LIMIT.name());
+            return InventoryError.ITEM_SIZE_Y_EXCEEDS_RACK_LIMIT;
         }
 
         if (!lessOrEqualWithEps(item.getSize_z(), rack.getMax_size_z())) {
             log.debug("[MATCH] ✗ Rack #{} rejected: item.size_z ({}) > rack.max_size_z ({})",
                     rack.getId(), item.getSize_z(), rack.getMax_size_z());
-            throw new IllegalArgumentException(InventoryError.ITEM_SIZE_Z_EXCEEDS_RACK_LIMIT.name());
+            return InventoryError.ITEM_SIZE_Z_EXCEEDS_RACK_LIMIT;
         }
+        return null;
     }
 
-    /**
-     * Legacy method - returns boolean for plan filtering
-     */
     private boolean rackMatchesItem(Rack rack, Item item) {
-        try {
-            validateItemRackCompatibility(rack, item);
-            return true;
-        } catch (IllegalArgumentException e) {
-            return false;
-        }
+        return findIncompatibility(rack, item) == null;
     }
 
     private boolean lessOrEqualWithEps(double a, double b) {
         return a <= b || Math.abs(a - b) < EPS;
     }
 
-    private RackCapacity resolveRackCapacity(Rack rack, Item item) {
-        List<Assortment> assortments = assortmentRepository.findByRackId(rack.getId());
-        return resolveRackCapacity(rack, item, assortments);
-    }
-
-    private RackCapacity resolveRackCapacity(Rack rack, Item item, List<Assortment> assortments) {
+    private int resolveAvailableCount(Rack rack, Item item, RackLoad load) {
         validateRackDimensions(rack);
         if (!rackMatchesItem(rack, item)) {
-            return null;
+            return 0;
         }
 
-        // Oblicz aktualnie załadowaną wagę
-        double currentLoad = assortments.stream()
-                .map(Assortment::getItem)
-                .mapToDouble(Item::getWeight)
-                .sum();
+        double currentLoad = load.weight;
 
         int totalSlots = safeTotalSlots(rack);
-        int occupiedSlots = assortments.size();
+        int occupiedSlots = load.assortmentCount;
         int availableSlots = Math.max(0, totalSlots - occupiedSlots);
         double itemWeight = item.getWeight();
 
@@ -454,40 +502,23 @@ public class InboundService {
         }
 
         if (maxByWeight <= 0 || availableSlots <= 0) {
-            return null;
+            return 0;
         }
 
-        List<Coordinate> freeCoordinates = findFreeCoordinates(rack, assortments);
-        int availableCount = Math.min(Math.min(availableSlots, maxByWeight), freeCoordinates.size());
-        if (availableCount <= 0) {
-            return null;
-        }
-        return new RackCapacity(rack, availableCount, freeCoordinates);
+        int freeCells = totalSlots - load.occupiedCells;
+        return Math.max(0, Math.min(Math.min(availableSlots, maxByWeight), freeCells));
     }
 
-    private List<Coordinate> findFreeCoordinates(Rack rack, List<Assortment> assortments) {
-        validateRackDimensions(rack);
-        Set<Coordinate> occupied = new HashSet<>();
-        for (Assortment assortment : assortments) {
-            if (assortment.getPositionX() == null || assortment.getPositionY() == null) {
-                continue;
-            }
-            int x = assortment.getPositionX();
-            int y = assortment.getPositionY();
-            if (x >= 1 && x <= rack.getSize_x() && y >= 1 && y <= rack.getSize_y()) {
-                occupied.add(new Coordinate(x, y));
-            }
-        }
-        List<Coordinate> free = new ArrayList<>();
-        for (int x = 1; x <= rack.getSize_x(); x++) {
-            for (int y = 1; y <= rack.getSize_y(); y++) {
-                Coordinate coord = new Coordinate(x, y);
-                if (!occupied.contains(coord)) {
-                    free.add(coord);
-                }
-            }
-        }
-        return free;
+    private static boolean isWithinRack(Rack rack, Integer x, Integer y) {
+        return x != null && y != null && x >= 1 && x <= rack.getSize_x() && y >= 1 && y <= rack.getSize_y();
+    }
+
+    /**
+     * Pakuje (rackId, x, y) w jeden long - klucz zbiorów zajętych i zarezerwowanych pozycji.
+     * Wymaga x, y w granicach regału (najwyżej {@link #MAX_RACK_SIDE}).
+     */
+    private static long packPosition(long rackId, int x, int y) {
+        return (rackId << (2 * POSITION_BITS)) | ((long) x << POSITION_BITS) | y;
     }
 
     private void validateRackDimensions(Rack rack) {
@@ -534,28 +565,16 @@ public class InboundService {
      * Rozwiązuje pojemność regału z uwzględnieniem rezerwacji.
      * WSZYSTKIE aktywne rezerwacje są wykluczane z dostępnych pozycji,
      * aby uniknąć duplikatów przy wielokrotnym wywołaniu /plan.
+     * Liczba zajętych slotów, obciążenie i mapa wolnych komórek pochodzą z jednego źródła -
+     * indeksu zajętości w pamięci - więc są ze sobą spójne i nie wymagają zapytań per regał.
      */
-    private RackCapacity resolveRackCapacityWithReservations(Rack rack, Item item, Long userId, Timestamp now) {
-        validateRackDimensions(rack);
-        if (!rackMatchesItem(rack, item)) {
-            return null;
-        }
-
-        List<Assortment> assortments = assortmentRepository.findByRackId(rack.getId());
-
-        // Pobierz WSZYSTKIE aktywne rezerwacje dla tego regału (włącznie z własnymi)
-        // Dzięki temu unikamy duplikatów przy wielokrotnym wywołaniu /plan
-        List<PositionReservation> allActiveReservations = reservationRepository
-                .findActiveReservationsForRack(rack.getId(), now);
-
-        // Oblicz aktualnie załadowaną wagę
-        double currentLoad = assortments.stream()
-                .map(Assortment::getItem)
-                .mapToDouble(Item::getWeight)
-                .sum();
+    private RackCapacity resolveRackCapacityWithReservations(Rack rack, Item item, RackOccupancy occupancy,
+                                                             List<PositionReservationStore.Reservation> allActiveReservations) {
+        RackOccupancy.Snapshot snapshot = occupancy.snapshot();
+        double currentLoad = snapshot.load();
 
         int totalSlots = safeTotalSlots(rack);
-        int occupiedSlots = assortments.size();
+        int occupiedSlots = snapshot.assortmentCount();
         // Uwzględnij WSZYSTKIE rezerwacje jako zajęte sloty
         int reservedCount = allActiveReservations.size();
         int availableSlots = Math.max(0, totalSlots - occupiedSlots - reservedCount);
@@ -581,56 +600,26 @@ public class InboundService {
             return null;
         }
 
-        // Znajdź wolne koordynaty, wykluczając WSZYSTKIE zarezerwowane pozycje
-        List<Coordinate> freeCoordinates = findFreeCoordinatesWithReservations(rack, assortments, allActiveReservations);
-        int availableCount = Math.min(Math.min(availableSlots, maxByWeight), freeCoordinates.size());
+        // Zablokowane komórki = zajęte przez produkty + zarezerwowane (przez kogokolwiek)
+        long[] blockedCells = snapshot.cells();
+        for (PositionReservationStore.Reservation reservation : allActiveReservations) {
+            int cell = occupancy.cellIndex(reservation.positionX(), reservation.positionY());
+            if (cell >= 0) {
+                RackOccupancy.markCell(blockedCells, cell);
+            }
+        }
+        int freeCells = totalSlots - RackOccupancy.countMarked(blockedCells);
+        int availableCount = Math.min(Math.min(availableSlots, maxByWeight), freeCells);
 
         log.debug("[CAPACITY] Rack #{} | totalSlots={} | occupied={} | reserved={} | availableSlots={} | " +
-                        "maxByWeight={} | freeCoords={} | FINAL={} | currentLoad={}kg | maxWeight={}kg",
+                        "maxByWeight={} | freeCells={} | FINAL={} | currentLoad={}kg | maxWeight={}kg",
                 rack.getId(), totalSlots, occupiedSlots, reservedCount, availableSlots,
-                maxByWeight, freeCoordinates.size(), availableCount, currentLoad, rack.getMax_weight());
+                maxByWeight, freeCells, availableCount, currentLoad, rack.getMax_weight());
 
         if (availableCount <= 0) {
             return null;
         }
-        return new RackCapacity(rack, availableCount, freeCoordinates);
-    }
-
-    /**
-     * Znajduje wolne koordynaty, wykluczając zajęte przez produkty i zarezerwowane przez innych.
-     */
-    private List<Coordinate> findFreeCoordinatesWithReservations(Rack rack, List<Assortment> assortments,
-                                                                 List<PositionReservation> reservations) {
-        validateRackDimensions(rack);
-        Set<Coordinate> occupied = new HashSet<>();
-
-        // Zajęte przez produkty
-        for (Assortment assortment : assortments) {
-            if (assortment.getPositionX() == null || assortment.getPositionY() == null) {
-                continue;
-            }
-            int x = assortment.getPositionX();
-            int y = assortment.getPositionY();
-            if (x >= 1 && x <= rack.getSize_x() && y >= 1 && y <= rack.getSize_y()) {
-                occupied.add(new Coordinate(x, y));
-            }
-        }
-
-        // Zarezerwowane przez innych użytkowników
-        for (PositionReservation reservation : reservations) {
-            occupied.add(new Coordinate(reservation.getPositionX(), reservation.getPositionY()));
-        }
-
-        List<Coordinate> free = new ArrayList<>();
-        for (int x = 1; x <= rack.getSize_x(); x++) {
-            for (int y = 1; y <= rack.getSize_y(); y++) {
-                Coordinate coord = new Coordinate(x, y);
-                if (!occupied.contains(coord)) {
-                    free.add(coord);
-                }
-            }
-        }
-        return free;
+        return new RackCapacity(rack, availableCount, occupancy, blockedCells);
     }
 
     /**
@@ -664,23 +653,6 @@ public class InboundService {
         return result;
     }
 
-    /**
-     * Grupuje koordynaty według bliskości - wypełnianie "wąż".
-     * Sortuje po Y (rząd), potem po X (pozycja w rzędzie).
-     */
-    private List<Coordinate> groupCoordinatesByProximity(List<Coordinate> coordinates) {
-        if (coordinates.isEmpty()) {
-            return coordinates;
-        }
-
-        List<Coordinate> sorted = new ArrayList<>(coordinates);
-        sorted.sort(Comparator
-                .comparingInt(Coordinate::y)
-                .thenComparing(Coordinate::x));
-
-        return sorted;
-    }
-
     public record PlacementPlanResult(boolean success, InventoryError code, PlacementPlanResponse response) {
         public static PlacementPlanResult noMatch(InventoryError code) {
             return new PlacementPlanResult(false, code, null);
@@ -691,9 +663,17 @@ public class InboundService {
         }
     }
 
-    private record Coordinate(int x, int y) {
+    /**
+     * Zajętość regału wyliczona z jednego zapytania o wszystkie regały potwierdzenia.
+     */
+    private static final class RackLoad {
+        private static final RackLoad EMPTY = new RackLoad();
+
+        private int assortmentCount;
+        private int occupiedCells;
+        private double weight;
     }
 
-    private record RackCapacity(Rack rack, int availableCount, List<Coordinate> freeCoordinates) {
+    private record RackCapacity(Rack rack, int availableCount, RackOccupancy occupancy, long[] blockedCells) {
     }
 }
@@ -5,6 +5,8 @@ import com.github.dawid_stolarczyk.magazyn.Controller.Dto.ItemCreateRequest;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.ItemDto;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.ItemImageDto;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.ItemUpdateRequest;
+import com.github.dawid_stolarczyk.magazyn.Crypto.CiphertextSource;
+import com.github.dawid_stolarczyk.magazyn.Crypto.EncryptedBlob;
 import com.github.dawid_stolarczyk.magazyn.Crypto.FileCryptoService;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Item;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.ItemImage;
@@ -24,6 +26,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpRange;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
@@ -55,6 +58,7 @@ public class ItemService {
     private final ImageEmbeddingService imageEmbeddingService;
     private final BackgroundRemovalService backgroundRemovalService;
     private final TransactionTemplate transactionTemplate;
+    private final RackOccupancyIndex rackOccupancyIndex;
     @Qualifier("asyncTaskExecutor")
     private final AsyncTaskExecutor asyncTaskExecutor;
 
@@ -213,7 +217,16 @@ public class ItemService {
         rateLimiter.consumeOrThrow(getClientIp(httpRequest), RateLimitOperation.INVENTORY_WRITE);
         Item item = itemRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException(InventoryError.ITEM_NOT_FOUND.name()));
+        float previousWeight = item.getWeight();
+        float previousMinTemp = item.getMin_temp();
+        float previousMaxTemp = item.getMax_temp();
         updateItemFromRequest(item, request);
+        if (Float.compare(previousWeight, item.getWeight()) != 0
+                || Float.compare(previousMinTemp, item.getMin_temp()) != 0
+                || Float.compare(previousMaxTemp, item.getMax_temp()) != 0) {
+            // Obciążenie i tolerancje temperatur regałów z tym produktem są nieaktualne
+            rackOccupancyIndex.invalidateAll();
+        }
         return mapToDto(itemRepository.save(item));
     }
 
@@ -224,6 +237,8 @@ public class ItemService {
             throw new IllegalArgumentException(InventoryError.ITEM_NOT_FOUND.name());
         }
         itemRepository.deleteById(id);
+        // Usunięcie produktu kaskadowo usuwa jego assortmenty
+        rackOccupancyIndex.invalidateAll();
     }
 
     /**
@@ -445,6 +460,62 @@ public class ItemService {
         }
     }
 
+    /**
+     * A byte range of a decrypted photo; {@code data} is null when the range lies past the end of the photo.
+     */
+    public record PhotoRange(byte[] data, long start, long end, long total) {
+    }
+
+    /**
+     * Downloads a byte range of the item's primary photo. Only the encrypted segments covering the range are fetched
+     * and decrypted.
+     */
+    public PhotoRange downloadPhotoRange(Long id, HttpRange range, HttpServletRequest request) throws Exception {
+        rateLimiter.consumeOrThrow(getClientIp(request), RateLimitOperation.INVENTORY_READ);
+        Item item = itemRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException(InventoryError.ITEM_NOT_FOUND.name()));
+
+        if (item.getPhoto_url() == null) {
+            throw new IllegalArgumentException("PHOTO_NOT_FOUND");
+        }
+        return readPhotoRange(item.getPhoto_url(), range);
+    }
+
+    /**
+     * Downloads a byte range of a specific photo by image ID.
+     */
+    public PhotoRange downloadPhotoRangeByImageId(Long itemId, Long imageId, HttpRange range,
+                                                  HttpServletRequest request) throws Exception {
+        rateLimiter.consumeOrThrow(getClientIp(request), RateLimitOperation.INVENTORY_READ);
+        ItemImage image = itemImageRepository.findById(imageId)
+                .filter(img -> img.getItem().getId().equals(itemId))
+                .orElseThrow(() -> new IllegalArgumentException(InventoryError.IMAGE_NOT_FOUND.name()));
+        return readPhotoRange(image.getPhotoUrl(), range);
+    }
+
+    private PhotoRange readPhotoRange(String photoUrl, HttpRange range) throws Exception {
+        EncryptedBlob blob = fileCryptoService.open(new CiphertextSource() {
+            @Override
+            public long size() throws Exception {
+                return storageService.size(photoUrl);
+            }
+
+            @Override
+            public InputStream open(long start, long endInclusive) throws Exception {
+                return storageService.downloadRange(photoUrl, start, endInclusive);
+            }
+        });
+        long total = blob.plaintextLength();
+        long start = range.getRangeStart(total);
+        if (start >= total) {
+            return new PhotoRange(null, 0, 0, total);
+        }
+        long end = range.getRangeEnd(total);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream((int) (end - start + 1));
+        blob.decryptRange(start, end - start + 1, baos);
+        return new PhotoRange(baos.toByteArray(), start, end, total);
+    }
+
     @Transactional
     public List<String> uploadPhotosBatch(List<MultipartFile> files) throws Exception {
         List<String> results = new ArrayList<>();
@@ -1,23 +1,34 @@
 package com.github.dawid_stolarczyk.magazyn.Services.Inventory;
 
+import com.github.dawid_stolarczyk.magazyn.Common.ConfigurationConstants;
 import com.github.dawid_stolarczyk.magazyn.Common.Enums.InventoryError;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.*;
+import com.github.dawid_stolarczyk.magazyn.Exception.ResourceLockedException;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Assortment;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Item;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.OutboundOperation;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Rack;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.User;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.*;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.OldestAvailableProjection;
 import com.github.dawid_stolarczyk.magazyn.Security.Auth.AuthUtil;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.RateLimitOperation;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.*;
 
 import static com.github.dawid_stolarczyk.magazyn.Utils.InternetUtils.getClientIp;
 
@@ -25,6 +36,9 @@ import static com.github.dawid_stolarczyk.magazyn.Utils.InternetUtils.getClientI
 @RequiredArgsConstructor
 @Slf4j
 public class OutboundService {
+    private static final int DEFAULT_FIFO_PREVIEW = 10;
+    private static final int MAX_PLAN_PAGE_SIZE = 500;
+    private static final int MAX_WAVE_SLOTS = 5000;
 
     private final AssortmentRepository assortmentRepository;
     private final ItemRepository itemRepository;
@@ -33,11 +47,22 @@ public class OutboundService {
     private final OutboundOperationRepository outboundOperationRepository;
     private final Bucket4jRateLimiter rateLimiter;
     private final SmartCodeService smartCodeService;
+    private final RackOccupancyIndex rackOccupancyIndex;
+    @Qualifier("pickRouteExecutor")
+    private final AsyncTaskExecutor pickRouteExecutor;
+
+    @Value("${app.outbound.route.time-budget-ms:2000}")
+    private long routeTimeBudgetMs;
 
     /**
      * Plan: zwraca FIFO-ordered pick list dla podanego produktu.
      * Wyklucza wygasłe assortmenty.
      * Zwraca ostrzeżenie jeśli wszystkie assortmenty wygasły.
+     * <p>
+     * Ładowane jest tylko {@code quantity} najstarszych assortmentów (LIMIT), a stany liczone są agregatami COUNT,
+     * więc pamięć i czas zależą od żądanej ilości, a nie od stanu magazynowego.
+     * Przy podanym {@code pageSize} plan zwracany jest stronami (keyset na createdAt, id) - kolejną stronę
+     * pobiera się przekazując {@code nextCursor} z poprzedniej odpowiedzi.
      */
     public OutboundPlanResponse plan(OutboundPlanRequest request, HttpServletRequest httpRequest) {
         rateLimiter.consumeOrThrow(getClientIp(httpRequest), RateLimitOperation.INVENTORY_READ);
@@ -45,43 +70,191 @@ public class OutboundService {
         Item item = itemRepository.findById(request.getItemId())
                 .orElseThrow(() -> new IllegalArgumentException(InventoryError.ITEM_NOT_FOUND.name()));
 
-        // Znajdź niewygasłe assortmenty w kolejności FIFO
-        List<Assortment> fifoOrdered = assortmentRepository.findByItemIdFifoOrdered(item.getId());
-
-        // Znajdź wygasłe assortmenty (dla raportowania)
-        List<Assortment> expired = assortmentRepository.findExpiredByItemId(item.getId());
-
-        int limit = Math.min(request.getQuantity(), fifoOrdered.size());
-        List<OutboundPickSlot> pickSlots = fifoOrdered.stream()
-                .limit(limit)
-                .map(this::mapToPickSlot)
-                .toList();
+        PlanCursor cursor = request.getCursor() != null ? PlanCursor.decode(request.getCursor()) : null;
+        int alreadyPlanned = cursor != null ? cursor.planned() : 0;
+        int remaining = Math.max(0, request.getQuantity() - alreadyPlanned);
+        int limit = request.getPageSize() != null
+                ? Math.min(remaining, Math.min(request.getPageSize(), MAX_PLAN_PAGE_SIZE))
+                : remaining;
+
+        // Pobierz tylko potrzebne assortmenty w kolejności FIFO (niewygasłe)
+        List<Assortment> page = List.of();
+        if (limit > 0) {
+            PageRequest pageable = PageRequest.of(0, limit);
+            page = cursor == null
+                    ? assortmentRepository.findFifoPage(item.getId(), pageable)
+                    : assortmentRepository.findFifoPageAfter(item.getId(), cursor.createdAt(), cursor.assortmentId(), pageable);
+        }
+        List<OutboundPickSlot> pickSlots = page.stream().map(this::mapToPickSlot).toList();
+
+        // Stany policz agregatami (wygasłe tylko dla raportowania)
+        long available = assortmentRepository.countAvailableByItemId(item.getId());
+        long expired = assortmentRepository.countExpiredByItemId(item.getId());
+
+        // Kolejna strona tylko gdy ta była pełna i nie zaplanowano jeszcze całej ilości
+        String nextCursor = null;
+        int planned = alreadyPlanned + page.size();
+        if (request.getPageSize() != null && page.size() == limit && planned < request.getQuantity()) {
+            Assortment last = page.get(page.size() - 1);
+            if (last.getCreatedAt() != null) {
+                nextCursor = new PlanCursor(planned, last.getCreatedAt(), last.getId()).encode();
+            }
+        }
 
         // Generuj ostrzeżenie jeśli brak dostępnych assortmentów, ale są wygasłe
         String warning = null;
-        if (fifoOrdered.isEmpty() && !expired.isEmpty()) {
+        if (available == 0 && expired > 0) {
             warning = String.format("All %d assortments have expired. Cannot fulfill outbound request.",
-                    expired.size());
-        } else if (fifoOrdered.size() < request.getQuantity() && !expired.isEmpty()) {
+                    expired);
+        } else if (available < request.getQuantity() && expired > 0) {
             warning = String.format("Only %d non-expired assortments available (requested: %d). %d assortments have expired.",
-                    fifoOrdered.size(), request.getQuantity(), expired.size());
+                    available, request.getQuantity(), expired);
         }
 
         return OutboundPlanResponse.builder()
                 .itemId(item.getId())
                 .itemName(item.getName())
                 .requestedQuantity(request.getQuantity())
-                .availableQuantity((long) fifoOrdered.size())
-                .expiredQuantity((long) expired.size())
+                .availableQuantity(available)
+                .expiredQuantity(expired)
                 .warning(warning)
                 .pickSlots(pickSlots)
+                .nextCursor(nextCursor)
                 .build();
     }
 
+    /**
+     * Wave plan: planuje wydanie wielu produktów naraz i wyznacza trasę kompletacji przez regały.
+     * Dla każdego produktu wybierane są najstarsze niewygasłe assortmenty (FIFO, jak w {@link #plan}),
+     * a kolejność odwiedzania ustala {@link PickRouteSolver} na podstawie markerów regałów i pozycji x/y.
+     * Kolejność na trasie nie wpływa na zgodność z FIFO - całą falę wydaje się jednym execute.
+     */
+    public OutboundWavePlanResponse planWave(OutboundWavePlanRequest request, HttpServletRequest httpRequest) {
+        rateLimiter.consumeOrThrow(getClientIp(httpRequest), RateLimitOperation.INVENTORY_READ);
+
+        // Scal linie dotyczące tego samego produktu
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OutboundWaveLine line : request.getLines()) {
+            quantities.merge(line.getItemId(), line.getQuantity(), Integer::sum);
+        }
+
+        Map<Long, Item> items = new HashMap<>();
+        for (Item item : itemRepository.findAllById(quantities.keySet())) {
+            items.put(item.getId(), item);
+        }
+        if (items.size() != quantities.size()) {
+            throw new IllegalArgumentException(InventoryError.ITEM_NOT_FOUND.name());
+        }
+
+        List<OutboundWaveLineResult> lineResults = new ArrayList<>(quantities.size());
+        List<Assortment> stops = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Item item = items.get(entry.getKey());
+            int requested = entry.getValue();
+            int limit = Math.min(requested, MAX_WAVE_SLOTS - stops.size());
+
+            List<Assortment> selected = limit > 0
+                    ? assortmentRepository.findFifoPage(item.getId(), PageRequest.of(0, limit))
+                    : List.of();
+            stops.addAll(selected);
+
+            String warning = null;
+            if (selected.size() < limit) {
+                warning = String.format("Only %d non-expired assortments available (requested: %d)",
+                        selected.size(), requested);
+            } else if (limit < requested) {
+                warning = String.format("Wave limit of %d pick slots reached, planned %d of %d",
+                        MAX_WAVE_SLOTS, selected.size(), requested);
+            }
+
+            lineResults.add(OutboundWaveLineResult.builder()
+                    .itemId(item.getId())
+                    .itemName(item.getName())
+                    .requestedQuantity(requested)
+                    .plannedQuantity(selected.size())
+                    .warning(warning)
+                    .build());
+        }
+
+        PickRouteSolver solver = buildRouteSolver(stops);
+        int[] order = solver.solve(pickRouteExecutor, routeTimeBudgetMs);
+        List<OutboundPickSlot> route = new ArrayList<>(order.length);
+        for (int index : order) {
+            route.add(mapToPickSlot(stops.get(index)));
+        }
+
+        log.debug("[OUTBOUND] Wave plan: {} lines, {} stops, route distance {}",
+                request.getLines().size(), stops.size(), solver.routeLength(order));
+
+        return OutboundWavePlanResponse.builder()
+                .lines(lineResults)
+                .route(route)
+                .routeDistance(solver.routeLength(order))
+                .build();
+    }
+
+    /**
+     * Mapuje przystanki na prymitywne współrzędne solvera. Strefa i alejka pochodzą z markera regału
+     * (pierwszy znak / reszta, jak przy grupowaniu regałów w InboundService) i są zamieniane na rangi,
+     * żeby sąsiednie alejki miały sąsiednie indeksy.
+     */
+    private PickRouteSolver buildRouteSolver(List<Assortment> stops) {
+        int n = stops.size();
+        Long[] warehouseKeys = new Long[n];
+        String[] zoneKeys = new String[n];
+        String[] aisleKeys = new String[n];
+        int[] posX = new int[n];
+        int[] posY = new int[n];
+        for (int i = 0; i < n; i++) {
+            Assortment stop = stops.get(i);
+            Rack rack = stop.getRack();
+            String marker = rack.getMarker() != null ? rack.getMarker() : "";
+            warehouseKeys[i] = rack.getWarehouse() != null ? rack.getWarehouse().getId() : 0L;
+            zoneKeys[i] = marker.isEmpty() ? "Z" : String.valueOf(marker.charAt(0));
+            aisleKeys[i] = marker.length() > 1 ? marker.substring(1) : "";
+            posX[i] = stop.getPositionX() != null ? stop.getPositionX() : 0;
+            posY[i] = stop.getPositionY() != null ? stop.getPositionY() : 0;
+        }
+
+        // Krótsze alejki przed dłuższymi, żeby "A2" było obok "A1", a nie za "A19"
+        Comparator<String> aisleOrder = Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+        return new PickRouteSolver(
+                ranks(warehouseKeys, Comparator.naturalOrder()),
+                ranks(zoneKeys, Comparator.naturalOrder()),
+                ranks(aisleKeys, aisleOrder),
+                posX, posY);
+    }
+
+    private static <T> int[] ranks(T[] keys, Comparator<? super T> order) {
+        TreeMap<T, Integer> rankByKey = new TreeMap<>(order);
+        for (T key : keys) {
+            rankByKey.put(key, 0);
+        }
+        int rank = 0;
+        for (Map.Entry<T, Integer> entry : rankByKey.entrySet()) {
+            entry.setValue(rank++);
+        }
+        int[] result = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            result[i] = rankByKey.get(keys[i]);
+        }
+        return result;
+    }
+
     /**
      * Check: sprawdza czy assortment na konkretnej pozycji jest FIFO-compliant i niewygasły.
+     * Zwraca podgląd domyślnej liczby najstarszych assortmentów do wydania w pierwszej kolejności.
      */
     public OutboundCheckResponse check(OutboundPickPosition request, HttpServletRequest httpRequest) {
+        return check(request, DEFAULT_FIFO_PREVIEW, httpRequest);
+    }
+
+    /**
+     * Check: sprawdza czy assortment na konkretnej pozycji jest FIFO-compliant i niewygasły.
+     * Zgodność liczona jest zapytaniem EXISTS (bez ładowania starszych assortmentów),
+     * a starsze assortmenty są zwracane tylko jako ograniczony podgląd {@code previewLimit} najstarszych.
+     */
+    public OutboundCheckResponse check(OutboundPickPosition request, int previewLimit, HttpServletRequest httpRequest) {
         rateLimiter.consumeOrThrow(getClientIp(httpRequest), RateLimitOperation.INVENTORY_READ);
 
         Assortment assortment = smartCodeService.findAssortmentBySmartCode(request.getCode());
@@ -90,19 +263,30 @@ public class OutboundService {
         boolean isExpired = assortment.getExpiresAt() != null &&
                 assortment.getExpiresAt().toInstant().isBefore(java.time.Instant.now());
 
-        // Znajdź starsze niewygasłe assortmenty
-        List<Assortment> older = assortmentRepository.findOlderAssortments(
+        // Sprawdź czy istnieją starsze niewygasłe assortmenty
+        boolean fifoCompliant = !assortmentRepository.existsOlderAvailable(
                 assortment.getItem().getId(), assortment.getCreatedAt());
 
-        boolean fifoCompliant = older.isEmpty();
-        List<OutboundPickSlot> olderSlots = older.stream().map(this::mapToPickSlot).toList();
+        int limit = Math.max(0, Math.min(previewLimit, ConfigurationConstants.MAX_PAGE_SIZE));
+        List<OutboundPickSlot> olderSlots = List.of();
+        if (!fifoCompliant && limit > 0) {
+            olderSlots = assortmentRepository.findOldestOlderAssortments(
+                            assortment.getItem().getId(), assortment.getCreatedAt(), PageRequest.of(0, limit))
+                    .stream().map(this::mapToPickSlot).toList();
+        }
 
         // Generuj ostrzeżenie
         String warning = null;
         if (isExpired) {
             warning = "EXPIRED: This assortment has expired and cannot be issued";
         } else if (!fifoCompliant) {
-            warning = older.size() + " older non-expired assortments of the same item exist and should be picked first";
+            if (olderSlots.isEmpty()) {
+                warning = "Older non-expired assortments of the same item exist and should be picked first";
+            } else if (olderSlots.size() < limit) {
+                warning = olderSlots.size() + " older non-expired assortments of the same item exist and should be picked first";
+            } else {
+                warning = "At least " + olderSlots.size() + " older non-expired assortments of the same item exist and should be picked first";
+            }
         }
 
         return OutboundCheckResponse.builder()
@@ -117,6 +301,11 @@ public class OutboundService {
      * Execute: wydaje assortmenty z magazynu, tworzy rekordy audytu.
      * Cała operacja jest transakcyjna — albo wszystko, albo nic.
      * Blokuje wydanie wygasłych assortmentów.
+     * <p>
+     * Liczba zapytań nie zależy od liczby pozycji: kody są blokowane i ładowane zbiorczo,
+     * zgodność z FIFO liczona jednym zapytaniem agregującym na produkt, audyt zapisywany batchem JDBC,
+     * a assortmenty usuwane jednym DELETE. Assortment jest zgodny z FIFO, jeśli wszystkie starsze
+     * niewygasłe assortmenty tego produktu są wydawane w tym samym żądaniu.
      */
     @Transactional(rollbackFor = Exception.class)
     public OutboundExecuteResponse execute(OutboundExecuteRequest request, HttpServletRequest httpRequest) {
@@ -125,25 +314,24 @@ public class OutboundService {
         User user = userRepository.findById(AuthUtil.getCurrentAuthPrincipal().getUserId())
                 .orElseThrow(() -> new IllegalArgumentException(InventoryError.USER_NOT_FOUND.name()));
 
-        List<OutboundOperationDto> operationDtos = new ArrayList<>();
-
-        for (OutboundPickPosition position : request.getAssortments()) {
-            Assortment assortment = assortmentRepository.findByCode(
-                            position.getCode())
-                    .orElseThrow(() -> new IllegalArgumentException(InventoryError.ASSORTMENT_NOT_FOUND.name()));
+        List<Assortment> assortments = lockAssortmentsInRequestOrder(request.getAssortments());
 
+        Instant now = Instant.now();
+        for (Assortment assortment : assortments) {
             // Sprawdź czy assortment jest wygasły
-            boolean isExpired = assortment.getExpiresAt() != null &&
-                    assortment.getExpiresAt().toInstant().isBefore(java.time.Instant.now());
-
-            if (isExpired) {
+            if (assortment.getExpiresAt() != null && assortment.getExpiresAt().toInstant().isBefore(now)) {
                 throw new IllegalArgumentException(InventoryError.OUTBOUND_ASSORTMENT_EXPIRED.name());
             }
+        }
 
-            // Sprawdź FIFO compliance (tylko dla niewygasłych)
-            List<Assortment> older = assortmentRepository.findOlderAssortments(
-                    assortment.getItem().getId(), assortment.getCreatedAt());
-            boolean fifoCompliant = older.isEmpty();
+        // Sprawdź FIFO compliance (tylko dla niewygasłych) - jedno zapytanie dla wszystkich produktów
+        Map<Long, Timestamp> oldestRemaining = findOldestRemainingByItem(assortments);
+
+        List<OutboundOperation> operations = new ArrayList<>(assortments.size());
+        for (Assortment assortment : assortments) {
+            Timestamp oldest = oldestRemaining.get(assortment.getItem().getId());
+            boolean fifoCompliant = oldest == null || assortment.getCreatedAt() == null
+                    || !oldest.before(assortment.getCreatedAt());
 
             if (!fifoCompliant && !request.isSkipFifo()) {
                 throw new IllegalArgumentException(InventoryError.OUTBOUND_FIFO_VIOLATION.name());
@@ -160,15 +348,20 @@ public class OutboundService {
             operation.setItemName(assortment.getItem().getName());
             operation.setItemCode(assortment.getItem().getCode());
             operation.setFifoCompliant(fifoCompliant);
+            operations.add(operation);
+        }
 
-            outboundOperationRepository.save(operation);
-
-            // Usuń assortment
-            assortmentRepository.delete(assortment);
+        outboundOperationRepository.insertAll(operations);
 
-            operationDtos.add(mapToOperationDto(operation));
+        // Usuń assortmenty
+        assortmentRepository.deleteAllByIdIn(assortments.stream().map(Assortment::getId).toList());
+        for (Assortment assortment : assortments) {
+            rackOccupancyIndex.recordRemoval(assortment.getRack().getId(),
+                    assortment.getPositionX(), assortment.getPositionY(), assortment.getItem());
         }
 
+        List<OutboundOperationDto> operationDtos = operations.stream().map(this::mapToOperationDto).toList();
+
         log.info("[OUTBOUND] Issued {} assortments by user #{}", operationDtos.size(), user.getId());
 
         return OutboundExecuteResponse.builder()
@@ -177,10 +370,69 @@ public class OutboundService {
                 .build();
     }
 
+    /**
+     * Blokuje i ładuje assortmenty dla wszystkich pozycji żądania, zachowując kolejność z żądania.
+     * Duplikaty w żądaniu kończą się OUTBOUND_DUPLICATE_ASSORTMENT, brakujące kody ASSORTMENT_NOT_FOUND,
+     * a assortmenty właśnie wydawane przez inną transakcję (pominięte przez SKIP LOCKED)
+     * ASSORTMENT_LOCKED (409) - takie żądanie można ponowić.
+     */
+    private List<Assortment> lockAssortmentsInRequestOrder(List<OutboundPickPosition> positions) {
+        Set<String> codes = new LinkedHashSet<>();
+        for (OutboundPickPosition position : positions) {
+            if (!codes.add(position.getCode())) {
+                throw new IllegalArgumentException(InventoryError.OUTBOUND_DUPLICATE_ASSORTMENT.name());
+            }
+        }
+
+        List<Long> lockedIds = assortmentRepository.lockIdsByCodes(codes);
+        if (lockedIds.size() != codes.size()) {
+            // Odróżnij nieistniejące kody od wierszy zablokowanych przez równoległe wydanie
+            if (assortmentRepository.countByCodeIn(codes) == codes.size()) {
+                throw new ResourceLockedException(InventoryError.ASSORTMENT_LOCKED.name());
+            }
+            throw new IllegalArgumentException(InventoryError.ASSORTMENT_NOT_FOUND.name());
+        }
+
+        Map<String, Assortment> byCode = new HashMap<>();
+        for (Assortment assortment : assortmentRepository.findAllWithItemAndRackByIdIn(lockedIds)) {
+            byCode.put(assortment.getCode(), assortment);
+        }
+
+        List<Assortment> ordered = new ArrayList<>(codes.size());
+        for (String code : codes) {
+            Assortment assortment = byCode.get(code);
+            if (assortment == null) {
+                throw new IllegalArgumentException(InventoryError.ASSORTMENT_NOT_FOUND.name());
+            }
+            ordered.add(assortment);
+        }
+        return ordered;
+    }
+
+    /**
+     * Dla każdego produktu zwraca datę utworzenia najstarszego niewygasłego assortmentu,
+     * który pozostanie w magazynie po wydaniu (produkty bez takiego assortmentu są pomijane).
+     */
+    private Map<Long, Timestamp> findOldestRemainingByItem(List<Assortment> assortments) {
+        Set<Long> itemIds = new HashSet<>();
+        List<Long> assortmentIds = new ArrayList<>(assortments.size());
+        for (Assortment assortment : assortments) {
+            itemIds.add(assortment.getItem().getId());
+            assortmentIds.add(assortment.getId());
+        }
+
+        Map<Long, Timestamp> oldest = new HashMap<>();
+        for (OldestAvailableProjection row : assortmentRepository.findOldestAvailableByItemIds(itemIds, assortmentIds)) {
+            oldest.put(row.getItemId(), row.getOldestCreatedAt());
+        }
+        return oldest;
+    }
+
     private OutboundPickSlot mapToPickSlot(Assortment assortment) {
         return OutboundPickSlot.builder()
                 .assortmentId(assortment.getId())
                 .assortmentCode(assortment.getCode())
+                .itemId(assortment.getItem() != null ? assortment.getItem().getId() : null)
                 .rackId(assortment.getRack().getId())
                 .rackMarker(assortment.getRack().getMarker())
                 .positionX(assortment.getPositionX())
@@ -205,4 +457,35 @@ public class OutboundService {
         dto.setFifoCompliant(operation.isFifoCompliant());
         return dto;
     }
+
+    /**
+     * Kursor planu w trybie stronicowanym: liczba już zaplanowanych slotów i klucz (createdAt, id)
+     * ostatniego zwróconego assortmentu. Kodowany jako Base64URL, dla klienta nieprzezroczysty.
+     */
+    private record PlanCursor(int planned, Timestamp createdAt, Long assortmentId) {
+
+        String encode() {
+            Instant instant = createdAt.toInstant();
+            String raw = planned + ":" + instant.getEpochSecond() + ":" + instant.getNano() + ":" + assortmentId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static PlanCursor decode(String cursor) {
+            PlanCursor decoded;
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+                decoded = parts.length != 4 ? null : new PlanCursor(
+                        Integer.parseInt(parts[0]),
+                        Timestamp.from(Instant.ofEpochSecond(Long.parseLong(parts[1]), Long.parseLong(parts[2]))),
+                        Long.parseLong(parts[3]));
+            } catch (IllegalArgumentException | DateTimeException e) {
+                // NumberFormatException i błędny Base64 to również IllegalArgumentException
+                decoded = null;
+            }
+            if (decoded == null || decoded.planned() < 0) {
+                throw new IllegalArgumentException(InventoryError.OUTBOUND_PLAN_CURSOR_INVALID.name());
+            }
+            return decoded;
+        }
+    }
 }
@@ -0,0 +1,354 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+/**
+ * Heurystyka trasy kompletacji (open-path TSP) dla fali wydań.
+ * <p>
+ * Każdy przystanek opisany jest prymitywnymi współrzędnymi: magazyn, strefa i alejka regału
+ * (wyprowadzone z markera, tak jak w grupowaniu regałów przy przyjęciu) oraz pozycja x/y w regale.
+ * Trasa budowana jest metodą najbliższego sąsiada i poprawiana przez 2-opt ograniczony do list
+ * {@link #NEIGHBOURS} najbliższych sąsiadów, więc przejście 2-opt kosztuje O(n·k) zamiast O(n²).
+ * Kilka startów liczonych jest na przekazanym (ograniczonym) executorze, wygrywa najkrótsza trasa.
+ * Cały solve ma budżet czasu - po jego przekroczeniu zwracana jest najlepsza dotąd policzona trasa.
+ * Odległości liczone są na bieżąco - bez macierzy n x n i bez obiektów na przystanek.
+ */
+public final class PickRouteSolver {
+    /**
+     * Koszt przejścia między strefami, alejkami i magazynami względem przesunięcia o jedną pozycję w regale.
+     */
+    static final int ZONE_DISTANCE = 100;
+    static final int AISLE_DISTANCE = 10;
+    static final int WAREHOUSE_DISTANCE = 100_000;
+
+    static final int NEIGHBOURS = 10;
+    private static final int MAX_STARTS = 4;
+    private static final int MAX_TWO_OPT_PASSES = 50;
+    /**
+     * Co ile pozycji 2-opt / najbliższy sąsiad sprawdza zegar.
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+    private final int[] warehouse;
+    private final int[] zone;
+    private final int[] aisle;
+    private final int[] posX;
+    private final int[] posY;
+    private final int size;
+
+    /**
+     * Wszystkie tablice muszą mieć tę samą długość (liczba przystanków).
+     */
+    public PickRouteSolver(int[] warehouse, int[] zone, int[] aisle, int[] posX, int[] posY) {
+        this.size = warehouse.length;
+        if (zone.length != size || aisle.length != size || posX.length != size || posY.length != size) {
+            throw new IllegalArgumentException("Stop coordinate arrays must have equal length");
+        }
+        this.warehouse = warehouse;
+        this.zone = zone;
+        this.aisle = aisle;
+        this.posX = posX;
+        this.posY = posY;
+    }
+
+    /**
+     * Zwraca kolejność odwiedzania przystanków (permutacja indeksów 0..n-1), licząc wszystkie starty
+     * w wątku wywołującym i bez limitu czasu.
+     */
+    public int[] solve() {
+        return solve(null, 0);
+    }
+
+    /**
+     * Zwraca kolejność odwiedzania przystanków (permutacja indeksów 0..n-1).
+     * <p>
+     * Pierwszy start liczony jest zawsze w wątku wywołującym, dodatkowe - na {@code executor}
+     * (przy {@code null} kolejno w wątku wywołującym; odrzucone przez pełną pulę są pomijane). Po upływie
+     * {@code timeBudgetMillis} 2-opt przerywa poprawianie, a niedokończone dodatkowe starty są pomijane;
+     * wartość niedodatnia wyłącza limit czasu.
+     */
+    public int[] solve(Executor executor, long timeBudgetMillis) {
+        if (size <= 2) {
+            return IntStream.range(0, size).toArray();
+        }
+        long deadline = timeBudgetMillis > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMillis)
+                : Long.MAX_VALUE;
+        int[][] neighbours = nearestNeighbourLists();
+        int[] starts = startCandidates();
+
+        List<CompletableFuture<int[]>> extraRoutes = new ArrayList<>();
+        if (executor != null) {
+            for (int i = 1; i < starts.length; i++) {
+                int start = starts[i];
+                try {
+                    extraRoutes.add(CompletableFuture.supplyAsync(
+                            () -> improvedRoute(start, neighbours, deadline, true), executor));
+                } catch (RejectedExecutionException e) {
+                    // Pula zajęta - pozostałe starty pomijamy, trasa z wątku wywołującego wystarczy
+                    break;
+                }
+            }
+        }
+
+        int[] best = improvedRoute(starts[0], neighbours, deadline, false);
+        long bestLength = routeLength(best);
+        List<int[]> candidates = new ArrayList<>();
+        if (executor == null) {
+            for (int i = 1; i < starts.length && !expired(deadline); i++) {
+                candidates.add(improvedRoute(starts[i], neighbours, deadline, true));
+            }
+        } else {
+            for (CompletableFuture<int[]> future : extraRoutes) {
+                candidates.add(awaitRoute(future, deadline));
+            }
+        }
+        for (int[] route : candidates) {
+            if (route == null) {
+                continue;
+            }
+            long length = routeLength(route);
+            if (length < bestLength) {
+                best = route;
+                bestLength = length;
+            }
+        }
+        return best;
+    }
+
+    public long routeLength(int[] route) {
+        long length = 0;
+        for (int i = 1; i < route.length; i++) {
+            length += distance(route[i - 1], route[i]);
+        }
+        return length;
+    }
+
+    int distance(int a, int b) {
+        if (warehouse[a] != warehouse[b]) {
+            return WAREHOUSE_DISTANCE;
+        }
+        return Math.abs(zone[a] - zone[b]) * ZONE_DISTANCE
+                + Math.abs(aisle[a] - aisle[b]) * AISLE_DISTANCE
+                + Math.abs(posX[a] - posX[b])
+                + Math.abs(posY[a] - posY[b]);
+    }
+
+    /**
+     * Starty: przystanek "najbliżej wejścia" (najmniejsze współrzędne) oraz równomiernie rozłożone pozostałe.
+     */
+    private int[] startCandidates() {
+        int origin = 0;
+        for (int i = 1; i < size; i++) {
+            if (compareLocation(i, origin) < 0) {
+                origin = i;
+            }
+        }
+        int[] starts = new int[Math.min(size, MAX_STARTS)];
+        starts[0] = origin;
+        for (int i = 1; i < starts.length; i++) {
+            starts[i] = (origin + (int) ((long) i * size / starts.length)) % size;
+        }
+        return starts;
+    }
+
+    private int compareLocation(int a, int b) {
+        if (warehouse[a] != warehouse[b]) {
+            return Integer.compare(warehouse[a], warehouse[b]);
+        }
+        if (zone[a] != zone[b]) {
+            return Integer.compare(zone[a], zone[b]);
+        }
+        if (aisle[a] != aisle[b]) {
+            return Integer.compare(aisle[a], aisle[b]);
+        }
+        if (posY[a] != posY[b]) {
+            return Integer.compare(posY[a], posY[b]);
+        }
+        return Integer.compare(posX[a], posX[b]);
+    }
+
+    /**
+     * Trasa z jednego startu: najbliższy sąsiad + 2-opt. Dla startów opcjonalnych również budowa
+     * trasy przerywana jest po upływie budżetu - wtedy zwracane jest {@code null}.
+     */
+    private int[] improvedRoute(int start, int[][] neighbours, long deadline, boolean optional) {
+        int[] route = nearestNeighbour(start, optional ? deadline : Long.MAX_VALUE);
+        if (route != null) {
+            twoOpt(route, neighbours, deadline);
+        }
+        return route;
+    }
+
+    private static int[] awaitRoute(CompletableFuture<int[]> future, long deadline) {
+        try {
+            if (deadline == Long.MAX_VALUE) {
+                return future.get();
+            }
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Niedokończony start sam zakończy się po sprawdzeniu zegara; jeszcze nieuruchomiony nie wystartuje
+            future.cancel(false);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Pick route computation failed", e.getCause());
+        }
+    }
+
+    private static boolean expired(long deadline) {
+        return deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0;
+    }
+
+    /**
+     * Dla każdego przystanku {@link #NEIGHBOURS} najbliższych innych przystanków, rosnąco po odległości.
+     * Liczone raz na solve i współdzielone przez wszystkie starty.
+     */
+    private int[][] nearestNeighbourLists() {
+        int k = Math.min(NEIGHBOURS, size - 1);
+        int[][] lists = new int[size][k];
+        int[] distances = new int[k];
+        for (int a = 0; a < size; a++) {
+            int[] list = lists[a];
+            int count = 0;
+            for (int b = 0; b < size; b++) {
+                if (b == a) {
+                    continue;
+                }
+                int d = distance(a, b);
+                if (count == k && d >= distances[k - 1]) {
+                    continue;
+                }
+                int slot = count < k ? count++ : k - 1;
+                while (slot > 0 && distances[slot - 1] > d) {
+                    distances[slot] = distances[slot - 1];
+                    list[slot] = list[slot - 1];
+                    slot--;
+                }
+                distances[slot] = d;
+                list[slot] = b;
+            }
+        }
+        return lists;
+    }
+
+    private int[] nearestNeighbour(int start, long deadline) {
+        int[] route = new int[size];
+        boolean[] visited = new boolean[size];
+        route[0] = start;
+        visited[start] = true;
+        for (int step = 1; step < size; step++) {
+            if (step % DEADLINE_CHECK_INTERVAL == 0 && expired(deadline)) {
+                return null;
+            }
+            int current = route[step - 1];
+            int next = -1;
+            int nextDistance = Integer.MAX_VALUE;
+            for (int candidate = 0; candidate < size; candidate++) {
+                if (!visited[candidate]) {
+                    int d = distance(current, candidate);
+                    if (d < nextDistance) {
+                        next = candidate;
+                        nextDistance = d;
+                    }
+                }
+            }
+            route[step] = next;
+            visited[next] = true;
+        }
+        return route;
+    }
+
+    /**
+     * 2-opt dla ścieżki otwartej: odwrócenie odcinka route[i..j] zmienia krawędzie (i-1, i) oraz (j, j+1);
+     * pierwszy przystanek (start) pozostaje na miejscu.
+     * <p>
+     * Każdy poprawiający ruch tworzy co najmniej jedną nową krawędź krótszą od usuwanej krawędzi sąsiedniej,
+     * więc wystarczy sprawdzać kandydatów z list najbliższych sąsiadów obu końców krawędzi (i-1, i)
+     * i przerywać listę, gdy sąsiad jest już dalej niż obecny następnik / poprzednik.
+     */
+    private void twoOpt(int[] route, int[][] neighbours, long deadline) {
+        int n = route.length;
+        int[] position = new int[n];
+        for (int i = 0; i < n; i++) {
+            position[route[i]] = i;
+        }
+        for (int pass = 0; pass < MAX_TWO_OPT_PASSES; pass++) {
+            boolean improved = false;
+            for (int i = 1; i < n; i++) {
+                if (i % DEADLINE_CHECK_INTERVAL == 0 && expired(deadline)) {
+                    return;
+                }
+                // Nowa krawędź (route[i-1], c), c za pozycją i: odwróć route[i..pos(c)]
+                int before = route[i - 1];
+                for (int c : neighbours[before]) {
+                    int first = route[i];
+                    int removed = distance(before, first);
+                    int added = distance(before, c);
+                    if (added >= removed) {
+                        break;
+                    }
+                    int j = position[c];
+                    if (j <= i) {
+                        continue;
+                    }
+                    int delta = added - removed;
+                    if (j + 1 < n) {
+                        int after = route[j + 1];
+                        delta += distance(first, after) - distance(c, after);
+                    }
+                    if (delta < 0) {
+                        reverse(route, position, i, j);
+                        improved = true;
+                    }
+                }
+                // Nowa krawędź (b, route[i]), b przed pozycją i-1: odwróć route[pos(b)..i-1]
+                int current = route[i];
+                for (int b : neighbours[current]) {
+                    int last = route[i - 1];
+                    int removed = distance(last, current);
+                    int added = distance(b, current);
+                    if (added >= removed) {
+                        break;
+                    }
+                    int k = position[b];
+                    if (k < 1 || k >= i - 1) {
+                        continue;
+                    }
+                    int previous = route[k - 1];
+                    int delta = added - removed + distance(previous, last) - distance(previous, b);
+                    if (delta < 0) {
+                        reverse(route, position, k, i - 1);
+                        improved = true;
+                    }
+                }
+            }
+            if (!improved) {
+                return;
+            }
+        }
+    }
+
+    private static void reverse(int[] route, int[] position, int from, int to) {
+        while (from < to) {
+            int tmp = route[from];
+            route[from] = route[to];
+            route[to] = tmp;
+            position[route[from]] = from;
+            position[route[to]] = to;
+            from++;
+            to--;
+        }
+    }
+}
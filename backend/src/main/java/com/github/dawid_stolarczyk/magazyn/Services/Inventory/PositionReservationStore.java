@@ -0,0 +1,238 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Inventory;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Krótkotrwałe rezerwacje pozycji w regałach trzymane w Redisie.
+ * <p>
+ * Każdy regał to jeden hash {@code reservation:{rack}:<rackId>} z polami {@code "x:y"}
+ * i wartościami {@code "<userId>:<expiresAtMillis>"}. Klucz wygasa natywnie razem z najpóźniejszą
+ * rezerwacją, więc nie jest potrzebne okresowe czyszczenie; pojedyncze wygasłe pola są pomijane
+ * przy odczycie i usuwane przy kolejnej rezerwacji w tym regale.
+ * Rezerwacja wielu pozycji (także w wielu regałach) jest atomowa - skrypt Lua najpierw sprawdza
+ * konflikty, a dopiero potem zapisuje wszystkie pola.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PositionReservationStore {
+    /**
+     * Hash tag {rack} trzyma wszystkie klucze w jednym slocie, więc skrypty wielokluczowe działają także w klastrze.
+     */
+    private static final String KEY_PREFIX = "reservation:{rack}:";
+
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            local now = tonumber(ARGV[1])
+            local expiresAt = tonumber(ARGV[2])
+            local owner = ARGV[3]
+            local idx = 4
+            for k = 1, #KEYS do
+              local count = tonumber(ARGV[idx])
+              for f = 1, count do
+                local current = redis.call('HGET', KEYS[k], ARGV[idx + f])
+                if current then
+                  local sep = string.find(current, ':', 1, true)
+                  if tonumber(string.sub(current, sep + 1)) > now and string.sub(current, 1, sep - 1) ~= owner then
+                    return 0
+                  end
+                end
+              end
+              idx = idx + count + 1
+            end
+            local value = owner .. ':' .. ARGV[2]
+            local ttl = expiresAt - now
+            idx = 4
+            for k = 1, #KEYS do
+              local entries = redis.call('HGETALL', KEYS[k])
+              for e = 1, #entries, 2 do
+                local sep = string.find(entries[e + 1], ':', 1, true)
+                if tonumber(string.sub(entries[e + 1], sep + 1)) <= now then
+                  redis.call('HDEL', KEYS[k], entries[e])
+                end
+              end
+              local count = tonumber(ARGV[idx])
+              for f = 1, count do
+                redis.call('HSET', KEYS[k], ARGV[idx + f], value)
+              end
+              idx = idx + count + 1
+              if redis.call('PTTL', KEYS[k]) < ttl then
+                redis.call('PEXPIRE', KEYS[k], ttl)
+              end
+            end
+            return 1
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            local owner = ARGV[1]
+            local released = 0
+            local idx = 2
+            for k = 1, #KEYS do
+              local count = tonumber(ARGV[idx])
+              for f = 1, count do
+                local current = redis.call('HGET', KEYS[k], ARGV[idx + f])
+                if current and string.sub(current, 1, string.find(current, ':', 1, true) - 1) == owner then
+                  released = released + redis.call('HDEL', KEYS[k], ARGV[idx + f])
+                end
+              end
+              idx = idx + count + 1
+            end
+            return released
+            """, Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Aktywna rezerwacja pojedynczej pozycji.
+     */
+    public record Reservation(Long rackId, int positionX, int positionY, Long userId, Instant expiresAt) {
+        public boolean belongsTo(Long otherUserId) {
+            return userId != null && userId.equals(otherUserId);
+        }
+    }
+
+    /**
+     * Pozycja do zarezerwowania / zwolnienia.
+     */
+    public record Position(Long rackId, int positionX, int positionY) {
+    }
+
+    /**
+     * Atomowo rezerwuje wszystkie pozycje dla użytkownika do {@code expiresAt}.
+     * Pozycje zarezerwowane już przez tego samego użytkownika są odnawiane.
+     *
+     * @return false jeśli którakolwiek pozycja ma aktywną rezerwację innego użytkownika (nic nie zostaje zapisane)
+     */
+    public boolean reserveAll(Collection<Position> positions, Long userId, Instant expiresAt) {
+        if (positions.isEmpty()) {
+            return true;
+        }
+        Map<Long, List<String>> fieldsByRack = groupFields(positions);
+        List<String> keys = new ArrayList<>(fieldsByRack.size());
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(Instant.now().toEpochMilli()));
+        args.add(String.valueOf(expiresAt.toEpochMilli()));
+        args.add(String.valueOf(userId));
+        appendKeyArgs(fieldsByRack, keys, args);
+
+        Long result = redisTemplate.execute(RESERVE_SCRIPT, keys, args.toArray());
+        return result != null && result == 1L;
+    }
+
+    /**
+     * Zwraca aktywne rezerwacje dla podanych regałów (jeden pipeline HGETALL).
+     */
+    public Map<Long, List<Reservation>> findActive(Collection<Long> rackIds) {
+        if (rackIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(rackIds));
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long rackId : ids) {
+                connection.hashCommands().hGetAll(key(rackId).getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+
+        long now = Instant.now().toEpochMilli();
+        Map<Long, List<Reservation>> reservations = new HashMap<>();
+        for (int i = 0; i < ids.size() && i < results.size(); i++) {
+            if (!(results.get(i) instanceof Map<?, ?> entries) || entries.isEmpty()) {
+                continue;
+            }
+            List<Reservation> active = new ArrayList<>(entries.size());
+            for (Map.Entry<?, ?> entry : entries.entrySet()) {
+                Reservation reservation = parse(ids.get(i), String.valueOf(entry.getKey()), String.valueOf(entry.getValue()));
+                if (reservation != null && reservation.expiresAt().toEpochMilli() > now) {
+                    active.add(reservation);
+                }
+            }
+            if (!active.isEmpty()) {
+                reservations.put(ids.get(i), active);
+            }
+        }
+        return reservations;
+    }
+
+    /**
+     * Zwalnia pozycje należące do użytkownika; rezerwacje innych użytkowników pozostają nietknięte.
+     *
+     * @return liczba zwolnionych rezerwacji
+     */
+    public long releaseAll(Collection<Position> positions, Long userId) {
+        if (positions.isEmpty()) {
+            return 0;
+        }
+        Map<Long, List<String>> fieldsByRack = groupFields(positions);
+        List<String> keys = new ArrayList<>(fieldsByRack.size());
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(userId));
+        appendKeyArgs(fieldsByRack, keys, args);
+
+        Long released = redisTemplate.execute(RELEASE_SCRIPT, keys, args.toArray());
+        return released != null ? released : 0;
+    }
+
+    /**
+     * Usuwa wszystkie rezerwacje regału (np. po jego usunięciu).
+     */
+    public void clearRack(Long rackId) {
+        redisTemplate.delete(key(rackId));
+    }
+
+    private static Map<Long, List<String>> groupFields(Collection<Position> positions) {
+        Map<Long, List<String>> fieldsByRack = new LinkedHashMap<>();
+        for (Position position : positions) {
+            fieldsByRack.computeIfAbsent(position.rackId(), ignored -> new ArrayList<>())
+                    .add(field(position.positionX(), position.positionY()));
+        }
+        return fieldsByRack;
+    }
+
+    /**
+     * Argumenty skryptu: dla każdego klucza liczba pól, a po niej same pola.
+     */
+    private static void appendKeyArgs(Map<Long, List<String>> fieldsByRack, List<String> keys, List<String> args) {
+        for (Map.Entry<Long, List<String>> entry : fieldsByRack.entrySet()) {
+            keys.add(key(entry.getKey()));
+            args.add(String.valueOf(entry.getValue().size()));
+            args.addAll(entry.getValue());
+        }
+    }
+
+    private static Reservation parse(Long rackId, String field, String value) {
+        int fieldSep = field.indexOf(':');
+        int valueSep = value.indexOf(':');
+        if (fieldSep < 0 || valueSep < 0) {
+            log.warn("[RESERVATION] Malformed entry in rack #{}: {}={}", rackId, field, value);
+            return null;
+        }
+        try {
+            return new Reservation(rackId,
+                    Integer.parseInt(field.substring(0, fieldSep)),
+                    Integer.parseInt(field.substring(fieldSep + 1)),
+                    Long.parseLong(value.substring(0, valueSep)),
+                    Instant.ofEpochMilli(Long.parseLong(value.substring(valueSep + 1))));
+        } catch (NumberFormatException e) {
+            log.warn("[RESERVATION] Malformed entry in rack #{}: {}={}", rackId, field, value);
+            return null;
+        }
+    }
+
+    static String key(Long rackId) {
+        return KEY_PREFIX + rackId;
+    }
+
+    private static String field(int x, int y) {
+        return x + ":" + y;
+    }
+}
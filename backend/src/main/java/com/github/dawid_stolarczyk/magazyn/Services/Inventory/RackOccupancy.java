@@ -0,0 +1,236 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Inventory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory occupancy state of a single rack.
+ * <p>
+ * Cells are stored in a primitive bitset of {@code size_x * size_y} bits in row-major order
+ * (index = (y - 1) * size_x + (x - 1)), so iterating indexes ascending visits positions
+ * row by row - the same "snake" order the placement planner fills racks in.
+ * Next to the bitset a running assortment count and total weight are kept, so capacity
+ * checks never need to load assortments from the database.
+ * <p>
+ * The same state serves telemetry alerts: the total weight is the expected rack weight, and the
+ * temperature tolerance of every distinct item in the rack is kept with the number of its assortments.
+ * The lowest item {@code max_temp} and the highest item {@code min_temp} are kept as well, so a reading
+ * within all item tolerances is rejected with two float comparisons.
+ */
+public final class RackOccupancy {
+    private final int sizeX;
+    private final int sizeY;
+    private final long[] cells;
+    private final Map<Long, ItemTolerance> items = new HashMap<>();
+    private int assortmentCount;
+    private double load;
+    private float lowestMaxTemp = Float.POSITIVE_INFINITY;
+    private float highestMinTemp = Float.NEGATIVE_INFINITY;
+
+    /**
+     * Temperature tolerance of an item stored in the rack.
+     */
+    public record ItemTolerance(Long itemId, float minTemp, float maxTemp, int assortmentCount) {
+        ItemTolerance withCount(int count) {
+            return new ItemTolerance(itemId, minTemp, maxTemp, count);
+        }
+    }
+
+    RackOccupancy(int sizeX, int sizeY) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.cells = new long[wordsFor(sizeX * sizeY)];
+    }
+
+    public int getSizeX() {
+        return sizeX;
+    }
+
+    public int getSizeY() {
+        return sizeY;
+    }
+
+    public int getTotalCells() {
+        return sizeX * sizeY;
+    }
+
+    public boolean hasDimensions(int x, int y) {
+        return sizeX == x && sizeY == y;
+    }
+
+    public synchronized int getAssortmentCount() {
+        return assortmentCount;
+    }
+
+    public synchronized double getLoad() {
+        return load;
+    }
+
+    /**
+     * Items whose maximum temperature is exceeded by the given reading.
+     */
+    public synchronized List<ItemTolerance> itemsTooWarmFor(float temperature) {
+        if (temperature <= lowestMaxTemp) {
+            return List.of();
+        }
+        List<ItemTolerance> result = new ArrayList<>();
+        for (ItemTolerance item : items.values()) {
+            if (temperature > item.maxTemp()) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Items whose minimum temperature is not reached by the given reading.
+     */
+    public synchronized List<ItemTolerance> itemsTooColdFor(float temperature) {
+        if (temperature >= highestMinTemp) {
+            return List.of();
+        }
+        List<ItemTolerance> result = new ArrayList<>();
+        for (ItemTolerance item : items.values()) {
+            if (temperature < item.minTemp()) {
+                result.add(item);
+            }
+        }
+        return result;
+    }
+
+    public synchronized boolean isOccupied(int x, int y) {
+        int index = cellIndex(x, y);
+        return index >= 0 && isMarked(cells, index);
+    }
+
+    /**
+     * Point-in-time copy of the rack state; count, load and cells are always taken together.
+     */
+    public record Snapshot(int assortmentCount, double load, long[] cells) {
+    }
+
+    /**
+     * Returns assortment count, load and a copy of the occupied-cells bitset read under one lock,
+     * so capacity checks never combine values from before and after a concurrent mutation.
+     */
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(assortmentCount, load, cells.clone());
+    }
+
+    /**
+     * Returns a copy of the occupied-cells bitset. The copy can be freely modified
+     * (e.g. to mark reserved positions) without affecting the shared state.
+     */
+    public synchronized long[] snapshotCells() {
+        return cells.clone();
+    }
+
+    synchronized void add(Integer x, Integer y, Long itemId, double weight, float minTemp, float maxTemp) {
+        assortmentCount++;
+        load += weight;
+        if (x != null && y != null) {
+            int index = cellIndex(x, y);
+            if (index >= 0) {
+                markCell(cells, index);
+            }
+        }
+        ItemTolerance current = items.get(itemId);
+        items.put(itemId, current != null
+                ? current.withCount(current.assortmentCount() + 1)
+                : new ItemTolerance(itemId, minTemp, maxTemp, 1));
+        lowestMaxTemp = Math.min(lowestMaxTemp, maxTemp);
+        highestMinTemp = Math.max(highestMinTemp, minTemp);
+    }
+
+    synchronized void remove(Integer x, Integer y, Long itemId, double weight) {
+        assortmentCount = Math.max(0, assortmentCount - 1);
+        // Do not carry float rounding drift over into an empty rack
+        load = assortmentCount == 0 ? 0d : Math.max(0d, load - weight);
+        if (x != null && y != null) {
+            int index = cellIndex(x, y);
+            if (index >= 0) {
+                cells[index >>> 6] &= ~(1L << index);
+            }
+        }
+        ItemTolerance current = items.get(itemId);
+        if (current == null) {
+            return;
+        }
+        if (current.assortmentCount() > 1) {
+            items.put(itemId, current.withCount(current.assortmentCount() - 1));
+            return;
+        }
+        items.remove(itemId);
+        recomputeBounds();
+    }
+
+    /**
+     * Maps 1-based rack coordinates to a cell index, or -1 when outside the rack.
+     */
+    public int cellIndex(int x, int y) {
+        if (x < 1 || x > sizeX || y < 1 || y > sizeY) {
+            return -1;
+        }
+        return (y - 1) * sizeX + (x - 1);
+    }
+
+    public int cellX(int index) {
+        return index % sizeX + 1;
+    }
+
+    public int cellY(int index) {
+        return index / sizeX + 1;
+    }
+
+    public static void markCell(long[] cells, int index) {
+        cells[index >>> 6] |= 1L << index;
+    }
+
+    public static boolean isMarked(long[] cells, int index) {
+        return (cells[index >>> 6] & (1L << index)) != 0;
+    }
+
+    public static int countMarked(long[] cells) {
+        int count = 0;
+        for (long word : cells) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Finds the first unmarked cell at or after {@code fromIndex}, or -1 if none is left.
+     */
+    public static int nextFreeCell(long[] cells, int fromIndex, int totalCells) {
+        if (fromIndex >= totalCells) {
+            return -1;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long word = ~cells[wordIndex] & (-1L << fromIndex);
+        while (true) {
+            if (word != 0) {
+                int index = (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+                return index < totalCells ? index : -1;
+            }
+            if (++wordIndex == cells.length) {
+                return -1;
+            }
+            word = ~cells[wordIndex];
+        }
+    }
+
+    private void recomputeBounds() {
+        lowestMaxTemp = Float.POSITIVE_INFINITY;
+        highestMinTemp = Float.NEGATIVE_INFINITY;
+        for (ItemTolerance item : items.values()) {
+            lowestMaxTemp = Math.min(lowestMaxTemp, item.maxTemp());
+            highestMinTemp = Math.max(highestMinTemp, item.minTemp());
+        }
+    }
+
+    private static int wordsFor(int totalCells) {
+        return (totalCells + 63) >>> 6;
+    }
+}
@@ -0,0 +1,147 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Inventory;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Item;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Rack;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AssortmentRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.RackOccupancyProjection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-rack occupancy index used by placement planning and by telemetry alert evaluation
+ * (expected weight and item temperature tolerances).
+ * <p>
+ * Racks are loaded lazily - all racks missing from the index are fetched with a single
+ * projection query (chunked by {@link #LOAD_CHUNK_SIZE}) - and then kept up to date
+ * incrementally by inbound, outbound, restore and assortment CRUD operations.
+ * Mutations are applied after the surrounding transaction commits, so rolled back
+ * operations never leak into the index.
+ * <p>
+ * The index is an optimisation only: confirmation still validates positions against
+ * the database, so a briefly stale entry can at worst produce a plan that gets rejected.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RackOccupancyIndex {
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final AssortmentRepository assortmentRepository;
+
+    private final ConcurrentHashMap<Long, RackOccupancy> occupancies = new ConcurrentHashMap<>();
+    /**
+     * Bumped on every mutation; loads that raced with a mutation are returned but not cached.
+     */
+    private final AtomicLong modifications = new AtomicLong();
+    private final Object mutationLock = new Object();
+
+    /**
+     * Returns occupancy for every given rack, loading the missing ones in bulk.
+     */
+    public Map<Long, RackOccupancy> getOccupancies(Collection<Rack> racks) {
+        Map<Long, RackOccupancy> result = new HashMap<>();
+        Map<Long, RackOccupancy> missing = new HashMap<>();
+        for (Rack rack : racks) {
+            RackOccupancy occupancy = occupancies.get(rack.getId());
+            if (occupancy != null && occupancy.hasDimensions(rack.getSize_x(), rack.getSize_y())) {
+                result.put(rack.getId(), occupancy);
+            } else {
+                missing.put(rack.getId(), new RackOccupancy(rack.getSize_x(), rack.getSize_y()));
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long stamp = modifications.get();
+        List<Long> rackIds = new ArrayList<>(missing.keySet());
+        for (int from = 0; from < rackIds.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = rackIds.subList(from, Math.min(from + LOAD_CHUNK_SIZE, rackIds.size()));
+            for (RackOccupancyProjection row : assortmentRepository.findOccupancyByRackIds(chunk)) {
+                RackOccupancy occupancy = missing.get(row.getRackId());
+                if (occupancy != null) {
+                    occupancy.add(row.getPositionX(), row.getPositionY(), row.getItemId(), valueOf(row.getWeight()),
+                            (float) valueOf(row.getMinTemp()), (float) valueOf(row.getMaxTemp()));
+                }
+            }
+        }
+        boolean cacheable;
+        synchronized (mutationLock) {
+            cacheable = modifications.get() == stamp;
+            if (cacheable) {
+                occupancies.putAll(missing);
+            }
+        }
+        result.putAll(missing);
+        log.debug("[OCCUPANCY] Loaded {} rack(s) into index (cached={})", missing.size(), cacheable);
+        return result;
+    }
+
+    public void recordPlacement(Long rackId, Integer positionX, Integer positionY, Item item) {
+        Long itemId = item.getId();
+        double weight = item.getWeight();
+        float minTemp = item.getMin_temp();
+        float maxTemp = item.getMax_temp();
+        mutateAfterCommit(() -> {
+            RackOccupancy occupancy = occupancies.get(rackId);
+            if (occupancy != null) {
+                occupancy.add(positionX, positionY, itemId, weight, minTemp, maxTemp);
+            }
+        });
+    }
+
+    public void recordRemoval(Long rackId, Integer positionX, Integer positionY, Item item) {
+        Long itemId = item.getId();
+        double weight = item.getWeight();
+        mutateAfterCommit(() -> {
+            RackOccupancy occupancy = occupancies.get(rackId);
+            if (occupancy != null) {
+                occupancy.remove(positionX, positionY, itemId, weight);
+            }
+        });
+    }
+
+    /**
+     * Drops a rack from the index (rack resized or deleted); it will be reloaded on next use.
+     */
+    public void invalidate(Long rackId) {
+        mutateAfterCommit(() -> occupancies.remove(rackId));
+    }
+
+    /**
+     * Drops the whole index - used after bulk changes such as restore or item weight / tolerance updates.
+     */
+    public void invalidateAll() {
+        mutateAfterCommit(occupancies::clear);
+    }
+
+    private void mutateAfterCommit(Runnable mutation) {
+        Runnable action = () -> {
+            synchronized (mutationLock) {
+                modifications.incrementAndGet();
+                mutation.run();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static double valueOf(Float value) {
+        return value != null ? value : 0d;
+    }
+}
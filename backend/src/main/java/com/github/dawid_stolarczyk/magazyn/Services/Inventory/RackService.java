@@ -7,6 +7,9 @@ import com.github.dawid_stolarczyk.magazyn.Model.Entity.Warehouse;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AssortmentRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.WarehouseRepository;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.RackTelemetryWindow;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.TemperatureForecaster;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.UnreadNotificationCounter;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.RateLimitOperation;
 import com.github.dawid_stolarczyk.magazyn.Utils.StringUtils;
@@ -15,7 +18,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
 import java.util.List;
 
 import static com.github.dawid_stolarczyk.magazyn.Utils.InternetUtils.getClientIp;
@@ -26,6 +32,11 @@ public class RackService {
     private final RackRepository rackRepository;
     private final WarehouseRepository warehouseRepository;
     private final AssortmentRepository assortmentRepository;
+    private final RackOccupancyIndex rackOccupancyIndex;
+    private final RackTelemetryWindow telemetryWindow;
+    private final TemperatureForecaster temperatureForecaster;
+    private final PositionReservationStore reservationStore;
+    private final UnreadNotificationCounter unreadNotificationCounter;
     private final Bucket4jRateLimiter rateLimiter;
 
     public RackPagedResponse getAllRacksPaged(HttpServletRequest request, Pageable pageable) {
@@ -140,6 +151,37 @@ public class RackService {
         Rack rack = rackRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException(InventoryError.RACK_NOT_FOUND.name()));
         rackRepository.delete(rack);
+        onRacksDeleted(List.of(id));
+    }
+
+    /**
+     * Drops state kept outside the database for racks deleted in the current transaction -
+     * a single rack or all racks of a deleted warehouse.
+     */
+    public void onRacksDeleted(Collection<Long> rackIds) {
+        if (rackIds.isEmpty()) {
+            return;
+        }
+        rackIds.forEach(rackOccupancyIndex::invalidate);
+        // Usunięcie regału kaskadowo kasuje jego alerty razem z powiadomieniami użytkowników
+        unreadNotificationCounter.invalidateAll();
+        // Stan poza bazą (Redis, bufory w pamięci) czyścimy dopiero po zatwierdzeniu usunięcia,
+        // żeby wycofane usunięcie nie kasowało rezerwacji ani historii odczytów regału
+        Runnable cleanup = () -> rackIds.forEach(rackId -> {
+            telemetryWindow.remove(rackId);
+            temperatureForecaster.remove(rackId);
+            reservationStore.clearRack(rackId);
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cleanup.run();
+                }
+            });
+        } else {
+            cleanup.run();
+        }
     }
 
     private void validateRackDto(RackDto dto) {
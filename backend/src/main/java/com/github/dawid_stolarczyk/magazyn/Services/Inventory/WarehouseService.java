@@ -2,6 +2,7 @@ package com.github.dawid_stolarczyk.magazyn.Services.Inventory;
 
 import com.github.dawid_stolarczyk.magazyn.Common.Enums.InventoryError;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.*;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Rack;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Warehouse;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AssortmentRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.WarehouseRepository;
@@ -25,6 +26,7 @@ import static com.github.dawid_stolarczyk.magazyn.Utils.InternetUtils.getClientI
 public class WarehouseService {
     private final WarehouseRepository warehouseRepository;
     private final AssortmentRepository assortmentRepository;
+    private final RackService rackService;
     private final Bucket4jRateLimiter rateLimiter;
 
     public WarehousePagedResponse getAllWarehousesPaged(HttpServletRequest request, Pageable pageable, String nameFilter, Integer minPercentOfOccupiedSlots, boolean onlyNonEmpty) {
@@ -167,7 +169,10 @@ public class WarehouseService {
         rateLimiter.consumeOrThrow(getClientIp(request), RateLimitOperation.INVENTORY_WRITE);
         Warehouse warehouse = warehouseRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException(InventoryError.WAREHOUSE_NOT_FOUND.name()));
+        // Racks are deleted by cascade - collect their ids before the warehouse is gone
+        List<Long> rackIds = warehouse.getRacks().stream().map(Rack::getId).toList();
         warehouseRepository.delete(warehouse);
+        rackService.onRacksDeleted(rackIds);
     }
 
     private WarehouseSummaryDto calculateWarehouseSummary(Iterable<Long> warehouseIds) {
@@ -6,8 +6,10 @@ import com.github.dawid_stolarczyk.magazyn.Controller.Dto.Report.TemperatureAler
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.Report.TemperatureAlertRackReportRow;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Assortment;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.RackReport;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.RackReportRollup;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AssortmentRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackReportRepository;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.TelemetryRollupService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +31,7 @@ public class ReportDataService {
 
     private final AssortmentRepository assortmentRepository;
     private final RackReportRepository rackReportRepository;
+    private final TelemetryRollupService telemetryRollupService;
 
     @Transactional(readOnly = true)
     public List<ExpiryReportRow> collectExpiryData(Long warehouseId, int daysAhead) {
@@ -71,7 +74,11 @@ public class ReportDataService {
 
     @Transactional(readOnly = true)
     public List<TemperatureAlertRackReportRow> collectTemperatureAlertRacksData(Long warehouseId, Instant start, Instant end) {
-        List<RackReport> reports = rackReportRepository.findAlertTriggeredReports(warehouseId, start, end);
+        // Raw reports before the retention cutoff are purged - that period is covered by rollups
+        Instant rawCutoff = telemetryRollupService.getRawRetentionCutoff();
+        boolean useRollups = rawCutoff != null && (start == null || start.isBefore(rawCutoff));
+        Instant rawStart = useRollups ? rawCutoff : start;
+        List<RackReport> reports = rackReportRepository.findAlertTriggeredReports(warehouseId, rawStart, end);
         SimpleDateFormat sdfCreated = new SimpleDateFormat("yyyy-MM-dd HH:mm");
 
         List<TemperatureAlertRackReportRow> rows = new ArrayList<>();
@@ -98,6 +105,24 @@ public class ReportDataService {
                     .sensorId(r.getSensorId())
                     .build());
         }
+
+        if (useRollups) {
+            Instant rollupStart = start != null ? start : Instant.EPOCH;
+            Instant rollupEnd = end != null && end.isBefore(rawCutoff) ? end : rawCutoff;
+            for (RackReportRollup r : telemetryRollupService.findTemperatureViolations(warehouseId, rollupStart, rollupEnd)) {
+                boolean tooHot = r.getMaxTemperature() > r.getRack().getMax_temp();
+                rows.add(TemperatureAlertRackReportRow.builder()
+                        .rackId(r.getRack().getId())
+                        .rackMarker(r.getRack().getMarker())
+                        .warehouseName(r.getRack().getWarehouse().getName())
+                        .recordedTemperature(tooHot ? r.getMaxTemperature() : r.getMinTemperature())
+                        .allowedMin(r.getRack().getMin_temp())
+                        .allowedMax(r.getRack().getMax_temp())
+                        .violationType(tooHot ? "Za wysoka temperatura" : "Za niska temperatura")
+                        .violationTimestamp(sdfCreated.format(Timestamp.from(r.getBucketStart())))
+                        .build());
+            }
+        }
         return rows;
     }
 
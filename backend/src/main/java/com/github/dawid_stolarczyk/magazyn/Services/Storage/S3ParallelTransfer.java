@@ -0,0 +1,553 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Storage;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel S3 transfers shared by the photo and backup storage services.
+ * <p>
+ * Uploads split the stream into fixed-size parts and upload up to {@code concurrency} parts at once. Downloads
+ * fetch the first part with a ranged GET and, for larger objects, prefetch the following ranges in parallel while
+ * handing the bytes to the caller in order. Part buffers come from one bounded pool, so heap use stays at
+ * {@code max-buffers * part-size} regardless of how many transfers run.
+ */
+@Slf4j
+@Component
+public class S3ParallelTransfer {
+
+    /**
+     * S3 rejects multipart uploads with non-final parts below 5 MB; R2 also requires them to be equal in size.
+     */
+    private static final int MIN_PART_SIZE_MB = 5;
+
+    private final S3Client s3Client;
+    private final ExecutorService executor;
+
+    @Value("${app.s3.bucket}")
+    private String bucketName;
+
+    @Value("${app.s3.transfer.part-size-mb:8}")
+    private int partSizeMb;
+
+    @Value("${app.s3.transfer.concurrency:4}")
+    private int concurrency;
+
+    @Value("${app.s3.transfer.max-buffers:16}")
+    private int maxBuffers;
+
+    private int partSize;
+    private PartBufferPool bufferPool;
+
+    public S3ParallelTransfer(S3Client s3Client, @Qualifier("s3TransferExecutor") ExecutorService executor) {
+        this.s3Client = s3Client;
+        this.executor = executor;
+    }
+
+    @PostConstruct
+    void init() {
+        partSize = Math.max(partSizeMb, MIN_PART_SIZE_MB) * 1024 * 1024;
+        bufferPool = new PartBufferPool(partSize, Math.max(maxBuffers, 2));
+    }
+
+    /**
+     * Pooled part buffers, allocated lazily up to a fixed count. Callers block when all buffers are in use.
+     */
+    static final class PartBufferPool {
+        private final int bufferSize;
+        private final Semaphore permits;
+        private final ConcurrentLinkedQueue<byte[]> free = new ConcurrentLinkedQueue<>();
+
+        PartBufferPool(int bufferSize, int maxBuffers) {
+            this.bufferSize = bufferSize;
+            this.permits = new Semaphore(maxBuffers);
+        }
+
+        byte[] acquire() throws InterruptedIOException {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a transfer buffer");
+            }
+            return take();
+        }
+
+        byte[] tryAcquire() {
+            return permits.tryAcquire() ? take() : null;
+        }
+
+        void release(byte[] buffer) {
+            free.offer(buffer);
+            permits.release();
+        }
+
+        int available() {
+            return permits.availablePermits();
+        }
+
+        private byte[] take() {
+            byte[] buffer = free.poll();
+            return buffer != null ? buffer : new byte[bufferSize];
+        }
+    }
+
+    int availableBuffers() {
+        return bufferPool.available();
+    }
+
+    /**
+     * Uploads a stream: a single PUT when it fits in one part, otherwise a parallel multipart upload.
+     *
+     * @return total bytes uploaded
+     */
+    public long upload(String key, InputStream inputStream, String contentType) throws IOException {
+        byte[] firstPart = bufferPool.acquire();
+        boolean handedOver = false;
+        try {
+            int firstLength = readFully(inputStream, firstPart);
+            if (firstLength < partSize) {
+                s3Client.putObject(PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .contentType(contentType)
+                                .build(),
+                        RequestBody.fromBytes(Arrays.copyOf(firstPart, firstLength)));
+                return firstLength;
+            }
+            handedOver = true;
+            return uploadMultipart(key, inputStream, contentType, firstPart, firstLength);
+        } finally {
+            if (!handedOver) {
+                bufferPool.release(firstPart);
+            }
+        }
+    }
+
+    /**
+     * Takes ownership of {@code firstPart}; every buffer is released by the part upload that consumes it.
+     */
+    private long uploadMultipart(String key, InputStream inputStream, String contentType,
+                                 byte[] firstPart, int firstLength) throws IOException {
+        String uploadId;
+        try {
+            uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .contentType(contentType)
+                    .build()).uploadId();
+        } catch (RuntimeException e) {
+            bufferPool.release(firstPart);
+            throw e;
+        }
+
+        List<Future<CompletedPart>> parts = new ArrayList<>();
+        Semaphore inFlight = new Semaphore(Math.max(concurrency, 1));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        byte[] buffer = firstPart;
+        int length = firstLength;
+        long totalBytes = 0;
+        try {
+            int partNumber = 1;
+            while (true) {
+                acquire(inFlight);
+                if (failure.get() != null) {
+                    // A part already failed - stop reading, the loop over the futures below rethrows it
+                    inFlight.release();
+                    break;
+                }
+                byte[] part = buffer;
+                buffer = null;
+                parts.add(submitPart(key, uploadId, partNumber++, part, length, inFlight, failure));
+                totalBytes += length;
+                if (length < partSize) {
+                    break;
+                }
+                buffer = bufferPool.acquire();
+                length = readFully(inputStream, buffer);
+                if (length == 0) {
+                    break;
+                }
+            }
+            if (buffer != null) {
+                bufferPool.release(buffer);
+                buffer = null;
+            }
+
+            List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+            for (Future<CompletedPart> part : parts) {
+                completedParts.add(part.get());
+            }
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+            log.debug("Uploaded {} in {} parts ({} bytes)", key, completedParts.size(), totalBytes);
+            return totalBytes;
+        } catch (Exception e) {
+            if (buffer != null) {
+                bufferPool.release(buffer);
+            }
+            awaitQuietly(parts);
+            try {
+                s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .uploadId(uploadId)
+                        .build());
+            } catch (Exception abortEx) {
+                e.addSuppressed(abortEx);
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            throw new IOException("Multipart upload of " + key + " failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    private Future<CompletedPart> submitPart(String key, String uploadId, int partNumber, byte[] buffer, int length,
+                                             Semaphore inFlight, AtomicReference<Throwable> failure) {
+        try {
+            return executor.submit(() -> {
+                try {
+                    UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                                    .bucket(bucketName)
+                                    .key(key)
+                                    .uploadId(uploadId)
+                                    .partNumber(partNumber)
+                                    .contentLength((long) length)
+                                    .build(),
+                            RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length));
+                    return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                    throw e;
+                } finally {
+                    bufferPool.release(buffer);
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bufferPool.release(buffer);
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Downloads an object. Objects larger than one part are fetched as parallel ranged GETs and reassembled in order.
+     * <p>
+     * The caller MUST close the returned stream to release connections and pooled buffers.
+     */
+    public InputStream download(String key) {
+        ResponseInputStream<GetObjectResponse> first;
+        try {
+            first = s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .range("bytes=0-" + (partSize - 1))
+                    .build());
+        } catch (S3Exception e) {
+            if (e.statusCode() != 416) {
+                throw e;
+            }
+            // Empty objects have no satisfiable range
+            return s3Client.getObject(GetObjectRequest.builder().bucket(bucketName).key(key).build());
+        }
+        long size = objectSize(first.response());
+        if (size <= partSize || concurrency <= 1) {
+            return first;
+        }
+        return new RangedDownloadStream(key, first.response().eTag(), size, first);
+    }
+
+    /**
+     * Downloads bytes {@code start..endInclusive} of an object with a single ranged GET.
+     * The caller MUST close the returned stream.
+     */
+    public InputStream downloadRange(String key, long start, long endInclusive) {
+        return s3Client.getObject(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range("bytes=" + start + "-" + endInclusive)
+                .build());
+    }
+
+    public long size(String key) {
+        return s3Client.headObject(HeadObjectRequest.builder().bucket(bucketName).key(key).build()).contentLength();
+    }
+
+    /**
+     * Total object size from the Content-Range header; without it the server ignored the range and sent everything.
+     */
+    private static long objectSize(GetObjectResponse response) {
+        String contentRange = response.contentRange();
+        if (contentRange != null) {
+            int slash = contentRange.lastIndexOf('/');
+            if (slash >= 0 && !contentRange.endsWith("*")) {
+                return Long.parseLong(contentRange.substring(slash + 1).trim());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * One prefetched range. The buffer belongs to the download task until it finishes; a part abandoned while still
+     * running is handed back to the pool by the task itself, so the buffer is never reused while being written.
+     */
+    private final class PendingPart implements Callable<Void> {
+        private final String key;
+        private final String eTag;
+        private final long start;
+        private final long end;
+        private final byte[] buffer;
+        private final int length;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private Future<?> download;
+
+        PendingPart(String key, String eTag, long start, long end, byte[] buffer) {
+            this.key = key;
+            this.eTag = eTag;
+            this.start = start;
+            this.end = end;
+            this.buffer = buffer;
+            this.length = (int) (end - start + 1);
+        }
+
+        @Override
+        public Void call() throws IOException {
+            if (!claimed.compareAndSet(false, true)) {
+                // Abandoned before it started - the stream already returned the buffer
+                return null;
+            }
+            try (ResponseInputStream<GetObjectResponse> part = s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .range("bytes=" + start + "-" + end)
+                    .ifMatch(eTag)
+                    .build())) {
+                if (readFully(part, buffer, length) != length) {
+                    throw new IOException("Short read for " + key + " range " + start + "-" + end);
+                }
+            } finally {
+                if (!settled.compareAndSet(false, true)) {
+                    bufferPool.release(buffer);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Gives the part up. The buffer goes back to the pool now if the task has not started or has already
+         * finished, otherwise the running task returns it when it is done writing.
+         */
+        void abandon() {
+            download.cancel(false);
+            if (claimed.compareAndSet(false, true) || !settled.compareAndSet(false, true)) {
+                bufferPool.release(buffer);
+            }
+        }
+    }
+
+    /**
+     * Streams part 0 straight from the first response while later parts download into pooled buffers.
+     */
+    private final class RangedDownloadStream extends InputStream {
+        private final String key;
+        private final String eTag;
+        private final long size;
+        private final int partCount;
+        private final ArrayDeque<PendingPart> pending = new ArrayDeque<>();
+        private InputStream current;
+        private byte[] currentBuffer;
+        private int nextPart = 1;
+        private boolean closed;
+
+        RangedDownloadStream(String key, String eTag, long size, InputStream first) {
+            this.key = key;
+            this.eTag = eTag;
+            this.size = size;
+            this.partCount = (int) ((size + partSize - 1) / partSize);
+            this.current = first;
+            prefetch(false);
+        }
+
+        /**
+         * Keeps up to {@code concurrency} parts in flight. Only blocks for a buffer when nothing is queued, so
+         * a busy pool narrows the window instead of stalling.
+         */
+        private void prefetch(boolean mustQueueOne) {
+            while (pending.size() < concurrency && nextPart < partCount) {
+                byte[] buffer;
+                if (pending.isEmpty() && mustQueueOne) {
+                    try {
+                        buffer = bufferPool.acquire();
+                    } catch (InterruptedIOException e) {
+                        return;
+                    }
+                } else {
+                    buffer = bufferPool.tryAcquire();
+                }
+                if (buffer == null) {
+                    return;
+                }
+                long start = (long) nextPart * partSize;
+                long end = Math.min(start + partSize, size) - 1;
+                PendingPart part = new PendingPart(key, eTag, start, end, buffer);
+                try {
+                    part.download = executor.submit(part);
+                    pending.add(part);
+                } catch (RejectedExecutionException e) {
+                    bufferPool.release(buffer);
+                    return;
+                }
+                nextPart++;
+            }
+        }
+
+        private boolean advance() throws IOException {
+            current.close();
+            if (currentBuffer != null) {
+                bufferPool.release(currentBuffer);
+                currentBuffer = null;
+            }
+            prefetch(true);
+            PendingPart part = pending.poll();
+            if (part == null) {
+                if (nextPart < partCount) {
+                    throw new InterruptedIOException("Interrupted while downloading " + key);
+                }
+                current = InputStream.nullInputStream();
+                return false;
+            }
+            current = InputStream.nullInputStream();
+            try {
+                part.download.get();
+            } catch (InterruptedException e) {
+                part.abandon();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while downloading " + key);
+            } catch (ExecutionException e) {
+                bufferPool.release(part.buffer);
+                throw new IOException("Ranged download of " + key + " failed: " + e.getCause().getMessage(), e.getCause());
+            }
+            currentBuffer = part.buffer;
+            current = new ByteArrayInputStream(part.buffer, 0, part.length);
+            prefetch(false);
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            while (true) {
+                int value = current.read();
+                if (value >= 0) {
+                    return value;
+                }
+                if (!advance()) {
+                    return -1;
+                }
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int read = current.read(b, off, len);
+                if (read > 0) {
+                    return read;
+                }
+                if (!advance()) {
+                    return -1;
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                current.close();
+            } finally {
+                if (currentBuffer != null) {
+                    bufferPool.release(currentBuffer);
+                    currentBuffer = null;
+                }
+                for (PendingPart part : pending) {
+                    part.abandon();
+                }
+                pending.clear();
+            }
+        }
+    }
+
+    private static void acquire(Semaphore semaphore) throws InterruptedIOException {
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for an upload slot");
+        }
+    }
+
+    private static void awaitQuietly(List<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException | CancellationException ignored) {
+                // the failure is reported by whoever owns the transfer
+            }
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buffer) throws IOException {
+        return readFully(in, buffer, buffer.length);
+    }
+
+    private static int readFully(InputStream in, byte[] buffer, int length) throws IOException {
+        int totalRead = 0;
+        while (totalRead < length) {
+            int read = in.read(buffer, totalRead, length - totalRead);
+            if (read == -1) break;
+            totalRead += read;
+        }
+        return totalRead;
+    }
+}
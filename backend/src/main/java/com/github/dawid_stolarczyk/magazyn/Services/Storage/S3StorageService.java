@@ -3,22 +3,17 @@ package com.github.dawid_stolarczyk.magazyn.Services.Storage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class S3StorageService implements StorageService {
     private final S3Client s3Client;
-    private static final int MIN_PART_SIZE = 5 * 1024 * 1024; // 5MB
+    private final S3ParallelTransfer s3ParallelTransfer;
 
     @Value("${app.s3.bucket}")
     private String bucketName;
@@ -26,12 +21,6 @@ public class S3StorageService implements StorageService {
     @Value("${app.s3.items-prefix:items-photos/}")
     private String itemsPrefix;
 
-    /**
-     * ThreadLocal buffer pool for high-concurrency scenarios
-     * Reuses buffers per thread instead of allocating new 5MB on each upload
-     */
-    private static final ThreadLocal<byte[]> BUFFER_POOL = ThreadLocal.withInitial(() -> new byte[MIN_PART_SIZE]);
-
     @Override
     public void uploadStream(String fileName, InputStream inputStream, String contentType) throws Exception {
         if (bucketName == null || bucketName.isBlank()) {
@@ -41,105 +30,29 @@ public class S3StorageService implements StorageService {
         String resolvedContentType = contentType == null || contentType.isBlank()
                 ? "application/octet-stream"
                 : contentType;
-        String objectKey = buildObjectKey(fileName);
-
-        // Use ThreadLocal buffer pool to avoid allocating 5MB per concurrent upload
-        byte[] buffer = BUFFER_POOL.get();
-        int bytesRead = readFully(inputStream, buffer);
-
-        if (bytesRead < MIN_PART_SIZE) {
-            // Small file: Single-part upload
-            s3Client.putObject(PutObjectRequest.builder()
-                            .bucket(bucketName)
-                            .key(objectKey)
-                            .contentType(resolvedContentType)
-                            .build(),
-                    RequestBody.fromBytes(Arrays.copyOf(buffer, bytesRead)));
-            return;
-        }
-
-        // Large file: Multipart upload
-        CreateMultipartUploadResponse createResponse = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
-                .bucket(bucketName)
-                .key(objectKey)
-                .contentType(resolvedContentType)
-                .build());
-
-        String uploadId = createResponse.uploadId();
-        List<CompletedPart> completedParts = new ArrayList<>();
-
-        try {
-            int partNumber = 1;
-            // Upload first part
-            completedParts.add(uploadPart(objectKey, uploadId, partNumber++, buffer, bytesRead));
-
-            // Continue with subsequent parts
-            while ((bytesRead = readFully(inputStream, buffer)) > 0) {
-                completedParts.add(uploadPart(objectKey, uploadId, partNumber++, buffer, bytesRead));
-            }
-
-            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
-                    .bucket(bucketName)
-                    .key(objectKey)
-                    .uploadId(uploadId)
-                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
-                    .build());
-
-        } catch (Exception ex) {
-            try {
-                s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
-                        .bucket(bucketName)
-                        .key(objectKey)
-                        .uploadId(uploadId)
-                        .build());
-            } catch (Exception abortEx) {
-                ex.addSuppressed(abortEx);
-            }
-            throw ex;
-        }
-    }
-
-    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] buffer, int length) {
-        UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .uploadId(uploadId)
-                .partNumber(partNumber)
-                .contentLength((long) length)
-                .build();
-
-        UploadPartResponse response = s3Client.uploadPart(uploadPartRequest,
-                RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, length), length));
-
-        return CompletedPart.builder()
-                .partNumber(partNumber)
-                .eTag(response.eTag())
-                .build();
-    }
-
-    private int readFully(InputStream in, byte[] buffer) throws Exception {
-        int totalRead = 0;
-        while (totalRead < buffer.length) {
-            int read = in.read(buffer, totalRead, buffer.length - totalRead);
-            if (read == -1) break;
-            totalRead += read;
-        }
-        return totalRead;
+        s3ParallelTransfer.upload(buildObjectKey(fileName), inputStream, resolvedContentType);
     }
 
     /**
      * Downloads a file from S3.
      * <p>
-     * IMPORTANT: The caller is responsible for closing the returned InputStream to release the underlying HTTP connection.
-     * Failure to do so may lead to connection pool exhaustion.
+     * IMPORTANT: The caller is responsible for closing the returned InputStream to release the underlying HTTP connection
+     * and pooled transfer buffers. Failure to do so may lead to connection pool exhaustion.
      * </p>
      */
     @Override
     public InputStream download(String fileName) throws Exception {
-        return s3Client.getObject(GetObjectRequest.builder()
-                .bucket(bucketName)
-                .key(buildObjectKey(fileName))
-                .build());
+        return s3ParallelTransfer.download(buildObjectKey(fileName));
+    }
+
+    @Override
+    public InputStream downloadRange(String fileName, long start, long endInclusive) throws Exception {
+        return s3ParallelTransfer.downloadRange(buildObjectKey(fileName), start, endInclusive);
+    }
+
+    @Override
+    public long size(String fileName) throws Exception {
+        return s3ParallelTransfer.size(buildObjectKey(fileName));
     }
 
     @Override
@@ -7,5 +7,9 @@ public interface StorageService {
 
     InputStream download(String fileName) throws Exception;
 
+    InputStream downloadRange(String fileName, long start, long endInclusive) throws Exception;
+
+    long size(String fileName) throws Exception;
+
     void delete(String fileName) throws Exception;
 }
@@ -15,6 +15,8 @@ import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.*;
 import com.github.dawid_stolarczyk.magazyn.Security.Auth.AuthUtil;
 import com.github.dawid_stolarczyk.magazyn.Security.Auth.Entity.AuthPrincipal;
 import com.github.dawid_stolarczyk.magazyn.Security.SessionManager;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.NotificationDispatcher;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.UnreadNotificationCounter;
 import com.github.dawid_stolarczyk.magazyn.Services.EmailService;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.RateLimitOperation;
@@ -33,6 +35,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static com.github.dawid_stolarczyk.magazyn.Utils.InternetUtils.getClientIp;
 import static com.github.dawid_stolarczyk.magazyn.Utils.StringUtils.checkPasswordStrength;
@@ -49,6 +52,8 @@ public class UserService {
     private final AlertRepository alertRepository;
     private final UserNotificationRepository userNotificationRepository;
     private final AssortmentRepository assortmentRepository;
+    private final NotificationDispatcher notificationDispatcher;
+    private final UnreadNotificationCounter unreadCounter;
 
 
     public UserInfoResponse getBasicInformation(HttpServletRequest request) {
@@ -185,6 +190,7 @@ public class UserService {
         targetUser.setEmailVerifications(emailVerification);
 
         userRepository.save(targetUser);
+        notificationDispatcher.invalidateRecipients();
 
         String baseUrl = ServletUriComponentsBuilder.fromContextPath(request)
                 .replacePath(null)
@@ -229,6 +235,7 @@ public class UserService {
         }
 
         userRepository.save(targetUser);
+        notificationDispatcher.invalidateRecipients();
     }
 
     /**
@@ -250,6 +257,7 @@ public class UserService {
 
         targetUser.setStatus(newStatus);
         userRepository.save(targetUser);
+        notificationDispatcher.invalidateRecipients();
     }
 
     /**
@@ -273,6 +281,7 @@ public class UserService {
         assortmentRepository.saveAll(userAssortments);
 
         userRepository.delete(targetUser);
+        notificationDispatcher.invalidateRecipients();
     }
 
     /**
@@ -291,6 +300,7 @@ public class UserService {
 
         user.assignToWarehouse(warehouse);
         userRepository.save(user);
+        notificationDispatcher.invalidateRecipients();
     }
 
     /**
@@ -309,6 +319,7 @@ public class UserService {
 
         user.removeFromWarehouse(warehouse);
         userRepository.save(user);
+        notificationDispatcher.invalidateRecipients();
     }
 
     /**
@@ -356,6 +367,7 @@ public class UserService {
             userNotificationRepository.save(userNotification);
             alert.getUserNotifications().add(userNotification);
         }
+        unreadCounter.adjust(targetUsers.stream().collect(Collectors.toMap(User::getId, user -> 1, Integer::sum)));
     }
 
 }
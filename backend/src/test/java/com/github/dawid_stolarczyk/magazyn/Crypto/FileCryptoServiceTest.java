@@ -8,16 +8,27 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.github.dawid_stolarczyk.magazyn.Exception.EncryptionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
 import javax.crypto.Cipher;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -77,4 +88,170 @@ class FileCryptoServiceTest {
         // Then
         assertThat(new String(decryptedOut.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(originalText);
     }
+
+    private static final int SEGMENT_SIZE = 64;
+    private static final int SEALED_SEGMENT_SIZE = SEGMENT_SIZE + 16;
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(7).nextBytes(data);
+        return data;
+    }
+
+    private byte[] encryptSegmented(byte[] data) throws Exception {
+        ReflectionTestUtils.setField(fileCryptoService, "segmentedFormatEnabled", true);
+        ReflectionTestUtils.setField(fileCryptoService, "segmentSize", SEGMENT_SIZE);
+        when(cryptoService.prepareSegmentedEncryption())
+                .thenReturn(new SegmentedEncryptionKey("test-kek", new byte[32], new byte[12], mockKey));
+
+        ByteArrayOutputStream encryptedOut = new ByteArrayOutputStream();
+        fileCryptoService.encrypt(new ByteArrayInputStream(data), encryptedOut);
+        return encryptedOut.toByteArray();
+    }
+
+    private byte[] decrypt(byte[] encrypted) throws Exception {
+        when(cryptoService.unwrapDataKey(eq("test-kek"), any(), any())).thenReturn(mockKey);
+        ByteArrayOutputStream decryptedOut = new ByteArrayOutputStream();
+        fileCryptoService.decrypt(new ByteArrayInputStream(encrypted), decryptedOut);
+        return decryptedOut.toByteArray();
+    }
+
+    private static int headerLength(byte[] encrypted) {
+        return ByteBuffer.wrap(encrypted, 4, 4).getInt();
+    }
+
+    /**
+     * Serves ranges of an in-memory file and records every range requested.
+     */
+    private static final class RecordingSource implements CiphertextSource {
+        private final byte[] data;
+        private final List<long[]> ranges = new ArrayList<>();
+
+        RecordingSource(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public long size() {
+            return data.length;
+        }
+
+        @Override
+        public InputStream open(long start, long endInclusive) {
+            ranges.add(new long[]{start, endInclusive});
+            return new ByteArrayInputStream(data, (int) start, (int) (endInclusive - start + 1));
+        }
+    }
+
+    @Test
+    @DisplayName("should_EncryptAndDecryptSegmentedStream_AcrossSegments")
+    void should_EncryptAndDecryptSegmentedStream_AcrossSegments() throws Exception {
+        // Given
+        byte[] originalData = randomBytes(1000);
+
+        // When
+        byte[] encrypted = encryptSegmented(originalData);
+        byte[] decrypted = decrypt(encrypted);
+
+        // Then - 15 full segments and a final one of 40 bytes, each followed by its tag
+        assertThat(ByteBuffer.wrap(encrypted).getInt()).isEqualTo(0x4D414732);
+        assertThat(encrypted.length).isEqualTo(headerLength(encrypted) + 1000 + 16 * 16);
+        assertThat(decrypted).isEqualTo(originalData);
+    }
+
+    @Test
+    @DisplayName("should_RoundTrip_When_InputIsExactMultipleOfSegmentSize")
+    void should_RoundTrip_When_InputIsExactMultipleOfSegmentSize() throws Exception {
+        // Given
+        byte[] originalData = randomBytes(4 * SEGMENT_SIZE);
+
+        // When
+        byte[] encrypted = encryptSegmented(originalData);
+
+        // Then - the last full segment carries the final flag, no empty trailer is needed
+        assertThat(encrypted.length).isEqualTo(headerLength(encrypted) + 4 * SEALED_SEGMENT_SIZE);
+        assertThat(decrypt(encrypted)).isEqualTo(originalData);
+    }
+
+    @Test
+    @DisplayName("should_RejectFile_When_TruncatedAtSegmentBoundary")
+    void should_RejectFile_When_TruncatedAtSegmentBoundary() throws Exception {
+        // Given
+        byte[] encrypted = encryptSegmented(randomBytes(4 * SEGMENT_SIZE));
+        byte[] truncated = Arrays.copyOf(encrypted, headerLength(encrypted) + 2 * SEALED_SEGMENT_SIZE);
+
+        // When / Then
+        assertThatThrownBy(() -> decrypt(truncated))
+                .isInstanceOf(EncryptionException.class)
+                .hasMessageContaining("Segment 1");
+    }
+
+    @Test
+    @DisplayName("should_RejectFile_When_SegmentsAreReordered")
+    void should_RejectFile_When_SegmentsAreReordered() throws Exception {
+        // Given
+        byte[] encrypted = encryptSegmented(randomBytes(4 * SEGMENT_SIZE));
+        int first = headerLength(encrypted);
+        int second = first + SEALED_SEGMENT_SIZE;
+        byte[] reordered = encrypted.clone();
+        System.arraycopy(encrypted, second, reordered, first, SEALED_SEGMENT_SIZE);
+        System.arraycopy(encrypted, first, reordered, second, SEALED_SEGMENT_SIZE);
+
+        // When / Then
+        assertThatThrownBy(() -> decrypt(reordered))
+                .isInstanceOf(EncryptionException.class)
+                .hasMessageContaining("Segment 0");
+    }
+
+    @Test
+    @DisplayName("should_FetchOnlyCoveringSegments_When_RangeRequested")
+    void should_FetchOnlyCoveringSegments_When_RangeRequested() throws Exception {
+        // Given
+        byte[] originalData = randomBytes(1000);
+        byte[] encrypted = encryptSegmented(originalData);
+        when(cryptoService.unwrapDataKey(eq("test-kek"), any(), any())).thenReturn(mockKey);
+        RecordingSource source = new RecordingSource(encrypted);
+
+        // When
+        EncryptedBlob blob = fileCryptoService.open(source);
+        ByteArrayOutputStream rangeOut = new ByteArrayOutputStream();
+        long written = blob.decryptRange(100, 50, rangeOut);
+        ByteArrayOutputStream tailOut = new ByteArrayOutputStream();
+        blob.decryptRange(990, Long.MAX_VALUE, tailOut);
+
+        // Then - bytes 100..149 live in segments 1 and 2; the tail read only touches the final segment
+        int header = headerLength(encrypted);
+        assertThat(blob.plaintextLength()).isEqualTo(1000);
+        assertThat(written).isEqualTo(50);
+        assertThat(rangeOut.toByteArray()).isEqualTo(Arrays.copyOfRange(originalData, 100, 150));
+        assertThat(tailOut.toByteArray()).isEqualTo(Arrays.copyOfRange(originalData, 990, 1000));
+        assertThat(source.ranges.get(1)).containsExactly(header + SEALED_SEGMENT_SIZE, header + 3L * SEALED_SEGMENT_SIZE - 1);
+        assertThat(source.ranges.get(2)).containsExactly(header + 15L * SEALED_SEGMENT_SIZE, encrypted.length - 1);
+    }
+
+    @Test
+    @DisplayName("should_DecryptRange_When_FileUsesLegacyFormat")
+    void should_DecryptRange_When_FileUsesLegacyFormat() throws Exception {
+        // Given
+        byte[] originalData = randomBytes(500);
+        Cipher encryptCipher = Cipher.getInstance("AES/GCM/NoPadding");
+        encryptCipher.init(Cipher.ENCRYPT_MODE, mockKey);
+        when(cryptoService.prepareStreamEncryption()).thenReturn(new StreamEncryptedData(
+                "test-kek", new byte[32], new byte[12], encryptCipher.getIV(), encryptCipher));
+        ByteArrayOutputStream encryptedOut = new ByteArrayOutputStream();
+        fileCryptoService.encrypt(new ByteArrayInputStream(originalData), encryptedOut);
+
+        Cipher decryptCipher = Cipher.getInstance("AES/GCM/NoPadding");
+        decryptCipher.init(Cipher.DECRYPT_MODE, mockKey, encryptCipher.getParameters());
+        when(cryptoService.prepareStreamDecryption(anyString(), any(), any(), any())).thenReturn(decryptCipher);
+
+        // When
+        EncryptedBlob blob = fileCryptoService.open(new RecordingSource(encryptedOut.toByteArray()));
+        ByteArrayOutputStream rangeOut = new ByteArrayOutputStream();
+        blob.decryptRange(200, 100, rangeOut);
+
+        // Then
+        assertThat(blob.plaintextLength()).isEqualTo(500);
+        assertThat(rangeOut.toByteArray()).isEqualTo(Arrays.copyOfRange(originalData, 200, 300));
+    }
 }
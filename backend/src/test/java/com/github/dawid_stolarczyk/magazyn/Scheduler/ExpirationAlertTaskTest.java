@@ -0,0 +1,240 @@
+package com.github.dawid_stolarczyk.magazyn.Scheduler;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Alert;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Item;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Rack;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AlertRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AssortmentRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.ItemRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.ExpiryGroupProjection;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.ActiveAlertRegistry;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.NotificationDispatcher;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.NotificationDispatcher.Delivery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExpirationAlertTaskTest {
+
+    @Mock
+    private AssortmentRepository assortmentRepository;
+    @Mock
+    private AlertRepository alertRepository;
+    @Mock
+    private RackRepository rackRepository;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private ActiveAlertRegistry activeAlertRegistry;
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    @InjectMocks
+    private ExpirationAlertTask task;
+
+    private Rack rack;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(task, "closeToExpiryDays", 2);
+        ReflectionTestUtils.setField(task, "scanOverlapSeconds", 60L);
+
+        rack = new Rack();
+        rack.setId(1L);
+        rack.setMarker("R-01");
+        item = new Item();
+        item.setId(10L);
+        item.setName("Milk");
+    }
+
+    private static ExpiryGroupProjection group(long rackId, long itemId, long count) {
+        return new ExpiryGroupProjection() {
+            @Override
+            public Long getRackId() {
+                return rackId;
+            }
+
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Long getAssortmentCount() {
+                return count;
+            }
+        };
+    }
+
+    private Alert alert(long id, AlertStatus status) {
+        return Alert.builder()
+                .id(id)
+                .rack(rack)
+                .item(item)
+                .alertType(AlertType.ASSORTMENT_EXPIRED)
+                .status(status)
+                .build();
+    }
+
+    @Nested
+    @DisplayName("checkExpirations")
+    class CheckExpirations {
+
+        @Test
+        void should_ScanFromEpoch_When_FirstRunAfterStartup() {
+            // Given
+            when(assortmentRepository.findExpiryGroupsCrossedSince(any(), any(), any(), any())).thenReturn(List.of());
+
+            // When
+            task.checkExpirations();
+
+            // Then
+            Timestamp epoch = Timestamp.from(Instant.EPOCH);
+            verify(assortmentRepository).findExpiryGroupsCrossedSince(eq(epoch), eq(epoch), any(), eq(epoch));
+            assertThat(ReflectionTestUtils.getField(task, "lastScanAt")).isNotNull();
+        }
+
+        @Test
+        void should_ScanOnlySinceLastRunMinusOverlap_When_WatermarkSet() {
+            // Given
+            Instant lastScan = Instant.now().minusSeconds(300);
+            ReflectionTestUtils.setField(task, "lastScanAt", lastScan);
+            when(assortmentRepository.findExpiryGroupsCrossedSince(any(), any(), any(), any())).thenReturn(List.of());
+
+            // When
+            task.checkExpirations();
+
+            // Then
+            Timestamp since = Timestamp.from(lastScan.minusSeconds(60));
+            verify(assortmentRepository).findExpiryGroupsCrossedSince(
+                    eq(Timestamp.from(Instant.EPOCH)), eq(since), any(), eq(since));
+        }
+
+        @Test
+        void should_CreateAlertWithTotalCount_When_GroupCrossedThreshold() {
+            // Given
+            when(assortmentRepository.findExpiryGroupsCrossedSince(any(), any(), any(), any()))
+                    .thenReturn(List.of(group(1L, 10L, 1L)))
+                    .thenReturn(List.of());
+            when(rackRepository.findAllById(anyCollection())).thenReturn(List.of(rack));
+            when(itemRepository.findAllById(anyCollection())).thenReturn(List.of(item));
+            when(assortmentRepository.countExpiryGroups(anyCollection(), any(), any()))
+                    .thenReturn(List.of(group(1L, 10L, 4L)));
+            when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // When
+            task.checkExpirations();
+
+            // Then
+            ArgumentCaptor<Alert> alert = ArgumentCaptor.forClass(Alert.class);
+            verify(alertRepository).save(alert.capture());
+            assertThat(alert.getValue().getAlertType()).isEqualTo(AlertType.ASSORTMENT_EXPIRED);
+            assertThat(alert.getValue().getMessage()).contains("4 szt.", "Milk", "R-01");
+            verify(activeAlertRegistry).register(alert.getValue());
+            verify(notificationDispatcher).dispatch(alert.getValue(), Delivery.SILENT);
+        }
+
+        @Test
+        void should_SkipGroup_When_AlertAlreadyActive() {
+            // Given
+            when(assortmentRepository.findExpiryGroupsCrossedSince(any(), any(), any(), any()))
+                    .thenReturn(List.of(group(1L, 10L, 2L)));
+            when(activeAlertRegistry.findActiveAlertId(eq(1L), eq(10L), any(AlertType.class))).thenReturn(Optional.of(99L));
+            when(alertRepository.findAllById(Set.of(99L))).thenReturn(List.of(alert(99L, AlertStatus.OPEN)));
+
+            // When
+            task.checkExpirations();
+
+            // Then
+            verify(alertRepository, never()).save(any(Alert.class));
+            verifyNoInteractions(rackRepository, itemRepository, notificationDispatcher);
+        }
+
+        @Test
+        void should_RaiseAlertAgain_When_RegisteredAlertResolvedElsewhere() {
+            // Given
+            when(assortmentRepository.findExpiryGroupsCrossedSince(any(), any(), any(), any()))
+                    .thenReturn(List.of(group(1L, 10L, 2L)))
+                    .thenReturn(List.of());
+            when(activeAlertRegistry.findActiveAlertId(1L, 10L, AlertType.ASSORTMENT_EXPIRED)).thenReturn(Optional.of(99L));
+            when(alertRepository.findAllById(Set.of(99L))).thenReturn(List.of(alert(99L, AlertStatus.RESOLVED)));
+            when(rackRepository.findAllById(anyCollection())).thenReturn(List.of(rack));
+            when(itemRepository.findAllById(anyCollection())).thenReturn(List.of(item));
+            when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // When
+            task.checkExpirations();
+
+            // Then
+            verify(activeAlertRegistry).evict(1L, 10L, AlertType.ASSORTMENT_EXPIRED, 99L);
+            verify(alertRepository).save(any(Alert.class));
+            verify(notificationDispatcher).dispatch(any(Alert.class), eq(Delivery.SILENT));
+        }
+
+        @Test
+        void should_RegisterExistingAlert_And_AdvanceWatermark_When_CreatedByAnotherInstance() {
+            // Given
+            Alert existing = alert(77L, AlertStatus.OPEN);
+            when(assortmentRepository.findExpiryGroupsCrossedSince(any(), any(), any(), any()))
+                    .thenReturn(List.of(group(1L, 10L, 2L)))
+                    .thenReturn(List.of());
+            when(activeAlertRegistry.findActiveAlertId(anyLong(), anyLong(), any(AlertType.class))).thenReturn(Optional.empty());
+            when(rackRepository.findAllById(anyCollection())).thenReturn(List.of(rack));
+            when(itemRepository.findAllById(anyCollection())).thenReturn(List.of(item));
+            when(alertRepository.save(any(Alert.class)))
+                    .thenThrow(new DataIntegrityViolationException("idx_unique_open_alert"));
+            when(alertRepository.findFirstByRackIdAndItemIdAndAlertTypeAndStatusIn(
+                    eq(1L), eq(10L), eq(AlertType.ASSORTMENT_EXPIRED), anyList())).thenReturn(Optional.of(existing));
+
+            // When
+            task.checkExpirations();
+
+            // Then
+            verify(activeAlertRegistry).register(existing);
+            verifyNoInteractions(notificationDispatcher);
+            assertThat(ReflectionTestUtils.getField(task, "lastScanAt")).isNotNull();
+        }
+
+        @Test
+        void should_KeepWatermark_When_ScanFails() {
+            // Given
+            Instant lastScan = Instant.now().minusSeconds(300);
+            ReflectionTestUtils.setField(task, "lastScanAt", lastScan);
+            when(assortmentRepository.findExpiryGroupsCrossedSince(any(), any(), any(), any()))
+                    .thenThrow(new IllegalStateException("database down"));
+
+            // When
+            task.checkExpirations();
+
+            // Then
+            assertThat(ReflectionTestUtils.getField(task, "lastScanAt")).isEqualTo(lastScan);
+        }
+    }
+}
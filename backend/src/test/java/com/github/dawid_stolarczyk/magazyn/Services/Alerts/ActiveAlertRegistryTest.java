@@ -0,0 +1,167 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Alert;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Item;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Rack;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AlertRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.ActiveAlertProjection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ActiveAlertRegistryTest {
+
+    @Mock
+    private AlertRepository alertRepository;
+
+    @InjectMocks
+    private ActiveAlertRegistry activeAlertRegistry;
+
+    private Rack rack;
+
+    @BeforeEach
+    void setUp() {
+        rack = new Rack();
+        rack.setId(10L);
+    }
+
+    private static ActiveAlertProjection row(Long id, Long rackId, Long itemId, AlertType alertType) {
+        return new ActiveAlertProjection() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public Long getRackId() {
+                return rackId;
+            }
+
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public AlertType getAlertType() {
+                return alertType;
+            }
+        };
+    }
+
+    @Nested
+    @DisplayName("reload")
+    class Reload {
+
+        @Test
+        void should_DistinguishRackAndItemAlerts_When_Loaded() {
+            // Given
+            when(alertRepository.findActiveRackAlerts(anyList())).thenReturn(List.of(
+                    row(1L, 10L, null, AlertType.TEMPERATURE_TOO_HIGH),
+                    row(2L, 10L, 500L, AlertType.ITEM_TEMPERATURE_TOO_HIGH)));
+
+            // When
+            activeAlertRegistry.reload();
+
+            // Then
+            assertThat(activeAlertRegistry.findActiveAlertId(10L, null, AlertType.TEMPERATURE_TOO_HIGH)).contains(1L);
+            assertThat(activeAlertRegistry.findActiveAlertId(10L, 500L, AlertType.ITEM_TEMPERATURE_TOO_HIGH)).contains(2L);
+            assertThat(activeAlertRegistry.isActive(10L, 500L, AlertType.TEMPERATURE_TOO_HIGH)).isFalse();
+            assertThat(activeAlertRegistry.isActive(10L, null, AlertType.ITEM_TEMPERATURE_TOO_HIGH)).isFalse();
+        }
+
+        @Test
+        void should_DropAlertsResolvedOutsideRegistry_When_Reloaded() {
+            // Given
+            when(alertRepository.findActiveRackAlerts(anyList()))
+                    .thenReturn(List.of(row(1L, 10L, null, AlertType.WEIGHT_EXCEEDED)))
+                    .thenReturn(List.of());
+            activeAlertRegistry.reload();
+
+            // When
+            activeAlertRegistry.reload();
+
+            // Then
+            assertThat(activeAlertRegistry.isActive(10L, null, AlertType.WEIGHT_EXCEEDED)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("register / unregister")
+    class RegisterUnregister {
+
+        @Test
+        void should_TrackAlertLifecycle_When_CreatedAndResolved() {
+            // Given
+            Item item = new Item();
+            item.setId(500L);
+            Alert alert = Alert.builder().id(3L).rack(rack).item(item)
+                    .alertType(AlertType.ASSORTMENT_EXPIRED).build();
+
+            // When
+            activeAlertRegistry.register(alert);
+            boolean activeAfterCreate = activeAlertRegistry.isActive(10L, 500L, AlertType.ASSORTMENT_EXPIRED);
+            activeAlertRegistry.unregister(alert);
+
+            // Then
+            assertThat(activeAfterCreate).isTrue();
+            assertThat(activeAlertRegistry.isActive(10L, 500L, AlertType.ASSORTMENT_EXPIRED)).isFalse();
+        }
+
+        @Test
+        void should_KeepNewerAlert_When_OlderAlertUnregistered() {
+            // Given
+            Alert older = Alert.builder().id(1L).rack(rack).alertType(AlertType.WEIGHT_EXCEEDED).build();
+            Alert newer = Alert.builder().id(2L).rack(rack).alertType(AlertType.WEIGHT_EXCEEDED).build();
+            activeAlertRegistry.register(older);
+            activeAlertRegistry.register(newer);
+
+            // When
+            activeAlertRegistry.unregister(older);
+
+            // Then
+            assertThat(activeAlertRegistry.findActiveAlertId(10L, null, AlertType.WEIGHT_EXCEEDED)).contains(2L);
+        }
+
+        @Test
+        void should_EvictOnlyMatchingAlert_When_StaleEntryDropped() {
+            // Given
+            Alert alert = Alert.builder().id(5L).rack(rack).alertType(AlertType.WEIGHT_EXCEEDED).build();
+            activeAlertRegistry.register(alert);
+
+            // When
+            activeAlertRegistry.evict(10L, null, AlertType.WEIGHT_EXCEEDED, 4L);
+            boolean keptForOtherId = activeAlertRegistry.isActive(10L, null, AlertType.WEIGHT_EXCEEDED);
+            activeAlertRegistry.evict(10L, null, AlertType.WEIGHT_EXCEEDED, 5L);
+
+            // Then
+            assertThat(keptForOtherId).isTrue();
+            assertThat(activeAlertRegistry.isActive(10L, null, AlertType.WEIGHT_EXCEEDED)).isFalse();
+        }
+
+        @Test
+        void should_IgnoreSystemWideAlerts_When_Registered() {
+            // Given
+            Alert systemAlert = Alert.builder().id(4L).alertType(AlertType.BACKUP_FAILED).build();
+
+            // When
+            activeAlertRegistry.register(systemAlert);
+
+            // Then
+            assertThat(activeAlertRegistry.isActive(null, null, AlertType.BACKUP_FAILED)).isFalse();
+        }
+    }
+}
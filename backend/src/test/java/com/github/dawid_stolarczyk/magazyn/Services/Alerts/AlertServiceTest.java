@@ -7,6 +7,7 @@ import com.github.dawid_stolarczyk.magazyn.Model.Entity.User;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.Warehouse;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.LiveEventType;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AlertRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserRepository;
 import com.github.dawid_stolarczyk.magazyn.Security.Auth.AuthUtil;
@@ -41,6 +42,12 @@ class AlertServiceTest {
     @Mock
     private Bucket4jRateLimiter rateLimiter;
     @Mock
+    private ActiveAlertRegistry activeAlertRegistry;
+    @Mock
+    private LiveEventBus liveEventBus;
+    @Mock
+    private UnreadNotificationCounter unreadCounter;
+    @Mock
     private HttpServletRequest request;
 
     @InjectMocks
@@ -108,5 +115,8 @@ class AlertServiceTest {
         assertThat(alert.getStatus()).isEqualTo(AlertStatus.RESOLVED);
         assertThat(alert.getResolutionNotes()).isEqualTo("Fixed sensor");
         verify(alertRepository).save(alert);
+        verify(activeAlertRegistry).unregister(alert);
+        verify(liveEventBus).publishToWarehouse(eq(5L), argThat(event ->
+                event.getType() == LiveEventType.ALERT_UPDATED && event.getStatus() == AlertStatus.RESOLVED));
     }
 }
@@ -0,0 +1,153 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.LiveEventDto;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.LiveEventType;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserRepository;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.LiveEventBus.RoutedEvent;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.LiveEventBus.Subscriber;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiveEventBusTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private RedisMessageListenerContainer listenerContainer;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().addModule(new JavaTimeModule()).build();
+    private LiveEventBus bus;
+
+    @BeforeEach
+    void setUp() {
+        bus = new LiveEventBus(userRepository, redisTemplate, listenerContainer, objectMapper);
+        ReflectionTestUtils.setField(bus, "redisEnabled", true);
+        ReflectionTestUtils.setField(bus, "channel", "live-events");
+        ReflectionTestUtils.setField(bus, "maxConnectionsPerUser", 2);
+    }
+
+    private SseEmitter connect(long userId, Set<Long> warehouseIds, boolean admin) {
+        SseEmitter emitter = mock(SseEmitter.class);
+        bus.register(userId, new Subscriber(emitter, warehouseIds, admin));
+        return emitter;
+    }
+
+    private static LiveEventDto event(LiveEventType type) {
+        return LiveEventDto.builder().type(type).alertId(7L).warehouseId(1L).status(AlertStatus.OPEN)
+                .message("Rack R-01 overweight").occurredAt(Instant.now()).build();
+    }
+
+    @Nested
+    @DisplayName("publish")
+    class Publish {
+
+        @Test
+        void should_DeliverToAssignedUsersAndAdmins_When_WarehouseEventPublished() throws IOException {
+            // Given
+            SseEmitter assigned = connect(1L, Set.of(1L), false);
+            SseEmitter otherWarehouse = connect(2L, Set.of(2L), false);
+            SseEmitter admin = connect(3L, Set.of(), true);
+
+            // When
+            bus.publishToWarehouse(1L, event(LiveEventType.ALERT_UPDATED));
+
+            // Then
+            verify(assigned).send(any(SseEmitter.SseEventBuilder.class));
+            verify(admin).send(any(SseEmitter.SseEventBuilder.class));
+            verify(otherWarehouse, never()).send(any(SseEmitter.SseEventBuilder.class));
+            verify(redisTemplate).convertAndSend(eq("live-events"), anyString());
+        }
+
+        @Test
+        void should_DeliverOnlyToTargetedUsers_When_NotificationPublished() throws IOException {
+            // Given
+            SseEmitter target = connect(1L, Set.of(1L), false);
+            SseEmitter admin = connect(3L, Set.of(), true);
+
+            // When
+            bus.publishToUsers(List.of(1L), event(LiveEventType.NOTIFICATION));
+
+            // Then
+            verify(target).send(any(SseEmitter.SseEventBuilder.class));
+            verify(admin, never()).send(any(SseEmitter.SseEventBuilder.class));
+        }
+
+        @Test
+        void should_DropConnection_When_ClientWentAway() throws IOException {
+            // Given
+            SseEmitter broken = connect(1L, Set.of(1L), false);
+            doThrow(new IOException("Broken pipe")).when(broken).send(any(SseEmitter.SseEventBuilder.class));
+            bus.publishToWarehouse(1L, event(LiveEventType.ALERT_UPDATED));
+
+            // When
+            bus.publishToWarehouse(1L, event(LiveEventType.ALERT_UPDATED));
+
+            // Then
+            verify(broken, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+        }
+
+        @Test
+        void should_CloseOldestConnection_When_UserExceedsConnectionLimit() {
+            // Given
+            SseEmitter first = connect(1L, Set.of(1L), false);
+            connect(1L, Set.of(1L), false);
+
+            // When
+            connect(1L, Set.of(1L), false);
+
+            // Then
+            verify(first).complete();
+        }
+    }
+
+    @Nested
+    @DisplayName("onMessage")
+    class OnMessage {
+
+        @Test
+        void should_DeliverEventsFromOtherNodes_And_IgnoreOwn() throws Exception {
+            // Given
+            SseEmitter admin = connect(3L, Set.of(), true);
+            String ownNode = (String) ReflectionTestUtils.getField(bus, "nodeId");
+            byte[] remote = objectMapper.writeValueAsBytes(
+                    new RoutedEvent("other-node", null, 1L, event(LiveEventType.ALERT_UPDATED)));
+            byte[] own = objectMapper.writeValueAsBytes(
+                    new RoutedEvent(ownNode, null, 1L, event(LiveEventType.ALERT_UPDATED)));
+
+            // When
+            bus.onMessage(new DefaultMessage("live-events".getBytes(), remote), null);
+            bus.onMessage(new DefaultMessage("live-events".getBytes(), own), null);
+
+            // Then
+            verify(admin, times(1)).send(any(SseEmitter.SseEventBuilder.class));
+            verifyNoInteractions(redisTemplate);
+        }
+    }
+}
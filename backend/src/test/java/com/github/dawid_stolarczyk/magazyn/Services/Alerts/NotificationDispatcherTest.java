@@ -0,0 +1,335 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Alert;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.PendingNotification;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.User;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Warehouse;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AccountStatus;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.LiveEventType;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.UserRole;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AlertRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.PendingNotificationRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserNotificationBatchRepository.NotificationKey;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserNotificationRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.NotificationStateProjection;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.NotificationDispatcher.Delivery;
+import com.github.dawid_stolarczyk.magazyn.Services.EmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationDispatcherTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserNotificationRepository notificationRepository;
+    @Mock
+    private PendingNotificationRepository pendingRepository;
+    @Mock
+    private AlertRepository alertRepository;
+    @Mock
+    private EmailService emailService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private LiveEventBus liveEventBus;
+    @Mock
+    private UnreadNotificationCounter unreadCounter;
+
+    @InjectMocks
+    private NotificationDispatcher dispatcher;
+
+    private Warehouse warehouse;
+    private User operator;
+    private User admin;
+
+    private final List<PendingNotification> pendingRows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dispatcher, "recipientCacheTtlSeconds", 60L);
+        ReflectionTestUtils.setField(dispatcher, "flushBatchSize", 500);
+        warehouse = Warehouse.builder().id(1L).name("Main WH").build();
+
+        operator = new User();
+        operator.setId(100L);
+        operator.setEmail("operator@example.com");
+        admin = new User();
+        admin.setId(200L);
+        admin.setEmail("admin@example.com");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    /**
+     * Keeps dispatched rows in memory and returns them from the lock query, like the pending table would.
+     */
+    @SuppressWarnings("unchecked")
+    private void storePendingRowsInMemory(Alert... currentAlerts) {
+        lenient().doAnswer(invocation -> {
+            for (PendingNotification row : invocation.<List<PendingNotification>>getArgument(0)) {
+                row.setId((long) pendingRows.size() + 1);
+                pendingRows.add(row);
+            }
+            return null;
+        }).when(pendingRepository).insertAll(anyList());
+        lenient().when(pendingRepository.lockBatch(anyInt())).thenAnswer(invocation -> List.copyOf(pendingRows));
+        lenient().when(alertRepository.findAllById(anyIterable())).thenReturn(List.of(currentAlerts));
+    }
+
+    private Alert alert(long id, String message) {
+        return Alert.builder().id(id).warehouse(warehouse).message(message).build();
+    }
+
+    private static NotificationStateProjection state(long userId, long alertId, boolean read) {
+        return new NotificationStateProjection() {
+            @Override
+            public Long getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Long getAlertId() {
+                return alertId;
+            }
+
+            @Override
+            public boolean isRead() {
+                return read;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<NotificationKey> insertedKeys() {
+        ArgumentCaptor<List<NotificationKey>> keys = ArgumentCaptor.forClass(List.class);
+        verify(notificationRepository).insertUnread(keys.capture(), any(Instant.class));
+        return keys.getValue();
+    }
+
+    @Nested
+    @DisplayName("flush")
+    class Flush {
+
+        @Test
+        void should_CoalesceAlertStorm_When_SameAlertDispatchedRepeatedly() {
+            // Given – one alert updated three times and a second alert, all within one window
+            runTransactionsInline();
+            storePendingRowsInMemory(alert(1L, "latest"), alert(2L, "other"));
+            when(userRepository.findByWarehouseIdAndStatusOrAdmin(1L, AccountStatus.ACTIVE))
+                    .thenReturn(List.of(operator, admin));
+            when(notificationRepository.findStatesForAlerts(anyCollection())).thenReturn(List.of());
+            dispatcher.dispatch(alert(1L, "first"), Delivery.SILENT);
+            dispatcher.dispatch(alert(1L, "second"), Delivery.EMAIL);
+            dispatcher.dispatch(alert(1L, "latest"), Delivery.SILENT);
+            dispatcher.dispatch(alert(2L, "other"), Delivery.EMAIL);
+
+            // When
+            dispatcher.flush();
+
+            // Then
+            verify(userRepository, times(1)).findByWarehouseIdAndStatusOrAdmin(1L, AccountStatus.ACTIVE);
+            verify(notificationRepository, times(1)).findStatesForAlerts(anyCollection());
+            assertThat(insertedKeys()).containsExactlyInAnyOrder(
+                    new NotificationKey(100L, 1L), new NotificationKey(200L, 1L),
+                    new NotificationKey(100L, 2L), new NotificationKey(200L, 2L));
+            verify(emailService).sendBatchNotificationEmail(eq("operator@example.com"),
+                    eq(List.of("latest", "other")), any());
+            verify(emailService).sendBatchNotificationEmail(eq("admin@example.com"),
+                    eq(List.of("latest", "other")), any());
+            verify(notificationRepository, never()).markUnreadForAlerts(anyCollection());
+            verify(unreadCounter).adjust(Map.of(100L, 2, 200L, 2));
+            verify(pendingRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L, 4L));
+        }
+
+        @Test
+        void should_MarkReadNotificationsUnread_When_AlertRenotified() {
+            // Given – operator already read the notification, admin has an unread one
+            runTransactionsInline();
+            storePendingRowsInMemory(alert(1L, "worse"));
+            when(userRepository.findByWarehouseIdAndStatusOrAdmin(1L, AccountStatus.ACTIVE))
+                    .thenReturn(List.of(operator, admin));
+            when(notificationRepository.findStatesForAlerts(anyCollection()))
+                    .thenReturn(List.of(state(100L, 1L, true), state(200L, 1L, false)));
+            dispatcher.dispatch(alert(1L, "worse"), Delivery.RENOTIFY);
+
+            // When
+            dispatcher.flush();
+
+            // Then
+            verify(notificationRepository).markUnreadForAlerts(List.of(1L));
+            assertThat(insertedKeys()).isEmpty();
+            verify(liveEventBus).publishToUsers(eq(List.of(100L)), any());
+            verify(unreadCounter).adjust(Map.of(100L, 1));
+            verify(emailService).sendBatchNotificationEmail(eq("operator@example.com"), eq(List.of("worse")), any());
+            verifyNoMoreInteractions(emailService);
+        }
+
+        @Test
+        void should_NotEmail_When_DeliveryIsSilent() {
+            // Given
+            runTransactionsInline();
+            storePendingRowsInMemory(alert(1L, "quiet"));
+            when(userRepository.findByWarehouseIdAndStatusOrAdmin(1L, AccountStatus.ACTIVE))
+                    .thenReturn(List.of(operator));
+            when(notificationRepository.findStatesForAlerts(anyCollection())).thenReturn(List.of());
+            dispatcher.dispatch(alert(1L, "quiet"), Delivery.SILENT);
+
+            // When
+            dispatcher.flush();
+
+            // Then
+            assertThat(insertedKeys()).containsExactly(new NotificationKey(100L, 1L));
+            verifyNoInteractions(emailService);
+            verify(liveEventBus).publishToUsers(eq(List.of(100L)), argThat(event ->
+                    event.getType() == LiveEventType.NOTIFICATION && event.getAlertId() == 1L));
+        }
+
+        @Test
+        void should_NotifyAdminsOnly_When_DispatchedToAdmins() {
+            // Given
+            runTransactionsInline();
+            storePendingRowsInMemory(alert(3L, "backup"));
+            when(userRepository.findByRoleAndStatus(UserRole.ADMIN, AccountStatus.ACTIVE)).thenReturn(List.of(admin));
+            when(notificationRepository.findStatesForAlerts(anyCollection())).thenReturn(List.of());
+            dispatcher.dispatchToAdmins(alert(3L, "backup"));
+
+            // When
+            dispatcher.flush();
+
+            // Then
+            assertThat(insertedKeys()).containsExactly(new NotificationKey(200L, 3L));
+            verify(userRepository, never()).findByWarehouseIdAndStatusOrAdmin(anyLong(), any());
+            verifyNoInteractions(emailService);
+        }
+
+        @Test
+        void should_DoNothing_When_NothingQueued() {
+            // Given
+            runTransactionsInline();
+            storePendingRowsInMemory();
+
+            // When
+            dispatcher.flush();
+
+            // Then
+            verifyNoInteractions(notificationRepository, emailService, liveEventBus);
+            verify(pendingRepository, never()).deleteAllByIdInBatch(anyIterable());
+        }
+
+        @Test
+        void should_KeepPendingDispatches_When_DistributionFails() {
+            // Given
+            runTransactionsInline();
+            storePendingRowsInMemory(alert(1L, "kept"));
+            when(notificationRepository.findStatesForAlerts(anyCollection())).thenThrow(new IllegalStateException("db down"));
+            dispatcher.dispatch(alert(1L, "kept"), Delivery.EMAIL);
+
+            // When
+            dispatcher.flush();
+
+            // Then
+            verify(pendingRepository, never()).deleteAllByIdInBatch(anyIterable());
+            verifyNoInteractions(emailService, liveEventBus);
+            assertThat(pendingRows).hasSize(1);
+        }
+
+        @Test
+        void should_DropDispatch_When_AlertDeleted() {
+            // Given
+            runTransactionsInline();
+            storePendingRowsInMemory();
+            dispatcher.dispatch(alert(5L, "gone"), Delivery.EMAIL);
+
+            // When
+            dispatcher.flush();
+
+            // Then
+            verify(pendingRepository).deleteAllByIdInBatch(List.of(1L));
+            verifyNoInteractions(notificationRepository, emailService, liveEventBus);
+        }
+    }
+
+    @Nested
+    @DisplayName("dispatch")
+    class Dispatch {
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_WriteOneCoalescedRowBeforeCommit_When_DispatchedInTransaction() {
+            // Given
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                // When
+                dispatcher.dispatch(alert(1L, "first"), Delivery.EMAIL);
+                dispatcher.dispatch(alert(1L, "second"), Delivery.SILENT);
+
+                // Then – nothing written until the alert's transaction is about to commit
+                verify(pendingRepository, never()).insertAll(anyList());
+                TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+                ArgumentCaptor<List<PendingNotification>> rows = ArgumentCaptor.forClass(List.class);
+                verify(pendingRepository).insertAll(rows.capture());
+                assertThat(rows.getValue()).singleElement().satisfies(row -> {
+                    assertThat(row.getAlertId()).isEqualTo(1L);
+                    assertThat(row.isAdminsOnly()).isFalse();
+                    assertThat(row.getDelivery()).isEqualTo(Delivery.EMAIL.name());
+                });
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("recipient cache")
+    class RecipientCache {
+
+        @Test
+        void should_ReloadRecipients_When_Invalidated() {
+            // Given
+            when(userRepository.findByRoleAndStatus(UserRole.ADMIN, AccountStatus.ACTIVE)).thenReturn(List.of(admin));
+            dispatcher.getAdminRecipients();
+            dispatcher.getAdminRecipients();
+
+            // When
+            dispatcher.invalidateRecipients();
+            List<NotificationDispatcher.Recipient> recipients = dispatcher.getAdminRecipients();
+
+            // Then
+            assertThat(recipients).containsExactly(new NotificationDispatcher.Recipient(200L, "admin@example.com"));
+            verify(userRepository, times(2)).findByRoleAndStatus(UserRole.ADMIN, AccountStatus.ACTIVE);
+        }
+    }
+}
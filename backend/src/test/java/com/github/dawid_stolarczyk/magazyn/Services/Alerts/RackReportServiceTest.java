@@ -0,0 +1,363 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.TelemetryBatchResponse;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.*;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertStatus;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.*;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.NotificationDispatcher.Delivery;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.RackReportService.TelemetryReading;
+import com.github.dawid_stolarczyk.magazyn.Services.Inventory.RackOccupancy;
+import com.github.dawid_stolarczyk.magazyn.Services.Inventory.RackOccupancyIndex;
+import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RackReportServiceTest {
+
+    @Mock
+    private RackReportRepository reportRepository;
+    @Mock
+    private RackRepository rackRepository;
+    @Mock
+    private AlertRepository alertRepository;
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private RackOccupancyIndex rackOccupancyIndex;
+    @Mock
+    private ActiveAlertRegistry activeAlertRegistry;
+    @Mock
+    private RackTelemetryWindow telemetryWindow;
+    @Mock
+    private TemperatureForecaster temperatureForecaster;
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+    @Mock
+    private Bucket4jRateLimiter rateLimiter;
+
+    @InjectMocks
+    private RackReportService rackReportService;
+
+    private Rack coldRack;
+    private Rack otherRack;
+
+    @BeforeEach
+    void setUp() {
+        Warehouse warehouse = Warehouse.builder().id(1L).name("Main WH").build();
+
+        coldRack = new Rack();
+        coldRack.setId(10L);
+        coldRack.setMarker("A1");
+        coldRack.setWarehouse(warehouse);
+        coldRack.setMin_temp(0f);
+        coldRack.setMax_temp(30f);
+        coldRack.setMax_weight(1000f);
+
+        otherRack = new Rack();
+        otherRack.setId(11L);
+        otherRack.setMarker("A2");
+        otherRack.setWarehouse(warehouse);
+        otherRack.setMin_temp(0f);
+        otherRack.setMax_temp(30f);
+        otherRack.setMax_weight(1000f);
+    }
+
+    private static TelemetryReading reading(long rackId, float weight, float temperature) {
+        return new TelemetryReading(rackId, weight, temperature, "SENSOR-" + rackId, Instant.now(), null);
+    }
+
+    @Nested
+    @DisplayName("processBatch")
+    class ProcessBatch {
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_EvaluateExtremeReadingOncePerRack_When_BatchContainsManyReadings() {
+            // Given – rack 10 has one reading above max temperature, rack 11 stays within limits
+            List<TelemetryReading> readings = List.of(
+                    reading(10L, 100f, 5f),
+                    reading(10L, 100f, 35f),
+                    reading(10L, 100f, 32f),
+                    reading(11L, 100f, 10f));
+            when(rackRepository.findAllById(anySet())).thenReturn(List.of(coldRack, otherRack));
+            doAnswer(invocation -> {
+                List<RackReport> reports = invocation.getArgument(0);
+                for (int i = 0; i < reports.size(); i++) {
+                    reports.get(i).setId(1000L + i);
+                }
+                return null;
+            }).when(reportRepository).insertAll(anyList());
+            when(rackOccupancyIndex.getOccupancies(anyCollection()))
+                    .thenReturn(Map.of(10L, mock(RackOccupancy.class), 11L, mock(RackOccupancy.class)));
+            when(activeAlertRegistry.findActiveAlertId(10L, null, AlertType.TEMPERATURE_TOO_HIGH))
+                    .thenReturn(Optional.empty());
+            when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> {
+                Alert alert = invocation.getArgument(0);
+                alert.setId(1L);
+                return alert;
+            });
+
+            // When
+            TelemetryBatchResponse result = rackReportService.processBatch(readings);
+
+            // Then
+            assertThat(result.getStoredReports()).isEqualTo(4);
+            assertThat(result.getRacks()).isEqualTo(2);
+            assertThat(result.getAlertTriggeringReports()).isEqualTo(1);
+            verify(reportRepository, times(1)).insertAll(anyList());
+            verify(rackOccupancyIndex, times(1)).getOccupancies(anyCollection());
+            verifyNoInteractions(itemRepository);
+
+            ArgumentCaptor<Alert> alertCaptor = ArgumentCaptor.forClass(Alert.class);
+            verify(alertRepository, times(1)).save(alertCaptor.capture());
+            assertThat(alertCaptor.getValue().getActualValue()).isEqualTo(35f);
+            assertThat(alertCaptor.getValue().getTriggeringReport().getId()).isEqualTo(1001L);
+
+            ArgumentCaptor<Set<Long>> flagged = ArgumentCaptor.forClass(Set.class);
+            verify(reportRepository).markAlertTriggered(flagged.capture());
+            assertThat(flagged.getValue()).containsExactly(1001L);
+            verify(notificationDispatcher, times(1)).dispatch(alertCaptor.getValue(), Delivery.EMAIL);
+            verify(activeAlertRegistry).register(alertCaptor.getValue());
+        }
+
+        @Test
+        void should_CreateItemAlertFromCachedTolerances_When_ReadingExceedsItemMaxTemp() {
+            // Given – rack allows 30°C, but one of the stored items only tolerates 8°C
+            RackOccupancy occupancy = mock(RackOccupancy.class);
+            when(occupancy.itemsTooWarmFor(12f)).thenReturn(List.of(new RackOccupancy.ItemTolerance(500L, 2f, 8f, 2)));
+            Item chilledItem = new Item();
+            chilledItem.setId(500L);
+            chilledItem.setName("Jogurt");
+            chilledItem.setMin_temp(2f);
+            chilledItem.setMax_temp(8f);
+            when(rackRepository.findAllById(anySet())).thenReturn(List.of(coldRack));
+            when(rackOccupancyIndex.getOccupancies(anyCollection())).thenReturn(Map.of(10L, occupancy));
+            when(itemRepository.getReferenceById(500L)).thenReturn(chilledItem);
+            when(activeAlertRegistry.findActiveAlertId(10L, 500L, AlertType.ITEM_TEMPERATURE_TOO_HIGH))
+                    .thenReturn(Optional.empty());
+            when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // When
+            TelemetryBatchResponse result = rackReportService.processBatch(List.of(reading(10L, 25f, 12f)));
+
+            // Then
+            assertThat(result.getAlertTriggeringReports()).isEqualTo(1);
+            ArgumentCaptor<Alert> alertCaptor = ArgumentCaptor.forClass(Alert.class);
+            verify(alertRepository).save(alertCaptor.capture());
+            assertThat(alertCaptor.getValue().getAlertType()).isEqualTo(AlertType.ITEM_TEMPERATURE_TOO_HIGH);
+            assertThat(alertCaptor.getValue().getItem()).isSameAs(chilledItem);
+            assertThat(alertCaptor.getValue().getThresholdValue()).isEqualTo(8f);
+            verify(itemRepository, never()).getReferenceById(501L);
+        }
+
+        @Test
+        void should_UpdateRegisteredAlert_When_ActiveAlertAlreadyExists() {
+            // Given
+            Alert existing = Alert.builder()
+                    .id(7L)
+                    .rack(coldRack)
+                    .warehouse(coldRack.getWarehouse())
+                    .alertType(AlertType.TEMPERATURE_TOO_HIGH)
+                    .status(AlertStatus.OPEN)
+                    .actualValue(40f)
+                    .build();
+            when(rackRepository.findAllById(anySet())).thenReturn(List.of(coldRack));
+            when(rackOccupancyIndex.getOccupancies(anyCollection())).thenReturn(Map.of(10L, mock(RackOccupancy.class)));
+            when(activeAlertRegistry.findActiveAlertId(10L, null, AlertType.TEMPERATURE_TOO_HIGH))
+                    .thenReturn(Optional.of(7L));
+            when(alertRepository.findById(7L)).thenReturn(Optional.of(existing));
+
+            // When – less severe than the stored value, so no new alert and no email
+            TelemetryBatchResponse result = rackReportService.processBatch(List.of(reading(10L, 0f, 35f)));
+
+            // Then
+            assertThat(result.getAlertTriggeringReports()).isZero();
+            assertThat(existing.getActualValue()).isEqualTo(35f);
+            verify(alertRepository).save(existing);
+            verify(activeAlertRegistry, never()).register(any());
+            verify(notificationDispatcher).dispatch(existing, Delivery.SILENT);
+        }
+
+        @Test
+        void should_UpdateAlertFromDatabase_When_CreatedByAnotherInstance() {
+            // Given – the registry of this instance is empty, the database already has the open alert
+            Alert existing = Alert.builder()
+                    .id(8L)
+                    .rack(coldRack)
+                    .warehouse(coldRack.getWarehouse())
+                    .alertType(AlertType.TEMPERATURE_TOO_HIGH)
+                    .status(AlertStatus.OPEN)
+                    .actualValue(33f)
+                    .build();
+            when(rackRepository.findAllById(anySet())).thenReturn(List.of(coldRack));
+            when(rackOccupancyIndex.getOccupancies(anyCollection())).thenReturn(Map.of(10L, mock(RackOccupancy.class)));
+            when(activeAlertRegistry.findActiveAlertId(10L, null, AlertType.TEMPERATURE_TOO_HIGH))
+                    .thenReturn(Optional.empty());
+            when(alertRepository.findFirstByRackIdAndItemIdAndAlertTypeAndStatusIn(
+                    eq(10L), isNull(), eq(AlertType.TEMPERATURE_TOO_HIGH), anyList())).thenReturn(Optional.of(existing));
+
+            // When – more severe than the stored value
+            TelemetryBatchResponse result = rackReportService.processBatch(List.of(reading(10L, 0f, 35f)));
+
+            // Then – updated instead of inserting a duplicate
+            assertThat(result.getAlertTriggeringReports()).isEqualTo(1);
+            assertThat(existing.getActualValue()).isEqualTo(35f);
+            verify(alertRepository, times(1)).save(any(Alert.class));
+            verify(alertRepository).save(existing);
+            verify(activeAlertRegistry).register(existing);
+            verify(notificationDispatcher).dispatch(existing, Delivery.RENOTIFY);
+        }
+
+        @Test
+        void should_EvictStaleEntry_And_CreateAlert_When_RegisteredAlertResolvedElsewhere() {
+            // Given
+            Alert resolved = Alert.builder()
+                    .id(7L)
+                    .rack(coldRack)
+                    .alertType(AlertType.TEMPERATURE_TOO_HIGH)
+                    .status(AlertStatus.RESOLVED)
+                    .build();
+            when(rackRepository.findAllById(anySet())).thenReturn(List.of(coldRack));
+            when(rackOccupancyIndex.getOccupancies(anyCollection())).thenReturn(Map.of(10L, mock(RackOccupancy.class)));
+            when(activeAlertRegistry.findActiveAlertId(10L, null, AlertType.TEMPERATURE_TOO_HIGH))
+                    .thenReturn(Optional.of(7L));
+            when(alertRepository.findById(7L)).thenReturn(Optional.of(resolved));
+            when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+            // When
+            rackReportService.processBatch(List.of(reading(10L, 0f, 35f)));
+
+            // Then
+            verify(activeAlertRegistry).evict(10L, null, AlertType.TEMPERATURE_TOO_HIGH, 7L);
+            ArgumentCaptor<Alert> created = ArgumentCaptor.forClass(Alert.class);
+            verify(alertRepository).save(created.capture());
+            assertThat(created.getValue()).isNotSameAs(resolved);
+            assertThat(created.getValue().getStatus()).isEqualTo(AlertStatus.OPEN);
+            verify(notificationDispatcher).dispatch(created.getValue(), Delivery.EMAIL);
+        }
+
+        @Test
+        void should_SkipReadings_When_RackNoLongerExists() {
+            // Given
+            when(rackRepository.findAllById(anySet())).thenReturn(List.of());
+
+            // When
+            TelemetryBatchResponse result = rackReportService.processBatch(List.of(reading(99L, 10f, 5f)));
+
+            // Then
+            assertThat(result.getStoredReports()).isZero();
+            verify(reportRepository, never()).insertAll(anyList());
+            verifyNoInteractions(alertRepository, notificationDispatcher);
+        }
+
+        @Test
+        void should_SkipReadings_When_RackOutsideKeyWarehouse() {
+            // Given – the queued reading was sent by a key bound to warehouse 2, the rack is in warehouse 1
+            TelemetryReading foreign = new TelemetryReading(10L, 10f, 5f, "SENSOR-10", Instant.now(), 2L);
+            when(rackRepository.findAllById(anySet())).thenReturn(List.of(coldRack));
+
+            // When
+            TelemetryBatchResponse result = rackReportService.processBatch(List.of(foreign));
+
+            // Then
+            assertThat(result.getStoredReports()).isZero();
+            verify(reportRepository, never()).insertAll(anyList());
+            verifyNoInteractions(alertRepository, notificationDispatcher);
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_UseGivenRacksAndReadingTimes_When_RacksAlreadyLoaded() {
+            // Given – the controller has already loaded and validated the rack
+            Instant first = Instant.parse("2026-01-15T10:30:00Z");
+            Instant second = first.plusSeconds(30);
+            when(rackOccupancyIndex.getOccupancies(anyCollection())).thenReturn(Map.of(11L, mock(RackOccupancy.class)));
+
+            // When
+            TelemetryBatchResponse result = rackReportService.processBatch(List.of(
+                    new TelemetryReading(11L, 100f, 10f, "SENSOR-11", first, null),
+                    new TelemetryReading(11L, 100f, 11f, "SENSOR-11", second, null)), Map.of(11L, otherRack));
+
+            // Then
+            assertThat(result.getStoredReports()).isEqualTo(2);
+            verifyNoInteractions(rackRepository);
+            ArgumentCaptor<List<RackReport>> inserted = ArgumentCaptor.forClass(List.class);
+            verify(reportRepository).insertAll(inserted.capture());
+            assertThat(inserted.getValue()).extracting(RackReport::getCreatedAt).containsExactly(first, second);
+            verify(temperatureForecaster).observe(11L, first, 10f);
+            verify(temperatureForecaster).observe(11L, second, 11f);
+        }
+    }
+
+    @Nested
+    @DisplayName("temperature forecast")
+    class TemperatureForecast {
+
+        @Test
+        void should_CreateForecastAlert_When_CrossingProjectedWithinHorizon() {
+            // Given – rack is still within limits, but warming up towards max 30°C
+            when(rackRepository.findAllById(anySet())).thenReturn(List.of(otherRack));
+            when(rackOccupancyIndex.getOccupancies(anyCollection())).thenReturn(Map.of(11L, mock(RackOccupancy.class)));
+            when(temperatureForecaster.forecast(11L, 0f, 30f)).thenReturn(Optional.of(
+                    new TemperatureForecaster.Forecast(AlertType.TEMPERATURE_FORECAST_TOO_HIGH, 30f, 27.5f, 12)));
+            when(temperatureForecaster.getHorizonMinutes()).thenReturn(30);
+            when(activeAlertRegistry.findActiveAlertId(11L, null, AlertType.TEMPERATURE_FORECAST_TOO_HIGH))
+                    .thenReturn(Optional.empty());
+            when(alertRepository.save(any(Alert.class))).thenAnswer(invocation -> {
+                Alert alert = invocation.getArgument(0);
+                alert.setId(2L);
+                return alert;
+            });
+
+            // When
+            rackReportService.processBatch(List.of(reading(11L, 100f, 27f), reading(11L, 100f, 28f)));
+
+            // Then
+            verify(temperatureForecaster, times(2)).observe(eq(11L), any(Instant.class), anyFloat());
+            ArgumentCaptor<Alert> alertCaptor = ArgumentCaptor.forClass(Alert.class);
+            verify(alertRepository).save(alertCaptor.capture());
+            Alert alert = alertCaptor.getValue();
+            assertThat(alert.getAlertType()).isEqualTo(AlertType.TEMPERATURE_FORECAST_TOO_HIGH);
+            assertThat(alert.getThresholdValue()).isEqualTo(30f);
+            assertThat(alert.getActualValue()).isEqualTo(27.5f);
+            assertThat(alert.getMessage()).contains("Prognoza").contains("30 min");
+            verify(activeAlertRegistry).register(alert);
+        }
+
+        @Test
+        void should_SkipForecast_When_RackAlreadyOutsideLimits() {
+            // Given
+            when(rackRepository.findAllById(anySet())).thenReturn(List.of(otherRack));
+            when(rackOccupancyIndex.getOccupancies(anyCollection())).thenReturn(Map.of(11L, mock(RackOccupancy.class)));
+            when(activeAlertRegistry.findActiveAlertId(11L, null, AlertType.TEMPERATURE_TOO_HIGH))
+                    .thenReturn(Optional.of(5L));
+            when(alertRepository.findById(5L)).thenReturn(Optional.of(Alert.builder().id(5L).rack(otherRack).warehouse(otherRack.getWarehouse())
+                    .alertType(AlertType.TEMPERATURE_TOO_HIGH).status(AlertStatus.OPEN).actualValue(40f).build()));
+
+            // When
+            rackReportService.processBatch(List.of(reading(11L, 100f, 35f)));
+
+            // Then
+            verify(temperatureForecaster, never()).forecast(anyLong(), anyFloat(), anyFloat());
+        }
+    }
+}
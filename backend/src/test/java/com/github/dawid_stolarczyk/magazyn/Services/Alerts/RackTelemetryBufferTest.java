@@ -0,0 +1,42 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RackTelemetryBufferTest {
+
+    @Test
+    void should_ReturnReadingsOldestFirst_When_NotFull() {
+        // Given
+        RackTelemetryBuffer buffer = new RackTelemetryBuffer(5, 1L);
+        buffer.append(1000, 10f, 1f, 1L);
+        buffer.append(2000, 11f, 2f, 1L);
+
+        // When
+        RackTelemetryBuffer.Snapshot snapshot = buffer.snapshot(10);
+
+        // Then
+        assertThat(snapshot.timestamps()).containsExactly(1000, 2000);
+        assertThat(snapshot.weights()).containsExactly(10f, 11f);
+        assertThat(snapshot.temperatures()).containsExactly(1f, 2f);
+    }
+
+    @Test
+    void should_OverwriteOldestReadings_When_CapacityExceeded() {
+        // Given
+        RackTelemetryBuffer buffer = new RackTelemetryBuffer(3, 1L);
+        for (int i = 1; i <= 5; i++) {
+            buffer.append(i * 1000L, i, i, 1L);
+        }
+
+        // When
+        RackTelemetryBuffer.Snapshot all = buffer.snapshot(Integer.MAX_VALUE);
+        RackTelemetryBuffer.Snapshot latestTwo = buffer.snapshot(2);
+
+        // Then
+        assertThat(buffer.size()).isEqualTo(3);
+        assertThat(all.timestamps()).containsExactly(3000, 4000, 5000);
+        assertThat(latestTwo.weights()).containsExactly(4f, 5f);
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.TelemetryBatchResponse;
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.TelemetryIngestionStats;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.RackReportService.TelemetryReading;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TelemetryIngestionServiceTest {
+
+    @Mock
+    private RackReportService rackReportService;
+
+    @InjectMocks
+    private TelemetryIngestionService ingestionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ingestionService, "batchSize", 10);
+        ReflectionTestUtils.setField(ingestionService, "workerCount", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ingestionService.stop();
+    }
+
+    private static TelemetryReading reading(long rackId) {
+        return new TelemetryReading(rackId, 100f, 4.5f, "SENSOR-" + rackId, Instant.now(), null);
+    }
+
+    private static TelemetryBatchResponse batchResult(int storedReports) {
+        return new TelemetryBatchResponse(storedReports, 1, 0);
+    }
+
+    @Nested
+    @DisplayName("enqueue")
+    class Enqueue {
+
+        @Test
+        void should_ProcessAllQueuedReadings_When_Stopped() {
+            // Given
+            ReflectionTestUtils.setField(ingestionService, "queueCapacity", 100);
+            when(rackReportService.processBatch(anyList()))
+                    .thenAnswer(invocation -> batchResult(invocation.<List<TelemetryReading>>getArgument(0).size()));
+            ingestionService.start();
+
+            // When
+            for (int i = 0; i < 25; i++) {
+                assertThat(ingestionService.enqueue(reading(i))).isTrue();
+            }
+            ingestionService.stop();
+
+            // Then
+            TelemetryIngestionStats stats = ingestionService.getStats();
+            assertThat(stats.getAccepted()).isEqualTo(25);
+            assertThat(stats.getProcessed()).isEqualTo(25);
+            assertThat(stats.getQueueDepth()).isZero();
+            assertThat(stats.getBatches()).isBetween(3L, 25L);
+            assertThat(stats.getLastBatchSize()).isLessThanOrEqualTo(10);
+        }
+
+        @Test
+        void should_RejectReading_When_QueueFull() throws InterruptedException {
+            // Given – the only worker is stuck on the first reading, queue holds 2 more
+            ReflectionTestUtils.setField(ingestionService, "queueCapacity", 2);
+            CountDownLatch workerBusy = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            when(rackReportService.processBatch(anyList())).thenAnswer(invocation -> {
+                workerBusy.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return batchResult(invocation.<List<TelemetryReading>>getArgument(0).size());
+            });
+            ingestionService.start();
+            ingestionService.enqueue(reading(1));
+            assertThat(workerBusy.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When
+            boolean second = ingestionService.enqueue(reading(2));
+            boolean third = ingestionService.enqueue(reading(3));
+            boolean fourth = ingestionService.enqueue(reading(4));
+            release.countDown();
+            ingestionService.stop();
+
+            // Then
+            assertThat(second).isTrue();
+            assertThat(third).isTrue();
+            assertThat(fourth).isFalse();
+            TelemetryIngestionStats stats = ingestionService.getStats();
+            assertThat(stats.getRejected()).isEqualTo(1);
+            assertThat(stats.getProcessed()).isEqualTo(3);
+            assertThat(stats.getQueueHighWaterMark()).isEqualTo(2);
+        }
+    }
+
+    @Nested
+    @DisplayName("processBatch")
+    class ProcessBatch {
+
+        @Test
+        void should_CountFailedReadings_When_BatchThrows() {
+            // Given
+            ReflectionTestUtils.setField(ingestionService, "queueCapacity", 10);
+            when(rackReportService.processBatch(anyList())).thenThrow(new IllegalStateException("db down"));
+            ingestionService.start();
+
+            // When
+            ingestionService.processBatch(List.of(reading(1), reading(2)));
+
+            // Then
+            TelemetryIngestionStats stats = ingestionService.getStats();
+            assertThat(stats.getFailed()).isEqualTo(2);
+            assertThat(stats.getProcessed()).isZero();
+            assertThat(stats.getBatches()).isEqualTo(1);
+        }
+
+        @Test
+        void should_StoreBatch_When_RetrySucceeds() {
+            // Given
+            ReflectionTestUtils.setField(ingestionService, "queueCapacity", 10);
+            when(rackReportService.processBatch(anyList()))
+                    .thenThrow(new IllegalStateException("deadlock"))
+                    .thenReturn(batchResult(2));
+            ingestionService.start();
+
+            // When
+            ingestionService.processBatch(List.of(reading(1), reading(2)));
+
+            // Then
+            TelemetryIngestionStats stats = ingestionService.getStats();
+            assertThat(stats.getProcessed()).isEqualTo(2);
+            assertThat(stats.getFailed()).isZero();
+            verify(rackReportService, times(2)).processBatch(anyList());
+        }
+
+        @Test
+        void should_DropOnlyBadReading_When_BatchKeepsFailing() {
+            // Given – every call containing the reading for rack 2 fails
+            ReflectionTestUtils.setField(ingestionService, "queueCapacity", 10);
+            when(rackReportService.processBatch(anyList())).thenAnswer(invocation -> {
+                List<TelemetryReading> readings = invocation.getArgument(0);
+                if (readings.stream().anyMatch(reading -> reading.rackId() == 2L)) {
+                    throw new IllegalStateException("bad reading");
+                }
+                return batchResult(readings.size());
+            });
+            ingestionService.start();
+
+            // When
+            ingestionService.processBatch(List.of(reading(1), reading(1), reading(2), reading(3)));
+
+            // Then
+            TelemetryIngestionStats stats = ingestionService.getStats();
+            assertThat(stats.getProcessed()).isEqualTo(3);
+            assertThat(stats.getFailed()).isEqualTo(1);
+            assertThat(stats.getBatches()).isEqualTo(1);
+        }
+    }
+}
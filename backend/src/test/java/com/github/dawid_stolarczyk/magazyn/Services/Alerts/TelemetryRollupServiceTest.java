@@ -0,0 +1,137 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.TelemetryResolution;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackReportRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackReportRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TelemetryRollupServiceTest {
+
+    @Mock
+    private RackReportRollupRepository rollupRepository;
+    @Mock
+    private RackReportRepository reportRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private TelemetryRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(rollupService, "minuteRetentionDays", 30);
+        ReflectionTestUtils.setField(rollupService, "hourRetentionDays", 365);
+    }
+
+    @Nested
+    @DisplayName("resolveResolution")
+    class ResolveResolution {
+
+        @Test
+        void should_PickResolutionByRangeLength_When_DataRetained() {
+            // Given
+            Instant end = Instant.now();
+
+            // When / Then
+            assertThat(rollupService.resolveResolution(end.minus(1, ChronoUnit.HOURS), end))
+                    .isEqualTo(TelemetryResolution.RAW);
+            assertThat(rollupService.resolveResolution(end.minus(1, ChronoUnit.DAYS), end))
+                    .isEqualTo(TelemetryResolution.MINUTE);
+            assertThat(rollupService.resolveResolution(end.minus(20, ChronoUnit.DAYS), end))
+                    .isEqualTo(TelemetryResolution.HOUR);
+            assertThat(rollupService.resolveResolution(end.minus(400, ChronoUnit.DAYS), end))
+                    .isEqualTo(TelemetryResolution.DAY);
+        }
+
+        @Test
+        void should_UseCoarserResolution_When_FinerOnePurgedForRangeStart() {
+            // Given
+            ReflectionTestUtils.setField(rollupService, "rawRetentionDays", 7);
+            Instant start = Instant.now().minus(60, ChronoUnit.DAYS);
+
+            // When / Then
+            assertThat(rollupService.resolveResolution(start, start.plus(1, ChronoUnit.HOURS)))
+                    .isEqualTo(TelemetryResolution.HOUR);
+            assertThat(rollupService.resolveResolution(start.minus(400, ChronoUnit.DAYS), start))
+                    .isEqualTo(TelemetryResolution.DAY);
+        }
+    }
+
+    @Nested
+    @DisplayName("rollup")
+    class Rollup {
+
+        @BeforeEach
+        void setUpTransactions() {
+            when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                    invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        }
+
+        @Test
+        void should_StartFromOldestRawReport_When_NoMinuteRollupsYet() {
+            // Given
+            Instant upTo = Instant.parse("2026-01-02T12:00:00Z");
+            when(rollupRepository.findLatestBucketStart(TelemetryResolution.MINUTE)).thenReturn(null);
+            when(reportRepository.findOldestCreatedAt()).thenReturn(Instant.parse("2026-01-02T09:15:42Z"));
+
+            // When
+            Instant done = rollupService.rollup(TelemetryResolution.MINUTE, upTo);
+
+            // Then
+            assertThat(done).isEqualTo(upTo);
+            verify(rollupRepository).rollupRawReports(Instant.parse("2026-01-02T09:15:00Z"), upTo);
+        }
+
+        @Test
+        void should_ContinueAfterLatestBucket_When_HourRollupsExist() {
+            // Given
+            Instant upTo = Instant.parse("2026-01-20T00:00:00Z");
+            when(rollupRepository.findLatestBucketStart(TelemetryResolution.HOUR))
+                    .thenReturn(Instant.parse("2026-01-10T22:00:00Z"));
+
+            // When
+            rollupService.rollup(TelemetryResolution.HOUR, upTo);
+
+            // Then - chunks of 7 days, starting right after the latest stored hour
+            verify(rollupRepository).rollupFrom("MINUTE", "HOUR", "hour",
+                    Instant.parse("2026-01-10T23:00:00Z"), Instant.parse("2026-01-17T23:00:00Z"));
+            verify(rollupRepository).rollupFrom("MINUTE", "HOUR", "hour",
+                    Instant.parse("2026-01-17T23:00:00Z"), upTo);
+        }
+
+        @Test
+        void should_NotRepeatWork_When_CalledAgainWithSameBoundary() {
+            // Given
+            Instant upTo = Instant.parse("2026-01-02T00:00:00Z");
+            when(rollupRepository.findLatestBucketStart(TelemetryResolution.DAY))
+                    .thenReturn(Instant.parse("2025-12-31T00:00:00Z"));
+            rollupService.rollup(TelemetryResolution.DAY, upTo);
+
+            // When
+            rollupService.rollup(TelemetryResolution.DAY, upTo);
+
+            // Then
+            verify(rollupRepository, times(1)).rollupFrom(anyString(), anyString(), anyString(), any(), any());
+            verify(rollupRepository, times(1)).findLatestBucketStart(TelemetryResolution.DAY);
+        }
+    }
+}
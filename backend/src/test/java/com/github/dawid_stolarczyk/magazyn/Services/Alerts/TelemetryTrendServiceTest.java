@@ -0,0 +1,122 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Controller.Dto.RackTelemetryTrend;
+import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TelemetryTrendServiceTest {
+
+    @Mock
+    private RackTelemetryWindow telemetryWindow;
+    @Mock
+    private Bucket4jRateLimiter rateLimiter;
+    @Mock
+    private HttpServletRequest httpRequest;
+
+    @InjectMocks
+    private TelemetryTrendService trendService;
+
+    /**
+     * One reading per minute, weight dropping by 2 kg and temperature rising by 0.5 °C per minute
+     */
+    private static RackTelemetryBuffer linearBuffer(int readings) {
+        RackTelemetryBuffer buffer = new RackTelemetryBuffer(120, 1L);
+        for (int i = 0; i < readings; i++) {
+            buffer.append(i * 60_000L, 100f - 2f * i, 4f + 0.5f * i, 1L);
+        }
+        return buffer;
+    }
+
+    @Nested
+    @DisplayName("getRackTrend")
+    class GetRackTrend {
+
+        @Test
+        void should_ComputeAveragesAndRates_When_RackHasReadings() {
+            // Given
+            when(telemetryWindow.getBufferSize()).thenReturn(120);
+            when(telemetryWindow.getBuffer(10L)).thenReturn(Optional.of(linearBuffer(20)));
+
+            // When
+            RackTelemetryTrend trend = trendService.getRackTrend(10L, 4, true, httpRequest);
+
+            // Then - window covers readings 16..19
+            assertThat(trend.getSamples()).isEqualTo(20);
+            assertThat(trend.getLatestAt()).isEqualTo(Instant.ofEpochMilli(19 * 60_000L));
+            assertThat(trend.getLatestWeight()).isEqualTo(62f);
+            assertThat(trend.getMovingAverageWeight()).isCloseTo(65f, within(0.001f));
+            assertThat(trend.getMovingAverageTemperature()).isCloseTo(12.75f, within(0.001f));
+            assertThat(trend.getWeightChangePerMinute()).isCloseTo(-2f, within(0.001f));
+            assertThat(trend.getTemperatureChangePerMinute()).isCloseTo(0.5f, within(0.001f));
+            assertThat(trend.getPoints()).hasSize(20);
+        }
+
+        @Test
+        void should_ReturnEmptyTrend_When_RackHasNotReported() {
+            // Given
+            when(telemetryWindow.getBufferSize()).thenReturn(120);
+            when(telemetryWindow.getBuffer(10L)).thenReturn(Optional.empty());
+
+            // When
+            RackTelemetryTrend trend = trendService.getRackTrend(10L, null, true, httpRequest);
+
+            // Then
+            assertThat(trend.getSamples()).isZero();
+            assertThat(trend.getWindow()).isEqualTo(10);
+            assertThat(trend.getLatestWeight()).isNull();
+            assertThat(trend.getPoints()).isEmpty();
+        }
+
+        @Test
+        void should_OmitRates_When_SingleReading() {
+            // Given
+            when(telemetryWindow.getBufferSize()).thenReturn(120);
+            when(telemetryWindow.getBuffer(10L)).thenReturn(Optional.of(linearBuffer(1)));
+
+            // When
+            RackTelemetryTrend trend = trendService.getRackTrend(10L, 10, false, httpRequest);
+
+            // Then
+            assertThat(trend.getMovingAverageWeight()).isEqualTo(100f);
+            assertThat(trend.getWeightChangePerMinute()).isNull();
+            assertThat(trend.getPoints()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("getWarehouseTrends")
+    class GetWarehouseTrends {
+
+        @Test
+        void should_ReturnTrendPerRackOrderedById_When_WarehouseHasReadings() {
+            // Given
+            when(telemetryWindow.getBufferSize()).thenReturn(120);
+            when(telemetryWindow.getWarehouseBuffers(1L))
+                    .thenReturn(Map.of(20L, linearBuffer(3), 10L, linearBuffer(5)));
+
+            // When
+            List<RackTelemetryTrend> trends = trendService.getWarehouseTrends(1L, null, httpRequest);
+
+            // Then
+            assertThat(trends).extracting(RackTelemetryTrend::getRackId).containsExactly(10L, 20L);
+            assertThat(trends).allSatisfy(trend -> assertThat(trend.getPoints()).isEmpty());
+        }
+    }
+}
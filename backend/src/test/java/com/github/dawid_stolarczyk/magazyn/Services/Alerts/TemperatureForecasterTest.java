@@ -0,0 +1,224 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.AlertType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TemperatureForecasterTest {
+
+    private static final Instant START = Instant.parse("2026-01-15T10:00:00Z");
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @InjectMocks
+    private TemperatureForecaster forecaster;
+
+    @BeforeEach
+    void setUp() {
+        configure(forecaster);
+    }
+
+    private static void configure(TemperatureForecaster forecaster) {
+        ReflectionTestUtils.setField(forecaster, "enabled", true);
+        ReflectionTestUtils.setField(forecaster, "alpha", 0.3);
+        ReflectionTestUtils.setField(forecaster, "beta", 0.3);
+        ReflectionTestUtils.setField(forecaster, "horizonMinutes", 30);
+        ReflectionTestUtils.setField(forecaster, "warmupSamples", 10);
+        ReflectionTestUtils.setField(forecaster, "maxGapMinutes", 30);
+    }
+
+    /**
+     * One reading per minute changing linearly by {@code slope} °C per minute
+     */
+    private void feed(TemperatureForecaster target, long rackId, float start, float slope, int readings) {
+        for (int i = 0; i < readings; i++) {
+            target.observe(rackId, START.plusSeconds(60L * i), start + slope * i);
+        }
+    }
+
+    @Nested
+    @DisplayName("forecast")
+    class Forecast {
+
+        @Test
+        void should_ForecastTooHigh_When_RisingTowardsMaxWithinHorizon() {
+            // Given – 2°C -> 11.5°C over 20 minutes, max 20°C is ~17 minutes away
+            feed(forecaster, 10L, 2f, 0.5f, 20);
+
+            // When
+            Optional<TemperatureForecaster.Forecast> forecast = forecaster.forecast(10L, 0f, 20f);
+
+            // Then
+            assertThat(forecast).isPresent();
+            assertThat(forecast.get().alertType()).isEqualTo(AlertType.TEMPERATURE_FORECAST_TOO_HIGH);
+            assertThat(forecast.get().threshold()).isEqualTo(20f);
+            assertThat(forecast.get().minutesUntil()).isBetween(10d, 30d);
+        }
+
+        @Test
+        void should_ForecastTooLow_When_FallingTowardsMinWithinHorizon() {
+            // Given
+            feed(forecaster, 10L, 8f, -0.3f, 20);
+
+            // When
+            Optional<TemperatureForecaster.Forecast> forecast = forecaster.forecast(10L, 0f, 20f);
+
+            // Then
+            assertThat(forecast).map(TemperatureForecaster.Forecast::alertType)
+                    .contains(AlertType.TEMPERATURE_FORECAST_TOO_LOW);
+        }
+
+        @Test
+        void should_NotForecast_When_TemperatureStable() {
+            // Given
+            feed(forecaster, 10L, 5f, 0f, 20);
+
+            // When / Then
+            assertThat(forecaster.forecast(10L, 0f, 20f)).isEmpty();
+        }
+
+        @Test
+        void should_NotForecast_When_CrossingBeyondHorizon() {
+            // Given – rising 0.05°C per minute, max is hours away
+            feed(forecaster, 10L, 5f, 0.05f, 20);
+
+            // When / Then
+            assertThat(forecaster.forecast(10L, 0f, 20f)).isEmpty();
+        }
+
+        @Test
+        void should_NotForecast_When_ModelNotWarmedUp() {
+            // Given
+            feed(forecaster, 10L, 2f, 1f, 5);
+
+            // When / Then
+            assertThat(forecaster.forecast(10L, 0f, 20f)).isEmpty();
+        }
+
+        @Test
+        void should_RestartModel_When_GapExceedsLimit() {
+            // Given – warmed up model, then a reading after a 2 hour gap
+            feed(forecaster, 10L, 2f, 0.5f, 20);
+            forecaster.observe(10L, START.plusSeconds(3 * 3600), 12f);
+
+            // When / Then
+            assertThat(forecaster.forecast(10L, 0f, 20f)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("transactions")
+    class Transactions {
+
+        @Test
+        void should_ForecastWithPendingReadings_But_DiscardThem_When_RolledBack() {
+            // Given
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                feed(forecaster, 10L, 2f, 0.5f, 20);
+
+                // When / Then – the transaction sees its own readings
+                assertThat(forecaster.forecast(10L, 0f, 20f)).isPresent();
+                complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+
+            // Then – nothing reached the model
+            assertThat(forecaster.forecast(10L, 0f, 20f)).isEmpty();
+        }
+
+        @Test
+        void should_CountReadingsOnce_When_BatchRetriedAfterRollback() {
+            // Given – the first attempt rolls back, the retry commits the same five readings
+            for (int status : new int[]{TransactionSynchronization.STATUS_ROLLED_BACK, TransactionSynchronization.STATUS_COMMITTED}) {
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    feed(forecaster, 10L, 2f, 0.5f, 5);
+                    complete(status);
+                } finally {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
+            }
+            for (int i = 5; i < 9; i++) {
+                forecaster.observe(10L, START.plusSeconds(60L * i), 2f + 0.5f * i);
+            }
+
+            // When / Then – nine samples are still warming up, the tenth completes the warm-up
+            assertThat(forecaster.forecast(10L, 0f, 10f)).isEmpty();
+            forecaster.observe(10L, START.plusSeconds(60L * 9), 6.5f);
+            assertThat(forecaster.forecast(10L, 0f, 10f)).isPresent();
+        }
+
+        private void complete(int status) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            }
+            TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.afterCompletion(status));
+        }
+    }
+
+    @Nested
+    @DisplayName("checkpoint / restore")
+    class CheckpointRestore {
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_KeepWarmUp_When_RestoredFromCheckpoint() {
+            // Given
+            doReturn(hashOperations).when(redisTemplate).opsForHash();
+            feed(forecaster, 10L, 2f, 0.5f, 20);
+            forecaster.checkpoint();
+            ArgumentCaptor<Map<String, String>> states = ArgumentCaptor.forClass(Map.class);
+            verify(hashOperations).putAll(eq("telemetry:temperature-forecast"), states.capture());
+            when(hashOperations.entries("telemetry:temperature-forecast")).thenReturn(new HashMap<>(states.getValue()));
+
+            // When
+            TemperatureForecaster restarted = new TemperatureForecaster(redisTemplate);
+            configure(restarted);
+            restarted.restore();
+
+            // Then
+            assertThat(restarted.forecast(10L, 0f, 20f)).isEqualTo(forecaster.forecast(10L, 0f, 20f)).isPresent();
+        }
+
+        @Test
+        void should_WriteOnlyUpdatedRacks_When_CheckpointRunsAgain() {
+            // Given
+            doReturn(hashOperations).when(redisTemplate).opsForHash();
+            feed(forecaster, 10L, 5f, 0f, 3);
+            forecaster.checkpoint();
+
+            // When
+            forecaster.checkpoint();
+
+            // Then
+            verify(hashOperations, times(1)).putAll(eq("telemetry:temperature-forecast"), anyMap());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Alerts;
+
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserNotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UnreadNotificationCounterTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+    @Mock
+    private UserNotificationRepository notificationRepository;
+
+    @InjectMocks
+    private UnreadNotificationCounter counter;
+
+    private static final List<String> USER_KEYS = List.of(
+            "notifications:{unread}:1", "notifications-version:{unread}:1", "notifications-epoch:{unread}");
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(counter, "ttlSeconds", 3600L);
+    }
+
+    @Nested
+    @DisplayName("get")
+    class Get {
+
+        @Test
+        void should_ReturnCachedValue_When_CounterExists() {
+            // Given
+            when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+            when(valueOperations.multiGet(USER_KEYS)).thenReturn(Arrays.asList("5", "4", null));
+
+            // When
+            long count = counter.get(1L);
+
+            // Then
+            assertThat(count).isEqualTo(5L);
+            verifyNoInteractions(notificationRepository);
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_LoadFromDatabaseAndCache_When_CounterMissing() {
+            // Given
+            when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+            when(valueOperations.multiGet(USER_KEYS)).thenReturn(Arrays.asList(null, "4", null));
+            when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L);
+            when(redisTemplate.execute(any(RedisScript.class), eq(USER_KEYS), eq("3"), eq("4"), eq("0"), eq("3600")))
+                    .thenReturn(3L);
+
+            // When
+            long count = counter.get(1L);
+
+            // Then – stored only if version 4 and epoch 0 are still current
+            assertThat(count).isEqualTo(3L);
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_ReturnDatabaseCountWithoutCaching_When_CounterChangedDuringLoad() {
+            // Given – a notification was added after the database count, so the script refuses to store it
+            when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+            when(valueOperations.multiGet(USER_KEYS)).thenReturn(Arrays.asList(null, null, null));
+            when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(3L);
+            when(redisTemplate.execute(any(RedisScript.class), eq(USER_KEYS), eq("3"), eq("0"), eq("0"), eq("3600")))
+                    .thenReturn(-1L);
+
+            // When
+            long count = counter.get(1L);
+
+            // Then
+            assertThat(count).isEqualTo(3L);
+        }
+
+        @Test
+        void should_CountInDatabase_When_RedisUnavailable() {
+            // Given
+            when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+            when(notificationRepository.countByUserIdAndIsReadFalse(1L)).thenReturn(2L);
+
+            // When
+            long count = counter.get(1L);
+
+            // Then
+            assertThat(count).isEqualTo(2L);
+        }
+    }
+
+    @Nested
+    @DisplayName("adjust")
+    class Adjust {
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_AdjustAllCountersInOneScriptCall_When_ManyUsersNotified() {
+            // When
+            counter.adjust(Map.of(1L, 2));
+
+            // Then
+            verify(redisTemplate).execute(any(RedisScript.class),
+                    eq(List.of("notifications:{unread}:1", "notifications-version:{unread}:1")), eq("2"), eq("3600"));
+        }
+
+        @Test
+        void should_NotTouchRedis_When_NothingChanged() {
+            // When
+            counter.adjust(Map.of());
+
+            // Then
+            verifyNoInteractions(redisTemplate);
+        }
+    }
+}
@@ -33,6 +33,8 @@ class UserNotificationServiceTest {
     @Mock
     private Bucket4jRateLimiter rateLimiter;
     @Mock
+    private UnreadNotificationCounter unreadCounter;
+    @Mock
     private HttpServletRequest request;
 
     @InjectMocks
@@ -83,5 +85,57 @@ class UserNotificationServiceTest {
         // Then
         assertThat(notification.isRead()).isTrue();
         verify(notificationRepository).save(notification);
+        verify(unreadCounter).decrement(1L);
+    }
+
+    @Test
+    @DisplayName("should_NotChangeUnreadCounter_When_NotificationAlreadyRead")
+    void should_NotChangeUnreadCounter_When_NotificationAlreadyRead() {
+        // Given
+        Alert alert = new Alert();
+        alert.setAlertType(AlertType.TEMPERATURE_TOO_HIGH);
+
+        UserNotification notification = new UserNotification();
+        notification.setId(501L);
+        notification.setUser(sampleUser);
+        notification.setAlert(alert);
+        notification.setRead(true);
+
+        when(notificationRepository.findById(501L)).thenReturn(Optional.of(notification));
+
+        // When
+        userNotificationService.markAsRead(501L, request);
+
+        // Then
+        verify(notificationRepository, never()).save(any());
+        verifyNoInteractions(unreadCounter);
+    }
+
+    @Test
+    @DisplayName("should_ResetUnreadCounter_When_AllMarkedAsRead")
+    void should_ResetUnreadCounter_When_AllMarkedAsRead() {
+        // Given
+        when(notificationRepository.markAllAsReadForUser(eq(1L), any())).thenReturn(3);
+
+        // When
+        int updated = userNotificationService.markAllAsRead(request);
+
+        // Then
+        assertThat(updated).isEqualTo(3);
+        verify(unreadCounter).reset(1L);
+    }
+
+    @Test
+    @DisplayName("should_ReturnCachedCount_When_UnreadCountRequested")
+    void should_ReturnCachedCount_When_UnreadCountRequested() {
+        // Given
+        when(unreadCounter.get(1L)).thenReturn(4L);
+
+        // When
+        long count = userNotificationService.getMyUnreadCount(request);
+
+        // Then
+        assertThat(count).isEqualTo(4L);
+        verifyNoInteractions(notificationRepository);
     }
 }
@@ -0,0 +1,102 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Backup;
+
+import com.github.dawid_stolarczyk.magazyn.Services.Backup.BackupService.AssortmentBackupData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AssortmentChainReaderTest {
+
+    @Mock
+    private StreamingBackupReader reader;
+
+    private AssortmentChainReader chainReader;
+
+    @BeforeEach
+    void setUp() {
+        chainReader = new AssortmentChainReader(reader);
+    }
+
+    private static AssortmentBackupData row(long id, String code) {
+        return new AssortmentBackupData(id, code, 10L, 1L, null, null, 0, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void givenFile(String basePath, String fileName, Class<T> rowType, List<T> rows) throws Exception {
+        doAnswer(invocation -> {
+            StreamingBackupReader.RowConsumer<T> consumer = invocation.getArgument(3);
+            for (T row : rows) {
+                consumer.accept(row);
+            }
+            return rows.size();
+        }).when(reader).downloadAndReadRows(eq(basePath), eq(fileName), eq(rowType), any());
+    }
+
+    @Nested
+    @DisplayName("readLiveIds")
+    class ReadLiveIds {
+
+        @Test
+        void should_ReturnSortedIds_When_SnapshotExceedsExpectedCount() throws Exception {
+            // Given
+            givenFile("delta/", AssortmentChainReader.ASSORTMENT_IDS_FILE, Long.class,
+                    List.of(5L, 1L, 3L, 40L, 7L, 2L, 9L, 11L, 13L, 15L, 17L, 19L, 21L, 23L, 25L, 27L, 29L, 31L));
+
+            // When
+            long[] ids = chainReader.readLiveIds("delta/", 2);
+
+            // Then
+            assertThat(ids).hasSize(18).startsWith(1L, 2L, 3L, 5L).endsWith(31L, 40L);
+        }
+    }
+
+    @Nested
+    @DisplayName("replay")
+    class Replay {
+
+        @Test
+        void should_KeepNewestVersion_And_DropDeletedRows() throws Exception {
+            // Given - base holds 1, 2, 3; the delta updated 2, deleted 3 and inserted 4
+            givenFile("delta/", AssortmentChainReader.ASSORTMENTS_FILE, AssortmentBackupData.class,
+                    List.of(row(2, "B-NEW"), row(4, "D")));
+            givenFile("base/", AssortmentChainReader.ASSORTMENTS_FILE, AssortmentBackupData.class,
+                    List.of(row(1, "A"), row(2, "B-OLD"), row(3, "C")));
+            List<AssortmentBackupData> restored = new ArrayList<>();
+
+            // When
+            int count = chainReader.replay(List.of("delta/", "base/"), new long[]{1, 2, 4}, restored::add);
+
+            // Then
+            assertThat(count).isEqualTo(3);
+            assertThat(restored).extracting(AssortmentBackupData::code).containsExactly("B-NEW", "D", "A");
+        }
+
+        @Test
+        void should_StopReadingChain_When_AllLiveRowsFound() throws Exception {
+            // Given
+            givenFile("delta/", AssortmentChainReader.ASSORTMENTS_FILE, AssortmentBackupData.class,
+                    List.of(row(1, "A"), row(2, "B")));
+            List<AssortmentBackupData> restored = new ArrayList<>();
+
+            // When
+            chainReader.replay(List.of("delta/", "base/"), new long[]{1, 2}, restored::add);
+
+            // Then
+            verify(reader, never()).downloadAndReadRows(eq("base/"), any(), any(), any());
+            assertThat(restored).hasSize(2);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Backup;
+
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.UnreadNotificationCounter;
+import com.github.dawid_stolarczyk.magazyn.Services.Backup.BackupService.AssortmentBackupData;
+import com.github.dawid_stolarczyk.magazyn.Services.Backup.BackupService.ItemBackupData;
+import com.github.dawid_stolarczyk.magazyn.Services.Backup.BackupService.ItemImageBackupData;
+import com.github.dawid_stolarczyk.magazyn.Services.Backup.BackupService.RackBackupData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RestoreBatchWriterTest {
+
+    /**
+     * The tables touched by the restore, with the foreign keys that make the delete order matter.
+     */
+    private static final String SCHEMA = """
+            CREATE TABLE racks (id BIGINT AUTO_INCREMENT PRIMARY KEY, warehouse_id BIGINT NOT NULL, marker VARCHAR(255),
+                comment VARCHAR(255), size_x INT, size_y INT, max_temp REAL, min_temp REAL, max_weight REAL,
+                max_size_x REAL, max_size_y REAL, max_size_z REAL, accepts_dangerous BOOLEAN);
+            CREATE TABLE items (id BIGINT AUTO_INCREMENT PRIMARY KEY, code VARCHAR(255), name VARCHAR(255),
+                photo_url VARCHAR(255), qr_code VARCHAR(255), min_temp REAL, max_temp REAL, weight REAL, size_x REAL,
+                size_y REAL, size_z REAL, comment VARCHAR(255), expire_after_days BIGINT, is_dangerous BOOLEAN,
+                image_uploaded BOOLEAN);
+            CREATE TABLE item_images (id BIGINT AUTO_INCREMENT PRIMARY KEY, item_id BIGINT NOT NULL REFERENCES items (id),
+                photo_url VARCHAR(255), is_primary BOOLEAN, display_order INT, created_at TIMESTAMP);
+            CREATE TABLE assortment (id BIGINT AUTO_INCREMENT PRIMARY KEY, code VARCHAR(255),
+                item_id BIGINT NOT NULL REFERENCES items (id), rack_id BIGINT NOT NULL REFERENCES racks (id),
+                created_at TIMESTAMP, expires_at TIMESTAMP, position_x INT, position_y INT, updated_at TIMESTAMP);
+            CREATE TABLE rack_reports (id BIGINT AUTO_INCREMENT PRIMARY KEY, rack_id BIGINT NOT NULL REFERENCES racks (id));
+            CREATE TABLE alerts (id BIGINT AUTO_INCREMENT PRIMARY KEY, rack_id BIGINT REFERENCES racks (id),
+                report_id BIGINT REFERENCES rack_reports (id));
+            CREATE TABLE user_notifications (id BIGINT AUTO_INCREMENT PRIMARY KEY, alert_id BIGINT NOT NULL REFERENCES alerts (id));
+            """;
+
+    @Mock
+    private UnreadNotificationCounter unreadNotificationCounter;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbc;
+    private RestoreBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("restore-" + UUID.randomUUID())
+                .build();
+        jdbc = new JdbcTemplate(database);
+        for (String statement : SCHEMA.split(";")) {
+            if (!statement.isBlank()) {
+                jdbc.execute(statement);
+            }
+        }
+        writer = new RestoreBatchWriter(database, unreadNotificationCounter);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    private static RackBackupData rack(long originalId, String marker) {
+        return new RackBackupData(originalId, marker, null, 3, 2, 25f, 2f, 500f, 1f, 1f, 1f, false);
+    }
+
+    private static ItemBackupData item(long originalId, String code, List<ItemImageBackupData> images) {
+        return new ItemBackupData(originalId, "Item " + originalId, code, null, null,
+                0f, 20f, 1.5f, 0.1f, 0.2f, 0.3f, null, 30L, false, images);
+    }
+
+    private static ItemImageBackupData image(String photoUrl) {
+        return new ItemImageBackupData(1L, photoUrl, true, 0);
+    }
+
+    private long insertRack(long warehouseId, String marker) {
+        jdbc.update("INSERT INTO racks (warehouse_id, marker) VALUES (?, ?)", warehouseId, marker);
+        return jdbc.queryForObject("SELECT MAX(id) FROM racks", Long.class);
+    }
+
+    private long insertItem(String code) {
+        jdbc.update("INSERT INTO items (code, name) VALUES (?, ?)", code, code);
+        return jdbc.queryForObject("SELECT MAX(id) FROM items", Long.class);
+    }
+
+    /**
+     * A rack with an assortment and a report, and an alert on that report with a notification.
+     */
+    private void insertRackWithData(long warehouseId, String marker, long itemId) {
+        long rackId = insertRack(warehouseId, marker);
+        jdbc.update("INSERT INTO assortment (code, item_id, rack_id) VALUES (?, ?, ?)", marker + "-A", itemId, rackId);
+        jdbc.update("INSERT INTO rack_reports (rack_id) VALUES (?)", rackId);
+        long reportId = jdbc.queryForObject("SELECT MAX(id) FROM rack_reports", Long.class);
+        jdbc.update("INSERT INTO alerts (rack_id, report_id) VALUES (?, ?)", rackId, reportId);
+        long alertId = jdbc.queryForObject("SELECT MAX(id) FROM alerts", Long.class);
+        jdbc.update("INSERT INTO user_notifications (alert_id) VALUES (?)", alertId);
+    }
+
+    private int count(String table) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    @Nested
+    @DisplayName("deleteWarehouseData")
+    class DeleteWarehouseData {
+
+        @Test
+        void should_DeleteRacksAndDependentRows_Only_ForGivenWarehouse() {
+            // Given
+            long itemId = insertItem("ITEM-1");
+            insertRackWithData(1L, "A-01", itemId);
+            insertRackWithData(1L, "A-02", itemId);
+            insertRackWithData(2L, "B-01", itemId);
+
+            // When
+            int deleted = writer.deleteWarehouseData(1L);
+
+            // Then
+            assertThat(deleted).isEqualTo(2);
+            assertThat(jdbc.queryForList("SELECT marker FROM racks", String.class)).containsExactly("B-01");
+            assertThat(count("assortment")).isEqualTo(1);
+            assertThat(count("rack_reports")).isEqualTo(1);
+            assertThat(count("alerts")).isEqualTo(1);
+            assertThat(count("user_notifications")).isEqualTo(1);
+            assertThat(count("items")).isEqualTo(1);
+            verify(unreadNotificationCounter).invalidateAll();
+        }
+
+        @Test
+        void should_KeepUnreadCounters_When_NoNotificationsDeleted() {
+            // Given
+            insertRack(1L, "A-01");
+
+            // When
+            int deleted = writer.deleteWarehouseData(1L);
+
+            // Then
+            assertThat(deleted).isEqualTo(1);
+            verify(unreadNotificationCounter, never()).invalidateAll();
+        }
+    }
+
+    @Nested
+    @DisplayName("insertRacks")
+    class InsertRacks {
+
+        @Test
+        void should_MapBackupIdsToNewIds_ByMarkerWithinWarehouse() {
+            // Given – the same marker in another warehouse must not be picked up
+            long otherWarehouseRack = insertRack(2L, "A-01");
+
+            // When
+            Map<Long, Long> mapping = writer.insertRacks(1L, List.of(rack(100L, "A-01"), rack(200L, "A-02")));
+
+            // Then
+            assertThat(mapping).containsOnlyKeys(100L, 200L);
+            assertThat(mapping.get(100L)).isNotEqualTo(otherWarehouseRack);
+            assertThat(jdbc.queryForObject("SELECT marker FROM racks WHERE id = ?", String.class, mapping.get(100L)))
+                    .isEqualTo("A-01");
+            assertThat(jdbc.queryForObject("SELECT warehouse_id FROM racks WHERE id = ?", Long.class, mapping.get(200L)))
+                    .isEqualTo(1L);
+            assertThat(jdbc.queryForObject("SELECT marker FROM racks WHERE id = ?", String.class, mapping.get(200L)))
+                    .isEqualTo("A-02");
+        }
+
+        @Test
+        void should_InsertNothing_When_NoRacks() {
+            // When
+            Map<Long, Long> mapping = writer.insertRacks(1L, List.of());
+
+            // Then
+            assertThat(mapping).isEmpty();
+            assertThat(count("racks")).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("restoreItems")
+    class RestoreItems {
+
+        @Test
+        void should_ReuseExistingItems_And_InsertMissingOnes() {
+            // Given
+            long existingId = insertItem("EXISTING");
+
+            // When
+            RestoreBatchWriter.ItemRestoreResult result = writer.restoreItems(List.of(
+                    item(1L, "EXISTING", List.of()),
+                    item(2L, "NEW", List.of())));
+
+            // Then
+            assertThat(result.created()).isEqualTo(1);
+            assertThat(result.idMapping().get(1L)).isEqualTo(existingId);
+            assertThat(jdbc.queryForObject("SELECT code FROM items WHERE id = ?", String.class, result.idMapping().get(2L)))
+                    .isEqualTo("NEW");
+            assertThat(count("items")).isEqualTo(2);
+        }
+
+        @Test
+        void should_InsertEachCodelessItemSeparately() {
+            // When
+            RestoreBatchWriter.ItemRestoreResult result = writer.restoreItems(List.of(
+                    item(1L, null, List.of()),
+                    item(2L, null, List.of())));
+
+            // Then
+            assertThat(result.created()).isEqualTo(2);
+            assertThat(result.idMapping().get(1L)).isNotNull().isNotEqualTo(result.idMapping().get(2L));
+            assertThat(jdbc.queryForObject("SELECT name FROM items WHERE id = ?", String.class, result.idMapping().get(2L)))
+                    .isEqualTo("Item 2");
+        }
+
+        @Test
+        void should_InsertDuplicateCodeOnce_And_MapBothBackupIds() {
+            // When
+            RestoreBatchWriter.ItemRestoreResult result = writer.restoreItems(List.of(
+                    item(1L, "DUP", List.of()),
+                    item(2L, "DUP", List.of())));
+
+            // Then
+            assertThat(result.created()).isEqualTo(1);
+            assertThat(count("items")).isEqualTo(1);
+            assertThat(result.idMapping().get(1L)).isEqualTo(result.idMapping().get(2L));
+        }
+
+        @Test
+        void should_RestoreImages_OnlyForItemsWithoutImages() {
+            // Given
+            long existingId = insertItem("WITH-IMAGE");
+            jdbc.update("INSERT INTO item_images (item_id, photo_url, is_primary, display_order) VALUES (?, ?, true, 0)",
+                    existingId, "kept.png");
+
+            // When
+            RestoreBatchWriter.ItemRestoreResult result = writer.restoreItems(List.of(
+                    item(1L, "WITH-IMAGE", List.of(image("backup-1.png"))),
+                    item(2L, "NEW", List.of(image("backup-2.png")))));
+
+            // Then
+            assertThat(jdbc.queryForList("SELECT photo_url FROM item_images WHERE item_id = ?", String.class, existingId))
+                    .containsExactly("kept.png");
+            assertThat(jdbc.queryForList("SELECT photo_url FROM item_images WHERE item_id = ?", String.class,
+                    result.idMapping().get(2L)))
+                    .containsExactly("backup-2.png");
+        }
+    }
+
+    @Nested
+    @DisplayName("insertAssortments")
+    class InsertAssortments {
+
+        @Test
+        void should_InsertAssortmentsWithMappedIds() {
+            // Given
+            long rackId = insertRack(1L, "A-01");
+            long itemId = insertItem("ITEM-1");
+            Timestamp createdAt = Timestamp.from(Instant.parse("2026-01-10T08:00:00Z"));
+
+            // When
+            writer.insertAssortments(List.of(
+                            new AssortmentBackupData(1L, "AS-1", 10L, 20L, createdAt, null, 1, 2),
+                            new AssortmentBackupData(2L, "AS-2", 10L, 20L, null, null, null, null)),
+                    Map.of(20L, rackId), Map.of(10L, itemId));
+
+            // Then
+            List<Map<String, Object>> rows = jdbc.queryForList(
+                    "SELECT code, item_id, rack_id, created_at, position_x, position_y, updated_at FROM assortment ORDER BY code");
+            assertThat(rows).hasSize(2);
+            assertThat(rows.get(0)).containsEntry("CODE", "AS-1").containsEntry("ITEM_ID", itemId)
+                    .containsEntry("RACK_ID", rackId).containsEntry("CREATED_AT", createdAt)
+                    .containsEntry("POSITION_X", 1).containsEntry("POSITION_Y", 2);
+            assertThat(rows.get(1).get("CREATED_AT")).isNotNull();
+            assertThat(rows.get(1).get("POSITION_X")).isNull();
+            assertThat(rows.get(1).get("UPDATED_AT")).isNotNull();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.dawid_stolarczyk.magazyn.Services;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.EmailOutboxMessage;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.EmailOutboxKind;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.EmailOutboxStatus;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.EmailOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailOutboxServiceTest {
+
+    @Mock
+    private EmailOutboxRepository outboxRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private EmailOutboxService emailOutbox;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(emailOutbox, "batchSize", 50);
+        ReflectionTestUtils.setField(emailOutbox, "maxAttempts", 3);
+        ReflectionTestUtils.setField(emailOutbox, "leaseSeconds", 300L);
+    }
+
+    private static EmailOutboxMessage row(long id, int attempts) {
+        return EmailOutboxMessage.builder().id(id).recipient("user@example.com").kind(EmailOutboxKind.MESSAGE)
+                .subject("Subject").body("<p>Hello</p>").attempts(attempts).nextAttemptAt(Instant.now()).build();
+    }
+
+    @Nested
+    @DisplayName("claimBatch")
+    class ClaimBatch {
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_LeaseClaimedRows_When_RowsAreDue() {
+            // Given
+            EmailOutboxMessage due = row(1L, 0);
+            when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                    ((TransactionCallback<List<EmailOutboxMessage>>) invocation.getArgument(0)).doInTransaction(null));
+            when(outboxRepository.lockDueBatch(any(Instant.class), eq(50))).thenReturn(List.of(due));
+
+            // When
+            List<EmailOutboxMessage> claimed = emailOutbox.claimBatch();
+
+            // Then
+            assertThat(claimed).containsExactly(due);
+            assertThat(due.getAttempts()).isEqualTo(1);
+            assertThat(due.getNextAttemptAt()).isAfter(Instant.now().plusSeconds(290));
+        }
+    }
+
+    @Nested
+    @DisplayName("complete")
+    class Complete {
+
+        @SuppressWarnings("unchecked")
+        private void runTransactionsInline() {
+            doAnswer(invocation -> {
+                ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+                return null;
+            }).when(transactionTemplate).executeWithoutResult(any());
+        }
+
+        @Test
+        void should_DeleteSentRowsAndBackOffFailedOnes_When_BatchPartiallyFailed() {
+            // Given
+            runTransactionsInline();
+            EmailOutboxMessage sent = row(1L, 1);
+            EmailOutboxMessage retried = row(2L, 2);
+
+            // When
+            emailOutbox.complete(List.of(sent), Map.of(retried, new RuntimeException("421 try again later")));
+
+            // Then
+            verify(outboxRepository).deleteAllByIdInBatch(List.of(1L));
+            assertThat(retried.getStatus()).isEqualTo(EmailOutboxStatus.PENDING);
+            assertThat(retried.getLastError()).isEqualTo("421 try again later");
+            assertThat(retried.getNextAttemptAt()).isAfter(Instant.now().plusSeconds(50));
+        }
+
+        @Test
+        void should_MarkFailed_When_MaxAttemptsReached() {
+            // Given
+            runTransactionsInline();
+            EmailOutboxMessage exhausted = row(1L, 3);
+
+            // When
+            emailOutbox.complete(List.of(), Map.of(exhausted, new RuntimeException("550 mailbox unavailable")));
+
+            // Then
+            assertThat(exhausted.getStatus()).isEqualTo(EmailOutboxStatus.FAILED);
+            verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+        }
+    }
+
+    @Test
+    void should_GrowBackoffExponentially_When_AttemptsIncrease() {
+        assertThat(EmailOutboxService.backoff(1)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(EmailOutboxService.backoff(3)).isEqualTo(Duration.ofSeconds(120));
+        assertThat(EmailOutboxService.backoff(20)).isEqualTo(Duration.ofMinutes(30));
+    }
+}
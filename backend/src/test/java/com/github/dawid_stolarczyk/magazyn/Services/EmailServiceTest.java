@@ -0,0 +1,156 @@
+package com.github.dawid_stolarczyk.magazyn.Services;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.EmailOutboxMessage;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.EmailOutboxKind;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmailServiceTest {
+
+    @Mock
+    private JavaMailSender mailSender;
+    @Mock
+    private TemplateEngine templateEngine;
+    @Mock
+    private EmailOutboxService emailOutbox;
+    @Mock
+    private AsyncTaskExecutor mailTaskExecutor;
+
+    @InjectMocks
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(emailService, "mailFrom", "noreply@example.com");
+        ReflectionTestUtils.setField(emailService, "appName", "Magazyn");
+    }
+
+    private void stubMailSession() {
+        Session session = Session.getInstance(new Properties());
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage(session));
+    }
+
+    private static EmailOutboxMessage digest(long id, String recipient, String body) {
+        return EmailOutboxMessage.builder().id(id).recipient(recipient).kind(EmailOutboxKind.ALERT_DIGEST)
+                .body(body).link("https://app/dashboard/notifications").attempts(1).build();
+    }
+
+    private static EmailOutboxMessage message(long id, String recipient) {
+        return EmailOutboxMessage.builder().id(id).recipient(recipient).kind(EmailOutboxKind.MESSAGE)
+                .subject("Subject").body("<p>Hello</p>").attempts(1).build();
+    }
+
+    @Nested
+    @DisplayName("sendOutboxBatch")
+    class SendOutboxBatch {
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_MergeAlertDigestsPerRecipient_When_BatchContainsSeveralDigests() {
+            // Given – two digests for the same operator, one for the admin and a regular message
+            stubMailSession();
+            when(templateEngine.process(eq("mail/batch-notification"), any(Context.class))).thenReturn("<p>digest</p>");
+            List<EmailOutboxMessage> batch = List.of(
+                    digest(1L, "operator@example.com", "Rack A1 overweight\nRack A2 too hot"),
+                    digest(2L, "admin@example.com", "Rack A1 overweight"),
+                    digest(3L, "operator@example.com", "Rack B1 too cold"),
+                    message(4L, "user@example.com"));
+
+            // When
+            emailService.sendOutboxBatch(batch);
+
+            // Then – one SMTP batch with three emails, every row completed
+            ArgumentCaptor<MimeMessage[]> sent = ArgumentCaptor.forClass(MimeMessage[].class);
+            verify(mailSender, times(1)).send(sent.capture());
+            assertThat(sent.getValue()).hasSize(3);
+            ArgumentCaptor<Context> context = ArgumentCaptor.forClass(Context.class);
+            verify(templateEngine, times(2)).process(eq("mail/batch-notification"), context.capture());
+            assertThat((List<String>) context.getAllValues().get(0).getVariable("alertMessages"))
+                    .containsExactly("Rack A1 overweight", "Rack A2 too hot", "Rack B1 too cold");
+            verify(emailOutbox).recordSend(eq(3), eq(0), eq(2), eq(4), anyLong());
+            verify(emailOutbox).complete(eq(batch), eq(Map.of()));
+        }
+
+        @Test
+        void should_RetryOnlyFailedRows_When_SmtpRejectsOneMessage() throws Exception {
+            // Given
+            stubMailSession();
+            when(templateEngine.process(eq("mail/batch-notification"), any(Context.class))).thenReturn("<p>digest</p>");
+            EmailOutboxMessage plain = message(1L, "user@example.com");
+            EmailOutboxMessage alerts = digest(2L, "bad@example.com", "Rack A1 overweight");
+            doAnswer(invocation -> {
+                MimeMessage rejected = invocation.getArgument(1);
+                throw new MailSendException(Map.<Object, Exception>of(rejected, new RuntimeException("550 mailbox unavailable")));
+            }).when(mailSender).send(any(MimeMessage[].class));
+
+            // When
+            emailService.sendOutboxBatch(List.of(plain, alerts));
+
+            // Then
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<Map<EmailOutboxMessage, Exception>> failed = ArgumentCaptor.forClass(Map.class);
+            verify(emailOutbox).complete(eq(List.of(plain)), failed.capture());
+            assertThat(failed.getValue()).containsOnlyKeys(alerts);
+            verify(emailOutbox).recordSend(eq(2), eq(1), eq(1), eq(1), anyLong());
+        }
+
+        @Test
+        void should_CountUnbuildableDigestAsOneEmail_When_DigestHasSeveralRows() {
+            // Given – two digest rows for a malformed address become one email that cannot be built
+            stubMailSession();
+            when(templateEngine.process(eq("mail/batch-notification"), any(Context.class))).thenReturn("<p>digest</p>");
+            EmailOutboxMessage plain = message(1L, "user@example.com");
+            EmailOutboxMessage first = digest(2L, "broken@@example", "Rack A1 overweight");
+            EmailOutboxMessage second = digest(3L, "broken@@example", "Rack A2 too hot");
+
+            // When
+            emailService.sendOutboxBatch(List.of(plain, first, second));
+
+            // Then – two emails attempted, one failed; both digest rows are retried
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<Map<EmailOutboxMessage, Exception>> failed = ArgumentCaptor.forClass(Map.class);
+            verify(emailOutbox).complete(eq(List.of(plain)), failed.capture());
+            assertThat(failed.getValue()).containsOnlyKeys(first, second);
+            verify(emailOutbox).recordSend(eq(2), eq(1), eq(1), eq(0), anyLong());
+        }
+    }
+
+    @Nested
+    @DisplayName("notification emails")
+    class NotificationEmails {
+
+        @Test
+        void should_QueueInOutbox_When_AlertEmailRequested() {
+            // When
+            emailService.sendBatchNotificationEmail("operator@example.com", List.of("Rack A1 overweight"), "link");
+
+            // Then
+            verify(emailOutbox).enqueueAlertDigest("operator@example.com", List.of("Rack A1 overweight"), "link");
+            verifyNoInteractions(mailSender);
+        }
+    }
+}
@@ -35,6 +35,8 @@ class AssortmentServiceTest {
     private Bucket4jRateLimiter rateLimiter;
     @Mock
     private HttpServletRequest request;
+    @Mock
+    private RackOccupancyIndex rackOccupancyIndex;
 
     @InjectMocks
     private AssortmentService assortmentService;
@@ -1,5 +1,6 @@
 package com.github.dawid_stolarczyk.magazyn.Services.Inventory;
 
+import com.github.dawid_stolarczyk.magazyn.Common.Enums.InventoryError;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.PlacementConfirmationRequest;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.PlacementConfirmationResponse;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.PlacementPlanRequest;
@@ -7,6 +8,7 @@ import com.github.dawid_stolarczyk.magazyn.Controller.Dto.PlacementSlotRequest;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.*;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.Status2FA;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.*;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.RackOccupancyProjection;
 import com.github.dawid_stolarczyk.magazyn.Security.Auth.AuthUtil;
 import com.github.dawid_stolarczyk.magazyn.Security.Auth.Entity.AuthPrincipal;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
@@ -20,11 +22,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -50,10 +55,12 @@ class InboundServiceTest {
     @Mock
     private SmartCodeService smartCodeService;
     @Mock
-    private PositionReservationRepository reservationRepository;
+    private PositionReservationStore reservationStore;
     @Mock
     private InboundOperationRepository inboundOperationRepository;
     @Mock
+    private RackOccupancyIndex rackOccupancyIndex;
+    @Mock
     private Bucket4jRateLimiter rateLimiter;
     @Mock
     private HttpServletRequest httpRequest;
@@ -108,6 +115,45 @@ class InboundServiceTest {
         sampleUser.setFullName("Jan Kowalski");
     }
 
+    private static RackOccupancyProjection occupancy(Long rackId, Integer x, Integer y, Float weight) {
+        return new RackOccupancyProjection() {
+            @Override
+            public Long getRackId() {
+                return rackId;
+            }
+
+            @Override
+            public Integer getPositionX() {
+                return x;
+            }
+
+            @Override
+            public Integer getPositionY() {
+                return y;
+            }
+
+            @Override
+            public Long getItemId() {
+                return null;
+            }
+
+            @Override
+            public Float getWeight() {
+                return weight;
+            }
+
+            @Override
+            public Float getMinTemp() {
+                return null;
+            }
+
+            @Override
+            public Float getMaxTemp() {
+                return null;
+            }
+        };
+    }
+
     // ── buildPlacementPlan ───────────────────────────────────────────
 
     @Nested
@@ -142,7 +188,9 @@ class InboundServiceTest {
 
                 when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(rackRepository.findAll()).thenReturn(Collections.emptyList());
+                when(rackRepository.findPlacementCandidates(isNull(), anyFloat(), anyFloat(),
+                        anyDouble(), anyDouble(), anyDouble(), anyBoolean(), anyDouble()))
+                        .thenReturn(Collections.emptyList());
 
                 // When
                 InboundService.PlacementPlanResult result = inboundService.buildPlacementPlan(request, httpRequest);
@@ -167,10 +215,12 @@ class InboundServiceTest {
 
                 when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(rackRepository.findAll()).thenReturn(List.of(sampleRack));
-                when(assortmentRepository.findByRackId(10L)).thenReturn(Collections.emptyList());
-                when(reservationRepository.findActiveReservationsForRack(eq(10L), any(Timestamp.class)))
-                        .thenReturn(Collections.emptyList());
+                when(rackRepository.findPlacementCandidates(isNull(), anyFloat(), anyFloat(),
+                        anyDouble(), anyDouble(), anyDouble(), anyBoolean(), anyDouble()))
+                        .thenReturn(List.of(sampleRack));
+                when(rackOccupancyIndex.getOccupancies(anyCollection()))
+                        .thenReturn(Map.of(10L, new RackOccupancy(3, 3)));
+                when(reservationStore.findActive(anyCollection())).thenReturn(Map.of());
 
                 // When
                 InboundService.PlacementPlanResult result = inboundService.buildPlacementPlan(request, httpRequest);
@@ -184,6 +234,72 @@ class InboundServiceTest {
             }
         }
 
+        @Test
+        void should_LimitAllocationByIndexedLoad_When_RackIsAlmostFull() {
+            // Given — index reports 4 of 9 cells taken but 92 of 100 kg used, so only one 5kg item fits
+            PlacementPlanRequest request = new PlacementPlanRequest();
+            request.setItemId(1L);
+            request.setQuantity(2);
+
+            RackOccupancy occupancy = new RackOccupancy(3, 3);
+            occupancy.add(1, 1, 1L, 23d, 0f, 25f);
+            occupancy.add(2, 1, 1L, 23d, 0f, 25f);
+            occupancy.add(3, 1, 1L, 23d, 0f, 25f);
+            occupancy.add(1, 2, 1L, 23d, 0f, 25f);
+
+            try (MockedStatic<AuthUtil> authMock = mockStatic(AuthUtil.class)) {
+                authMock.when(AuthUtil::getCurrentAuthPrincipal)
+                        .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
+
+                when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
+                when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
+                when(rackRepository.findPlacementCandidates(isNull(), anyFloat(), anyFloat(),
+                        anyDouble(), anyDouble(), anyDouble(), anyBoolean(), anyDouble()))
+                        .thenReturn(List.of(sampleRack));
+                when(rackOccupancyIndex.getOccupancies(anyCollection())).thenReturn(Map.of(10L, occupancy));
+                when(reservationStore.findActive(anyCollection())).thenReturn(Map.of());
+
+                // When / Then
+                assertThatThrownBy(() -> inboundService.buildPlacementPlan(request, httpRequest))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessage(InventoryError.INSUFFICIENT_SPACE.name());
+            }
+        }
+
+        @Test
+        void should_NotReservePositions_When_AllocationIsPartial() {
+            // Given — only one 5kg item fits, two requested with reservation
+            PlacementPlanRequest request = new PlacementPlanRequest();
+            request.setItemId(1L);
+            request.setQuantity(2);
+            request.setReserve(true);
+
+            RackOccupancy occupancy = new RackOccupancy(3, 3);
+            occupancy.add(1, 1, 1L, 23d, 0f, 25f);
+            occupancy.add(2, 1, 1L, 23d, 0f, 25f);
+            occupancy.add(3, 1, 1L, 23d, 0f, 25f);
+            occupancy.add(1, 2, 1L, 23d, 0f, 25f);
+
+            try (MockedStatic<AuthUtil> authMock = mockStatic(AuthUtil.class)) {
+                authMock.when(AuthUtil::getCurrentAuthPrincipal)
+                        .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
+
+                when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
+                when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
+                when(rackRepository.findPlacementCandidates(isNull(), anyFloat(), anyFloat(),
+                        anyDouble(), anyDouble(), anyDouble(), anyBoolean(), anyDouble()))
+                        .thenReturn(List.of(sampleRack));
+                when(rackOccupancyIndex.getOccupancies(anyCollection())).thenReturn(Map.of(10L, occupancy));
+                when(reservationStore.findActive(anyCollection())).thenReturn(Map.of());
+
+                // When / Then
+                assertThatThrownBy(() -> inboundService.buildPlacementPlan(request, httpRequest))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessage(InventoryError.INSUFFICIENT_SPACE.name());
+                verify(reservationStore, never()).reserveAll(anyCollection(), anyLong(), any(Instant.class));
+            }
+        }
+
         @Test
         void should_FilterRacksByWarehouse_When_WarehouseIdProvided() {
             // Given
@@ -199,17 +315,20 @@ class InboundServiceTest {
                 when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
                 when(warehouseRepository.existsById(1L)).thenReturn(true);
-                when(rackRepository.findByWarehouseId(1L)).thenReturn(List.of(sampleRack));
-                when(assortmentRepository.findByRackId(10L)).thenReturn(Collections.emptyList());
-                when(reservationRepository.findActiveReservationsForRack(eq(10L), any(Timestamp.class)))
-                        .thenReturn(Collections.emptyList());
+                when(rackRepository.findPlacementCandidates(eq(1L), anyFloat(), anyFloat(),
+                        anyDouble(), anyDouble(), anyDouble(), anyBoolean(), anyDouble()))
+                        .thenReturn(List.of(sampleRack));
+                when(rackOccupancyIndex.getOccupancies(anyCollection()))
+                        .thenReturn(Map.of(10L, new RackOccupancy(3, 3)));
+                when(reservationStore.findActive(anyCollection())).thenReturn(Map.of());
 
                 // When
                 InboundService.PlacementPlanResult result = inboundService.buildPlacementPlan(request, httpRequest);
 
                 // Then
                 assertThat(result.success()).isTrue();
-                verify(rackRepository).findByWarehouseId(1L);
+                verify(rackRepository).findPlacementCandidates(eq(1L), anyFloat(), anyFloat(),
+                        anyDouble(), anyDouble(), anyDouble(), anyBoolean(), anyDouble());
                 verify(rackRepository, never()).findAll();
             }
         }
@@ -228,10 +347,13 @@ class InboundServiceTest {
 
                 when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(rackRepository.findAll()).thenReturn(List.of(sampleRack));
-                when(assortmentRepository.findByRackId(10L)).thenReturn(Collections.emptyList());
-                when(reservationRepository.findActiveReservationsForRack(eq(10L), any(Timestamp.class)))
-                        .thenReturn(Collections.emptyList());
+                when(rackRepository.findPlacementCandidates(isNull(), anyFloat(), anyFloat(),
+                        anyDouble(), anyDouble(), anyDouble(), anyBoolean(), anyDouble()))
+                        .thenReturn(List.of(sampleRack));
+                when(rackOccupancyIndex.getOccupancies(anyCollection()))
+                        .thenReturn(Map.of(10L, new RackOccupancy(3, 3)));
+                when(reservationStore.findActive(anyCollection())).thenReturn(Map.of());
+                when(reservationStore.reserveAll(anyCollection(), eq(100L), any(Instant.class))).thenReturn(true);
 
                 // When
                 InboundService.PlacementPlanResult result = inboundService.buildPlacementPlan(request, httpRequest);
@@ -240,7 +362,7 @@ class InboundServiceTest {
                 assertThat(result.success()).isTrue();
                 assertThat(result.response().getReserved()).isTrue();
                 assertThat(result.response().getReservedUntil()).isNotNull();
-                verify(reservationRepository).saveAll(anyList());
+                verify(reservationStore).reserveAll(anyCollection(), eq(100L), any(Instant.class));
             }
         }
     }
@@ -269,11 +391,10 @@ class InboundServiceTest {
 
                 when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(rackRepository.findById(10L)).thenReturn(Optional.of(sampleRack));
-                when(assortmentRepository.findByRackId(10L)).thenReturn(Collections.emptyList());
+                when(rackRepository.findAllById(anySet())).thenReturn(List.of(sampleRack));
+                when(assortmentRepository.findOccupancyByRackIds(anyCollection())).thenReturn(List.of());
                 when(barcodeService.buildPlacementCode(anyString())).thenReturn("PLACEMENT-CODE-001");
-                when(reservationRepository.findActiveReservation(eq(10L), eq(1), eq(1), any(Timestamp.class)))
-                        .thenReturn(Optional.empty());
+                when(reservationStore.findActive(anyCollection())).thenReturn(Map.of());
 
                 // When
                 PlacementConfirmationResponse result = inboundService.confirmPlacement(request, httpRequest);
@@ -306,11 +427,10 @@ class InboundServiceTest {
 
                 when(smartCodeService.findItemBySmartCode("0112345678901234")).thenReturn(sampleItem);
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(rackRepository.findById(10L)).thenReturn(Optional.of(sampleRack));
-                when(assortmentRepository.findByRackId(10L)).thenReturn(Collections.emptyList());
+                when(rackRepository.findAllById(anySet())).thenReturn(List.of(sampleRack));
+                when(assortmentRepository.findOccupancyByRackIds(anyCollection())).thenReturn(List.of());
                 when(barcodeService.buildPlacementCode(anyString())).thenReturn("PLACEMENT-CODE-002");
-                when(reservationRepository.findActiveReservation(eq(10L), eq(2), eq(3), any(Timestamp.class)))
-                        .thenReturn(Optional.empty());
+                when(reservationStore.findActive(anyCollection())).thenReturn(Map.of());
 
                 // When
                 PlacementConfirmationResponse result = inboundService.confirmPlacement(request, httpRequest);
@@ -358,7 +478,7 @@ class InboundServiceTest {
 
                 when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(rackRepository.findById(999L)).thenReturn(Optional.empty());
+                when(rackRepository.findAllById(anySet())).thenReturn(List.of());
 
                 // When / Then
                 assertThatThrownBy(() -> inboundService.confirmPlacement(request, httpRequest))
@@ -385,8 +505,8 @@ class InboundServiceTest {
 
                 when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(rackRepository.findById(10L)).thenReturn(Optional.of(sampleRack));
-                when(assortmentRepository.findByRackId(10L)).thenReturn(Collections.emptyList());
+                when(rackRepository.findAllById(anySet())).thenReturn(List.of(sampleRack));
+                when(assortmentRepository.findOccupancyByRackIds(anyCollection())).thenReturn(List.of());
 
                 // When / Then
                 assertThatThrownBy(() -> inboundService.confirmPlacement(request, httpRequest))
@@ -398,13 +518,6 @@ class InboundServiceTest {
         @Test
         void should_ThrowException_When_PositionAlreadyOccupied() {
             // Given – position (1, 1) is already occupied
-            Assortment existing = new Assortment();
-            existing.setId(50L);
-            existing.setPositionX(1);
-            existing.setPositionY(1);
-            existing.setRack(sampleRack);
-            existing.setItem(sampleItem);
-
             PlacementSlotRequest slot = new PlacementSlotRequest();
             slot.setRackId(10L);
             slot.setPositionX(1);
@@ -420,13 +533,155 @@ class InboundServiceTest {
 
                 when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(rackRepository.findById(10L)).thenReturn(Optional.of(sampleRack));
-                when(assortmentRepository.findByRackId(10L)).thenReturn(List.of(existing));
+                when(rackRepository.findAllById(anySet())).thenReturn(List.of(sampleRack));
+                when(assortmentRepository.findOccupancyByRackIds(anyCollection()))
+                        .thenReturn(List.of(occupancy(10L, 1, 1, 2.0f)));
+
+                // When / Then
+                assertThatThrownBy(() -> inboundService.confirmPlacement(request, httpRequest))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessageContaining("PLACEMENT_INVALID");
+            }
+        }
+
+        @Test
+        void should_ThrowException_When_PositionReservedByAnotherUser() {
+            // Given
+            PlacementSlotRequest slot = new PlacementSlotRequest();
+            slot.setRackId(10L);
+            slot.setPositionX(2);
+            slot.setPositionY(2);
+
+            PlacementConfirmationRequest request = new PlacementConfirmationRequest();
+            request.setItemId(1L);
+            request.setPlacements(List.of(slot));
+
+            try (MockedStatic<AuthUtil> authMock = mockStatic(AuthUtil.class)) {
+                authMock.when(AuthUtil::getCurrentAuthPrincipal)
+                        .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
+
+                when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
+                when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
+                when(rackRepository.findAllById(anySet())).thenReturn(List.of(sampleRack));
+                when(assortmentRepository.findOccupancyByRackIds(anyCollection())).thenReturn(List.of());
+                when(reservationStore.findActive(anyCollection())).thenReturn(Map.of(10L, List.of(
+                        new PositionReservationStore.Reservation(10L, 2, 2, 200L, Instant.now().plusSeconds(60)))));
 
                 // When / Then
                 assertThatThrownBy(() -> inboundService.confirmPlacement(request, httpRequest))
                         .isInstanceOf(IllegalArgumentException.class)
                         .hasMessageContaining("PLACEMENT_INVALID");
+                verify(assortmentRepository, never()).saveAll(anyList());
+            }
+        }
+
+        @Test
+        void should_LoadRacksOccupancyAndReservationsOnce_When_ConfirmingManySlotsAcrossRacks() {
+            // Given – 9 slots in rack 10 (one reserved by the current user) and 1 slot in rack 11
+            Rack secondRack = new Rack();
+            secondRack.setId(11L);
+            secondRack.setMarker("B2");
+            secondRack.setSize_x(2);
+            secondRack.setSize_y(2);
+            secondRack.setMin_temp(sampleRack.getMin_temp());
+            secondRack.setMax_temp(sampleRack.getMax_temp());
+            secondRack.setMax_weight(sampleRack.getMax_weight());
+            secondRack.setMax_size_x(sampleRack.getMax_size_x());
+            secondRack.setMax_size_y(sampleRack.getMax_size_y());
+            secondRack.setMax_size_z(sampleRack.getMax_size_z());
+            secondRack.setWarehouse(sampleWarehouse);
+
+            List<PlacementSlotRequest> slots = new ArrayList<>();
+            for (int y = 1; y <= 3; y++) {
+                for (int x = 1; x <= 3; x++) {
+                    if (x == 1 && y == 1) {
+                        continue;
+                    }
+                    PlacementSlotRequest slot = new PlacementSlotRequest();
+                    slot.setRackId(10L);
+                    slot.setPositionX(x);
+                    slot.setPositionY(y);
+                    slots.add(slot);
+                }
+            }
+            PlacementSlotRequest other = new PlacementSlotRequest();
+            other.setRackId(11L);
+            other.setPositionX(2);
+            other.setPositionY(2);
+            slots.add(other);
+
+            PlacementConfirmationRequest request = new PlacementConfirmationRequest();
+            request.setItemId(1L);
+            request.setPlacements(slots);
+
+            try (MockedStatic<AuthUtil> authMock = mockStatic(AuthUtil.class)) {
+                authMock.when(AuthUtil::getCurrentAuthPrincipal)
+                        .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
+
+                when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
+                when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
+                when(rackRepository.findAllById(anySet())).thenReturn(List.of(sampleRack, secondRack));
+                when(assortmentRepository.findOccupancyByRackIds(anyCollection()))
+                        .thenReturn(List.of(occupancy(10L, 1, 1, 2.0f), occupancy(11L, 1, 1, 2.0f)));
+                when(reservationStore.findActive(anyCollection())).thenReturn(Map.of(10L, List.of(
+                        new PositionReservationStore.Reservation(10L, 3, 3, 100L, Instant.now().plusSeconds(60)))));
+                when(barcodeService.buildPlacementCode(anyString())).thenReturn("PLACEMENT-CODE-004");
+
+                // When
+                PlacementConfirmationResponse result = inboundService.confirmPlacement(request, httpRequest);
+
+                // Then
+                assertThat(result.getStoredQuantity()).isEqualTo(9);
+                verify(rackRepository, times(1)).findAllById(anySet());
+                verify(rackRepository, never()).findById(anyLong());
+                verify(assortmentRepository, times(1)).findOccupancyByRackIds(anyCollection());
+                verify(assortmentRepository, never()).findByRackId(anyLong());
+                verify(reservationStore, times(1)).findActive(anyCollection());
+                verify(reservationStore).releaseAll(
+                        eq(List.of(new PositionReservationStore.Position(10L, 3, 3))), eq(100L));
+            }
+        }
+
+        @Test
+        void should_ReleaseReservationsOnlyAfterCommit_When_ConfirmedInTransaction() {
+            // Given
+            PlacementSlotRequest slot = new PlacementSlotRequest();
+            slot.setRackId(10L);
+            slot.setPositionX(1);
+            slot.setPositionY(1);
+
+            PlacementConfirmationRequest request = new PlacementConfirmationRequest();
+            request.setItemId(1L);
+            request.setPlacements(List.of(slot));
+
+            try (MockedStatic<AuthUtil> authMock = mockStatic(AuthUtil.class)) {
+                authMock.when(AuthUtil::getCurrentAuthPrincipal)
+                        .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
+
+                when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
+                when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
+                when(rackRepository.findAllById(anySet())).thenReturn(List.of(sampleRack));
+                when(assortmentRepository.findOccupancyByRackIds(anyCollection())).thenReturn(List.of());
+                when(reservationStore.findActive(anyCollection())).thenReturn(Map.of(10L, List.of(
+                        new PositionReservationStore.Reservation(10L, 1, 1, 100L, Instant.now().plusSeconds(60)))));
+                when(barcodeService.buildPlacementCode(anyString())).thenReturn("PLACEMENT-CODE-005");
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    // When
+                    inboundService.confirmPlacement(request, httpRequest);
+
+                    // Then — nothing released before commit, rollback keeps the reservation
+                    verify(reservationStore, never()).releaseAll(anyCollection(), anyLong());
+                    TransactionSynchronizationManager.getSynchronizations()
+                            .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+                    verify(reservationStore, never()).releaseAll(anyCollection(), anyLong());
+
+                    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                    verify(reservationStore).releaseAll(
+                            eq(List.of(new PositionReservationStore.Position(10L, 1, 1))), eq(100L));
+                } finally {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
             }
         }
 
@@ -448,11 +703,10 @@ class InboundServiceTest {
 
                 when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(rackRepository.findById(10L)).thenReturn(Optional.of(sampleRack));
-                when(assortmentRepository.findByRackId(10L)).thenReturn(Collections.emptyList());
+                when(rackRepository.findAllById(anySet())).thenReturn(List.of(sampleRack));
+                when(assortmentRepository.findOccupancyByRackIds(anyCollection())).thenReturn(List.of());
                 when(barcodeService.buildPlacementCode(anyString())).thenReturn("PLACEMENT-CODE-003");
-                when(reservationRepository.findActiveReservation(eq(10L), eq(1), eq(1), any(Timestamp.class)))
-                        .thenReturn(Optional.empty());
+                when(reservationStore.findActive(anyCollection())).thenReturn(Map.of());
 
                 // When
                 inboundService.confirmPlacement(request, httpRequest);
@@ -64,6 +64,8 @@ class ItemServiceTest {
     private AsyncTaskExecutor asyncTaskExecutor;
     @Mock
     private HttpServletRequest httpRequest;
+    @Mock
+    private RackOccupancyIndex rackOccupancyIndex;
 
     @InjectMocks
     private ItemService itemService;
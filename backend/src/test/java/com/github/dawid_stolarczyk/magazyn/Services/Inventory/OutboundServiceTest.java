@@ -1,9 +1,11 @@
 package com.github.dawid_stolarczyk.magazyn.Services.Inventory;
 
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.*;
+import com.github.dawid_stolarczyk.magazyn.Exception.ResourceLockedException;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.*;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.Status2FA;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.*;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.OldestAvailableProjection;
 import com.github.dawid_stolarczyk.magazyn.Security.Auth.AuthUtil;
 import com.github.dawid_stolarczyk.magazyn.Security.Auth.Entity.AuthPrincipal;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
@@ -17,10 +19,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
 
 import java.sql.Timestamp;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -49,6 +53,8 @@ class OutboundServiceTest {
     private SmartCodeService smartCodeService;
     @Mock
     private HttpServletRequest httpRequest;
+    @Mock
+    private RackOccupancyIndex rackOccupancyIndex;
 
     @InjectMocks
     private OutboundService outboundService;
@@ -108,8 +114,10 @@ class OutboundServiceTest {
             Assortment a2 = buildAssortment(2L, "CODE-B", Instant.now().minus(1, ChronoUnit.DAYS), null);
 
             when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
-            when(assortmentRepository.findByItemIdFifoOrdered(1L)).thenReturn(List.of(a1, a2));
-            when(assortmentRepository.findExpiredByItemId(1L)).thenReturn(Collections.emptyList());
+            when(assortmentRepository.findFifoPage(eq(1L), argThat(p -> p.getPageSize() == 2)))
+                    .thenReturn(List.of(a1, a2));
+            when(assortmentRepository.countAvailableByItemId(1L)).thenReturn(2L);
+            when(assortmentRepository.countExpiredByItemId(1L)).thenReturn(0L);
 
             // When
             OutboundPlanResponse result = outboundService.plan(request, httpRequest);
@@ -121,6 +129,7 @@ class OutboundServiceTest {
             assertThat(result.getAvailableQuantity()).isEqualTo(2L);
             assertThat(result.getPickSlots()).hasSize(2);
             assertThat(result.getWarning()).isNull();
+            assertThat(result.getNextCursor()).isNull();
         }
 
         @Test
@@ -143,12 +152,11 @@ class OutboundServiceTest {
                     .itemId(1L).quantity(5).build();
 
             Assortment valid = buildAssortment(1L, "CODE-V", Instant.now().minus(1, ChronoUnit.DAYS), null);
-            Assortment expired = buildAssortment(2L, "CODE-E", Instant.now().minus(10, ChronoUnit.DAYS),
-                    Instant.now().minus(1, ChronoUnit.DAYS));
 
             when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
-            when(assortmentRepository.findByItemIdFifoOrdered(1L)).thenReturn(List.of(valid));
-            when(assortmentRepository.findExpiredByItemId(1L)).thenReturn(List.of(expired));
+            when(assortmentRepository.findFifoPage(eq(1L), any(Pageable.class))).thenReturn(List.of(valid));
+            when(assortmentRepository.countAvailableByItemId(1L)).thenReturn(1L);
+            when(assortmentRepository.countExpiredByItemId(1L)).thenReturn(1L);
 
             // When
             OutboundPlanResponse result = outboundService.plan(request, httpRequest);
@@ -165,12 +173,10 @@ class OutboundServiceTest {
             OutboundPlanRequest request = OutboundPlanRequest.builder()
                     .itemId(1L).quantity(1).build();
 
-            Assortment expired = buildAssortment(1L, "CODE-E", Instant.now().minus(10, ChronoUnit.DAYS),
-                    Instant.now().minus(1, ChronoUnit.DAYS));
-
             when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
-            when(assortmentRepository.findByItemIdFifoOrdered(1L)).thenReturn(Collections.emptyList());
-            when(assortmentRepository.findExpiredByItemId(1L)).thenReturn(List.of(expired));
+            when(assortmentRepository.findFifoPage(eq(1L), any(Pageable.class))).thenReturn(Collections.emptyList());
+            when(assortmentRepository.countAvailableByItemId(1L)).thenReturn(0L);
+            when(assortmentRepository.countExpiredByItemId(1L)).thenReturn(1L);
 
             // When
             OutboundPlanResponse result = outboundService.plan(request, httpRequest);
@@ -179,6 +185,122 @@ class OutboundServiceTest {
             assertThat(result.getPickSlots()).isEmpty();
             assertThat(result.getWarning()).contains("expired");
         }
+        @Test
+        void should_ReturnPagesWithCursor_When_PageSizeGiven() {
+            // Given — quantity 3 in pages of 2
+            Assortment a1 = buildAssortment(1L, "CODE-A", Instant.now().minus(3, ChronoUnit.DAYS), null);
+            Assortment a2 = buildAssortment(2L, "CODE-B", Instant.now().minus(2, ChronoUnit.DAYS), null);
+            Assortment a3 = buildAssortment(3L, "CODE-C", Instant.now().minus(1, ChronoUnit.DAYS), null);
+
+            when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
+            when(assortmentRepository.findFifoPage(eq(1L), argThat(p -> p.getPageSize() == 2)))
+                    .thenReturn(List.of(a1, a2));
+            when(assortmentRepository.findFifoPageAfter(eq(1L), eq(a2.getCreatedAt()), eq(2L),
+                    argThat(p -> p.getPageSize() == 1)))
+                    .thenReturn(List.of(a3));
+            when(assortmentRepository.countAvailableByItemId(1L)).thenReturn(10L);
+            when(assortmentRepository.countExpiredByItemId(1L)).thenReturn(0L);
+
+            // When
+            OutboundPlanResponse first = outboundService.plan(OutboundPlanRequest.builder()
+                    .itemId(1L).quantity(3).pageSize(2).build(), httpRequest);
+            OutboundPlanResponse second = outboundService.plan(OutboundPlanRequest.builder()
+                    .itemId(1L).quantity(3).pageSize(2).cursor(first.getNextCursor()).build(), httpRequest);
+
+            // Then
+            assertThat(first.getPickSlots()).extracting(OutboundPickSlot::getAssortmentCode)
+                    .containsExactly("CODE-A", "CODE-B");
+            assertThat(first.getNextCursor()).isNotNull();
+            assertThat(second.getPickSlots()).extracting(OutboundPickSlot::getAssortmentCode)
+                    .containsExactly("CODE-C");
+            assertThat(second.getNextCursor()).isNull();
+        }
+
+        @Test
+        void should_ThrowException_When_CursorInvalid() {
+            // Given
+            OutboundPlanRequest request = OutboundPlanRequest.builder()
+                    .itemId(1L).quantity(5).pageSize(2).cursor("not-a-cursor").build();
+            when(itemRepository.findById(1L)).thenReturn(Optional.of(sampleItem));
+
+            // When / Then
+            assertThatThrownBy(() -> outboundService.plan(request, httpRequest))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("OUTBOUND_PLAN_CURSOR_INVALID");
+        }
+    }
+
+    // ── planWave ─────────────────────────────────────────────────────
+
+    @Nested
+    @DisplayName("planWave")
+    class PlanWave {
+
+        @Test
+        void should_RouteStopsByAisle_When_MultipleItemsPlanned() {
+            // Given — item 1 lies in aisle A3, item 2 in A1 and A2
+            Item second = new Item();
+            second.setId(2L);
+            second.setName("Second Item");
+
+            Rack rackA1 = new Rack();
+            rackA1.setId(11L);
+            rackA1.setMarker("A1");
+            Rack rackA2 = new Rack();
+            rackA2.setId(12L);
+            rackA2.setMarker("A2");
+            Rack rackA3 = new Rack();
+            rackA3.setId(13L);
+            rackA3.setMarker("A3");
+
+            Assortment inA3 = buildAssortment(1L, "CODE-A3", Instant.now().minus(3, ChronoUnit.DAYS), null);
+            inA3.setRack(rackA3);
+            Assortment inA1 = buildAssortment(2L, "CODE-A1", Instant.now().minus(2, ChronoUnit.DAYS), null);
+            inA1.setItem(second);
+            inA1.setRack(rackA1);
+            Assortment inA2 = buildAssortment(3L, "CODE-A2", Instant.now().minus(1, ChronoUnit.DAYS), null);
+            inA2.setItem(second);
+            inA2.setRack(rackA2);
+
+            OutboundWavePlanRequest request = OutboundWavePlanRequest.builder()
+                    .lines(List.of(
+                            OutboundWaveLine.builder().itemId(1L).quantity(2).build(),
+                            OutboundWaveLine.builder().itemId(2L).quantity(1).build(),
+                            OutboundWaveLine.builder().itemId(2L).quantity(1).build()))
+                    .build();
+
+            when(itemRepository.findAllById(anyCollection())).thenReturn(List.of(sampleItem, second));
+            when(assortmentRepository.findFifoPage(eq(1L), argThat(p -> p.getPageSize() == 2)))
+                    .thenReturn(List.of(inA3));
+            when(assortmentRepository.findFifoPage(eq(2L), argThat(p -> p.getPageSize() == 2)))
+                    .thenReturn(List.of(inA1, inA2));
+
+            // When
+            OutboundWavePlanResponse result = outboundService.planWave(request, httpRequest);
+
+            // Then
+            assertThat(result.getRoute()).extracting(OutboundPickSlot::getAssortmentCode)
+                    .containsExactly("CODE-A1", "CODE-A2", "CODE-A3");
+            assertThat(result.getLines()).hasSize(2);
+            assertThat(result.getLines().get(0).getPlannedQuantity()).isEqualTo(1);
+            assertThat(result.getLines().get(0).getWarning()).contains("Only 1");
+            assertThat(result.getLines().get(1).getPlannedQuantity()).isEqualTo(2);
+            assertThat(result.getLines().get(1).getWarning()).isNull();
+        }
+
+        @Test
+        void should_ThrowException_When_WaveItemNotFound() {
+            // Given
+            OutboundWavePlanRequest request = OutboundWavePlanRequest.builder()
+                    .lines(List.of(OutboundWaveLine.builder().itemId(999L).quantity(1).build()))
+                    .build();
+            when(itemRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+            // When / Then
+            assertThatThrownBy(() -> outboundService.planWave(request, httpRequest))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("ITEM_NOT_FOUND");
+        }
     }
 
     // ── check ────────────────────────────────────────────────────────
@@ -197,8 +319,7 @@ class OutboundServiceTest {
                     Instant.now().plus(30, ChronoUnit.DAYS));
 
             when(smartCodeService.findAssortmentBySmartCode("CODE-A")).thenReturn(assortment);
-            when(assortmentRepository.findOlderAssortments(eq(1L), any(Timestamp.class)))
-                    .thenReturn(Collections.emptyList());
+            when(assortmentRepository.existsOlderAvailable(eq(1L), any(Timestamp.class))).thenReturn(false);
 
             // When
             OutboundCheckResponse result = outboundService.check(request, httpRequest);
@@ -207,6 +328,7 @@ class OutboundServiceTest {
             assertThat(result.isFifoCompliant()).isTrue();
             assertThat(result.getOlderAssortments()).isEmpty();
             assertThat(result.getWarning()).isNull();
+            verify(assortmentRepository, never()).findOldestOlderAssortments(anyLong(), any(), any());
         }
 
         @Test
@@ -223,7 +345,8 @@ class OutboundServiceTest {
                     Instant.now().plus(30, ChronoUnit.DAYS));
 
             when(smartCodeService.findAssortmentBySmartCode("CODE-B")).thenReturn(requested);
-            when(assortmentRepository.findOlderAssortments(eq(1L), any(Timestamp.class)))
+            when(assortmentRepository.existsOlderAvailable(eq(1L), any(Timestamp.class))).thenReturn(true);
+            when(assortmentRepository.findOldestOlderAssortments(eq(1L), any(Timestamp.class), any(Pageable.class)))
                     .thenReturn(List.of(older));
 
             // When
@@ -234,10 +357,80 @@ class OutboundServiceTest {
             assertThat(result.getOlderAssortments()).hasSize(1);
             assertThat(result.getWarning()).contains("older");
         }
+
+        @Test
+        void should_SkipPreview_When_PreviewLimitIsZero() {
+            // Given
+            OutboundPickPosition request = OutboundPickPosition.builder().code("CODE-B").build();
+
+            Assortment requested = buildAssortment(2L, "CODE-B",
+                    Instant.now().minus(1, ChronoUnit.DAYS), null);
+
+            when(smartCodeService.findAssortmentBySmartCode("CODE-B")).thenReturn(requested);
+            when(assortmentRepository.existsOlderAvailable(eq(1L), any(Timestamp.class))).thenReturn(true);
+
+            // When
+            OutboundCheckResponse result = outboundService.check(request, 0, httpRequest);
+
+            // Then
+            assertThat(result.isFifoCompliant()).isFalse();
+            assertThat(result.getOlderAssortments()).isEmpty();
+            assertThat(result.getWarning()).contains("Older");
+            verify(assortmentRepository, never()).findOldestOlderAssortments(anyLong(), any(), any());
+        }
+
+        @Test
+        void should_CapPreviewAtMaxPageSize_When_PreviewLimitTooLarge() {
+            // Given
+            OutboundPickPosition request = OutboundPickPosition.builder().code("CODE-B").build();
+
+            Assortment requested = buildAssortment(2L, "CODE-B",
+                    Instant.now().minus(1, ChronoUnit.DAYS), null);
+
+            when(smartCodeService.findAssortmentBySmartCode("CODE-B")).thenReturn(requested);
+            when(assortmentRepository.existsOlderAvailable(eq(1L), any(Timestamp.class))).thenReturn(true);
+            when(assortmentRepository.findOldestOlderAssortments(eq(1L), any(Timestamp.class), any(Pageable.class)))
+                    .thenReturn(Collections.emptyList());
+
+            // When
+            outboundService.check(request, 10_000, httpRequest);
+
+            // Then
+            verify(assortmentRepository).findOldestOlderAssortments(eq(1L), any(Timestamp.class),
+                    argThat(p -> p.getPageSize() == 100));
+        }
     }
 
     // ── execute ──────────────────────────────────────────────────────
 
+    private static OldestAvailableProjection oldest(Long itemId, Instant createdAt) {
+        return new OldestAvailableProjection() {
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Timestamp getOldestCreatedAt() {
+                return Timestamp.from(createdAt);
+            }
+        };
+    }
+
+    private void stubLockedAssortments(Assortment... assortments) {
+        List<Long> ids = Arrays.stream(assortments).map(Assortment::getId).toList();
+        when(assortmentRepository.lockIdsByCodes(anyCollection())).thenReturn(ids);
+        when(assortmentRepository.findAllWithItemAndRackByIdIn(ids)).thenReturn(List.of(assortments));
+    }
+
+    private void stubAuditInsert() {
+        doAnswer(inv -> {
+            List<OutboundOperation> operations = inv.getArgument(0);
+            operations.forEach(op -> op.setOperationTimestamp(Timestamp.from(Instant.now())));
+            return null;
+        }).when(outboundOperationRepository).insertAll(anyList());
+    }
+
     @Nested
     @DisplayName("execute")
     class Execute {
@@ -259,14 +452,10 @@ class OutboundServiceTest {
                         .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
 
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(assortmentRepository.findByCode("CODE-A")).thenReturn(Optional.of(assortment));
-                when(assortmentRepository.findOlderAssortments(eq(1L), any(Timestamp.class)))
+                stubLockedAssortments(assortment);
+                when(assortmentRepository.findOldestAvailableByItemIds(anyCollection(), anyCollection()))
                         .thenReturn(Collections.emptyList());
-                when(outboundOperationRepository.save(any(OutboundOperation.class))).thenAnswer(inv -> {
-                    OutboundOperation op = inv.getArgument(0);
-                    op.setOperationTimestamp(Timestamp.from(Instant.now()));
-                    return op;
-                });
+                stubAuditInsert();
 
                 // When
                 OutboundExecuteResponse result = outboundService.execute(request, httpRequest);
@@ -274,8 +463,8 @@ class OutboundServiceTest {
                 // Then
                 assertThat(result.getIssuedCount()).isEqualTo(1);
                 assertThat(result.getOperations()).hasSize(1);
-                verify(assortmentRepository).delete(assortment);
-                verify(outboundOperationRepository).save(any(OutboundOperation.class));
+                verify(assortmentRepository).deleteAllByIdIn(List.of(1L));
+                verify(outboundOperationRepository).insertAll(argThat(ops -> ops.size() == 1));
             }
         }
 
@@ -286,9 +475,6 @@ class OutboundServiceTest {
                     Instant.now().minus(1, ChronoUnit.DAYS),
                     Instant.now().plus(30, ChronoUnit.DAYS));
 
-            Assortment older = buildAssortment(1L, "CODE-A",
-                    Instant.now().minus(5, ChronoUnit.DAYS), null);
-
             OutboundExecuteRequest request = OutboundExecuteRequest.builder()
                     .assortments(List.of(OutboundPickPosition.builder().code("CODE-B").build()))
                     .skipFifo(false)
@@ -299,14 +485,15 @@ class OutboundServiceTest {
                         .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
 
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(assortmentRepository.findByCode("CODE-B")).thenReturn(Optional.of(requested));
-                when(assortmentRepository.findOlderAssortments(eq(1L), any(Timestamp.class)))
-                        .thenReturn(List.of(older));
+                stubLockedAssortments(requested);
+                when(assortmentRepository.findOldestAvailableByItemIds(anyCollection(), anyCollection()))
+                        .thenReturn(List.of(oldest(1L, Instant.now().minus(5, ChronoUnit.DAYS))));
 
                 // When / Then
                 assertThatThrownBy(() -> outboundService.execute(request, httpRequest))
                         .isInstanceOf(IllegalArgumentException.class)
                         .hasMessageContaining("OUTBOUND_FIFO_VIOLATION");
+                verify(assortmentRepository, never()).deleteAllByIdIn(anyCollection());
             }
         }
 
@@ -317,9 +504,6 @@ class OutboundServiceTest {
                     Instant.now().minus(1, ChronoUnit.DAYS),
                     Instant.now().plus(30, ChronoUnit.DAYS));
 
-            Assortment older = buildAssortment(1L, "CODE-A",
-                    Instant.now().minus(5, ChronoUnit.DAYS), null);
-
             OutboundExecuteRequest request = OutboundExecuteRequest.builder()
                     .assortments(List.of(OutboundPickPosition.builder().code("CODE-B").build()))
                     .skipFifo(true) // skip FIFO
@@ -330,22 +514,59 @@ class OutboundServiceTest {
                         .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
 
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(assortmentRepository.findByCode("CODE-B")).thenReturn(Optional.of(requested));
-                when(assortmentRepository.findOlderAssortments(eq(1L), any(Timestamp.class)))
-                        .thenReturn(List.of(older));
-                when(outboundOperationRepository.save(any(OutboundOperation.class))).thenAnswer(inv -> {
-                    OutboundOperation op = inv.getArgument(0);
-                    op.setOperationTimestamp(Timestamp.from(Instant.now()));
-                    return op;
-                });
+                stubLockedAssortments(requested);
+                when(assortmentRepository.findOldestAvailableByItemIds(anyCollection(), anyCollection()))
+                        .thenReturn(List.of(oldest(1L, Instant.now().minus(5, ChronoUnit.DAYS))));
+                stubAuditInsert();
 
                 // When
                 OutboundExecuteResponse result = outboundService.execute(request, httpRequest);
 
                 // Then
                 assertThat(result.getIssuedCount()).isEqualTo(1);
-                verify(assortmentRepository).delete(requested);
-                verify(outboundOperationRepository).save(any(OutboundOperation.class));
+                assertThat(result.getOperations().get(0).isFifoCompliant()).isFalse();
+                verify(assortmentRepository).deleteAllByIdIn(List.of(2L));
+            }
+        }
+
+        @Test
+        void should_TreatPickAsFifoCompliant_When_OlderAssortmentIssuedInSameRequest() {
+            // Given — the newer code comes first, but the older one is issued in the same wave
+            Assortment newer = buildAssortment(2L, "CODE-B",
+                    Instant.now().minus(1, ChronoUnit.DAYS), null);
+            Assortment older = buildAssortment(1L, "CODE-A",
+                    Instant.now().minus(5, ChronoUnit.DAYS), null);
+
+            OutboundExecuteRequest request = OutboundExecuteRequest.builder()
+                    .assortments(List.of(
+                            OutboundPickPosition.builder().code("CODE-B").build(),
+                            OutboundPickPosition.builder().code("CODE-A").build()))
+                    .skipFifo(false)
+                    .build();
+
+            try (MockedStatic<AuthUtil> authMock = mockStatic(AuthUtil.class)) {
+                authMock.when(AuthUtil::getCurrentAuthPrincipal)
+                        .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
+
+                when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
+                when(assortmentRepository.lockIdsByCodes(anyCollection())).thenReturn(List.of(1L, 2L));
+                when(assortmentRepository.findAllWithItemAndRackByIdIn(List.of(1L, 2L)))
+                        .thenReturn(List.of(older, newer));
+                when(assortmentRepository.findOldestAvailableByItemIds(anyCollection(), anyCollection()))
+                        .thenReturn(Collections.emptyList());
+                stubAuditInsert();
+
+                // When
+                OutboundExecuteResponse result = outboundService.execute(request, httpRequest);
+
+                // Then — single round trip per step, operations in request order
+                assertThat(result.getIssuedCount()).isEqualTo(2);
+                assertThat(result.getOperations()).extracting(OutboundOperationDto::getAssortmentCode)
+                        .containsExactly("CODE-B", "CODE-A");
+                assertThat(result.getOperations()).allMatch(OutboundOperationDto::isFifoCompliant);
+                verify(assortmentRepository, times(1)).lockIdsByCodes(anyCollection());
+                verify(outboundOperationRepository, times(1)).insertAll(anyList());
+                verify(assortmentRepository, times(1)).deleteAllByIdIn(List.of(2L, 1L));
             }
         }
 
@@ -362,7 +583,7 @@ class OutboundServiceTest {
                         .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
 
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(assortmentRepository.findByCode("NONEXISTENT")).thenReturn(Optional.empty());
+                when(assortmentRepository.lockIdsByCodes(anyCollection())).thenReturn(Collections.emptyList());
 
                 // When / Then
                 assertThatThrownBy(() -> outboundService.execute(request, httpRequest))
@@ -371,6 +592,78 @@ class OutboundServiceTest {
             }
         }
 
+        @Test
+        void should_RejectRequest_When_AssortmentCodeIsDuplicated() {
+            // Given
+            OutboundExecuteRequest request = OutboundExecuteRequest.builder()
+                    .assortments(List.of(
+                            OutboundPickPosition.builder().code("CODE-A").build(),
+                            OutboundPickPosition.builder().code("CODE-A").build()))
+                    .build();
+
+            try (MockedStatic<AuthUtil> authMock = mockStatic(AuthUtil.class)) {
+                authMock.when(AuthUtil::getCurrentAuthPrincipal)
+                        .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
+
+                when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
+
+                // When / Then
+                assertThatThrownBy(() -> outboundService.execute(request, httpRequest))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessage("OUTBOUND_DUPLICATE_ASSORTMENT");
+                verify(assortmentRepository, never()).lockIdsByCodes(anyCollection());
+            }
+        }
+
+        @Test
+        void should_ReportConflict_When_AssortmentIsLockedByConcurrentOutbound() {
+            // Given
+            OutboundExecuteRequest request = OutboundExecuteRequest.builder()
+                    .assortments(List.of(
+                            OutboundPickPosition.builder().code("CODE-A").build(),
+                            OutboundPickPosition.builder().code("CODE-B").build()))
+                    .build();
+
+            try (MockedStatic<AuthUtil> authMock = mockStatic(AuthUtil.class)) {
+                authMock.when(AuthUtil::getCurrentAuthPrincipal)
+                        .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
+
+                when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
+                when(assortmentRepository.lockIdsByCodes(anyCollection())).thenReturn(List.of(1L));
+                when(assortmentRepository.countByCodeIn(anyCollection())).thenReturn(2L);
+
+                // When / Then
+                assertThatThrownBy(() -> outboundService.execute(request, httpRequest))
+                        .isInstanceOf(ResourceLockedException.class)
+                        .hasMessage("ASSORTMENT_LOCKED");
+            }
+        }
+
+        @Test
+        void should_ThrowException_When_AssortmentExpired() {
+            // Given
+            Assortment expired = buildAssortment(1L, "CODE-E",
+                    Instant.now().minus(10, ChronoUnit.DAYS),
+                    Instant.now().minus(1, ChronoUnit.DAYS));
+
+            OutboundExecuteRequest request = OutboundExecuteRequest.builder()
+                    .assortments(List.of(OutboundPickPosition.builder().code("CODE-E").build()))
+                    .build();
+
+            try (MockedStatic<AuthUtil> authMock = mockStatic(AuthUtil.class)) {
+                authMock.when(AuthUtil::getCurrentAuthPrincipal)
+                        .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
+
+                when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
+                stubLockedAssortments(expired);
+
+                // When / Then
+                assertThatThrownBy(() -> outboundService.execute(request, httpRequest))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessageContaining("OUTBOUND_ASSORTMENT_EXPIRED");
+            }
+        }
+
         @Test
         void should_DeleteAssortment_When_Executed() {
             // Given
@@ -388,20 +681,17 @@ class OutboundServiceTest {
                         .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
 
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(assortmentRepository.findByCode("CODE-A")).thenReturn(Optional.of(assortment));
-                when(assortmentRepository.findOlderAssortments(eq(1L), any(Timestamp.class)))
+                stubLockedAssortments(assortment);
+                when(assortmentRepository.findOldestAvailableByItemIds(anyCollection(), anyCollection()))
                         .thenReturn(Collections.emptyList());
-                when(outboundOperationRepository.save(any(OutboundOperation.class))).thenAnswer(inv -> {
-                    OutboundOperation op = inv.getArgument(0);
-                    op.setOperationTimestamp(Timestamp.from(Instant.now()));
-                    return op;
-                });
+                stubAuditInsert();
 
                 // When
                 outboundService.execute(request, httpRequest);
 
                 // Then
-                verify(assortmentRepository).delete(assortment);
+                verify(assortmentRepository).deleteAllByIdIn(List.of(1L));
+                verify(rackOccupancyIndex).recordRemoval(eq(10L), eq(1), eq(1), any(Item.class));
             }
         }
 
@@ -422,20 +712,17 @@ class OutboundServiceTest {
                         .thenReturn(new AuthPrincipal(100L, Status2FA.VERIFIED, false));
 
                 when(userRepository.findById(100L)).thenReturn(Optional.of(sampleUser));
-                when(assortmentRepository.findByCode("CODE-A")).thenReturn(Optional.of(assortment));
-                when(assortmentRepository.findOlderAssortments(eq(1L), any(Timestamp.class)))
+                stubLockedAssortments(assortment);
+                when(assortmentRepository.findOldestAvailableByItemIds(anyCollection(), anyCollection()))
                         .thenReturn(Collections.emptyList());
-                when(outboundOperationRepository.save(any(OutboundOperation.class))).thenAnswer(inv -> {
-                    OutboundOperation op = inv.getArgument(0);
-                    op.setOperationTimestamp(Timestamp.from(Instant.now()));
-                    return op;
-                });
+                stubAuditInsert();
 
                 // When
                 outboundService.execute(request, httpRequest);
 
                 // Then
-                verify(outboundOperationRepository).save(argThat(op -> {
+                verify(outboundOperationRepository).insertAll(argThat(ops -> {
+                    OutboundOperation op = ops.get(0);
                     assertThat(op.getRackMarker()).isEqualTo("A-01");
                     assertThat(op.getIssuedByName()).isEqualTo("Jan Kowalski");
                     assertThat(op.getItemCode()).isEqualTo("0112345678901234");
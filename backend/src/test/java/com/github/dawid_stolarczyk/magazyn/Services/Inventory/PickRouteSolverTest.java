@@ -0,0 +1,150 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PickRouteSolverTest {
+
+    private static PickRouteSolver randomStops(int n, long seed) {
+        Random random = new Random(seed);
+        int[] warehouse = new int[n];
+        int[] zone = new int[n];
+        int[] aisle = new int[n];
+        int[] x = new int[n];
+        int[] y = new int[n];
+        for (int i = 0; i < n; i++) {
+            zone[i] = random.nextInt(4);
+            aisle[i] = random.nextInt(20);
+            x[i] = 1 + random.nextInt(10);
+            y[i] = 1 + random.nextInt(5);
+        }
+        return new PickRouteSolver(warehouse, zone, aisle, x, y);
+    }
+
+    @Nested
+    @DisplayName("solve")
+    class Solve {
+
+        @Test
+        void should_VisitAislesInOrder_When_StopsShuffled() {
+            // Given — one zone, aisles 3, 0, 2, 1
+            PickRouteSolver solver = new PickRouteSolver(
+                    new int[]{0, 0, 0, 0},
+                    new int[]{0, 0, 0, 0},
+                    new int[]{3, 0, 2, 1},
+                    new int[]{1, 1, 1, 1},
+                    new int[]{1, 1, 1, 1});
+
+            // When
+            int[] route = solver.solve();
+
+            // Then
+            assertThat(route).containsExactly(1, 3, 2, 0);
+            assertThat(solver.routeLength(route)).isEqualTo(3L * PickRouteSolver.AISLE_DISTANCE);
+        }
+
+        @Test
+        void should_FinishWarehouseBeforeMovingToNext_When_StopsSpanWarehouses() {
+            // Given
+            PickRouteSolver solver = new PickRouteSolver(
+                    new int[]{1, 0, 1, 0},
+                    new int[]{0, 0, 0, 0},
+                    new int[]{0, 0, 1, 1},
+                    new int[]{1, 1, 1, 1},
+                    new int[]{1, 1, 1, 1});
+
+            // When
+            int[] route = solver.solve();
+
+            // Then — exactly one warehouse change
+            assertThat(solver.routeLength(route))
+                    .isEqualTo(PickRouteSolver.WAREHOUSE_DISTANCE + 2L * PickRouteSolver.AISLE_DISTANCE);
+        }
+
+        @Test
+        void should_ReturnPermutationNoLongerThanInputOrder_When_ThousandStops() {
+            // Given
+            PickRouteSolver solver = randomStops(1000, 42L);
+            int[] identity = IntStream.range(0, 1000).toArray();
+
+            // When
+            int[] route = solver.solve();
+
+            // Then
+            assertThat(Arrays.stream(route).sorted().toArray()).isEqualTo(identity);
+            assertThat(solver.routeLength(route)).isLessThan(solver.routeLength(identity));
+        }
+
+        @Test
+        void should_SolveMaximumWaveWithinBudget_When_FiveThousandStops() {
+            // Given — OutboundService.MAX_WAVE_SLOTS stops, extra starts on a bounded pool
+            PickRouteSolver solver = randomStops(5000, 7L);
+            int[] identity = IntStream.range(0, 5000).toArray();
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                // When
+                long startedAt = System.nanoTime();
+                int[] route = solver.solve(executor, 2000);
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+                // Then
+                assertThat(Arrays.stream(route).sorted().toArray()).isEqualTo(identity);
+                assertThat(solver.routeLength(route)).isLessThan(solver.routeLength(identity) / 10);
+                assertThat(elapsedMillis).isLessThan(10_000L);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void should_ReturnValidRoute_When_TimeBudgetExhausted() {
+            // Given
+            PickRouteSolver solver = randomStops(3000, 11L);
+            int[] identity = IntStream.range(0, 3000).toArray();
+
+            // When — budget expires before 2-opt gets going
+            int[] route = solver.solve(Runnable::run, 1);
+
+            // Then — still a full permutation built by the nearest neighbour pass
+            assertThat(Arrays.stream(route).sorted().toArray()).isEqualTo(identity);
+        }
+
+        @Test
+        void should_SkipExtraStarts_When_ExecutorRejectsWork() {
+            // Given
+            PickRouteSolver solver = randomStops(200, 3L);
+            int[] identity = IntStream.range(0, 200).toArray();
+
+            // When
+            int[] route = solver.solve(task -> {
+                throw new RejectedExecutionException("pool full");
+            }, 0);
+
+            // Then
+            assertThat(Arrays.stream(route).sorted().toArray()).isEqualTo(identity);
+            assertThat(solver.routeLength(route)).isLessThan(solver.routeLength(identity));
+        }
+
+        @Test
+        void should_HandleTrivialInputs() {
+            // Given
+            PickRouteSolver empty = new PickRouteSolver(new int[0], new int[0], new int[0], new int[0], new int[0]);
+            PickRouteSolver single = new PickRouteSolver(new int[1], new int[1], new int[1], new int[1], new int[1]);
+
+            // When / Then
+            assertThat(empty.solve()).isEmpty();
+            assertThat(single.solve()).containsExactly(0);
+        }
+    }
+}
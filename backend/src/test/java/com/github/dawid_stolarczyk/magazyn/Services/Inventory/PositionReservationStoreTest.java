@@ -0,0 +1,104 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Inventory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PositionReservationStoreTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @InjectMocks
+    private PositionReservationStore reservationStore;
+
+    @Nested
+    @DisplayName("reserveAll")
+    class ReserveAll {
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_ReturnFalse_When_ScriptReportsConflict() {
+            // Given
+            when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(0L);
+
+            // When
+            boolean reserved = reservationStore.reserveAll(
+                    List.of(new PositionReservationStore.Position(10L, 1, 1)), 100L, Instant.now().plusSeconds(60));
+
+            // Then
+            assertThat(reserved).isFalse();
+        }
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_PassOneKeyPerRack_When_PositionsSpanRacks() {
+            // Given
+            when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+
+            // When
+            boolean reserved = reservationStore.reserveAll(List.of(
+                    new PositionReservationStore.Position(10L, 1, 1),
+                    new PositionReservationStore.Position(10L, 2, 1),
+                    new PositionReservationStore.Position(11L, 1, 1)), 100L, Instant.now().plusSeconds(60));
+
+            // Then
+            assertThat(reserved).isTrue();
+            verify(redisTemplate).execute(any(RedisScript.class),
+                    eq(List.of(PositionReservationStore.key(10L), PositionReservationStore.key(11L))),
+                    any(Object[].class));
+        }
+
+        @Test
+        void should_SkipRedis_When_NoPositions() {
+            // When
+            boolean reserved = reservationStore.reserveAll(List.of(), 100L, Instant.now());
+
+            // Then
+            assertThat(reserved).isTrue();
+            verifyNoInteractions(redisTemplate);
+        }
+    }
+
+    @Nested
+    @DisplayName("findActive")
+    class FindActive {
+
+        @Test
+        @SuppressWarnings("unchecked")
+        void should_SkipExpiredEntries_When_ReadingRackHash() {
+            // Given
+            long future = Instant.now().plusSeconds(300).toEpochMilli();
+            long past = Instant.now().minusSeconds(5).toEpochMilli();
+            when(redisTemplate.executePipelined(any(RedisCallback.class)))
+                    .thenReturn(List.of(Map.of("1:2", "100:" + future, "3:1", "200:" + past), Map.of()));
+
+            // When
+            Map<Long, List<PositionReservationStore.Reservation>> active = reservationStore.findActive(List.of(10L, 11L));
+
+            // Then
+            assertThat(active).containsOnlyKeys(10L);
+            PositionReservationStore.Reservation reservation = active.get(10L).get(0);
+            assertThat(active.get(10L)).hasSize(1);
+            assertThat(reservation.positionX()).isEqualTo(1);
+            assertThat(reservation.positionY()).isEqualTo(2);
+            assertThat(reservation.belongsTo(100L)).isTrue();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Inventory;
+
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Item;
+import com.github.dawid_stolarczyk.magazyn.Model.Entity.Rack;
+import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AssortmentRepository;
+import com.github.dawid_stolarczyk.magazyn.Repositories.Projection.RackOccupancyProjection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RackOccupancyIndexTest {
+
+    @Mock
+    private AssortmentRepository assortmentRepository;
+
+    @InjectMocks
+    private RackOccupancyIndex rackOccupancyIndex;
+
+    private Rack sampleRack;
+
+    @BeforeEach
+    void setUp() {
+        sampleRack = new Rack();
+        sampleRack.setId(10L);
+        sampleRack.setSize_x(3);
+        sampleRack.setSize_y(2);
+    }
+
+    private static RackOccupancyProjection row(Long rackId, Integer x, Integer y, Long itemId, Float weight,
+                                               Float minTemp, Float maxTemp) {
+        return new RackOccupancyProjection() {
+            @Override
+            public Long getRackId() {
+                return rackId;
+            }
+
+            @Override
+            public Integer getPositionX() {
+                return x;
+            }
+
+            @Override
+            public Integer getPositionY() {
+                return y;
+            }
+
+            @Override
+            public Long getItemId() {
+                return itemId;
+            }
+
+            @Override
+            public Float getWeight() {
+                return weight;
+            }
+
+            @Override
+            public Float getMinTemp() {
+                return minTemp;
+            }
+
+            @Override
+            public Float getMaxTemp() {
+                return maxTemp;
+            }
+        };
+    }
+
+    private static Item item(Long id, float weight, float minTemp, float maxTemp) {
+        Item item = new Item();
+        item.setId(id);
+        item.setWeight(weight);
+        item.setMin_temp(minTemp);
+        item.setMax_temp(maxTemp);
+        return item;
+    }
+
+    @Nested
+    @DisplayName("getOccupancies")
+    class GetOccupancies {
+
+        @Test
+        void should_LoadMissingRacksOnce_When_CalledRepeatedly() {
+            // Given
+            when(assortmentRepository.findOccupancyByRackIds(anyCollection()))
+                    .thenReturn(List.of(row(10L, 1, 1, 1L, 5f, 0f, 8f), row(10L, 3, 2, 2L, 2.5f, -5f, 25f)));
+
+            // When
+            Map<Long, RackOccupancy> first = rackOccupancyIndex.getOccupancies(List.of(sampleRack));
+            Map<Long, RackOccupancy> second = rackOccupancyIndex.getOccupancies(List.of(sampleRack));
+
+            // Then
+            RackOccupancy occupancy = first.get(10L);
+            assertThat(occupancy.getAssortmentCount()).isEqualTo(2);
+            assertThat(occupancy.getLoad()).isEqualTo(7.5d);
+            assertThat(occupancy.isOccupied(1, 1)).isTrue();
+            assertThat(occupancy.isOccupied(3, 2)).isTrue();
+            assertThat(occupancy.isOccupied(2, 1)).isFalse();
+            assertThat(occupancy.itemsTooWarmFor(10f)).extracting(RackOccupancy.ItemTolerance::itemId)
+                    .containsExactly(1L);
+            assertThat(second.get(10L)).isSameAs(occupancy);
+            verify(assortmentRepository, times(1)).findOccupancyByRackIds(anyCollection());
+        }
+
+        @Test
+        void should_ReloadRack_When_DimensionsChanged() {
+            // Given
+            when(assortmentRepository.findOccupancyByRackIds(anyCollection())).thenReturn(List.of());
+            rackOccupancyIndex.getOccupancies(List.of(sampleRack));
+
+            // When
+            sampleRack.setSize_x(4);
+            RackOccupancy occupancy = rackOccupancyIndex.getOccupancies(List.of(sampleRack)).get(10L);
+
+            // Then
+            assertThat(occupancy.hasDimensions(4, 2)).isTrue();
+            verify(assortmentRepository, times(2)).findOccupancyByRackIds(anyCollection());
+        }
+    }
+
+    @Nested
+    @DisplayName("incremental updates")
+    class IncrementalUpdates {
+
+        @Test
+        void should_TrackPlacementAndRemoval_When_RackCached() {
+            // Given
+            when(assortmentRepository.findOccupancyByRackIds(anyCollection())).thenReturn(List.of());
+            RackOccupancy occupancy = rackOccupancyIndex.getOccupancies(List.of(sampleRack)).get(10L);
+            Item chilled = item(1L, 1f, 2f, 8f);
+            Item frozen = item(2L, 4f, -30f, -18f);
+
+            // When
+            rackOccupancyIndex.recordPlacement(10L, 2, 1, frozen);
+            rackOccupancyIndex.recordPlacement(10L, 1, 2, chilled);
+            rackOccupancyIndex.recordRemoval(10L, 2, 1, frozen);
+
+            // Then
+            assertThat(occupancy.getAssortmentCount()).isEqualTo(1);
+            assertThat(occupancy.getLoad()).isEqualTo(1.0d);
+            assertThat(occupancy.isOccupied(2, 1)).isFalse();
+            assertThat(occupancy.isOccupied(1, 2)).isTrue();
+            assertThat(occupancy.itemsTooWarmFor(-10f)).isEmpty();
+            assertThat(occupancy.itemsTooColdFor(0f)).extracting(RackOccupancy.ItemTolerance::itemId)
+                    .containsExactly(1L);
+        }
+
+        @Test
+        void should_ReloadFromDatabase_When_Invalidated() {
+            // Given
+            when(assortmentRepository.findOccupancyByRackIds(anyCollection())).thenReturn(List.of());
+            rackOccupancyIndex.getOccupancies(List.of(sampleRack));
+
+            // When
+            rackOccupancyIndex.invalidateAll();
+            rackOccupancyIndex.getOccupancies(List.of(sampleRack));
+
+            // Then
+            verify(assortmentRepository, times(2)).findOccupancyByRackIds(anyCollection());
+        }
+    }
+
+    @Nested
+    @DisplayName("RackOccupancy cells")
+    class Cells {
+
+        @Test
+        void should_IterateFreeCellsRowByRow_When_SomeCellsBlocked() {
+            // Given — 3x2 rack, (1,1) occupied, (3,1) blocked by reservation
+            RackOccupancy occupancy = new RackOccupancy(3, 2);
+            occupancy.add(1, 1, 1L, 0, 0f, 25f);
+            long[] blocked = occupancy.snapshotCells();
+            RackOccupancy.markCell(blocked, occupancy.cellIndex(3, 1));
+
+            // When
+            int first = RackOccupancy.nextFreeCell(blocked, 0, occupancy.getTotalCells());
+            int second = RackOccupancy.nextFreeCell(blocked, first + 1, occupancy.getTotalCells());
+
+            // Then
+            assertThat(occupancy.cellX(first)).isEqualTo(2);
+            assertThat(occupancy.cellY(first)).isEqualTo(1);
+            assertThat(occupancy.cellX(second)).isEqualTo(1);
+            assertThat(occupancy.cellY(second)).isEqualTo(2);
+            assertThat(RackOccupancy.countMarked(blocked)).isEqualTo(2);
+            assertThat(occupancy.isOccupied(3, 1)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("RackOccupancy tolerances")
+    class Tolerances {
+
+        @Test
+        void should_ReturnOnlyViolatedItems_When_ReadingOutsideSomeTolerances() {
+            // Given
+            RackOccupancy occupancy = new RackOccupancy(3, 2);
+            occupancy.add(1, 1, 1L, 1.0, 2f, 8f);
+            occupancy.add(2, 1, 2L, 1.0, 0f, 25f);
+
+            // When / Then
+            assertThat(occupancy.itemsTooWarmFor(8f)).isEmpty();
+            assertThat(occupancy.itemsTooWarmFor(10f)).extracting(RackOccupancy.ItemTolerance::itemId)
+                    .containsExactly(1L);
+            assertThat(occupancy.itemsTooWarmFor(30f)).hasSize(2);
+            assertThat(occupancy.itemsTooColdFor(2f)).isEmpty();
+            assertThat(occupancy.itemsTooColdFor(1f)).extracting(RackOccupancy.ItemTolerance::itemId)
+                    .containsExactly(1L);
+        }
+
+        @Test
+        void should_ResetLoad_When_LastAssortmentRemoved() {
+            // Given
+            RackOccupancy occupancy = new RackOccupancy(3, 2);
+            occupancy.add(1, 1, 1L, 0.1, 2f, 8f);
+            occupancy.add(2, 1, 1L, 0.2, 2f, 8f);
+
+            // When
+            occupancy.remove(1, 1, 1L, 0.1);
+            occupancy.remove(2, 1, 1L, 0.2);
+
+            // Then
+            assertThat(occupancy.getLoad()).isZero();
+            assertThat(occupancy.itemsTooWarmFor(30f)).isEmpty();
+        }
+    }
+}
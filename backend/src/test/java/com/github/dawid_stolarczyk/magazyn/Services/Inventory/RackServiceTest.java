@@ -10,6 +10,9 @@ import com.github.dawid_stolarczyk.magazyn.Model.Entity.Warehouse;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AssortmentRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.WarehouseRepository;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.RackTelemetryWindow;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.TemperatureForecaster;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.UnreadNotificationCounter;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +23,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -28,6 +33,7 @@ import java.util.Optional;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -49,6 +55,19 @@ class RackServiceTest {
     @Mock
     private HttpServletRequest httpRequest;
 
+    @Mock
+    private RackOccupancyIndex rackOccupancyIndex;
+    @Mock
+    private RackTelemetryWindow telemetryWindow;
+    @Mock
+    private TemperatureForecaster temperatureForecaster;
+
+    @Mock
+    private PositionReservationStore reservationStore;
+
+    @Mock
+    private UnreadNotificationCounter unreadNotificationCounter;
+
     @InjectMocks
     private RackService rackService;
 
@@ -56,7 +75,7 @@ class RackServiceTest {
 
     @BeforeEach
     void setUp() {
-        when(httpRequest.getRemoteAddr()).thenReturn("127.0.0.1");
+        lenient().when(httpRequest.getRemoteAddr()).thenReturn("127.0.0.1");
 
         sampleWarehouse = Warehouse.builder()
                 .id(1L)
@@ -314,6 +333,56 @@ class RackServiceTest {
 
             // Then
             verify(rackRepository).delete(rack);
+            verify(unreadNotificationCounter).invalidateAll();
+        }
+
+        @Test
+        void should_ClearReservationsOnlyAfterCommit_When_DeletedInTransaction() {
+            // Given
+            Rack rack = buildRack(10L, "A-01", sampleWarehouse);
+            when(rackRepository.findById(10L)).thenReturn(Optional.of(rack));
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                // When
+                rackService.deleteRack(10L, httpRequest);
+
+                // Then — nothing cleared before commit, rollback leaves reservations alone
+                verify(reservationStore, never()).clearRack(anyLong());
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+                verify(reservationStore, never()).clearRack(anyLong());
+                verify(temperatureForecaster, never()).remove(anyLong());
+
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                verify(reservationStore).clearRack(10L);
+                verify(telemetryWindow).remove(10L);
+                verify(temperatureForecaster).remove(10L);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        @Test
+        void should_ClearStateOfEveryRackAfterCommit_When_RacksDeletedByWarehouseCascade() {
+            // Given
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                // When
+                rackService.onRacksDeleted(List.of(10L, 11L));
+
+                // Then
+                verify(rackOccupancyIndex).invalidate(10L);
+                verify(rackOccupancyIndex).invalidate(11L);
+                verify(reservationStore, never()).clearRack(anyLong());
+
+                TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+                verify(reservationStore).clearRack(10L);
+                verify(reservationStore).clearRack(11L);
+                verify(telemetryWindow).remove(11L);
+                verify(temperatureForecaster).remove(11L);
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
         }
 
         @Test
@@ -37,6 +37,9 @@ class WarehouseServiceTest {
     @Mock
     private AssortmentRepository assortmentRepository;
 
+    @Mock
+    private RackService rackService;
+
     @Mock
     private Bucket4jRateLimiter rateLimiter;
 
@@ -166,6 +169,25 @@ class WarehouseServiceTest {
 
             // Then
             verify(warehouseRepository).delete(wh);
+            verify(rackService).onRacksDeleted(List.of());
+        }
+
+        @Test
+        void should_ClearStateOfCascadedRacks_When_DeleteWarehouseWithRacks() {
+            // Given
+            Rack first = new Rack();
+            first.setId(10L);
+            Rack second = new Rack();
+            second.setId(11L);
+            Warehouse wh = buildWarehouse(1L, "To Delete", new ArrayList<>(List.of(first, second)));
+            when(warehouseRepository.findById(1L)).thenReturn(Optional.of(wh));
+
+            // When
+            warehouseService.deleteWarehouse(1L, httpRequest);
+
+            // Then
+            verify(warehouseRepository).delete(wh);
+            verify(rackService).onRacksDeleted(List.of(10L, 11L));
         }
 
         @Test
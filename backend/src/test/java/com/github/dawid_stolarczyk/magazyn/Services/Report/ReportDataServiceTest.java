@@ -4,8 +4,10 @@ import com.github.dawid_stolarczyk.magazyn.Controller.Dto.Report.ExpiryReportRow
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.Report.InventoryStockReportRow;
 import com.github.dawid_stolarczyk.magazyn.Controller.Dto.Report.TemperatureAlertRackReportRow;
 import com.github.dawid_stolarczyk.magazyn.Model.Entity.*;
+import com.github.dawid_stolarczyk.magazyn.Model.Enums.TelemetryResolution;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.AssortmentRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.RackReportRepository;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.TelemetryRollupService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -34,6 +36,8 @@ class ReportDataServiceTest {
     private AssortmentRepository assortmentRepository;
     @Mock
     private RackReportRepository rackReportRepository;
+    @Mock
+    private TelemetryRollupService telemetryRollupService;
 
     @InjectMocks
     private ReportDataService reportDataService;
@@ -221,5 +225,34 @@ class ReportDataServiceTest {
             assertThat(result).hasSize(1);
             assertThat(result.get(0).getViolationType()).isEqualTo("Za niska temperatura");
         }
+
+        @Test
+        @DisplayName("should_ReadRollups_When_RangeStartsBeforeRawRetention")
+        void should_ReadRollups_When_RangeStartsBeforeRawRetention() {
+            // Given
+            Instant rawCutoff = Instant.now().minus(7, ChronoUnit.DAYS);
+            Instant start = Instant.now().minus(30, ChronoUnit.DAYS);
+            Instant end = Instant.now();
+            RackReportRollup rollup = RackReportRollup.builder()
+                    .rack(sampleRack)
+                    .resolution(TelemetryResolution.HOUR)
+                    .bucketStart(start.plus(1, ChronoUnit.DAYS))
+                    .sampleCount(60)
+                    .minTemperature(-5f)
+                    .maxTemperature(34f) // exceeds max 30
+                    .build();
+            when(telemetryRollupService.getRawRetentionCutoff()).thenReturn(rawCutoff);
+            when(rackReportRepository.findAlertTriggeredReports(1L, rawCutoff, end)).thenReturn(List.of());
+            when(telemetryRollupService.findTemperatureViolations(1L, start, rawCutoff)).thenReturn(List.of(rollup));
+
+            // When
+            List<TemperatureAlertRackReportRow> result = reportDataService.collectTemperatureAlertRacksData(1L, start, end);
+
+            // Then
+            assertThat(result).hasSize(1);
+            assertThat(result.get(0).getRecordedTemperature()).isEqualTo(34f);
+            assertThat(result.get(0).getViolationType()).isEqualTo("Za wysoka temperatura");
+            assertThat(result.get(0).getSensorId()).isNull();
+        }
     }
 }
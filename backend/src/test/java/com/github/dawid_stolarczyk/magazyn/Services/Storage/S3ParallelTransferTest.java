@@ -0,0 +1,324 @@
+package com.github.dawid_stolarczyk.magazyn.Services.Storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class S3ParallelTransferTest {
+
+    private static final int PART_SIZE = 5 * 1024 * 1024;
+
+    private InMemoryS3Client s3;
+    private ExecutorService executor;
+    private S3ParallelTransfer transfer;
+
+    @BeforeEach
+    void setUp() {
+        s3 = new InMemoryS3Client();
+        executor = Executors.newFixedThreadPool(4);
+        transfer = new S3ParallelTransfer(s3, executor);
+        ReflectionTestUtils.setField(transfer, "bucketName", "bucket");
+        ReflectionTestUtils.setField(transfer, "partSizeMb", 5);
+        ReflectionTestUtils.setField(transfer, "concurrency", 3);
+        ReflectionTestUtils.setField(transfer, "maxBuffers", 6);
+        transfer.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+
+    @Nested
+    @DisplayName("upload")
+    class Upload {
+
+        @Test
+        void should_UseSinglePut_When_StreamFitsInOnePart() throws Exception {
+            // Given
+            byte[] data = randomBytes(1024);
+
+            // When
+            long bytes = transfer.upload("photos/a.png", new ByteArrayInputStream(data), "image/png");
+
+            // Then
+            assertThat(bytes).isEqualTo(1024);
+            assertThat(s3.puts.get()).isEqualTo(1);
+            assertThat(s3.partUploads.get()).isZero();
+            assertThat(s3.objects.get("photos/a.png")).isEqualTo(data);
+        }
+
+        @Test
+        void should_UploadPartsInParallel_And_AssembleThemInOrder() throws Exception {
+            // Given
+            byte[] data = randomBytes(3 * PART_SIZE + 123);
+
+            // When
+            long bytes = transfer.upload("backups/big.enc", new ByteArrayInputStream(data), "application/octet-stream");
+
+            // Then
+            assertThat(bytes).isEqualTo(data.length);
+            assertThat(s3.partUploads.get()).isEqualTo(4);
+            assertThat(s3.maxPartsInFlight.get()).isBetween(2, 3);
+            assertThat(s3.objects.get("backups/big.enc")).isEqualTo(data);
+            assertThat(transfer.availableBuffers()).isEqualTo(6);
+        }
+
+        @Test
+        void should_AbortUpload_And_ReturnBuffers_When_PartFails() {
+            // Given
+            s3.failingPartNumber = 2;
+            byte[] data = randomBytes(4 * PART_SIZE);
+
+            // When / Then
+            assertThatThrownBy(() -> transfer.upload("backups/broken.enc", new ByteArrayInputStream(data), "application/octet-stream"))
+                    .isInstanceOf(IOException.class);
+            assertThat(s3.aborts.get()).isEqualTo(1);
+            assertThat(s3.objects).doesNotContainKey("backups/broken.enc");
+            assertThat(transfer.availableBuffers()).isEqualTo(6);
+        }
+    }
+
+    @Nested
+    @DisplayName("download")
+    class Download {
+
+        @Test
+        void should_ReturnFirstResponse_When_ObjectFitsInOnePart() throws Exception {
+            // Given
+            byte[] data = randomBytes(2048);
+            s3.objects.put("photos/b.png", data);
+
+            // When
+            byte[] read;
+            try (InputStream in = transfer.download("photos/b.png")) {
+                read = in.readAllBytes();
+            }
+
+            // Then
+            assertThat(read).isEqualTo(data);
+            assertThat(s3.gets.get()).isEqualTo(1);
+        }
+
+        @Test
+        void should_FetchRangesInParallel_And_ReassembleInOrder() throws Exception {
+            // Given
+            byte[] data = randomBytes(4 * PART_SIZE + 7);
+            s3.objects.put("backups/big.enc", data);
+
+            // When
+            byte[] read;
+            try (InputStream in = transfer.download("backups/big.enc")) {
+                read = in.readAllBytes();
+            }
+
+            // Then
+            assertThat(read).isEqualTo(data);
+            assertThat(s3.gets.get()).isEqualTo(5);
+            assertThat(transfer.availableBuffers()).isEqualTo(6);
+        }
+
+        @Test
+        void should_ReturnBuffers_When_ClosedBeforeEnd() throws Exception {
+            // Given
+            s3.objects.put("backups/big.enc", randomBytes(6 * PART_SIZE));
+
+            // When
+            try (InputStream in = transfer.download("backups/big.enc")) {
+                in.readNBytes(PART_SIZE + 10);
+            }
+
+            // Then
+            executor.shutdown();
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(transfer.availableBuffers()).isEqualTo(6);
+        }
+
+        @Test
+        void should_KeepBufferOutOfPool_Until_RunningPartFinishes_When_ClosedDuringDownload() throws Exception {
+            // Given
+            s3.objects.put("backups/big.enc", randomBytes(6 * PART_SIZE));
+            s3.rangeGate = new CountDownLatch(1);
+            s3.rangesBlocked = new CountDownLatch(3);
+            InputStream in = transfer.download("backups/big.enc");
+            in.readNBytes(10);
+            assertThat(s3.rangesBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // When
+            in.close();
+
+            // Then
+            assertThat(transfer.availableBuffers()).isEqualTo(3);
+            s3.rangeGate.countDown();
+            executor.shutdown();
+            assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(transfer.availableBuffers()).isEqualTo(6);
+        }
+    }
+
+    /**
+     * Minimal in-memory S3-compatible stub: single bucket, multipart uploads and ranged GETs.
+     */
+    static class InMemoryS3Client implements S3Client {
+        final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        private final Map<String, ConcurrentSkipListMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+        final AtomicInteger puts = new AtomicInteger();
+        final AtomicInteger partUploads = new AtomicInteger();
+        final AtomicInteger aborts = new AtomicInteger();
+        final AtomicInteger gets = new AtomicInteger();
+        final AtomicInteger maxPartsInFlight = new AtomicInteger();
+        private final AtomicInteger partsInFlight = new AtomicInteger();
+        volatile int failingPartNumber = -1;
+        volatile CountDownLatch rangeGate;
+        volatile CountDownLatch rangesBlocked;
+
+        private static byte[] read(RequestBody body) {
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                return in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static String eTag(byte[] data) {
+            return "\"" + Arrays.hashCode(data) + "\"";
+        }
+
+        @Override
+        public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+            puts.incrementAndGet();
+            byte[] data = read(body);
+            objects.put(request.key(), data);
+            return PutObjectResponse.builder().eTag(eTag(data)).build();
+        }
+
+        @Override
+        public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+            String uploadId = UUID.randomUUID().toString();
+            uploads.put(uploadId, new ConcurrentSkipListMap<>());
+            return CreateMultipartUploadResponse.builder().uploadId(uploadId).build();
+        }
+
+        @Override
+        public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+            int inFlight = partsInFlight.incrementAndGet();
+            maxPartsInFlight.accumulateAndGet(inFlight, Math::max);
+            try {
+                partUploads.incrementAndGet();
+                byte[] data = read(body);
+                Thread.sleep(50);
+                if (request.partNumber() == failingPartNumber) {
+                    throw S3Exception.builder().statusCode(500).message("part failed").build();
+                }
+                uploads.get(request.uploadId()).put(request.partNumber(), data);
+                return UploadPartResponse.builder().eTag(eTag(data)).build();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw S3Exception.builder().statusCode(500).message("interrupted").build();
+            } finally {
+                partsInFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            ConcurrentSkipListMap<Integer, byte[]> parts = uploads.remove(request.uploadId());
+            int size = parts.values().stream().mapToInt(part -> part.length).sum();
+            byte[] data = new byte[size];
+            int offset = 0;
+            for (CompletedPart completed : request.multipartUpload().parts()) {
+                byte[] part = parts.get(completed.partNumber());
+                System.arraycopy(part, 0, data, offset, part.length);
+                offset += part.length;
+            }
+            objects.put(request.key(), data);
+            return CompleteMultipartUploadResponse.builder().eTag(eTag(data)).build();
+        }
+
+        @Override
+        public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+            aborts.incrementAndGet();
+            uploads.remove(request.uploadId());
+            return AbortMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+            gets.incrementAndGet();
+            byte[] data = objects.get(request.key());
+            if (data == null) {
+                throw NoSuchKeyException.builder().statusCode(404).message("no such key").build();
+            }
+            if (request.ifMatch() != null && !request.ifMatch().equals(eTag(data))) {
+                throw S3Exception.builder().statusCode(412).message("precondition failed").build();
+            }
+            GetObjectResponse.Builder response = GetObjectResponse.builder().eTag(eTag(data));
+            int start = 0;
+            int end = data.length - 1;
+            if (request.range() != null) {
+                String[] bounds = request.range().substring("bytes=".length()).split("-");
+                start = Integer.parseInt(bounds[0]);
+                end = Math.min(Integer.parseInt(bounds[1]), data.length - 1);
+                if (start > 0 && rangeGate != null) {
+                    awaitGate();
+                }
+                response.contentRange("bytes " + start + "-" + end + "/" + data.length);
+            }
+            response.contentLength((long) (end - start + 1));
+            return new ResponseInputStream<>(response.build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(data, start, end - start + 1)));
+        }
+
+        private void awaitGate() {
+            rangesBlocked.countDown();
+            try {
+                rangeGate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw S3Exception.builder().statusCode(500).message("interrupted").build();
+            }
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
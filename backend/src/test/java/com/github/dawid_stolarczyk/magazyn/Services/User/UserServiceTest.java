@@ -5,6 +5,8 @@ import com.github.dawid_stolarczyk.magazyn.Model.Entity.Warehouse;
 import com.github.dawid_stolarczyk.magazyn.Model.Enums.UserTeam;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.UserRepository;
 import com.github.dawid_stolarczyk.magazyn.Repositories.JPA.WarehouseRepository;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.NotificationDispatcher;
+import com.github.dawid_stolarczyk.magazyn.Services.Alerts.UnreadNotificationCounter;
 import com.github.dawid_stolarczyk.magazyn.Services.Ratelimiter.Bucket4jRateLimiter;
 import com.github.dawid_stolarczyk.magazyn.Utils.InternetUtils;
 import jakarta.servlet.http.HttpServletRequest;
@@ -36,6 +38,10 @@ class UserServiceTest {
     @Mock
     private Bucket4jRateLimiter rateLimiter;
     @Mock
+    private NotificationDispatcher notificationDispatcher;
+    @Mock
+    private UnreadNotificationCounter unreadCounter;
+    @Mock
     private HttpServletRequest request;
 
     @InjectMocks
@@ -84,6 +90,7 @@ class UserServiceTest {
         // Then
         assertThat(sampleUser.getAssignedWarehouses()).contains(sampleWarehouse);
         verify(userRepository).save(sampleUser);
+        verify(notificationDispatcher).invalidateRecipients();
     }
 
     @Test
@@ -99,5 +106,6 @@ class UserServiceTest {
         // Then
         assertThat(sampleUser.getAssignedWarehouses()).doesNotContain(sampleWarehouse);
         verify(userRepository).save(sampleUser);
+        verify(notificationDispatcher).invalidateRecipients();
     }
 }
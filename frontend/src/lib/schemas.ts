@@ -1597,6 +1597,8 @@ export const AlertTypeSchema = z.enum([
   "RESTORE_FAILED",
   "ADMIN_MESSAGE",
   "UNAUTHORIZED_OUTBOUND",
+  "TEMPERATURE_FORECAST_TOO_HIGH",
+  "TEMPERATURE_FORECAST_TOO_LOW",
 ])
 
 export type AlertType = z.infer<typeof AlertTypeSchema>
@@ -1666,6 +1668,14 @@ const ALERT_TYPE_OPTION_KEYS = [
     value: "UNAUTHORIZED_OUTBOUND",
     labelKey: "generated.validation.unauthorizedOutbound",
   },
+  {
+    value: "TEMPERATURE_FORECAST_TOO_HIGH",
+    labelKey: "generated.validation.temperatureForecastTooHigh",
+  },
+  {
+    value: "TEMPERATURE_FORECAST_TOO_LOW",
+    labelKey: "generated.validation.temperatureForecastTooLow",
+  },
 ] as const
 
 export const getAlertTypeOptions = (t: AppTranslate) =>